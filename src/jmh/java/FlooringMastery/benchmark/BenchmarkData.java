@@ -0,0 +1,74 @@
+package FlooringMastery.benchmark;
+
+import FlooringMastery.dao.CatalogCache;
+import FlooringMastery.dao.FileDaoImpl;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.tools.OrderHistoryGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * The {@code BenchmarkData} class is responsible for creating synthetic
+ * Order directories for the benchmarks and deleting them afterwards.
+ */
+final class BenchmarkData {
+    // Date of the first synthetic Order file
+    static final LocalDate FIRST_DATE = LocalDate.of(2030, 1, 1);
+    // Number of Orders written to each synthetic Order file
+    static final int ORDERS_PER_DAY = 1000;
+    // Sample Order line, in the same format as the Order files
+    static final String SAMPLE_LINE = "4,Courtney Bowe,TX,6.250,Wood,300,5.15," +
+            "4.75,1545.00,1425.00,185.63,3155.63";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a temporary directory with an Orders directory holding the
+     * given number of Orders, ORDERS_PER_DAY per Order file, written by
+     * OrderHistoryGenerator
+     * @param orderCount number of Orders to write
+     * @return temporary directory containing the Orders directory
+     * @throws IOException if unable to write the Order files
+     */
+    static Path createOrderDirectory(int orderCount) throws IOException {
+        Path root = Files.createTempDirectory("flooring-benchmark");
+        int days = (orderCount + ORDERS_PER_DAY - 1) / ORDERS_PER_DAY;
+
+        try {
+            new OrderHistoryGenerator(root.resolve("Orders").toString(),
+                    new CatalogCache(), 42).generate(FIRST_DATE, days, ORDERS_PER_DAY, 1.0);
+        } catch (PersistenceException e) {
+            throw new IOException("Could not generate benchmark Orders.", e);
+        }
+
+        return root;
+    }
+
+    /**
+     * Creates a FileDaoImpl for a directory made by createOrderDirectory
+     * @param root temporary directory
+     * @return new FileDaoImpl
+     */
+    static FileDaoImpl newFileDao(Path root) {
+        return new FileDaoImpl(root.resolve("Orders").toString(),
+                root.resolve("DataExport.txt").toString());
+    }
+
+    /**
+     * Deletes a temporary directory and everything in it
+     * @param root temporary directory
+     * @throws IOException if unable to delete a file
+     */
+    static void delete(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+}
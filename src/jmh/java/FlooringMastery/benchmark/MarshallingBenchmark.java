@@ -0,0 +1,65 @@
+package FlooringMastery.benchmark;
+
+import FlooringMastery.dao.FileDao;
+import FlooringMastery.dao.FileDaoImpl;
+import FlooringMastery.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code MarshallingBenchmark} class measures converting a single
+ * Order to and from a line of an Order file. unmarshallOrderWithSplit is
+ * the String.split parser FileDaoImpl used before CsvTokenizer, kept as a
+ * baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MarshallingBenchmark {
+    private FileDao fileDao;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        fileDao = new FileDaoImpl();
+        order = fileDao.unmarshallOrder(BenchmarkData.SAMPLE_LINE);
+    }
+
+    @Benchmark
+    public Order unmarshallOrder() {
+        return fileDao.unmarshallOrder(BenchmarkData.SAMPLE_LINE);
+    }
+
+    @Benchmark
+    public Order unmarshallOrderWithSplit() {
+        String[] orderTokens = BenchmarkData.SAMPLE_LINE.split(",");
+        Order orderFromFile = new Order(Integer.parseInt(orderTokens[0]));
+        orderFromFile.setCustomerName(orderTokens[1]);
+        orderFromFile.setState(orderTokens[2]);
+        orderFromFile.setTaxRate(new BigDecimal(orderTokens[3]));
+        orderFromFile.setProductType(orderTokens[4]);
+        orderFromFile.setArea(new BigDecimal(orderTokens[5]));
+        orderFromFile.setCostPerSquareFoot(new BigDecimal(orderTokens[6]));
+        orderFromFile.setLaborCostPerSquareFoot(new BigDecimal(orderTokens[7]));
+        orderFromFile.setMaterialCost(new BigDecimal(orderTokens[8]));
+        orderFromFile.setLaborCost(new BigDecimal(orderTokens[9]));
+        orderFromFile.setTax(new BigDecimal(orderTokens[10]));
+        orderFromFile.setTotal(new BigDecimal(orderTokens[11]));
+        return orderFromFile;
+    }
+
+    @Benchmark
+    public String marshallOrder() {
+        return fileDao.marshallOrder(order);
+    }
+
+    @Benchmark
+    public String marshallOrderForExport() {
+        return fileDao.marshallOrderForExport(order, "01012030");
+    }
+}
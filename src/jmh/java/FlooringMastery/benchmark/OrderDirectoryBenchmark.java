@@ -0,0 +1,121 @@
+package FlooringMastery.benchmark;
+
+import FlooringMastery.dao.BinaryFileDaoImpl;
+import FlooringMastery.dao.ExportSummary;
+import FlooringMastery.dao.FileDaoImpl;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.model.Order;
+import FlooringMastery.tools.OrderFileConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code OrderDirectoryBenchmark} class measures the FileDaoImpl
+ * operations whose cost depends on the size of the Order directory:
+ * reading an Order file, generating an order number, and exporting.
+ * Reads are measured for both the CSV and the binary Order files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OrderDirectoryBenchmark {
+    // Total number of Orders in the synthetic Order directory
+    @Param({"1000", "100000", "1000000"})
+    public int orderCount;
+
+    private Path root;
+    private FileDaoImpl fileDao;
+    private BinaryFileDaoImpl binaryFileDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = BenchmarkData.createOrderDirectory(orderCount);
+        fileDao = BenchmarkData.newFileDao(root);
+        binaryFileDao = newBinaryFileDao();
+        try {
+            OrderFileConverter.convert(fileDao, binaryFileDao);
+        } catch (PersistenceException e) {
+            throw new IOException("Could not convert benchmark Orders.", e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(root);
+    }
+
+    /**
+     * Reads one full Order file
+     */
+    @Benchmark
+    public List<Order> readOrderFile() throws PersistenceException {
+        return fileDao.readOrderFile(BenchmarkData.FIRST_DATE);
+    }
+
+    /**
+     * Reads one full binary Order file
+     */
+    @Benchmark
+    public List<Order> readBinaryOrderFile() throws PersistenceException {
+        return binaryFileDao.readOrderFile(BenchmarkData.FIRST_DATE);
+    }
+
+    /**
+     * Generates an order number with a new FileDaoImpl, as the first
+     * order after the application starts does
+     */
+    @Benchmark
+    public int generateNewOrderNumAtStartup() throws PersistenceException {
+        return BenchmarkData.newFileDao(root).generateNewOrderNum();
+    }
+
+    /**
+     * Generates an order number with a new BinaryFileDaoImpl, which only
+     * reads the order number column of each file
+     */
+    @Benchmark
+    public int generateNewOrderNumAtStartupBinary() throws PersistenceException {
+        return newBinaryFileDao().generateNewOrderNum();
+    }
+
+    /**
+     * Generates an order number with a FileDaoImpl that already has
+     * generated one
+     */
+    @Benchmark
+    public int generateNewOrderNum() throws PersistenceException {
+        return fileDao.generateNewOrderNum();
+    }
+
+    /**
+     * Exports every Order file
+     */
+    @Benchmark
+    public ExportSummary exportAllData() throws PersistenceException {
+        return fileDao.exportAllData();
+    }
+
+    /**
+     * Exports only changed Order files, which after the first call is none
+     */
+    @Benchmark
+    public ExportSummary exportChangedData() throws PersistenceException {
+        return fileDao.exportChangedData();
+    }
+
+    /**
+     * Creates a BinaryFileDaoImpl for the converted Order files
+     * @return new BinaryFileDaoImpl
+     */
+    private BinaryFileDaoImpl newBinaryFileDao() {
+        return new BinaryFileDaoImpl(root.resolve("OrdersBinary").toString(),
+                root.resolve("DataExportBinary.txt").toString());
+    }
+}
@@ -0,0 +1,46 @@
+package FlooringMastery.benchmark;
+
+import FlooringMastery.dao.OrderDao;
+import FlooringMastery.dao.OrderDaoImpl;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code PricingBenchmark} class measures OrderDaoImpl.createNewOrder,
+ * which looks up the State and Product, calculates the material cost,
+ * labor cost, tax, and total, and assigns an order number.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PricingBenchmark {
+    private Path root;
+    private OrderDao orderDao;
+    private final BigDecimal area = new BigDecimal("1000.50");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = BenchmarkData.createOrderDirectory(BenchmarkData.ORDERS_PER_DAY);
+        orderDao = new OrderDaoImpl(root.resolve("Orders").toString(),
+                root.resolve("DataExport.txt").toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkData.delete(root);
+    }
+
+    @Benchmark
+    public Order createNewOrder() throws PersistenceException {
+        return orderDao.createNewOrder("Jim Bob", "TX", "Laminate", area);
+    }
+}
@@ -1,18 +1,137 @@
 package FlooringMastery;
 
 import FlooringMastery.controller.Controller;
+import FlooringMastery.controller.OrderServer;
 
+import FlooringMastery.dao.CsvTokenizer;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.dao.SalesReport;
+import FlooringMastery.model.OrderRequest;
+import FlooringMastery.service.OrderBuildException;
+import FlooringMastery.service.ServiceLayer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.stream.Stream;
+
 public class App {
+    // Date format of the import file and report dates, the same one the
+    // console uses
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMddyyyy");
+
     public static void main(String[] args) {
         ApplicationContext ctx =
                 new ClassPathXmlApplicationContext("applicationContext.xml");
 
+        // Import a file of new orders instead of running the menu
+        if (args.length == 2 && args[0].equals("--import")) {
+            System.exit(importOrders(ctx.getBean("serviceLayer", ServiceLayer.class),
+                    args[1]));
+        } else if ((args.length == 2 || args.length == 4) && args[0].equals("--report")) {
+            System.exit(printSalesReport(ctx.getBean("serviceLayer", ServiceLayer.class),
+                    args));
+        } else if (args.length == 1 && args[0].equals("--serve")) {
+            serve(ctx.getBean("orderServer", OrderServer.class));
+            return;
+        } else if (args.length > 0) {
+            System.err.println("Usage: App [--import ordersFile | --serve | "
+                    + "--report state|product|month [fromDate toDate]]");
+            System.exit(1);
+        }
+
         Controller controller = ctx.getBean("controller", Controller.class);
 
         // Run the controller
         controller.run();
     }
+
+    /**
+     * Serves orders over HTTP instead of running the menu, until the
+     * process is stopped
+     * @param server OrderServer to start
+     */
+    private static void serve(OrderServer server) {
+        try {
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Could not start the server: " + e.getMessage());
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Serving orders at http://localhost:" + server.getPort() + "/orders");
+    }
+
+    /**
+     * Prints a sales report grouped by State, Product, or month, over
+     * every order or the dates between fromDate and toDate (MMddyyyy)
+     * @param serviceLayer ServiceLayer to build the report through
+     * @param args --report, the grouping, and optionally the two dates
+     * @return exit status, 0 if the report was printed
+     */
+    private static int printSalesReport(ServiceLayer serviceLayer, String[] args) {
+        try {
+            SalesReport.Grouping grouping =
+                    SalesReport.Grouping.valueOf(args[1].toUpperCase());
+            LocalDate fromDate = args.length == 4 ? LocalDate.parse(args[2], DATE_FORMAT) : null;
+            LocalDate toDate = args.length == 4 ? LocalDate.parse(args[3], DATE_FORMAT) : null;
+
+            System.out.println(serviceLayer.getSalesReport(grouping, fromDate, toDate));
+            return 0;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("Could not read report arguments: " + e.getMessage());
+        } catch (PersistenceException e) {
+            System.err.println(e.getMessage());
+        }
+        return 1;
+    }
+
+    /**
+     * Imports new orders from a CSV file with the header
+     * OrderDate,CustomerName,State,ProductType,Area and dates as MMddyyyy
+     * @param serviceLayer ServiceLayer to import the orders through
+     * @param fileName name of the import file
+     * @return exit status, 0 if every order was imported
+     */
+    private static int importOrders(ServiceLayer serviceLayer, String fileName) {
+        try (Stream<String> lines = Files.lines(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            CsvTokenizer tokenizer = new CsvTokenizer(); // Reused for every line
+            Stream<OrderRequest> requests = lines.skip(1)
+                    .filter(line -> !line.isBlank())
+                    .map(line -> readOrderRequest(tokenizer.reset(line)));
+
+            System.out.println(serviceLayer.importOrders(requests));
+            return 0;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Could not read " + fileName + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Malformed date, number, or missing field
+            System.err.println("Could not parse " + fileName + ": " + e);
+        } catch (OrderBuildException | PersistenceException e) {
+            System.err.println(e.getMessage());
+        }
+        return 1;
+    }
+
+    /**
+     * Reads one line of the import file
+     * @param tokenizer tokenizer reset to the line
+     * @return OrderRequest for the line
+     */
+    private static OrderRequest readOrderRequest(CsvTokenizer tokenizer) {
+        LocalDate orderDate = LocalDate.parse(tokenizer.nextString().trim(), DATE_FORMAT);
+        String customerName = tokenizer.nextString().trim();
+        String state = tokenizer.nextString().trim().toUpperCase();
+        String productType = tokenizer.nextString().trim();
+        return new OrderRequest(orderDate, customerName, state, productType,
+                tokenizer.nextDecimal());
+    }
 }
@@ -1,6 +1,8 @@
 package FlooringMastery.controller;
 
+import FlooringMastery.dao.ExportSummary;
 import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.dao.SalesReport;
 import FlooringMastery.model.Order;
 import FlooringMastery.service.*;
 import FlooringMastery.ui.View;
@@ -55,7 +57,8 @@ public class Controller {
                 case 3 -> editOrder(); // Edit an existing order
                 case 4 -> removeOrder(); // Remove an existing order
                 case 5 -> exportAllData(); // Export all orders to a backup file
-                case 6 -> { // Quit Flooring Order App
+                case 6 -> displaySalesReport(); // Report sales totals by group
+                case 7 -> { // Quit Flooring Order App
                     runApplication = false;
                     quit();
                 }
@@ -225,8 +228,11 @@ public class Controller {
 
             switch (exportYorN) {
                 case 1 -> { // Export all order data
-                    serviceLayer.exportAllOrders();
-                    view.displayExportSuccessMsg();
+                    // Incremental export only re-reads changed order files
+                    ExportSummary exportSummary = view.getExportMode() == 1
+                            ? serviceLayer.exportChangedOrders()
+                            : serviceLayer.exportAllOrders();
+                    view.displayExportSuccessMsg(exportSummary);
                 }
                 case 2 -> view.skipExportMessage(); // Display skip export message
             }
@@ -235,6 +241,28 @@ public class Controller {
         }
     }
 
+    /**
+     * Prompts the user for what to group Orders by and which dates to
+     * include, then displays the sales totals of each group.
+     */
+    private void displaySalesReport() {
+        try {
+            SalesReport.Grouping grouping = view.getSalesReportGrouping();
+
+            // Report on every order unless the user enters a date range
+            LocalDate fromDate = null;
+            LocalDate toDate = null;
+            if (view.getSalesReportUsesDateRange()) {
+                fromDate = view.getSalesReportFromDate();
+                toDate = view.getSalesReportToDate(fromDate);
+            }
+
+            view.displaySalesReport(serviceLayer.getSalesReport(grouping, fromDate, toDate));
+        } catch (PersistenceException e) {
+            view.displayErrorMessage(e.getMessage());
+        }
+    }
+
     /**
      * Displays an exit message when the user wishes to exit the application.
      */
@@ -0,0 +1,343 @@
+package FlooringMastery.controller;
+
+import FlooringMastery.dao.ExportSummary;
+import FlooringMastery.model.Money;
+import FlooringMastery.model.Order;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * The {@code Json} class is responsible for reading the JSON request
+ * bodies of the HTTP front-end and writing Orders and results as JSON.
+ * Numbers are read as BigDecimal, and money is written with its exact
+ * number of decimal places, so no value is rounded through a double.
+ */
+final class Json {
+    // Most objects and arrays a value may be nested in, so deeply nested
+    // text is rejected before it can overflow the stack
+    static final int MAX_DEPTH = 32;
+
+    // Text being parsed and the position of the next character
+    private final String TEXT;
+    private int position;
+    // Objects and arrays the current position is nested in
+    private int depth;
+
+    /**
+     * Constructor accepts the text to parse
+     * @param text JSON text
+     */
+    private Json(String text) {
+        this.TEXT = text;
+    }
+
+    /**
+     * Parses a JSON object
+     * @param text JSON text holding one object
+     * @return map of member name to String, BigDecimal, Boolean, List,
+     * Map, or null value, in the order the members appear
+     * @throws IllegalArgumentException if the text is not a JSON object
+     */
+    static Map<String, Object> parseObject(String text) {
+        Json json = new Json(text);
+        json.skipWhitespace();
+        if (!json.peek('{'))
+            throw json.error("object expected");
+        Map<String, Object> object = json.readObject();
+        json.skipWhitespace();
+        if (json.position < text.length())
+            throw json.error("unexpected text after object");
+        return object;
+    }
+
+    /**
+     * Writes a String as a quoted JSON string
+     * @param builder builder to append to
+     * @param value String to quote, or null
+     * @return the builder
+     */
+    static StringBuilder quote(StringBuilder builder, String value) {
+        if (value == null)
+            return builder.append("null");
+
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+                }
+            }
+        }
+        return builder.append('"');
+    }
+
+    /**
+     * Writes an Order as a JSON object
+     * @param builder builder to append to
+     * @param order Order to write
+     * @return the builder
+     */
+    static StringBuilder appendOrder(StringBuilder builder, Order order) {
+        builder.append("{\"orderNumber\":").append(order.getOrderNumber());
+        quote(builder.append(",\"customerName\":"), order.getCustomerName());
+        quote(builder.append(",\"state\":"), order.getState());
+        Money.append(builder.append(",\"taxRate\":"), order.getTaxRateThousandths(),
+                Money.THOUSANDTHS);
+        quote(builder.append(",\"productType\":"), order.getProductType());
+        Money.append(builder.append(",\"area\":"), order.getAreaUnscaled(),
+                order.getAreaScale());
+        Money.append(builder.append(",\"costPerSquareFoot\":"),
+                order.getCostPerSquareFootCents(), Money.CENTS);
+        Money.append(builder.append(",\"laborCostPerSquareFoot\":"),
+                order.getLaborCostPerSquareFootCents(), Money.CENTS);
+        Money.append(builder.append(",\"materialCost\":"), order.getMaterialCostCents(),
+                Money.CENTS);
+        Money.append(builder.append(",\"laborCost\":"), order.getLaborCostCents(),
+                Money.CENTS);
+        Money.append(builder.append(",\"tax\":"), order.getTaxCents(), Money.CENTS);
+        Money.append(builder.append(",\"total\":"), order.getTotalCents(), Money.CENTS);
+        return builder.append('}');
+    }
+
+    /**
+     * Writes a list of Orders as a JSON array
+     * @param builder builder to append to
+     * @param orders Orders to write
+     * @return the builder
+     */
+    static StringBuilder appendOrders(StringBuilder builder, List<Order> orders) {
+        builder.append('[');
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0)
+                builder.append(',');
+            appendOrder(builder, orders.get(i));
+        }
+        return builder.append(']');
+    }
+
+    /**
+     * Writes the result of an export as a JSON object
+     * @param builder builder to append to
+     * @param summary ExportSummary to write
+     * @return the builder
+     */
+    static StringBuilder appendExportSummary(StringBuilder builder, ExportSummary summary) {
+        return builder.append("{\"orderCount\":").append(summary.getOrderCount())
+                .append(",\"fileCount\":").append(summary.getFileCount())
+                .append(",\"changedFileCount\":").append(summary.getChangedFileCount())
+                .append(",\"bytesWritten\":").append(summary.getBytesWritten())
+                .append(",\"elapsedNanos\":").append(summary.getElapsedNanos())
+                .append('}');
+    }
+
+    /**
+     * Reads the value at the current position
+     * @return String, BigDecimal, Boolean, List, Map, or null
+     */
+    private Object readValue() {
+        skipWhitespace();
+        if (position >= TEXT.length())
+            throw error("value expected");
+
+        char c = TEXT.charAt(position);
+        if (c == '{')
+            return readObject();
+        if (c == '[')
+            return readArray();
+        if (c == '"')
+            return readString();
+        if (TEXT.startsWith("true", position)) {
+            position += 4;
+            return Boolean.TRUE;
+        }
+        if (TEXT.startsWith("false", position)) {
+            position += 5;
+            return Boolean.FALSE;
+        }
+        if (TEXT.startsWith("null", position)) {
+            position += 4;
+            return null;
+        }
+        return readNumber();
+    }
+
+    /**
+     * Reads an object starting at the current position
+     * @return map of member name to value
+     */
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        enter();
+        position++; // Opening brace
+        skipWhitespace();
+        if (peek('}')) {
+            position++;
+            depth--;
+            return object;
+        }
+
+        while (true) {
+            skipWhitespace();
+            if (!peek('"'))
+                throw error("member name expected");
+            String name = readString();
+            skipWhitespace();
+            expect(':');
+            object.put(name, readValue());
+            skipWhitespace();
+            if (peek(',')) {
+                position++;
+            } else {
+                expect('}');
+                depth--;
+                return object;
+            }
+        }
+    }
+
+    /**
+     * Reads an array starting at the current position
+     * @return list of values
+     */
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        enter();
+        position++; // Opening bracket
+        skipWhitespace();
+        if (peek(']')) {
+            position++;
+            depth--;
+            return array;
+        }
+
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            if (peek(',')) {
+                position++;
+            } else {
+                expect(']');
+                depth--;
+                return array;
+            }
+        }
+    }
+
+    /**
+     * Reads a string starting at the current position
+     * @return the string without quotes, with escapes replaced
+     */
+    private String readString() {
+        StringBuilder builder = new StringBuilder();
+        position++; // Opening quote
+
+        while (position < TEXT.length()) {
+            char c = TEXT.charAt(position++);
+            if (c == '"')
+                return builder.toString();
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            if (position >= TEXT.length())
+                break;
+            char escaped = TEXT.charAt(position++);
+            switch (escaped) {
+                case '"', '\\', '/' -> builder.append(escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (position + 4 > TEXT.length())
+                        throw error("bad unicode escape");
+                    try {
+                        builder.append((char) Integer.parseInt(
+                                TEXT.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad unicode escape");
+                    }
+                    position += 4;
+                }
+                default -> throw error("bad escape");
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    /**
+     * Reads a number starting at the current position
+     * @return the number
+     */
+    private BigDecimal readNumber() {
+        int start = position;
+        while (position < TEXT.length() && "+-0123456789.eE".indexOf(TEXT.charAt(position)) >= 0)
+            position++;
+        try {
+            return new BigDecimal(TEXT.substring(start, position));
+        } catch (NumberFormatException e) {
+            position = start;
+            throw error("value expected");
+        }
+    }
+
+    /**
+     * Counts one more level of nesting for an object or array starting at
+     * the current position
+     * @throws IllegalArgumentException if nested more than MAX_DEPTH deep
+     */
+    private void enter() {
+        if (++depth > MAX_DEPTH)
+            throw error("nested more than " + MAX_DEPTH + " deep");
+    }
+
+    /**
+     * Moves the current position past any whitespace
+     */
+    private void skipWhitespace() {
+        while (position < TEXT.length() && Character.isWhitespace(TEXT.charAt(position)))
+            position++;
+    }
+
+    /**
+     * Checks the character at the current position without moving past it
+     * @param c character to look for
+     * @return true if the character at the current position is c
+     */
+    private boolean peek(char c) {
+        return position < TEXT.length() && TEXT.charAt(position) == c;
+    }
+
+    /**
+     * Moves past a character that must be at the current position
+     * @param c character expected
+     * @throws IllegalArgumentException if another character, or none, is there
+     */
+    private void expect(char c) {
+        if (!peek(c))
+            throw error("'" + c + "' expected");
+        position++;
+    }
+
+    /**
+     * Creates the exception for a problem at the current position
+     * @param problem description of the problem
+     * @return exception to throw, naming the position
+     */
+    private IllegalArgumentException error(String problem) {
+        return new IllegalArgumentException("Bad JSON at character " + position + ": "
+                + problem);
+    }
+}
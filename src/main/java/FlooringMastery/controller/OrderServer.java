@@ -0,0 +1,396 @@
+package FlooringMastery.controller;
+
+import FlooringMastery.dao.ExportSummary;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
+import FlooringMastery.service.OrderBuildException;
+import FlooringMastery.service.OrderNotFoundException;
+import FlooringMastery.service.ServiceLayer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code OrderServer} class is responsible for serving the
+ * ServiceLayer operations as JSON over HTTP, so several store terminals
+ * can work on the same Order files. Dates are written as yyyy-MM-dd.
+ * <pre>
+ * GET    /orders?date=D          Orders for a date
+ * GET    /orders/N[?date=D]      one Order
+ * POST   /orders                 new Order from {date, customerName,
+ *                                state, productType, area}
+ * PUT    /orders/N?date=D        edit an Order with any of those fields
+ * DELETE /orders/N?date=D        remove an Order
+ * POST   /export[?changed=true]  export all or only changed Orders
+ * </pre>
+ * Each request runs on its own virtual thread when the runtime has them,
+ * as most of a request's time is spent waiting on Order files.
+ */
+public class OrderServer {
+    // Seconds to let running requests finish when stopping
+    private static final int STOP_DELAY_SECONDS = 1;
+    // Largest request body accepted, far more than any Order needs
+    static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final ServiceLayer SERVICE_LAYER;
+    private final int PORT;
+    // Running server and its request executor, null when stopped
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Constructor accepts the ServiceLayer to serve and the port to
+     * listen on. Nothing is opened until the server is started.
+     * @param serviceLayer ServiceLayer to serve
+     * @param port port to listen on, 0 for any free port
+     */
+    public OrderServer(ServiceLayer serviceLayer, int port) {
+        this.SERVICE_LAYER = serviceLayer;
+        this.PORT = port;
+    }
+
+    /**
+     * Starts listening for requests
+     * @throws IOException if unable to listen on the port
+     */
+    public synchronized void start() throws IOException {
+        if (server != null)
+            return;
+
+        // Without TCP_NODELAY, a response's headers and body sent as separate
+        // packets wait ~40 ms for the client's delayed ACK on kept-alive
+        // connections. The JDK server reads this once, when the first server
+        // is created, so it is only set when one is about to be.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Stops listening and waits briefly for running requests to finish
+     */
+    public synchronized void stop() {
+        if (server == null)
+            return;
+
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * Gets the port the server is listening on
+     * @return port, or the configured port if the server is not running
+     */
+    public synchronized int getPort() {
+        return server == null ? PORT : server.getAddress().getPort();
+    }
+
+    /**
+     * Creates the executor that runs each request. The build targets a
+     * release without virtual threads, so they are looked up at runtime,
+     * falling back to a cached pool of platform threads.
+     * @return executor starting a thread per request
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Handles one request, writing a JSON response
+     * @param exchange request and response
+     * @throws IOException if the response could not be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        StringBuilder body = new StringBuilder();
+        try {
+            status = route(exchange, body);
+        } catch (OrderNotFoundException e) {
+            status = 404;
+            writeError(body, e.getMessage());
+        } catch (OrderBuildException | IllegalArgumentException | DateTimeParseException
+                 | ArithmeticException e) {
+            // Invalid Order, malformed JSON, number, or date, body too large,
+            // or a number too large for an Order
+            status = 400;
+            writeError(body, e.getMessage());
+        } catch (PersistenceException | RuntimeException e) {
+            status = 500;
+            writeError(body, e.getMessage());
+        }
+
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Runs the ServiceLayer operation for a request's method and path
+     * @param exchange request
+     * @param body builder to write the response body to
+     * @return HTTP status of the response
+     */
+    private int route(HttpExchange exchange, StringBuilder body) throws IOException,
+            OrderNotFoundException, OrderBuildException, PersistenceException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Map<String, String> query = readQuery(exchange.getRequestURI().getRawQuery());
+
+        if (path.equals("/orders")) {
+            switch (method) {
+                case "GET" -> {
+                    Json.appendOrders(body, SERVICE_LAYER.getAllOrders(
+                            readDate(query.get("date"))));
+                    return 200;
+                }
+                case "POST" -> {
+                    Json.appendOrder(body, createOrder(Json.parseObject(readBody(exchange))));
+                    return 201;
+                }
+                default -> {
+                    return methodNotAllowed(exchange, body, "GET, POST");
+                }
+            }
+        }
+
+        if (path.startsWith("/orders/")) {
+            int orderNumber;
+            try {
+                orderNumber = Integer.parseInt(path.substring("/orders/".length()));
+            } catch (NumberFormatException e) {
+                return notFound(body, path);
+            }
+
+            switch (method) {
+                case "GET" -> {
+                    String date = query.get("date");
+                    Json.appendOrder(body, date == null
+                            ? SERVICE_LAYER.getOrder(orderNumber)
+                            : SERVICE_LAYER.getOrder(orderNumber, readDate(date)));
+                    return 200;
+                }
+                case "PUT" -> {
+                    Json.appendOrder(body, editOrder(orderNumber, readDate(query.get("date")),
+                            Json.parseObject(readBody(exchange))));
+                    return 200;
+                }
+                case "DELETE" -> {
+                    LocalDate orderDate = readDate(query.get("date"));
+                    Order orderToRemove = SERVICE_LAYER.getOrder(orderNumber, orderDate);
+                    SERVICE_LAYER.removeOrder(orderDate, orderToRemove);
+                    Json.appendOrder(body, orderToRemove);
+                    return 200;
+                }
+                default -> {
+                    return methodNotAllowed(exchange, body, "GET, PUT, DELETE");
+                }
+            }
+        }
+
+        if (path.equals("/export")) {
+            if (!method.equals("POST"))
+                return methodNotAllowed(exchange, body, "POST");
+
+            ExportSummary summary = "true".equals(query.get("changed"))
+                    ? SERVICE_LAYER.exportChangedOrders()
+                    : SERVICE_LAYER.exportAllOrders();
+            Json.appendExportSummary(body, summary);
+            return 200;
+        }
+
+        return notFound(body, path);
+    }
+
+    /**
+     * Validates, creates, and saves a new Order
+     * @param fields JSON object with date, customerName, state,
+     *               productType, and area
+     * @return the saved Order
+     */
+    private Order createOrder(Map<String, Object> fields)
+            throws OrderBuildException, PersistenceException {
+        OrderRequest request = new OrderRequest(readDate(readString(fields, "date")),
+                readString(fields, "customerName"), readString(fields, "state"),
+                readString(fields, "productType"), readDecimal(fields, "area"));
+        SERVICE_LAYER.validateNewOrder(request);
+
+        Order newOrder = SERVICE_LAYER.createNewOrder(request.getCustomerName(),
+                request.getState(), request.getProductType(), request.getArea());
+        SERVICE_LAYER.addNewOrder(request.getOrderDate(), newOrder);
+        return newOrder;
+    }
+
+    /**
+     * Validates and saves an edited Order. Fields left out of the JSON
+     * object keep their current values.
+     * @param orderNumber number of the Order to edit
+     * @param orderDate date of the Order to edit
+     * @param fields JSON object with any of customerName, state,
+     *               productType, and area
+     * @return the edited Order
+     */
+    private Order editOrder(int orderNumber, LocalDate orderDate, Map<String, Object> fields)
+            throws OrderNotFoundException, OrderBuildException, PersistenceException {
+        Order orderToEdit = SERVICE_LAYER.getOrder(orderNumber, orderDate);
+
+        OrderRequest request = new OrderRequest(orderDate,
+                fields.containsKey("customerName")
+                        ? readString(fields, "customerName") : orderToEdit.getCustomerName(),
+                fields.containsKey("state")
+                        ? readString(fields, "state") : orderToEdit.getState(),
+                fields.containsKey("productType")
+                        ? readString(fields, "productType") : orderToEdit.getProductType(),
+                fields.containsKey("area")
+                        ? readDecimal(fields, "area") : orderToEdit.getArea());
+        SERVICE_LAYER.validateOrder(request);
+
+        Order editedOrder = SERVICE_LAYER.createEditedOrder(orderToEdit,
+                request.getCustomerName(), request.getState(), request.getProductType(),
+                request.getArea());
+        if (!orderToEdit.equals(editedOrder))
+            SERVICE_LAYER.writeEditOrder(orderDate, orderToEdit, editedOrder);
+        return editedOrder;
+    }
+
+    /**
+     * Reads a yyyy-MM-dd date
+     * @param date text of the date, may be null
+     * @return the date
+     * @throws IllegalArgumentException if the date is missing
+     */
+    private static LocalDate readDate(String date) {
+        if (date == null)
+            throw new IllegalArgumentException("date is required");
+        return LocalDate.parse(date);
+    }
+
+    /**
+     * Reads a string member of a JSON object
+     * @param fields JSON object
+     * @param name name of the member
+     * @return the string, or null if the member is missing or null
+     * @throws IllegalArgumentException if the member is not a string
+     */
+    private static String readString(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String))
+            throw new IllegalArgumentException(name + " must be a string");
+        return (String) value;
+    }
+
+    /**
+     * Reads a number member of a JSON object, also accepted as a string
+     * @param fields JSON object
+     * @param name name of the member
+     * @return the number, or null if the member is missing or null
+     * @throws IllegalArgumentException if the member is not a number
+     */
+    private static BigDecimal readDecimal(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        if (value == null || value instanceof BigDecimal)
+            return (BigDecimal) value;
+        if (value instanceof String)
+            return new BigDecimal((String) value);
+        throw new IllegalArgumentException(name + " must be a number");
+    }
+
+    /**
+     * Reads the body of a request, reading no more than MAX_BODY_BYTES
+     * @param exchange request
+     * @return the body as text
+     * @throws IllegalArgumentException if the body is larger than MAX_BODY_BYTES
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES)
+                throw new IllegalArgumentException("Request body is larger than "
+                        + MAX_BODY_BYTES + " bytes");
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads the parameters of a query string
+     * @param rawQuery query string, still URL encoded, may be null
+     * @return map of parameter name to value
+     */
+    private static Map<String, String> readQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null)
+            return query;
+
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Writes the error for a path with no resource
+     * @param body builder to write the response body to
+     * @param path path requested
+     * @return HTTP status of the response
+     */
+    private static int notFound(StringBuilder body, String path) {
+        writeError(body, "No resource at " + path);
+        return 404;
+    }
+
+    /**
+     * Writes the error for a method a resource does not support, listing
+     * the methods it does in the Allow header
+     * @param exchange request
+     * @param body builder to write the response body to
+     * @param allowed methods the resource supports, comma separated
+     * @return HTTP status of the response
+     */
+    private static int methodNotAllowed(HttpExchange exchange, StringBuilder body,
+                                        String allowed) {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        writeError(body, exchange.getRequestMethod() + " is not allowed here");
+        return 405;
+    }
+
+    /**
+     * Replaces the response body with a JSON object holding an error message
+     * @param body builder to write the response body to
+     * @param message error message
+     */
+    private static void writeError(StringBuilder body, String message) {
+        body.setLength(0);
+        Json.quote(body.append("{\"error\":"), message).append('}');
+    }
+}
@@ -0,0 +1,73 @@
+package FlooringMastery.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * The {@code AtomicFileWriter} class is responsible for replacing a whole
+ * file so that readers only ever see the old or the new contents. The new
+ * contents are written to a temporary file in the same directory, forced
+ * to disk, and then moved over the target file in one step. If the writer
+ * is closed without being committed, the temporary file is deleted and
+ * the target file is left unchanged.
+ */
+public class AtomicFileWriter implements Closeable {
+    // Declare target file, temporary file, and channel to the temporary file
+    private final Path TARGET;
+    private final Path TEMP_FILE;
+    private final FileChannel CHANNEL;
+    private boolean committed;
+
+    /**
+     * Constructor creates the temporary file for the target file
+     * @param target file to replace
+     * @throws IOException if unable to create the temporary file
+     */
+    public AtomicFileWriter(Path target) throws IOException {
+        this.TARGET = target.toAbsolutePath();
+        Files.createDirectories(TARGET.getParent());
+        this.TEMP_FILE = Files.createTempFile(TARGET.getParent(),
+                TARGET.getFileName().toString(), ".tmp");
+        this.CHANNEL = FileChannel.open(TEMP_FILE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Gets the channel the new contents are written to
+     * @return channel to the temporary file
+     */
+    public FileChannel getChannel() {
+        return CHANNEL;
+    }
+
+    /**
+     * Forces the new contents to disk and moves them over the target file
+     * @throws IOException if unable to force or move the file
+     */
+    public void commit() throws IOException {
+        CHANNEL.force(true);
+        CHANNEL.close();
+
+        try {
+            Files.move(TEMP_FILE, TARGET, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Fall back to a plain replace on file systems without atomic moves
+            Files.move(TEMP_FILE, TARGET, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+    }
+
+    /**
+     * Deletes the temporary file if the new contents were not committed
+     * @throws IOException if unable to delete the temporary file
+     */
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            CHANNEL.close();
+            Files.deleteIfExists(TEMP_FILE);
+        }
+    }
+}
@@ -0,0 +1,704 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Order;
+import FlooringMastery.model.Product;
+import FlooringMastery.model.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * The {@code BinaryFileDaoImpl} class is responsible for reading and
+ * writing Order files stored in the binary columnar format of
+ * BinaryOrderFile (Orders_MMddyyyy.bin), instead of the CSV format used
+ * by FileDaoImpl. Reading a binary Order file needs no text parsing, and
+ * generating an order number only reads the order number column of each
+ * file. New Orders are appended to their file as a new segment; edits and
+ * removals replace the whole Order file atomically, which also merges its
+ * segments into one. Changes to files of different dates run in parallel.
+ * Product and Tax files, and the Export File, stay in the CSV format.
+ */
+public class BinaryFileDaoImpl implements FileDao {
+    private final String ORDER_DIRECTORY;
+    // Binary Order files in the Order directory, shared with every DAO of the directory
+    private final OrderFileManifest ORDER_FILES;
+    private final String EXPORT_FILE;
+    // Directory next to the Order directory that holds the export manifest
+    private final String META_DIRECTORY;
+    // Formatter for the date portion of Order file names (Orders_MMddyyyy.bin)
+    private static final DateTimeFormatter FILE_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMddyyyy");
+    // Highest order number handed out or written, complete once the files are scanned
+    private final AtomicInteger highestOrderNum = new AtomicInteger();
+    private volatile boolean orderNumbersScanned;
+    private final Object ORDER_NUMBER_LOCK = new Object();
+    // Locks guarding the binary Order files, striped by date. Consecutive
+    // dates never share a lock
+    private static final int DATE_LOCK_STRIPES = 64;
+    private final ReadWriteLock[] DATE_LOCKS = new ReadWriteLock[DATE_LOCK_STRIPES];
+    // Segments an Order file may have before an append merges them into one
+    private static final int MAX_SEGMENTS = 32;
+    // Postings of Orders by customer, State, and Product across all dates
+    private final OrderIndex ORDER_INDEX;
+    // Totals by State and Product of each Order file, for sales reports
+    private final OrderRollups ORDER_ROLLUPS;
+
+    /**
+     * No args constructor for BinaryFileDaoImpl
+     */
+    public BinaryFileDaoImpl() {
+        this("OrdersBinary", "Backup/DataExport.txt");
+    }
+
+    /**
+     * Constructor accepts parameters for orderDirectory and exportFile names
+     * @param orderDirectory binary order file directory
+     * @param exportFile export file name
+     */
+    public BinaryFileDaoImpl(String orderDirectory, String exportFile) {
+        this.ORDER_DIRECTORY = orderDirectory;
+        this.ORDER_FILES = OrderFileManifest.forDirectory(Paths.get(orderDirectory), ".bin");
+        this.EXPORT_FILE = exportFile;
+        this.META_DIRECTORY = orderDirectory + "Meta";
+        this.ORDER_INDEX = new OrderIndex(Paths.get(META_DIRECTORY, "index"), this,
+                this::getOrderFile);
+        this.ORDER_ROLLUPS = new OrderRollups(Paths.get(META_DIRECTORY, "rollups"), this,
+                this::getOrderFile);
+        for (int i = 0; i < DATE_LOCK_STRIPES; i++)
+            DATE_LOCKS[i] = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Unmarshalls a line of a Product file
+     * @param line line of Product file
+     * @return Product object
+     */
+    @Override
+    public Product unmarshallProduct(String line) {
+        return CsvRecords.unmarshallProduct(line);
+    }
+
+    /**
+     * Reads a Product file, which stays in the CSV format
+     * @param fileName name of the Product file
+     * @return List of Product objects
+     * @throws PersistenceException if unable to read the Product file
+     */
+    @Override
+    public List<Product> readProductFile(String fileName) throws PersistenceException {
+        return CsvRecords.readProductFile(fileName);
+    }
+
+    /**
+     * Unmarshalls a line of a Tax file
+     * @param line line of Tax file
+     * @return State object
+     * @throws PersistenceException if the line is not a valid State
+     */
+    @Override
+    public State unmarshallTaxes(String line) throws PersistenceException {
+        return CsvRecords.unmarshallTaxes(line);
+    }
+
+    /**
+     * Reads a Tax file, which stays in the CSV format
+     * @param fileName name of the Tax file
+     * @return List of State objects
+     * @throws PersistenceException if unable to read the Tax file
+     */
+    @Override
+    public List<State> readTaxFile(String fileName) throws PersistenceException {
+        return CsvRecords.readTaxFile(fileName);
+    }
+
+    /**
+     * Unmarshalls a CSV Order line, as written by marshallOrder
+     * @param line CSV line of an Order
+     * @return Order object
+     */
+    @Override
+    public Order unmarshallOrder(String line) {
+        return CsvRecords.unmarshallOrder(new CsvTokenizer().reset(line));
+    }
+
+    /**
+     * Marshalls an Order as a CSV line, the same as FileDaoImpl does
+     * @param order Order to marshall
+     * @return CSV line of the Order
+     */
+    @Override
+    public String marshallOrder(Order order) {
+        return CsvRecords.marshallOrder(order);
+    }
+
+    /**
+     * Marshalls an Order and its date as a line of the Export File
+     * @param order Order to marshall
+     * @param date date of Order (MMddyyyy)
+     * @return Export File line of the Order
+     */
+    @Override
+    public String marshallOrderForExport(Order order, String date) {
+        return CsvRecords.marshallOrderForExport(order, date);
+    }
+
+    /**
+     * Reads and decodes the binary Order file for a date
+     * @param date Date of orders
+     * @return List of Orders objects
+     * @throws PersistenceException if Order file not found or is corrupt
+     */
+    @Override
+    public List<Order> readOrderFile(LocalDate date) throws PersistenceException {
+        File file = getOrderFile(date);
+
+        Lock lock = getDateLock(date).readLock();
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return BinaryOrderFile.decode(BinaryOrderFile.readFully(channel, 0,
+                    Math.toIntExact(channel.size())));
+        } catch (NoSuchFileException e) {
+            // Throw exception if unable to find order file
+            throw new PersistenceException("Order file for date not found.", e);
+        } catch (IOException | ArithmeticException e) {
+            throw new PersistenceException("Could not read Order file.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an Order to the binary Order file for its date, creating the
+     * file if there is none
+     * @param date date of Order
+     * @param order Order to write to file
+     * @throws PersistenceException if unable to write Order to file
+     */
+    @Override
+    public void writeNewOrder(LocalDate date, Order order) throws PersistenceException {
+        writeNewOrders(date, List.of(order));
+    }
+
+    /**
+     * Adds a batch of Orders to the binary Order file for their date as
+     * one appended segment, creating the file if there is none
+     * @param date date of Orders
+     * @param newOrders Orders to write to file
+     * @throws PersistenceException if unable to write Orders to file
+     */
+    @Override
+    public void writeNewOrders(LocalDate date, List<Order> newOrders)
+            throws PersistenceException {
+        if (newOrders.isEmpty())
+            return;
+
+        ORDER_INDEX.beforeChange(date);
+        long[] written = appendOrders(date, newOrders);
+
+        // Update the rollup now the date's lock is released
+        ORDER_ROLLUPS.flush(date);
+        for (Order order : newOrders) {
+            orderNumberWritten(order.getOrderNumber());
+            ORDER_INDEX.orderWritten(date, order, written[0], written[1]);
+        }
+    }
+
+    /**
+     * Replaces an Order in the binary Order file for its date. Nothing is
+     * changed if the Order is not in the file.
+     * @param date date of Order
+     * @param orderToEdit Order that was edited
+     * @param editedOrder Edited version of Order
+     * @throws PersistenceException if unable to write Order to file
+     */
+    @Override
+    public void writeEditOrder(LocalDate date, Order orderToEdit, Order editedOrder)
+            throws PersistenceException {
+        ORDER_INDEX.beforeChange(date);
+        long[] written = null;
+
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try {
+            List<Order> orders = readOrderFile(date);
+            for (int i = 0; i < orders.size(); i++) {
+                if (orders.get(i).getOrderNumber() == orderToEdit.getOrderNumber()) {
+                    orders.set(i, editedOrder);
+                    written = replaceOrderFile(date, orders);
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (written != null) {
+            ORDER_ROLLUPS.flush(date);
+            ORDER_INDEX.orderWritten(date, editedOrder, written[0], written[1]);
+        }
+    }
+
+    /**
+     * Removes an Order from the binary Order file for its date
+     * @param date date of Order
+     * @param orderToRemove Order object to remove from file
+     * @throws PersistenceException if unable to remove Order
+     */
+    @Override
+    public void removeOrderFromFile(LocalDate date, Order orderToRemove)
+            throws PersistenceException {
+        ORDER_INDEX.beforeChange(date);
+        long[] written = null;
+
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try {
+            List<Order> orders = readOrderFile(date);
+            if (orders.removeIf(order -> order.getOrderNumber()
+                    == orderToRemove.getOrderNumber()))
+                written = replaceOrderFile(date, orders);
+        } finally {
+            lock.unlock();
+        }
+
+        if (written != null) {
+            ORDER_ROLLUPS.flush(date);
+            ORDER_INDEX.orderRemoved(date, orderToRemove.getOrderNumber(), written[0],
+                    written[1]);
+        }
+    }
+
+    /**
+     * Encodes the Orders passed and replaces the binary Order file for a
+     * date with them atomically
+     * @param date date of Orders
+     * @param orders Orders to store in the file, in order
+     * @throws PersistenceException if unable to write the Order file
+     */
+    @Override
+    public void writeOrderFile(LocalDate date, List<Order> orders)
+            throws PersistenceException {
+        long[] written;
+
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try {
+            written = replaceOrderFile(date, orders);
+        } finally {
+            lock.unlock();
+        }
+
+        ORDER_ROLLUPS.flush(date);
+        ORDER_INDEX.fileReplaced(date, orders, written[0], written[1]);
+    }
+
+    /**
+     * Reads the binary Order file for a date and replaces it with the
+     * Orders an update returns, holding the date's write lock throughout
+     * so no other change comes in between
+     * @param date date of Order file
+     * @param update function given the Orders in the file, returning the
+     * Orders to replace them with, or null to leave the file unchanged
+     * @return true if the file was replaced
+     * @throws PersistenceException if unable to read or write the Order file
+     */
+    @Override
+    public boolean updateOrderFile(LocalDate date, UnaryOperator<List<Order>> update)
+            throws PersistenceException {
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try {
+            List<Order> orders = update.apply(readOrderFile(date));
+            if (orders == null)
+                return false;
+            writeOrderFile(date, orders);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the Orders passed to the binary Order file for their date as
+     * a new segment, without updating the OrderIndex. Anything left after
+     * the last complete segment by an interrupted append is dropped first.
+     * A date with no Order file yet gets a new file, and a file that
+     * already has MAX_SEGMENTS segments is replaced by one holding all its
+     * Orders in a single segment.
+     * @param date date of Orders
+     * @param orders Orders to add to the file, in order
+     * @return last modified time and length of the Order file afterwards
+     * @throws PersistenceException if unable to write the Order file
+     */
+    private long[] appendOrders(LocalDate date, List<Order> orders)
+            throws PersistenceException {
+        ByteBuffer encoded = BinaryOrderFile.encode(orders);
+        File file = getOrderFile(date);
+
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try {
+            if (!file.exists())
+                return replaceOrderFile(date, orders);
+
+            long modifiedBefore = file.lastModified();
+            long lengthBefore = file.length();
+            int segmentCount;
+
+            try (FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                List<BinaryOrderFile.Segment> segments = BinaryOrderFile.readSegments(channel);
+                segmentCount = segments.size();
+                if (segmentCount < MAX_SEGMENTS) {
+                    long end = segments.isEmpty() ? 0 : segments.get(segmentCount - 1).end();
+                    try {
+                        channel.truncate(end);
+                        long position = end;
+                        while (encoded.hasRemaining())
+                            position += channel.write(encoded, position);
+                        channel.force(false);
+                    } catch (IOException e) {
+                        // Leave no part of the segment behind
+                        try {
+                            channel.truncate(end);
+                        } catch (IOException suppressed) {
+                            e.addSuppressed(suppressed);
+                        }
+                        throw e;
+                    }
+                }
+            } catch (IOException e) {
+                // Throw exception if unable to write to Order file
+                throw new PersistenceException("Could not write Order information.", e);
+            }
+
+            // Merge the segments, now the channel is closed
+            if (segmentCount >= MAX_SEGMENTS) {
+                List<Order> merged = readOrderFile(date);
+                merged.addAll(orders);
+                return replaceOrderFile(date, merged);
+            }
+
+            long[] written = {file.lastModified(), file.length()};
+            ORDER_ROLLUPS.ordersChanged(date, lengthBefore, modifiedBefore, written[1],
+                    written[0], List.of(), orders);
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Encodes the Orders passed and replaces the binary Order file for a
+     * date with them atomically, without updating the OrderIndex. As the
+     * whole file is rewritten, its rollup is replaced from the Orders too;
+     * callers flush it once the lock is released. Must be called while
+     * holding the write lock for the date.
+     * @param date date of Orders
+     * @param orders Orders to store in the file, in order
+     * @return last modified time and length of the new Order file
+     * @throws PersistenceException if unable to write the Order file
+     */
+    private long[] replaceOrderFile(LocalDate date, List<Order> orders)
+            throws PersistenceException {
+        ByteBuffer encoded = BinaryOrderFile.encode(orders);
+        File file = getOrderFile(date);
+
+        try (AtomicFileWriter writer = new AtomicFileWriter(file.toPath())) {
+            while (encoded.hasRemaining())
+                writer.getChannel().write(encoded);
+            writer.commit();
+        } catch (IOException e) {
+            // Throw exception if unable to write Order file
+            throw new PersistenceException("Could not write Order information.", e);
+        }
+        long[] written = {file.lastModified(), file.length()};
+        ORDER_FILES.fileWritten(date, file.toPath());
+        ORDER_ROLLUPS.fileReplaced(date, orders);
+
+        // Keep highest order number current
+        for (Order order : orders)
+            orderNumberWritten(order.getOrderNumber());
+        return written;
+    }
+
+    /**
+     * Writes all Order information with the Order date to the Export File
+     * in the same CSV format as FileDaoImpl
+     * @return ExportSummary with the number of Orders and bytes exported
+     * @throws PersistenceException if unable to Export all Order data
+     */
+    @Override
+    public ExportSummary exportAllData() throws PersistenceException {
+        long startTime = System.nanoTime();
+        List<LocalDate> orderFileDates = listOrderFileDates();
+        long orderCount = 0;
+        long bytesWritten = 0;
+
+        try (AtomicFileWriter exportWriter = new AtomicFileWriter(Paths.get(EXPORT_FILE))) {
+            for (LocalDate date : orderFileDates) {
+                List<Order> orders = readOrderFile(date);
+                ByteBuffer segment = ByteBuffer.wrap(marshallForExport(date, orders));
+                bytesWritten += segment.remaining();
+                orderCount += orders.size();
+                while (segment.hasRemaining())
+                    exportWriter.getChannel().write(segment);
+            }
+            exportWriter.commit();
+        } catch (IOException e) {
+            // Throw exception if unable to export all orders
+            throw new PersistenceException("Could not export order data.", e);
+        }
+
+        return new ExportSummary(orderFileDates.size(), orderCount, bytesWritten,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Writes all Order information with the Order date to the Export File,
+     * re-reading only the binary Order files that changed since the last
+     * incremental export, using an ExportManifest as FileDaoImpl does
+     * @return ExportSummary with the number of Orders and bytes exported
+     * @throws PersistenceException if unable to Export all Order data
+     */
+    @Override
+    public ExportSummary exportChangedData() throws PersistenceException {
+        long startTime = System.nanoTime();
+        List<LocalDate> orderFileDates = listOrderFileDates();
+        long orderCount = 0;
+        long bytesWritten = 0;
+        int changedFileCount = 0;
+
+        try {
+            ExportManifest manifest = new ExportManifest(Paths.get(META_DIRECTORY, "export"));
+            manifest.retainAll(orderFileDates);
+
+            for (LocalDate date : orderFileDates) {
+                File orderFile = getOrderFile(date);
+                if (!manifest.isCurrent(date, orderFile)) {
+                    List<Order> orders = readOrderFile(date);
+                    manifest.update(date, orderFile, marshallForExport(date, orders),
+                            orders.size());
+                    changedFileCount++;
+                }
+            }
+
+            // Copy every segment into the export file in date order
+            try (AtomicFileWriter exportWriter = new AtomicFileWriter(Paths.get(EXPORT_FILE))) {
+                for (LocalDate date : orderFileDates) {
+                    try (FileChannel segment = FileChannel.open(manifest.getSegmentFile(date),
+                            StandardOpenOption.READ)) {
+                        long size = segment.size();
+                        long position = 0;
+                        while (position < size)
+                            position += segment.transferTo(position, size - position,
+                                    exportWriter.getChannel());
+                        bytesWritten += size;
+                    }
+                    orderCount += manifest.getOrderCount(date);
+                }
+                exportWriter.commit();
+            }
+
+            manifest.save();
+        } catch (IOException e) {
+            // Throw exception if unable to export all orders
+            throw new PersistenceException("Could not export order data.", e);
+        }
+
+        return new ExportSummary(orderFileDates.size(), changedFileCount, orderCount,
+                bytesWritten, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Reads the Export File, which is in the same CSV format as FileDaoImpl's
+     * @param action action to perform on each Order and its date
+     * @return number of Orders read
+     * @throws PersistenceException if unable to read the Export File
+     */
+    @Override
+    public long readExportFile(BiConsumer<LocalDate, Order> action)
+            throws PersistenceException {
+        return CsvRecords.readExportFile(Paths.get(EXPORT_FILE),
+                MappedLineReader.MAPPING_SUPPORTED, action);
+    }
+
+    /**
+     * Adds up the Orders of every Order file between two dates from the
+     * daily rollups, grouped by State, Product, or month
+     * @param grouping what to group Orders by
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return SalesReport with the totals of each group
+     * @throws PersistenceException if unable to rebuild a rollup
+     */
+    @Override
+    public SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                                      LocalDate toDate) throws PersistenceException {
+        return ORDER_ROLLUPS.report(grouping, fromDate, toDate);
+    }
+
+    /**
+     * Finds the Orders with a customer name, State, or Product type using
+     * the OrderIndex, without reading every Order file
+     * @param field Field to search
+     * @param value value to search for, ignoring case and extra whitespace
+     * @return order numbers by date, oldest date first
+     * @throws PersistenceException if unable to load the index
+     */
+    @Override
+    public NavigableMap<LocalDate, List<Integer>> findOrderNumbers(OrderIndex.Field field,
+                                                                   String value)
+            throws PersistenceException {
+        return ORDER_INDEX.find(field, value);
+    }
+
+    /**
+     * Finds the date of an Order from its order number alone using the
+     * OrderIndex
+     * @param orderNumber order number
+     * @return date of the Order, or null if there is no such Order
+     * @throws PersistenceException if unable to load the index
+     */
+    @Override
+    public LocalDate findOrderDate(int orderNumber) throws PersistenceException {
+        return ORDER_INDEX.findDate(orderNumber);
+    }
+
+    /**
+     * Hands out a new order number. The order number column of every
+     * binary Order file is read the first time a number is handed out;
+     * after that the highest order number is kept up to date by the writes.
+     * @return int newOrderNum
+     * @throws PersistenceException if error occurs reading files
+     */
+    @Override
+    public int generateNewOrderNum() throws PersistenceException {
+        return reserveOrderNumbers(1);
+    }
+
+    /**
+     * Reserves a block of consecutive order numbers for a batch of new
+     * Orders. The number is reserved atomically, so no two callers ever
+     * get the same number; numbers that end up unused are skipped.
+     * @param count number of order numbers to reserve
+     * @return first order number of the block
+     * @throws PersistenceException if error occurs reading files
+     */
+    @Override
+    public int reserveOrderNumbers(int count) throws PersistenceException {
+        // Scan the order number columns once to find the highest order number
+        if (!orderNumbersScanned) {
+            synchronized (ORDER_NUMBER_LOCK) {
+                if (!orderNumbersScanned) {
+                    orderNumberWritten(findHighestOrderNum());
+                    orderNumbersScanned = true;
+                }
+            }
+        }
+
+        return highestOrderNum.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Raises the highest order number to one written to an Order file, so
+     * it is never handed out again
+     * @param orderNumber order number written
+     */
+    private void orderNumberWritten(int orderNumber) {
+        highestOrderNum.accumulateAndGet(orderNumber, Math::max);
+    }
+
+    /**
+     * Reads the order number column of every binary Order file and returns
+     * the highest order number found
+     * @return highest order number, or 0 if there are no Orders
+     * @throws PersistenceException if unable to read an Order file
+     */
+    private int findHighestOrderNum() throws PersistenceException {
+        int highest = 0;
+        for (LocalDate date : listOrderFileDates()) {
+            Lock lock = getDateLock(date).readLock();
+            lock.lock();
+            try (FileChannel channel = FileChannel.open(getOrderFile(date).toPath(),
+                    StandardOpenOption.READ)) {
+                highest = Math.max(highest, BinaryOrderFile.readHighestOrderNumber(channel));
+            } catch (IOException e) {
+                throw new PersistenceException("Unable to generate new order number.", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Lists the dates of all binary Order files in the Order directory,
+     * from the manifest of the directory. Files not named
+     * Orders_MMddyyyy.bin are ignored.
+     * @return sorted list of Order file dates
+     */
+    @Override
+    public List<LocalDate> listOrderFileDates() {
+        return new ArrayList<>(ORDER_FILES.getFiles().keySet());
+    }
+
+    /**
+     * Lists the dates of the binary Order files between two dates, from
+     * the manifest of the directory
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return unmodifiable sorted set of Order file dates
+     */
+    @Override
+    public NavigableSet<LocalDate> listOrderFileDates(LocalDate fromDate, LocalDate toDate) {
+        return ORDER_FILES.getDates(fromDate, toDate);
+    }
+
+    /**
+     * Marshalls the Orders of one day for the Export File
+     * @param date date of Orders
+     * @param orders Orders to export
+     * @return export lines as UTF-8 bytes
+     */
+    private byte[] marshallForExport(LocalDate date, List<Order> orders) {
+        String dateString = date.format(FILE_DATE_FORMAT);
+        StringBuilder builder = new StringBuilder(orders.size() * 128);
+        for (Order order : orders)
+            builder.append(marshallOrderForExport(order, dateString))
+                    .append(System.lineSeparator());
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the lock guarding the binary Order file for a date. Readers of
+     * the file share the read lock and changes hold the write lock.
+     * @param date date of Order file
+     * @return lock for the date's stripe
+     */
+    private ReadWriteLock getDateLock(LocalDate date) {
+        return DATE_LOCKS[DateStripes.of(date, DATE_LOCK_STRIPES)];
+    }
+
+    /**
+     * Gets the binary Order file for a date
+     * @param date date of Order file
+     * @return Order file (Orders_MMddyyyy.bin) in the Order directory
+     */
+    private File getOrderFile(LocalDate date) {
+        return new File(ORDER_DIRECTORY + "/Orders_" + date.format(FILE_DATE_FORMAT) + ".bin");
+    }
+}
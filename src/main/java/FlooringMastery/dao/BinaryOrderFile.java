@@ -0,0 +1,552 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Money;
+import FlooringMastery.model.Order;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * The {@code BinaryOrderFile} class is responsible for encoding the Orders
+ * of one day in a compact, column by column binary format and decoding
+ * them again. Order numbers come first so the highest order number can be
+ * found without decoding the rest of the file. States and Products are
+ * stored once in a dictionary and referenced by number, customer names
+ * are stored together in a string heap, and each decimal column is
+ * stored as unscaled values, as ints when every value fits in an int,
+ * with the scale written once when every row has the same scale.
+ * <p>
+ * A file is a sequence of segments, each encoding a batch of Orders in
+ * this format, so new Orders are added by appending a segment instead of
+ * rewriting the file. A segment cut short by an interrupted append is
+ * ignored. A file that is replaced is written as a single segment.
+ * <pre>
+ * int     magic
+ * int     segmentLength (bytes, header included)
+ * int     rowCount
+ * int[]   orderNumber
+ * dictionary of States, dictionary of Products (int count, UTF-8 strings)
+ * short[] state, short[] productType (dictionary numbers)
+ * int     heapLength, byte[] heap, int[] end of each customer name
+ * 8 decimal columns: byte uniform scale or -1, byte[] scales if not
+ *                    uniform, byte width (4 or 8), int[] or long[]
+ *                    unscaled values
+ * </pre>
+ */
+public final class BinaryOrderFile {
+    // Identifies a binary Order file and its version
+    private static final int MAGIC = 0x464D4F31;
+    // Bytes in the header of a segment: magic, segment length, row count
+    static final int HEADER_BYTES = 3 * Integer.BYTES;
+    // Marks a decimal column whose rows have different scales
+    private static final byte MIXED_SCALE = -1;
+    // Most entries a dictionary can hold
+    private static final int MAX_DICTIONARY_SIZE = Short.MAX_VALUE;
+
+    // Decimal columns, in the order they are stored
+    private static final DecimalColumn[] DECIMAL_COLUMNS = DecimalColumn.values();
+
+    private BinaryOrderFile() {
+    }
+
+    /**
+     * Encodes a list of Orders as one segment
+     * @param orders Orders of one day
+     * @return encoded Orders, ready to be written or appended to a file
+     * @throws PersistenceException if an Order is missing a value or a
+     * value does not fit in the format
+     */
+    public static ByteBuffer encode(List<Order> orders) throws PersistenceException {
+        int rowCount = orders.size();
+
+        // Build the dictionaries and string heap
+        Map<String, Integer> states = new LinkedHashMap<>();
+        Map<String, Integer> productTypes = new LinkedHashMap<>();
+        short[] stateIds = new short[rowCount];
+        short[] productIds = new short[rowCount];
+        byte[][] names = new byte[rowCount][];
+        int heapLength = 0;
+
+        for (int row = 0; row < rowCount; row++) {
+            Order order = orders.get(row);
+            if (order.getCustomerName() == null)
+                throw new PersistenceException("Order " + order.getOrderNumber()
+                        + " has no customer name.");
+            stateIds[row] = dictionaryId(states, order.getState());
+            productIds[row] = dictionaryId(productTypes, order.getProductType());
+            names[row] = order.getCustomerName().getBytes(StandardCharsets.UTF_8);
+            heapLength += names[row].length;
+        }
+
+        byte[][] stateBytes = dictionaryBytes(states);
+        byte[][] productBytes = dictionaryBytes(productTypes);
+
+        // Size the buffer exactly
+        int size = HEADER_BYTES + rowCount * Integer.BYTES
+                + dictionarySize(stateBytes) + dictionarySize(productBytes)
+                + 2 * rowCount * Short.BYTES
+                + Integer.BYTES + heapLength + rowCount * Integer.BYTES
+                + DECIMAL_COLUMNS.length * 2;
+
+        // Columns whose rows have different scales also store every scale,
+        // and columns with a value too large for an int are stored as longs
+        byte[][] columnScales = new byte[DECIMAL_COLUMNS.length][];
+        long[][] columnValues = new long[DECIMAL_COLUMNS.length][];
+        for (int c = 0; c < columnScales.length; c++) {
+            columnScales[c] = scales(orders, DECIMAL_COLUMNS[c]);
+            columnValues[c] = unscaledValues(orders, DECIMAL_COLUMNS[c]);
+            if (!isUniform(columnScales[c]))
+                size += rowCount;
+            size += rowCount * width(columnValues[c]);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(size).putInt(rowCount);
+        for (Order order : orders)
+            buffer.putInt(order.getOrderNumber());
+
+        putDictionary(buffer, stateBytes);
+        putDictionary(buffer, productBytes);
+        for (short id : stateIds)
+            buffer.putShort(id);
+        for (short id : productIds)
+            buffer.putShort(id);
+
+        buffer.putInt(heapLength);
+        for (byte[] name : names)
+            buffer.put(name);
+        int nameEnd = 0;
+        for (byte[] name : names)
+            buffer.putInt(nameEnd += name.length);
+
+        for (int c = 0; c < DECIMAL_COLUMNS.length; c++) {
+            byte[] scales = columnScales[c];
+            if (isUniform(scales))
+                buffer.put(rowCount == 0 ? 0 : scales[0]);
+            else
+                buffer.put(MIXED_SCALE).put(scales);
+
+            long[] values = columnValues[c];
+            int width = width(values);
+            buffer.put((byte) width);
+            for (long value : values) {
+                if (width == Integer.BYTES)
+                    buffer.putInt((int) value);
+                else
+                    buffer.putLong(value);
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * Decodes a list of Orders from every segment of a file
+     * @param buffer encoded Orders
+     * @return decoded Orders, in the order they were encoded
+     * @throws PersistenceException if the buffer is not a binary Order file
+     */
+    public static List<Order> decode(ByteBuffer buffer) throws PersistenceException {
+        List<Order> orders = new ArrayList<>();
+        try {
+            do {
+                int start = buffer.position();
+                int length = readSegmentLength(buffer);
+                // Stop at a segment cut short by an interrupted append
+                if (length > buffer.limit() - start)
+                    break;
+
+                decodeSegment(buffer, readRowCount(buffer), orders);
+                if (buffer.position() != start + length)
+                    throw new PersistenceException("Binary Order file is corrupt.");
+            } while (buffer.remaining() >= HEADER_BYTES);
+
+            return orders;
+        } catch (RuntimeException e) {
+            // Buffer ended early or held an out of range dictionary number
+            throw new PersistenceException("Binary Order file is corrupt.", e);
+        }
+    }
+
+    /**
+     * Decodes the Orders of one segment
+     * @param buffer buffer positioned after the segment's header
+     * @param rowCount number of Orders in the segment
+     * @param orders list to add the decoded Orders to
+     */
+    private static void decodeSegment(ByteBuffer buffer, int rowCount, List<Order> orders) {
+        Order[] segment = new Order[rowCount];
+        for (int row = 0; row < rowCount; row++)
+            segment[row] = new Order(buffer.getInt());
+
+        String[] states = getDictionary(buffer);
+        String[] productTypes = getDictionary(buffer);
+        for (Order order : segment)
+            order.setState(states[buffer.getShort()]);
+        for (Order order : segment)
+            order.setProductType(productTypes[buffer.getShort()]);
+
+        byte[] heap = new byte[buffer.getInt()];
+        buffer.get(heap);
+        int nameStart = 0;
+        for (Order order : segment) {
+            int nameEnd = buffer.getInt();
+            order.setCustomerName(new String(heap, nameStart, nameEnd - nameStart,
+                    StandardCharsets.UTF_8));
+            nameStart = nameEnd;
+        }
+
+        for (DecimalColumn column : DECIMAL_COLUMNS)
+            getDecimalColumn(buffer, segment, column);
+
+        orders.addAll(Arrays.asList(segment));
+    }
+
+    /**
+     * Reads only the order number column of each segment of a binary
+     * Order file and returns the highest order number in it
+     * @param channel channel to the Order file
+     * @return highest order number, or 0 if the file has no Orders
+     * @throws IOException if unable to read the file
+     * @throws PersistenceException if the file is not a binary Order file
+     */
+    public static int readHighestOrderNumber(FileChannel channel)
+            throws IOException, PersistenceException {
+        int highest = 0;
+        for (Segment segment : readSegments(channel)) {
+            ByteBuffer orderNumbers = readFully(channel, segment.position + HEADER_BYTES,
+                    segment.rowCount * Integer.BYTES);
+            for (int row = 0; row < segment.rowCount; row++)
+                highest = Math.max(highest, orderNumbers.getInt());
+        }
+        return highest;
+    }
+
+    /**
+     * Reads the header of every complete segment of a binary Order file,
+     * without reading the segments themselves. A segment cut short by an
+     * interrupted append, and anything after it, is left out.
+     * @param channel channel to the Order file
+     * @return complete segments, in file order
+     * @throws IOException if unable to read the file
+     * @throws PersistenceException if the file is not a binary Order file
+     */
+    static List<Segment> readSegments(FileChannel channel)
+            throws IOException, PersistenceException {
+        List<Segment> segments = new ArrayList<>();
+        long size = channel.size();
+        long position = 0;
+
+        do {
+            ByteBuffer header = readFully(channel, position,
+                    (int) Math.min(HEADER_BYTES, size - position));
+            int length = readSegmentLength(header);
+            if (length > size - position)
+                break;
+            segments.add(new Segment(position, length, readRowCount(header)));
+            position += length;
+        } while (size - position >= HEADER_BYTES);
+
+        return segments;
+    }
+
+    /**
+     * Reads part of a file into a new buffer
+     * @param channel channel to read
+     * @param position position to start reading at
+     * @param length number of bytes to read
+     * @return buffer holding the bytes, ready to be read
+     * @throws IOException if the file ends before length bytes are read
+     */
+    static ByteBuffer readFully(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Unexpected end of binary Order file.");
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Checks the magic number of a segment and reads its length
+     * @param buffer buffer positioned at the start of a segment
+     * @return length of the segment in bytes, header included
+     * @throws PersistenceException if the buffer is not at a segment of a
+     * binary Order file
+     */
+    private static int readSegmentLength(ByteBuffer buffer) throws PersistenceException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC)
+            throw new PersistenceException("Not a binary Order file.");
+
+        int length = buffer.getInt();
+        if (length < HEADER_BYTES)
+            throw new PersistenceException("Binary Order file is corrupt.");
+        return length;
+    }
+
+    /**
+     * Reads the row count of a segment
+     * @param buffer buffer positioned after the segment length
+     * @return number of Orders in the segment
+     * @throws PersistenceException if the row count is negative
+     */
+    private static int readRowCount(ByteBuffer buffer) throws PersistenceException {
+        int rowCount = buffer.getInt();
+        if (rowCount < 0)
+            throw new PersistenceException("Binary Order file is corrupt.");
+        return rowCount;
+    }
+
+    /**
+     * Gets the dictionary number of a value, adding it if it is new
+     * @param dictionary numbers of the values seen so far
+     * @param value State or Product type
+     * @return dictionary number
+     * @throws PersistenceException if the value is missing or the
+     * dictionary is full
+     */
+    private static short dictionaryId(Map<String, Integer> dictionary, String value)
+            throws PersistenceException {
+        if (value == null)
+            throw new PersistenceException("Order is missing a State or Product.");
+
+        Integer id = dictionary.get(value);
+        if (id == null) {
+            if (dictionary.size() == MAX_DICTIONARY_SIZE)
+                throw new PersistenceException("Too many distinct values for one "
+                        + "binary Order file.");
+            id = dictionary.size();
+            dictionary.put(value, id);
+        }
+        return (short) (int) id;
+    }
+
+    /**
+     * Encodes the values of a dictionary in dictionary number order
+     * @param dictionary numbers of the values
+     * @return UTF-8 bytes of each value
+     */
+    private static byte[][] dictionaryBytes(Map<String, Integer> dictionary) {
+        byte[][] entries = new byte[dictionary.size()][];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet())
+            entries[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        return entries;
+    }
+
+    /**
+     * Calculates the encoded size of a dictionary
+     * @param entries UTF-8 bytes of each value
+     * @return number of bytes putDictionary writes
+     */
+    private static int dictionarySize(byte[][] entries) {
+        int size = Integer.BYTES;
+        for (byte[] entry : entries)
+            size += Integer.BYTES + entry.length;
+        return size;
+    }
+
+    /**
+     * Writes a dictionary as a count followed by length prefixed values
+     * @param buffer buffer to write to
+     * @param entries UTF-8 bytes of each value
+     */
+    private static void putDictionary(ByteBuffer buffer, byte[][] entries) {
+        buffer.putInt(entries.length);
+        for (byte[] entry : entries)
+            buffer.putInt(entry.length).put(entry);
+    }
+
+    /**
+     * Reads a dictionary written by putDictionary
+     * @param buffer buffer to read from
+     * @return values in dictionary number order
+     */
+    private static String[] getDictionary(ByteBuffer buffer) {
+        String[] entries = new String[buffer.getInt()];
+        for (int i = 0; i < entries.length; i++) {
+            byte[] entry = new byte[buffer.getInt()];
+            buffer.get(entry);
+            entries[i] = new String(entry, StandardCharsets.UTF_8);
+        }
+        return entries;
+    }
+
+    /**
+     * Gets the scales of a decimal column
+     * @param orders Orders being encoded
+     * @param column decimal column
+     * @return scale of each row
+     * @throws PersistenceException if a value is missing
+     */
+    private static byte[] scales(List<Order> orders, DecimalColumn column)
+            throws PersistenceException {
+        byte[] scales = new byte[orders.size()];
+
+        for (int row = 0; row < scales.length; row++) {
+            Order order = orders.get(row);
+            if (column.getter.applyAsLong(order) == Money.UNSET)
+                throw new PersistenceException("Order " + order.getOrderNumber()
+                        + " is missing a value.");
+            // Scales are at most Money.MAX_SCALE, so always fit in a byte
+            scales[row] = (byte) column.scale(order);
+        }
+
+        return scales;
+    }
+
+    /**
+     * Checks whether every row of a decimal column has the same scale
+     * @param scales scale of each row
+     * @return true if the scale only needs to be stored once
+     */
+    private static boolean isUniform(byte[] scales) {
+        for (byte scale : scales) {
+            if (scale != scales[0])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the unscaled values of a decimal column. Missing values are
+     * already rejected by scales.
+     * @param orders Orders being encoded
+     * @param column decimal column
+     * @return unscaled value of each row
+     */
+    private static long[] unscaledValues(List<Order> orders, DecimalColumn column) {
+        long[] values = new long[orders.size()];
+
+        for (int row = 0; row < values.length; row++)
+            values[row] = column.getter.applyAsLong(orders.get(row));
+
+        return values;
+    }
+
+    /**
+     * Gets the number of bytes needed to store every value of a column
+     * @param values unscaled values of a column
+     * @return Integer.BYTES if every value fits in an int, otherwise Long.BYTES
+     */
+    private static int width(long[] values) {
+        for (long value : values) {
+            if (value != (int) value)
+                return Long.BYTES;
+        }
+        return Integer.BYTES;
+    }
+
+    /**
+     * Reads a decimal column into the Orders being decoded
+     * @param buffer buffer to read from
+     * @param orders Orders being decoded
+     * @param column decimal column
+     */
+    private static void getDecimalColumn(ByteBuffer buffer, Order[] orders,
+                                         DecimalColumn column) {
+        byte uniformScale = buffer.get();
+        byte[] scales = null;
+        if (uniformScale == MIXED_SCALE) {
+            scales = new byte[orders.length];
+            buffer.get(scales);
+        }
+
+        boolean ints = buffer.get() == Integer.BYTES;
+        for (int row = 0; row < orders.length; row++)
+            column.set(orders[row], ints ? buffer.getInt() : buffer.getLong(),
+                    scales == null ? uniformScale : scales[row]);
+    }
+
+    /**
+     * The {@code Segment} class holds the header of one segment of a
+     * binary Order file
+     */
+    static final class Segment {
+        // Position of the segment in the file
+        final long position;
+        // Length of the segment in bytes, header included
+        final int length;
+        // Number of Orders in the segment
+        final int rowCount;
+
+        Segment(long position, int length, int rowCount) {
+            this.position = position;
+            this.length = length;
+            this.rowCount = rowCount;
+        }
+
+        /**
+         * Gets the position just after this segment
+         * @return position of the next segment
+         */
+        long end() {
+            return position + length;
+        }
+    }
+
+    /**
+     * The {@code DecimalColumn} enum lists the decimal columns of an Order
+     * with their fixed-point getters and setters. Every column except the
+     * area has a fixed scale; values stored with another scale, such as a
+     * tax rate of 25.00, are rescaled when they are read.
+     */
+    private enum DecimalColumn {
+        TAX_RATE(Order::getTaxRateThousandths, Order::setTaxRateThousandths,
+                Money.THOUSANDTHS),
+        AREA(Order::getAreaUnscaled, null, 0) {
+            @Override
+            int scale(Order order) {
+                return order.getAreaScale();
+            }
+
+            @Override
+            void set(Order order, long unscaled, int scale) {
+                order.setArea(unscaled, scale);
+            }
+        },
+        COST_PER_SQUARE_FOOT(Order::getCostPerSquareFootCents,
+                Order::setCostPerSquareFootCents, Money.CENTS),
+        LABOR_COST_PER_SQUARE_FOOT(Order::getLaborCostPerSquareFootCents,
+                Order::setLaborCostPerSquareFootCents, Money.CENTS),
+        MATERIAL_COST(Order::getMaterialCostCents, Order::setMaterialCostCents, Money.CENTS),
+        LABOR_COST(Order::getLaborCostCents, Order::setLaborCostCents, Money.CENTS),
+        TAX(Order::getTaxCents, Order::setTaxCents, Money.CENTS),
+        TOTAL(Order::getTotalCents, Order::setTotalCents, Money.CENTS);
+
+        private final ToLongFunction<Order> getter;
+        private final ObjLongConsumer<Order> setter;
+        private final int scale;
+
+        DecimalColumn(ToLongFunction<Order> getter, ObjLongConsumer<Order> setter, int scale) {
+            this.getter = getter;
+            this.setter = setter;
+            this.scale = scale;
+        }
+
+        /**
+         * Gets the scale of this column for an Order
+         * @param order Order being encoded
+         * @return scale of the unscaled value
+         */
+        int scale(Order order) {
+            return scale;
+        }
+
+        /**
+         * Sets this column of an Order
+         * @param order Order being decoded
+         * @param unscaled unscaled value read from the file
+         * @param scale scale read from the file
+         */
+        void set(Order order, long unscaled, int scale) {
+            setter.accept(order, Money.rescale(unscaled, scale, this.scale));
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Product;
+import FlooringMastery.model.State;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.*;
+
+/**
+ * The {@code CatalogCache} class is responsible for keeping the Product
+ * and State (tax) information in memory. Each file is read once into an
+ * immutable map keyed by product type or state abbreviation. The
+ * directories of the files are watched by the DirectoryWatcher, and a file
+ * is read again as soon as it changes, swapping in a new Snapshot, so a
+ * long-running instance picks up catalog changes without checking the
+ * files on every Order. If a directory cannot be watched, the files'
+ * last modified times are checked on each use instead.
+ */
+public class CatalogCache {
+    /**
+     * The {@code CatalogReader} interface reads every line of a catalog file
+     */
+    private interface CatalogReader<T> {
+        List<T> read(String fileName) throws PersistenceException;
+    }
+
+    // Declare readers and names of the catalog files
+    private final CatalogReader<Product> PRODUCT_READER;
+    private final CatalogReader<State> TAX_READER;
+    private final String PRODUCT_FILE;
+    private final String TAX_FILE;
+
+    // Current catalog, replaced as a whole whenever a file is reloaded
+    private volatile Snapshot snapshot;
+    // Whether a file changed, or events were lost, since the last reload
+    private volatile boolean stale = true;
+    // Whether both directories are watched, so the files need not be checked
+    private volatile boolean watched;
+    // Held here, as the DirectoryWatcher only holds it weakly
+    private final DirectoryWatcher.Listener WATCH_LISTENER = this::catalogChanged;
+
+    /**
+     * No-args constructor for CatalogCache uses the default
+     * Product and Tax files.
+     */
+    public CatalogCache() {
+        this("Data/Products.txt", "Data/Taxes.txt");
+    }
+
+    /**
+     * Constructor accepts the names of the Product and Tax files, which
+     * are read as CSV without creating a FileDao
+     * @param productFile Product file name
+     * @param taxFile Tax file name
+     */
+    public CatalogCache(String productFile, String taxFile) {
+        this(CsvRecords::readProductFile, CsvRecords::readTaxFile, productFile, taxFile);
+    }
+
+    /**
+     * Constructor accepts parameters for the FileDao used to read the
+     * catalog files and the names of those files
+     * @param fileDao FileDao object used to read the files
+     * @param productFile Product file name
+     * @param taxFile Tax file name
+     */
+    public CatalogCache(FileDao fileDao, String productFile, String taxFile) {
+        this(fileDao::readProductFile, fileDao::readTaxFile, productFile, taxFile);
+    }
+
+    /**
+     * Constructor accepts the readers of the catalog files and the names
+     * of those files
+     * @param productReader reader of the Product file
+     * @param taxReader reader of the Tax file
+     * @param productFile Product file name
+     * @param taxFile Tax file name
+     */
+    private CatalogCache(CatalogReader<Product> productReader, CatalogReader<State> taxReader,
+                         String productFile, String taxFile) {
+        this.PRODUCT_READER = productReader;
+        this.TAX_READER = taxReader;
+        this.PRODUCT_FILE = productFile;
+        this.TAX_FILE = taxFile;
+    }
+
+    /**
+     * Returns the current catalog. While the catalog directories are
+     * watched this is only a read of the current Snapshot; otherwise a
+     * file is reloaded first if it has changed since it was last read.
+     * Callers that need Product and State information together should
+     * use a single Snapshot. If a changed file cannot be read, such as
+     * while it is half written, the last good Snapshot is returned and the
+     * file is read again on next use.
+     * @return current catalog Snapshot
+     * @throws PersistenceException if unable to read a catalog file and
+     * no Snapshot has been loaded yet
+     */
+    public Snapshot getSnapshot() throws PersistenceException {
+        Snapshot current = snapshot;
+
+        if (current == null || stale || (!watched
+                && (current.productFileModified != new File(PRODUCT_FILE).lastModified()
+                || current.taxFileModified != new File(TAX_FILE).lastModified()))) {
+            try {
+                current = reload(false, false);
+            } catch (PersistenceException | RuntimeException e) {
+                if (current == null)
+                    throw e;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Re-reads whichever catalog files changed and swaps in a new Snapshot,
+     * first starting to watch their directories if they are not watched,
+     * so no change made while the files are read is missed
+     * @param productsChanged true to re-read the Product file even if its
+     * last modified time is unchanged
+     * @param taxesChanged true to re-read the Tax file even if its last
+     * modified time is unchanged
+     * @return new Snapshot
+     * @throws PersistenceException if unable to read a catalog file
+     */
+    private synchronized Snapshot reload(boolean productsChanged, boolean taxesChanged)
+            throws PersistenceException {
+        if (!watched)
+            watch();
+
+        Snapshot current = snapshot;
+        long productFileModified = new File(PRODUCT_FILE).lastModified();
+        long taxFileModified = new File(TAX_FILE).lastModified();
+        boolean rereadProducts = current == null || productsChanged
+                || current.productFileModified != productFileModified;
+        boolean rereadTaxes = current == null || taxesChanged
+                || current.taxFileModified != taxFileModified;
+
+        // Another caller may have reloaded while this one was waiting
+        stale = false;
+        if (!rereadProducts && !rereadTaxes)
+            return current;
+
+        try {
+            Map<String, Product> products = rereadProducts
+                    ? indexProducts(PRODUCT_READER.read(PRODUCT_FILE)) : current.products;
+            Map<String, State> states = rereadTaxes
+                    ? indexStates(TAX_READER.read(TAX_FILE)) : current.states;
+
+            snapshot = new Snapshot(products, productFileModified, states, taxFileModified);
+            return snapshot;
+        } catch (PersistenceException | RuntimeException e) {
+            // Read again on next use; the last good Snapshot is kept meanwhile
+            stale = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Starts watching the directories of the catalog files. If either
+     * cannot be watched, the files are checked on each use instead.
+     */
+    private void watch() {
+        try {
+            Path productDirectory = getDirectory(PRODUCT_FILE);
+            Path taxDirectory = getDirectory(TAX_FILE);
+            DirectoryWatcher.watch(productDirectory, WATCH_LISTENER);
+            if (!taxDirectory.equals(productDirectory))
+                DirectoryWatcher.watch(taxDirectory, WATCH_LISTENER);
+            watched = true;
+        } catch (IOException e) {
+            // Not watchable, such as a missing directory
+            watched = false;
+        }
+    }
+
+    /**
+     * Reloads the catalog files named by the events of a watched
+     * directory. Called on the DirectoryWatcher thread.
+     * @param events events of the directory
+     * @param valid false if the directory is no longer watched
+     */
+    private void catalogChanged(List<WatchEvent<?>> events, boolean valid) {
+        boolean productsChanged = false;
+        boolean taxesChanged = false;
+        String productFileName = Paths.get(PRODUCT_FILE).getFileName().toString();
+        String taxFileName = Paths.get(TAX_FILE).getFileName().toString();
+
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, so both files are read again
+                productsChanged = true;
+                taxesChanged = true;
+                continue;
+            }
+
+            String fileName = event.context().toString();
+            productsChanged |= fileName.equals(productFileName);
+            taxesChanged |= fileName.equals(taxFileName);
+        }
+
+        if (!valid)
+            // The directory was deleted or moved; the files are checked
+            // on each use until it can be watched again
+            watched = false;
+
+        if (productsChanged || taxesChanged) {
+            try {
+                reload(productsChanged, taxesChanged);
+            } catch (PersistenceException | RuntimeException e) {
+                // The file may be half written; the next event or use reads it again
+            }
+        }
+    }
+
+    /**
+     * Gets the directory of a catalog file
+     * @param fileName catalog file name
+     * @return absolute directory of the file
+     */
+    private static Path getDirectory(String fileName) {
+        return Paths.get(fileName).toAbsolutePath().normalize().getParent();
+    }
+
+    /**
+     * Maps each Product by product type, keeping the order of the file
+     * @param productList list of Product objects
+     * @return immutable map of product type to Product
+     */
+    private static Map<String, Product> indexProducts(List<Product> productList) {
+        Map<String, Product> products = new LinkedHashMap<>();
+        for (Product product : productList)
+            products.put(product.getProductType(), product);
+        return Collections.unmodifiableMap(products);
+    }
+
+    /**
+     * Maps each State by state abbreviation, keeping the order of the file
+     * @param stateList list of State objects
+     * @return immutable map of state abbreviation to State
+     */
+    private static Map<String, State> indexStates(List<State> stateList) {
+        Map<String, State> states = new LinkedHashMap<>();
+        for (State state : stateList)
+            states.put(state.getStateAbbr(), state);
+        return Collections.unmodifiableMap(states);
+    }
+
+    /**
+     * The {@code Snapshot} class holds one consistent, immutable copy
+     * of the Product and State information.
+     */
+    public static final class Snapshot {
+        private final Map<String, Product> products;
+        private final Map<String, State> states;
+        private final List<Product> productList;
+        private final List<String> productTypeList;
+        private final List<State> stateList;
+        private final List<String> stateAbbrList;
+        private final long productFileModified;
+        private final long taxFileModified;
+
+        private Snapshot(Map<String, Product> products, long productFileModified,
+                         Map<String, State> states, long taxFileModified) {
+            this.products = products;
+            this.states = states;
+            this.productList = List.copyOf(products.values());
+            this.productTypeList = List.copyOf(products.keySet());
+            this.stateList = List.copyOf(states.values());
+            this.stateAbbrList = List.copyOf(states.keySet());
+            this.productFileModified = productFileModified;
+            this.taxFileModified = taxFileModified;
+        }
+
+        /**
+         * Looks up a Product by product type
+         * @param productType Product type (name of product)
+         * @return Product object, or null if there is no such product
+         */
+        public Product getProduct(String productType) {
+            return products.get(productType);
+        }
+
+        /**
+         * Looks up a State by state abbreviation
+         * @param stateAbbr State abbreviation
+         * @return State object, or null if there is no such state
+         */
+        public State getState(String stateAbbr) {
+            return states.get(stateAbbr);
+        }
+
+        public List<Product> getProductList() {
+            return productList;
+        }
+
+        public List<String> getProductTypeList() {
+            return productTypeList;
+        }
+
+        public List<State> getStateList() {
+            return stateList;
+        }
+
+        public List<String> getStateAbbrList() {
+            return stateAbbrList;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Money;
+import FlooringMastery.model.Order;
+import FlooringMastery.model.Product;
+import FlooringMastery.model.State;
+
+import java.io.*;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * The {@code CsvRecords} class is responsible for unmarshalling and
+ * marshalling the comma delimited lines of Product, Tax, Order, and Export
+ * files, and for reading the Product, Tax, and Export files. It holds no
+ * state, so every DAO shares it whatever format it keeps Order files in.
+ */
+final class CsvRecords {
+    // Declare and initialize delimiter used in files
+    private static final String DELIMITER = ",";
+    // Formatter for the dates in the Export File
+    private static final DateTimeFormatter FILE_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMddyyyy");
+
+    private CsvRecords() {
+    }
+
+    /**
+     * Reads a line of Product information and unmarshalls the information
+     * to create a new Product object
+     * @param line product information
+     * @return new Product object
+     */
+    static Product unmarshallProduct(String line) {
+        // Tokenize line at DELIMITER
+        CsvTokenizer tokenizer = new CsvTokenizer().reset(line);
+
+        // First token is productType
+        String productType = tokenizer.nextString();
+
+        // Create new Product object
+        Product productFromFile = new Product(productType);
+
+        // Set costPerSquareFoot from second token
+        productFromFile.setCostPerSquareFoot(tokenizer.nextDecimal()
+                .setScale(2, RoundingMode.DOWN));
+
+        // Set laborCostPerSquareFoot from third token
+        productFromFile.setLaborCostPerSquareFoot(tokenizer.nextDecimal()
+                .setScale(2, RoundingMode.DOWN));
+
+        // Return new Product object
+        return productFromFile;
+    }
+
+    /**
+     * Reads a file of Product information, creates Product objects
+     * based on the information in each line, and creates a list of
+     * Product objects to return
+     * @param fileName Product information file
+     * @return list of Product objects
+     * @throws PersistenceException if product file not found
+     */
+    static List<Product> readProductFile(String fileName) throws PersistenceException {
+        // Declare and initialize variables
+        List<Product> productList = new ArrayList<>();
+        boolean skipFirstLine = true;
+        Scanner sc;
+
+        try {
+            // Initialize Scanner object
+            sc = new Scanner(new BufferedReader(new FileReader(fileName)));
+
+            String currentLine; // To hold currentLine while reading file
+            Product currentProduct; // To hold Product object from currentLine
+
+            while (sc.hasNextLine()) {
+                currentLine = sc.nextLine();
+                if (skipFirstLine)
+                    // Skip first line which is header row
+                    skipFirstLine = false;
+                else {
+                    // Unmarshall currentLine, create new Product object
+                    currentProduct = unmarshallProduct(currentLine);
+                    // Add new Product object to productList
+                    productList.add(currentProduct);
+                }
+            }
+
+            // Close Scanner object
+            sc.close();
+
+            // Return list of Product objects
+            return productList;
+        } catch (FileNotFoundException e) {
+            // Throw exception if unable to find product file
+            throw new PersistenceException("Product file not found.", e);
+        }
+    }
+
+    /**
+     * Reads a line of Tax information and unmarshalls the information
+     * to create a new State object
+     * @param line state/tax information
+     * @return new State object
+     */
+    static State unmarshallTaxes(String line) {
+        // Tokenize line at DELIMITER
+        CsvTokenizer tokenizer = new CsvTokenizer().reset(line);
+
+        // First token is State abbreviation
+        String stateAbbr = tokenizer.nextString();
+
+        // Create new State object
+        State stateFromFile = new State(stateAbbr);
+
+        // Set state name from second token
+        stateFromFile.setStateName(tokenizer.nextString());
+
+        // Set state tax rate from third token
+        stateFromFile.setTaxRate(tokenizer.nextDecimal()
+                .setScale(3, RoundingMode.HALF_UP));
+
+        // Return new State object
+        return stateFromFile;
+    }
+
+    /**
+     * Reads a file of State/Tax information, creates State objects
+     * based on the information in each line, and creates a list of
+     * State objects to return
+     * @param fileName State information file
+     * @return list of State objects
+     * @throws PersistenceException if state/tax file not found
+     */
+    static List<State> readTaxFile(String fileName) throws PersistenceException {
+        // Declare and initialize variables
+        List<State> stateList = new ArrayList<>();
+        boolean skipFirstLine = true;
+        Scanner sc;
+
+        try {
+            // Initialize Scanner object
+            sc = new Scanner(new BufferedReader(new FileReader(fileName)));
+
+            String currentLine; // To hold currentLine while reading file
+            State currentState; // To hold State object from currentLine
+
+            while (sc.hasNextLine()) {
+                currentLine = sc.nextLine();
+                if (skipFirstLine)
+                    // Skip first line which is header row
+                    skipFirstLine = false;
+                else {
+                    // Unmarshall currentLine, create new State object
+                    currentState = unmarshallTaxes(currentLine);
+                    // Add new State object to stateList
+                    stateList.add(currentState);
+                }
+            }
+
+            // Close Scanner object
+            sc.close();
+
+            // Return list of State objects
+            return stateList;
+        } catch (FileNotFoundException e) {
+            // Throw exception if unable to find state/tax file
+            throw new PersistenceException("Tax file not found.", e);
+        }
+    }
+
+    /**
+     * Unmarshalls the line a CsvTokenizer was reset to into a new Order
+     * object. Reading an Order file reuses one tokenizer for every line.
+     * @param tokenizer CsvTokenizer reset to a line of Order information
+     * @return new Order object
+     */
+    static Order unmarshallOrder(CsvTokenizer tokenizer) {
+        // First token is Order number
+        // Create new Order object
+        Order orderFromFile = new Order(tokenizer.nextInt());
+
+        // Set remaining Order attributes based on remaining tokens
+        orderFromFile.setCustomerName(tokenizer.nextString());
+        orderFromFile.setState(tokenizer.nextString());
+        orderFromFile.setTaxRateThousandths(tokenizer.nextFixed(Money.THOUSANDTHS));
+        orderFromFile.setProductType(tokenizer.nextString());
+        orderFromFile.setArea(tokenizer.nextUnscaled(), tokenizer.getScale());
+        orderFromFile.setCostPerSquareFootCents(tokenizer.nextFixed(Money.CENTS));
+        orderFromFile.setLaborCostPerSquareFootCents(tokenizer.nextFixed(Money.CENTS));
+        orderFromFile.setMaterialCostCents(tokenizer.nextFixed(Money.CENTS));
+        orderFromFile.setLaborCostCents(tokenizer.nextFixed(Money.CENTS));
+        orderFromFile.setTaxCents(tokenizer.nextFixed(Money.CENTS));
+        orderFromFile.setTotalCents(tokenizer.nextFixed(Money.CENTS));
+
+        // Return new Order object
+        return orderFromFile;
+    }
+
+    /**
+     * Converts an order to the appropriate String with delimiters needed
+     * to store in Order file
+     * @param order order to store in file
+     * @return Order as string, formatted for storing in an Order File
+     */
+    static String marshallOrder(Order order) {
+        return appendOrder(new StringBuilder(128), order).toString();
+    }
+
+    /**
+     * Converts an order to the appropriate String with delimiters, including
+     * Order date, to store in Export file
+     * @param order Order to write in export file
+     * @param date date of Order
+     * @return Order as string, formatted for storing in Export File
+     */
+    static String marshallOrderForExport(Order order, String date) {
+        return appendOrder(new StringBuilder(140), order).append(DELIMITER).append(date)
+                .toString();
+    }
+
+    /**
+     * Appends the fields of an Order, separated with delimiters, formatting
+     * the fixed-point values directly instead of through BigDecimal. The
+     * customer name is quoted if it contains a delimiter or quote.
+     * @param builder StringBuilder to append to
+     * @param order Order to append
+     * @return builder
+     */
+    static StringBuilder appendOrder(StringBuilder builder, Order order) {
+        builder.append(order.getOrderNumber()).append(DELIMITER)
+                .append(CsvTokenizer.quote(order.getCustomerName())).append(DELIMITER)
+                .append(order.getState()).append(DELIMITER);
+        Money.append(builder, order.getTaxRateThousandths(), Money.THOUSANDTHS)
+                .append(DELIMITER).append(order.getProductType()).append(DELIMITER);
+        Money.append(builder, order.getAreaUnscaled(), order.getAreaScale()).append(DELIMITER);
+        Money.append(builder, order.getCostPerSquareFootCents(), Money.CENTS).append(DELIMITER);
+        Money.append(builder, order.getLaborCostPerSquareFootCents(), Money.CENTS)
+                .append(DELIMITER);
+        Money.append(builder, order.getMaterialCostCents(), Money.CENTS).append(DELIMITER);
+        Money.append(builder, order.getLaborCostCents(), Money.CENTS).append(DELIMITER);
+        Money.append(builder, order.getTaxCents(), Money.CENTS).append(DELIMITER);
+        return Money.append(builder, order.getTotalCents(), Money.CENTS);
+    }
+
+    /**
+     * Reads an Export File, passing each exported Order and its date to
+     * an action in the order they were exported. The Export File is
+     * scanned by MappedLineReader like the Order files.
+     * @param exportFile Export File to read
+     * @param memoryMapped true to memory-map the file while it is read
+     * @param action action to perform on each Order and its date
+     * @return number of Orders read
+     * @throws PersistenceException if unable to read the Export File
+     */
+    static long readExportFile(Path exportFile, boolean memoryMapped,
+                               BiConsumer<LocalDate, Order> action) throws PersistenceException {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        // Many lines share a date, so each date is only parsed once
+        Map<String, LocalDate> dates = new HashMap<>();
+
+        try {
+            return MappedLineReader.forEachLine(exportFile, memoryMapped, 0,
+                    line -> {
+                        Order order = unmarshallOrder(tokenizer.reset(line));
+                        LocalDate date = dates.computeIfAbsent(tokenizer.nextString(),
+                                text -> LocalDate.parse(text, FILE_DATE_FORMAT));
+                        action.accept(date, order);
+                    });
+        } catch (IOException | RuntimeException e) {
+            // Throw exception if the export file is missing or malformed
+            throw new PersistenceException("Could not read export data.", e);
+        }
+    }
+}
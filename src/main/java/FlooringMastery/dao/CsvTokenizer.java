@@ -0,0 +1,250 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * The {@code CsvTokenizer} class is responsible for splitting one line of
+ * a comma delimited file into fields in a single pass, without regular
+ * expressions or an array of substrings. Fields may be quoted as described
+ * in RFC 4180, so a customer name can contain commas and quotes. Numbers
+ * are parsed straight from the characters of the line, and fixed-point
+ * values can be read without creating any object. A tokenizer can be
+ * reused for many lines by calling reset, but it is not thread-safe.
+ */
+public class CsvTokenizer {
+    // Declare delimiter and quote characters
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    // Most digits that always fit in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    // Line being tokenized and position of the next field
+    private CharSequence line;
+    private int position;
+    // Bounds of the current field, excluding surrounding quotes
+    private int fieldStart;
+    private int fieldEnd;
+    // Whether the current field contains escaped ("") quotes
+    private boolean hasEscapedQuotes;
+    // Unscaled value and scale of the last decimal parsed
+    private long unscaled;
+    private int scale;
+
+    /**
+     * Starts tokenizing a new line
+     * @param line line to tokenize
+     * @return this CsvTokenizer
+     */
+    public CsvTokenizer reset(CharSequence line) {
+        this.line = line;
+        this.position = 0;
+        return this;
+    }
+
+    /**
+     * Checks whether the line has another field
+     * @return true if there is another field
+     */
+    public boolean hasNext() {
+        return position <= line.length();
+    }
+
+    /**
+     * Reads the next field as a String
+     * @return next field, with any quoting removed
+     */
+    public String nextString() {
+        advance();
+
+        if (!hasEscapedQuotes)
+            return line.subSequence(fieldStart, fieldEnd).toString();
+
+        // Replace each pair of quotes with a single quote, after the field
+        // is decoded so lines over UTF-8 bytes are handled too
+        return line.subSequence(fieldStart, fieldEnd).toString().replace("\"\"", "\"");
+    }
+
+    /**
+     * Reads the next field as an int
+     * @return next field parsed as an int
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public int nextInt() {
+        advance();
+        return Integer.parseInt(line, fieldStart, fieldEnd, 10);
+    }
+
+    /**
+     * Reads the next field as a BigDecimal. The digits are accumulated into
+     * an unscaled long, so the result has the same value and scale as
+     * {@code new BigDecimal(field)} without creating an intermediate String.
+     * @return next field parsed as a BigDecimal
+     * @throws NumberFormatException if the field is not a valid decimal
+     */
+    public BigDecimal nextDecimal() {
+        advance();
+
+        if (!parseDecimal())
+            return new BigDecimal(line.subSequence(fieldStart, fieldEnd).toString());
+
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Reads the next field as a fixed-point value with a given scale, such
+     * as cents, rounding HALF_UP if the field has more decimal places
+     * @param toScale scale of the result
+     * @return unscaled value of the next field
+     * @throws NumberFormatException if the field is not a valid decimal
+     * @throws ArithmeticException if the value does not fit in a long
+     */
+    public long nextFixed(int toScale) {
+        advance();
+
+        if (!parseDecimal())
+            return Money.fromBigDecimal(
+                    new BigDecimal(line.subSequence(fieldStart, fieldEnd).toString()), toScale);
+
+        return Money.rescale(unscaled, scale, toScale);
+    }
+
+    /**
+     * Reads the next field as an unscaled decimal, keeping the scale it was
+     * written with; the scale is then returned by getScale
+     * @return unscaled value of the next field
+     * @throws NumberFormatException if the field is not a valid decimal
+     * @throws ArithmeticException if the value does not fit in a long
+     */
+    public long nextUnscaled() {
+        advance();
+
+        if (!parseDecimal()) {
+            BigDecimal value = new BigDecimal(line.subSequence(fieldStart, fieldEnd).toString());
+            if (value.scale() < 0)
+                value = value.setScale(0);
+            unscaled = value.unscaledValue().longValueExact();
+            scale = value.scale();
+        }
+
+        return unscaled;
+    }
+
+    /**
+     * Gets the scale of the decimal last read by nextUnscaled
+     * @return number of decimal places
+     */
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Skips the next field
+     */
+    public void skip() {
+        advance();
+    }
+
+    /**
+     * Quotes a field for writing if it contains a delimiter or quote,
+     * doubling any quotes inside it. Line breaks are not quoted, since
+     * files are split into lines before they are tokenized, so fields
+     * must not contain them.
+     * @param field field to write
+     * @return field, quoted only if needed
+     */
+    public static String quote(String field) {
+        if (field == null)
+            return null;
+
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == DELIMITER || c == QUOTE)
+                return QUOTE + field.replace("\"", "\"\"") + QUOTE;
+        }
+
+        return field;
+    }
+
+    /**
+     * Parses the current field as a plain decimal into unscaled and scale
+     * @return false if the field has too many digits or is not a plain
+     * decimal, and must be left to BigDecimal
+     */
+    private boolean parseDecimal() {
+        int i = fieldStart;
+        boolean negative = false;
+        if (i < fieldEnd && (line.charAt(i) == '-' || line.charAt(i) == '+'))
+            negative = line.charAt(i++) == '-';
+
+        long value = 0;
+        int digits = 0;
+        int places = 0;
+        boolean afterPoint = false;
+
+        for (; i < fieldEnd; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (afterPoint)
+                    places++;
+            } else if (c == '.' && !afterPoint) {
+                afterPoint = true;
+            } else {
+                // Exponents and other unusual forms are left to BigDecimal
+                return false;
+            }
+        }
+
+        if (digits == 0 || digits > MAX_LONG_DIGITS)
+            return false;
+
+        unscaled = negative ? -value : value;
+        scale = places;
+        return true;
+    }
+
+    /**
+     * Finds the bounds of the next field and moves past its delimiter
+     * @throws IllegalStateException if there are no more fields
+     */
+    private void advance() {
+        int length = line.length();
+        if (position > length)
+            throw new IllegalStateException("No more fields in line.");
+
+        hasEscapedQuotes = false;
+
+        if (position < length && line.charAt(position) == QUOTE) {
+            // Quoted field ends at a quote that is not followed by another quote
+            int i = position + 1;
+            fieldStart = i;
+            while (i < length) {
+                if (line.charAt(i) == QUOTE) {
+                    if (i + 1 < length && line.charAt(i + 1) == QUOTE) {
+                        hasEscapedQuotes = true;
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            fieldEnd = Math.min(i, length);
+
+            // Skip the closing quote and anything up to the delimiter
+            while (i < length && line.charAt(i) != DELIMITER)
+                i++;
+            position = i + 1;
+        } else {
+            int i = position;
+            while (i < length && line.charAt(i) != DELIMITER)
+                i++;
+            fieldStart = position;
+            fieldEnd = i;
+            position = i + 1;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package FlooringMastery.dao;
+
+import java.time.LocalDate;
+
+/**
+ * The {@code DateStripes} class maps dates onto a fixed number of stripes,
+ * so per-date locks and counters can be kept in small arrays. Neighbouring
+ * dates fall in different stripes.
+ */
+final class DateStripes {
+    private DateStripes() {
+    }
+
+    /**
+     * Gets the stripe of a date
+     * @param date date to map
+     * @param stripes number of stripes
+     * @return stripe of the date, from 0 to stripes - 1
+     */
+    static int of(LocalDate date, int stripes) {
+        return Math.floorMod(date.toEpochDay(), stripes);
+    }
+}
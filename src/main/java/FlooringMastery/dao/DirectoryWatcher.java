@@ -0,0 +1,114 @@
+package FlooringMastery.dao;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@code DirectoryWatcher} class reports files created, modified, or
+ * deleted in watched directories. A single WatchService and daemon thread
+ * serve every directory; the thread hands each batch of events to the
+ * listeners of the directory. Listeners are held weakly, so whatever owns
+ * one must keep it in a field for as long as it wants events.
+ */
+final class DirectoryWatcher {
+    /**
+     * The {@code Listener} interface receives the events of a directory.
+     * It is called on the watcher thread, so it must not block for long.
+     */
+    interface Listener {
+        /**
+         * Called with a batch of events of a watched directory
+         * @param events events, which may include OVERFLOW if some were lost
+         * @param valid false if the directory is no longer watched, such
+         * as after it was deleted
+         */
+        void directoryChanged(List<WatchEvent<?>> events, boolean valid);
+    }
+
+    // Shared WatchService, created on first use
+    private static WatchService watchService;
+    // Listeners of each watched directory
+    private static final Map<WatchKey, List<WeakReference<Listener>>> LISTENERS =
+            new ConcurrentHashMap<>();
+
+    private DirectoryWatcher() {
+    }
+
+    /**
+     * Starts reporting the events of a directory to a listener. Every
+     * kind of event is watched, since registering a directory again
+     * replaces the kinds of its key.
+     * @param directory directory to watch
+     * @param listener listener of the directory
+     * @return WatchKey of the directory, valid while it is watched
+     * @throws IOException if the directory cannot be watched
+     */
+    static WatchKey watch(Path directory, Listener listener) throws IOException {
+        try {
+            // Registering a directory again returns the same key
+            WatchKey key = directory.register(getWatchService(),
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            LISTENERS.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>())
+                    .add(new WeakReference<>(listener));
+            return key;
+        } catch (UnsupportedOperationException e) {
+            throw new IOException("Directory cannot be watched.", e);
+        }
+    }
+
+    /**
+     * Gets the shared WatchService, starting the daemon thread that hands
+     * its events to the listeners
+     * @return shared WatchService
+     * @throws IOException if unable to create the WatchService
+     */
+    private static synchronized WatchService getWatchService() throws IOException {
+        if (watchService == null) {
+            watchService = FileSystems.getDefault().newWatchService();
+            Thread dispatcher = new Thread(DirectoryWatcher::dispatchEvents,
+                    "directory-watcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+        return watchService;
+    }
+
+    /**
+     * Waits for directory events and hands them to the listeners of each
+     * directory, until the WatchService is closed
+     */
+    private static void dispatchEvents() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                List<WatchEvent<?>> events = key.pollEvents();
+                boolean valid = key.reset();
+                List<WeakReference<Listener>> listeners =
+                        valid ? LISTENERS.get(key) : LISTENERS.remove(key);
+                if (listeners == null)
+                    continue;
+
+                for (WeakReference<Listener> reference : listeners) {
+                    Listener listener = reference.get();
+                    if (listener == null) {
+                        listeners.remove(reference);
+                        continue;
+                    }
+                    try {
+                        listener.directoryChanged(events, valid);
+                    } catch (RuntimeException e) {
+                        // One listener's failure must not stop the others
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stop dispatching
+        }
+    }
+}
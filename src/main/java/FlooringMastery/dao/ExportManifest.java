@@ -0,0 +1,199 @@
+package FlooringMastery.dao;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code ExportManifest} class is responsible for remembering which
+ * version of each Order file was last exported. For every date it stores
+ * the Order file's last modified time, size, and checksum, along with the
+ * exported lines for that file (its segment). An incremental export only
+ * has to re-export the Order files whose entry no longer matches.
+ */
+public class ExportManifest {
+    // Declare delimiter and name of the manifest file
+    private static final String DELIMITER = ",";
+    private static final String MANIFEST_FILE = "manifest.txt";
+
+    // Directory holding the manifest and segment files
+    private final Path DIRECTORY;
+    // Entries by date, oldest first
+    private final TreeMap<LocalDate, Entry> entries = new TreeMap<>();
+
+    /**
+     * Constructor accepts the directory of the manifest and loads the
+     * manifest if it exists
+     * @param directory directory of the manifest and segment files
+     * @throws IOException if unable to read the manifest
+     */
+    public ExportManifest(Path directory) throws IOException {
+        this.DIRECTORY = directory;
+
+        Path manifestFile = DIRECTORY.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifestFile))
+            return;
+
+        for (String line : Files.readAllLines(manifestFile, StandardCharsets.UTF_8)) {
+            String[] tokens = line.split(DELIMITER);
+            entries.put(LocalDate.ofEpochDay(Long.parseLong(tokens[0])),
+                    new Entry(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]),
+                            Long.parseLong(tokens[3]), Long.parseLong(tokens[4])));
+        }
+    }
+
+    /**
+     * Checks whether the segment for an Order file is still current. The
+     * file's checksum is only calculated if its last modified time or size
+     * changed; if the contents are the same the entry is updated to the new
+     * last modified time.
+     * @param date date of Order file
+     * @param orderFile Order file
+     * @return true if the existing segment can be reused
+     * @throws IOException if unable to read the Order file
+     */
+    public boolean isCurrent(LocalDate date, File orderFile) throws IOException {
+        Entry entry = entries.get(date);
+        if (entry == null || !Files.exists(getSegmentFile(date)))
+            return false;
+
+        if (entry.lastModified == orderFile.lastModified()
+                && entry.size == orderFile.length())
+            return true;
+
+        if (entry.checksum != checksum(orderFile.toPath()))
+            return false;
+
+        // File was touched but its contents did not change
+        entries.put(date, new Entry(orderFile.lastModified(), orderFile.length(),
+                entry.checksum, entry.orderCount));
+        return true;
+    }
+
+    /**
+     * Stores a new segment for an Order file and updates its entry
+     * @param date date of Order file
+     * @param orderFile Order file the segment was exported from
+     * @param segment exported lines for the Order file
+     * @param orderCount number of Orders in the segment
+     * @throws IOException if unable to write the segment
+     */
+    public void update(LocalDate date, File orderFile, byte[] segment, long orderCount)
+            throws IOException {
+        try (AtomicFileWriter writer = new AtomicFileWriter(getSegmentFile(date))) {
+            ByteBuffer buffer = ByteBuffer.wrap(segment);
+            while (buffer.hasRemaining())
+                writer.getChannel().write(buffer);
+            writer.commit();
+        }
+
+        entries.put(date, new Entry(orderFile.lastModified(), orderFile.length(),
+                checksum(orderFile.toPath()), orderCount));
+    }
+
+    /**
+     * Removes the entries and segments of Order files that no longer exist
+     * @param orderFileDates dates of all current Order files
+     * @throws IOException if unable to delete a segment
+     */
+    public void retainAll(Collection<LocalDate> orderFileDates) throws IOException {
+        Set<LocalDate> current = new HashSet<>(orderFileDates);
+        Iterator<LocalDate> dates = entries.keySet().iterator();
+
+        while (dates.hasNext()) {
+            LocalDate date = dates.next();
+            if (!current.contains(date)) {
+                Files.deleteIfExists(getSegmentFile(date));
+                dates.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of Orders in the segment for an Order file
+     * @param date date of Order file
+     * @return number of Orders exported for the date
+     */
+    public long getOrderCount(LocalDate date) {
+        return entries.get(date).orderCount;
+    }
+
+    /**
+     * Gets the segment file for an Order file
+     * @param date date of Order file
+     * @return path of the segment file
+     */
+    public Path getSegmentFile(LocalDate date) {
+        return DIRECTORY.resolve("Segment_" + date.toEpochDay() + ".txt");
+    }
+
+    /**
+     * Writes the manifest, replacing the previous one atomically
+     * @throws IOException if unable to write the manifest
+     */
+    public void save() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<LocalDate, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            builder.append(entry.getKey().toEpochDay()).append(DELIMITER)
+                    .append(value.lastModified).append(DELIMITER)
+                    .append(value.size).append(DELIMITER)
+                    .append(value.checksum).append(DELIMITER)
+                    .append(value.orderCount).append(System.lineSeparator());
+        }
+
+        try (AtomicFileWriter writer = new AtomicFileWriter(DIRECTORY.resolve(MANIFEST_FILE))) {
+            ByteBuffer buffer = ByteBuffer.wrap(builder.toString()
+                    .getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                writer.getChannel().write(buffer);
+            writer.commit();
+        }
+    }
+
+    /**
+     * Calculates the CRC32 checksum of a file
+     * @param file file to read
+     * @return checksum of the file's contents
+     * @throws IOException if unable to read the file
+     */
+    private static long checksum(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * The {@code Entry} class holds the version of an Order file that was
+     * last exported and the number of Orders exported from it.
+     */
+    private static class Entry {
+        private final long lastModified;
+        private final long size;
+        private final long checksum;
+        private final long orderCount;
+
+        private Entry(long lastModified, long size, long checksum, long orderCount) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.checksum = checksum;
+            this.orderCount = orderCount;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package FlooringMastery.dao;
+
+/**
+ * The {@code ExportSummary} class holds the results of exporting Order
+ * data: how many Order files and Orders were exported, how many bytes were
+ * written, and how long the export took.
+ */
+public class ExportSummary {
+    // Values for ExportSummary objects
+    private final int fileCount;
+    private final int changedFileCount;
+    private final long orderCount;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor takes 4 parameters and creates a new ExportSummary object
+     * for an export that re-read every Order file
+     * @param fileCount number of Order files exported
+     * @param orderCount number of Orders exported
+     * @param bytesWritten number of bytes written to the export file
+     * @param elapsedNanos time taken by the export in nanoseconds
+     */
+    public ExportSummary(int fileCount, long orderCount, long bytesWritten,
+                         long elapsedNanos) {
+        this(fileCount, fileCount, orderCount, bytesWritten, elapsedNanos);
+    }
+
+    /**
+     * Constructor takes 5 parameters and creates a new ExportSummary object
+     * @param fileCount number of Order files exported
+     * @param changedFileCount number of Order files that had to be re-read
+     * @param orderCount number of Orders exported
+     * @param bytesWritten number of bytes written to the export file
+     * @param elapsedNanos time taken by the export in nanoseconds
+     */
+    public ExportSummary(int fileCount, int changedFileCount, long orderCount,
+                         long bytesWritten, long elapsedNanos) {
+        this.fileCount = fileCount;
+        this.changedFileCount = changedFileCount;
+        this.orderCount = orderCount;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getChangedFileCount() {
+        return changedFileCount;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Calculates the export throughput
+     * @return megabytes written per second
+     */
+    public double getMegabytesPerSecond() {
+        if (elapsedNanos == 0)
+            return 0;
+        return (bytesWritten / (1024.0 * 1024.0)) / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Exported %d orders from %d files, %d re-read " +
+                        "(%.2f MB in %.3f s, %.2f MB/s)",
+                orderCount, fileCount, changedFileCount, bytesWritten / (1024.0 * 1024.0),
+                elapsedNanos / 1_000_000_000.0, getMegabytesPerSecond());
+    }
+}
@@ -6,6 +6,10 @@ import FlooringMastery.model.State;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 
 public interface FileDao {
     Product unmarshallProduct(String line);
@@ -28,14 +32,42 @@ public interface FileDao {
     void writeNewOrder(LocalDate date, Order order) throws
             PersistenceException;
 
+    void writeNewOrders(LocalDate date, List<Order> orders) throws
+            PersistenceException;
+
     void writeEditOrder(LocalDate date, Order orderToEdit, Order editedOrder)
             throws PersistenceException;
 
     void removeOrderFromFile(LocalDate date, Order orderToRemove) throws PersistenceException;
 
+    void writeOrderFile(LocalDate date, List<Order> orders) throws PersistenceException;
+
+    boolean updateOrderFile(LocalDate date, UnaryOperator<List<Order>> update)
+            throws PersistenceException;
+
+    List<LocalDate> listOrderFileDates() throws PersistenceException;
+
+    NavigableSet<LocalDate> listOrderFileDates(LocalDate fromDate, LocalDate toDate)
+            throws PersistenceException;
+
     String marshallOrderForExport(Order order, String date);
 
-    void exportAllData() throws PersistenceException;
+    ExportSummary exportAllData() throws PersistenceException;
+
+    ExportSummary exportChangedData() throws PersistenceException;
+
+    SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                               LocalDate toDate) throws PersistenceException;
+
+    long readExportFile(BiConsumer<LocalDate, Order> action) throws PersistenceException;
+
+    NavigableMap<LocalDate, List<Integer>> findOrderNumbers(OrderIndex.Field field,
+                                                            String value)
+            throws PersistenceException;
+
+    LocalDate findOrderDate(int orderNumber) throws PersistenceException;
 
     int generateNewOrderNum() throws PersistenceException;
+
+    int reserveOrderNumbers(int count) throws PersistenceException;
 }
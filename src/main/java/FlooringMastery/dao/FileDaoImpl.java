@@ -5,29 +5,86 @@ import FlooringMastery.model.Product;
 import FlooringMastery.model.State;
 
 import java.io.*;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 
 /**
  * The {@code FileDaoImpl} class is responsible for unmarshalling
  * and reading Product and State (tax) files. It is also responsible
  * for unmarshalling/marshalling and reading/writing from/to Order files.
+ * It can be used by many threads at once: each Order file is guarded by a
+ * read-write lock striped by date, so Order files for different dates are
+ * read and written in parallel, and order numbers are handed out atomically.
  */
 public class FileDaoImpl implements FileDao {
-    // Declare and initialize delimiter user in files
-    private static final String DELIMITER = ",";
     private final String ORDER_DIRECTORY;
     private final String EXPORT_FILE;
+    // Order files in the Order directory, shared with every DAO of the directory
+    private final OrderFileManifest ORDER_FILES;
+    // Formatter for the date portion of Order file names (Orders_MMddyyyy.txt)
+    private static final DateTimeFormatter FILE_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMddyyyy");
+    // Highest order number handed out or written, complete once the files are scanned
+    private final AtomicInteger highestOrderNum = new AtomicInteger();
+    private volatile boolean orderNumbersScanned;
+    private final Object ORDER_NUMBER_LOCK = new Object();
+    // Line offsets of Order files that have been edited, by date. Each
+    // index is only changed while holding the lock for its date
+    private final Map<LocalDate, OrderFileIndex> OFFSET_INDEXES = new ConcurrentHashMap<>();
+    // Locks guarding the Order files, striped by date. Consecutive dates
+    // never share a lock
+    private static final int DATE_LOCK_STRIPES = 64;
+    private final ReadWriteLock[] DATE_LOCKS = new ReadWriteLock[DATE_LOCK_STRIPES];
+    // Lock held while the Export File is written
+    private final Object EXPORT_LOCK = new Object();
+    // Size of the buffer used to write the Export File
+    private static final int EXPORT_BUFFER_SIZE = 1024 * 1024;
+    // Header row of every Order file
+    private static final String ORDER_FILE_HEADER = "OrderNumber,CustomerName," +
+            "State,TaxRate,ProductType,Area,CostPerSquareFoot," +
+            "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total";
+    private static final byte[] ORDER_FILE_HEADER_BYTES =
+            (ORDER_FILE_HEADER + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+    // Directory next to the Order directory that holds the journal
+    private final String META_DIRECTORY;
+    // Journals of edits to Order files, one per date lock stripe, so edits
+    // of dates in different stripes are journaled and forced in parallel
+    private final OrderJournal[] EDIT_JOURNALS = new OrderJournal[DATE_LOCK_STRIPES];
+    // Journal of the append writer's batches
+    private final OrderJournal APPEND_JOURNAL;
+    // Single journal of earlier versions, only replayed
+    private final OrderJournal LEGACY_JOURNAL;
+    private boolean journalReplayed;
+    // Whether Order and Export files are memory-mapped when read
+    private final boolean MEMORY_MAPPED;
+    // Postings of Orders by customer, State, and Product across all dates
+    private final OrderIndex ORDER_INDEX;
+    // Totals by State and Product of each Order file, for sales reports
+    private final OrderRollups ORDER_ROLLUPS;
+    // Time a BATCHED append writer collects new Orders before forcing them to disk
+    private static final long FLUSH_INTERVAL_MILLIS = 2;
+    // Appends new Orders to Order files with group commit
+    private final OrderAppendWriter APPEND_WRITER;
 
     /**
      * No args constructor for FileDaoImpl
      */
     public FileDaoImpl() {
-        this.ORDER_DIRECTORY = "Orders";
-        this.EXPORT_FILE = "Backup/DataExport.txt";
+        this("Orders", "Backup/DataExport.txt");
     }
 
     /**
@@ -36,8 +93,65 @@ public class FileDaoImpl implements FileDao {
      * @param exportFile export file name
      */
     public FileDaoImpl(String orderDirectory, String exportFile) {
+        this(orderDirectory, exportFile, MappedLineReader.MAPPING_SUPPORTED);
+    }
+
+    /**
+     * Constructor accepts parameters for orderDirectory and exportFile names
+     * and whether files are memory-mapped when read
+     * @param orderDirectory order file directory
+     * @param exportFile export file name
+     * @param memoryMapped true to memory-map Order and Export files when
+     * reading them, false to read them into a buffer
+     */
+    public FileDaoImpl(String orderDirectory, String exportFile, boolean memoryMapped) {
+        this(orderDirectory, exportFile, memoryMapped, OrderAppendWriter.Durability.SYNC);
+    }
+
+    /**
+     * Constructor accepts parameters for orderDirectory and exportFile names
+     * and how new Orders are made durable
+     * @param orderDirectory order file directory
+     * @param exportFile export file name
+     * @param durability how new Orders appended to Order files are forced to disk
+     */
+    public FileDaoImpl(String orderDirectory, String exportFile,
+                       OrderAppendWriter.Durability durability) {
+        this(orderDirectory, exportFile, MappedLineReader.MAPPING_SUPPORTED, durability);
+    }
+
+    /**
+     * Constructor accepts parameters for orderDirectory and exportFile names,
+     * whether files are memory-mapped when read, and how new Orders are
+     * made durable
+     * @param orderDirectory order file directory
+     * @param exportFile export file name
+     * @param memoryMapped true to memory-map Order and Export files when
+     * reading them, false to read them into a buffer
+     * @param durability how new Orders appended to Order files are forced to disk
+     */
+    public FileDaoImpl(String orderDirectory, String exportFile, boolean memoryMapped,
+                       OrderAppendWriter.Durability durability) {
+        this.MEMORY_MAPPED = memoryMapped;
         this.ORDER_DIRECTORY = orderDirectory;
         this.EXPORT_FILE = exportFile;
+        this.ORDER_FILES = OrderFileManifest.forDirectory(Paths.get(orderDirectory), ".txt");
+        this.META_DIRECTORY = orderDirectory + "Meta";
+        this.LEGACY_JOURNAL = new OrderJournal(Paths.get(META_DIRECTORY, "orders.journal"));
+        this.APPEND_JOURNAL = new OrderJournal(Paths.get(META_DIRECTORY, "journal",
+                "appends.journal"));
+        for (int i = 0; i < DATE_LOCK_STRIPES; i++)
+            EDIT_JOURNALS[i] = new OrderJournal(Paths.get(META_DIRECTORY, "journal",
+                    String.format("stripe-%02d.journal", i)));
+        this.ORDER_INDEX = new OrderIndex(Paths.get(META_DIRECTORY, "index"), this,
+                this::getOrderFile);
+        this.ORDER_ROLLUPS = new OrderRollups(Paths.get(META_DIRECTORY, "rollups"), this,
+                this::getOrderFile);
+        for (int i = 0; i < DATE_LOCK_STRIPES; i++)
+            DATE_LOCKS[i] = new ReentrantReadWriteLock();
+        this.APPEND_WRITER = new OrderAppendWriter(APPEND_JOURNAL, this::getOrderFile,
+                date -> getDateLock(date).writeLock(), ORDER_FILE_HEADER_BYTES,
+                durability, FLUSH_INTERVAL_MILLIS);
     }
 
     /**
@@ -48,25 +162,7 @@ public class FileDaoImpl implements FileDao {
      */
     @Override
     public Product unmarshallProduct(String line) {
-        // Split line at DELIMITER, store tokens in array
-        String[] productTokens = line.split(DELIMITER);
-
-        // First token (index 0) is productType
-        String productType = productTokens[0];
-
-        // Create new Product object
-        Product productFromFile = new Product(productType);
-
-        // Set costPerSquareFoot from second token (index 1)
-        productFromFile.setCostPerSquareFoot(new BigDecimal(productTokens[1])
-                .setScale(2, RoundingMode.DOWN));
-
-        // Set laborCostPerSquareFoot from third token (index 2)
-        productFromFile.setLaborCostPerSquareFoot(new BigDecimal(productTokens[2])
-                .setScale(2, RoundingMode.DOWN));
-
-        // Return new Product object
-        return productFromFile;
+        return CsvRecords.unmarshallProduct(line);
     }
 
     /**
@@ -80,40 +176,7 @@ public class FileDaoImpl implements FileDao {
     @Override
     public List<Product> readProductFile(String fileName)
             throws PersistenceException {
-        // Declare and initialize variables
-        List<Product> productList = new ArrayList<>();
-        boolean skipFirstLine = true;
-        Scanner sc;
-
-        try {
-            // Initialize Scanner object
-            sc = new Scanner(new BufferedReader(new FileReader(fileName)));
-
-            String currentLine; // To hold currentLine while reading file
-            Product currentProduct; // To hold Product object from currentLine
-
-            while (sc.hasNextLine()) {
-                currentLine = sc.nextLine();
-                if (skipFirstLine)
-                    // Skip first line which is header row
-                    skipFirstLine = false;
-                else {
-                    // Unmarshall currentLine, create new Product object
-                    currentProduct = unmarshallProduct(currentLine);
-                    // Add new Product object to productList
-                    productList.add(currentProduct);
-                }
-            }
-
-            // Close Scanner object
-            sc.close();
-
-            // Return list of Product objects
-            return productList;
-        } catch (FileNotFoundException e) {
-            // Throw exception if unable to find product file
-            throw new PersistenceException("Product file not found.", e);
-        }
+        return CsvRecords.readProductFile(fileName);
     }
 
     /**
@@ -124,24 +187,7 @@ public class FileDaoImpl implements FileDao {
      */
     @Override
     public State unmarshallTaxes(String line) {
-        // Split line at DELIMITER, store tokens in array
-        String[] taxTokens = line.split(DELIMITER);
-
-        // First token (index 0) is State abbreviation
-        String stateAbbr = taxTokens[0];
-
-        // Create new State object
-        State stateFromFile = new State(stateAbbr);
-
-        // Set state name from second token (index 1)
-        stateFromFile.setStateName(taxTokens[1]);
-
-        // Set state tax rate from third token (index 2)
-        stateFromFile.setTaxRate(new BigDecimal(taxTokens[2])
-                .setScale(3, RoundingMode.HALF_UP));
-
-        // Return new State object
-        return stateFromFile;
+        return CsvRecords.unmarshallTaxes(line);
     }
 
     /**
@@ -155,40 +201,7 @@ public class FileDaoImpl implements FileDao {
     @Override
     public List<State> readTaxFile(String fileName)
             throws PersistenceException {
-        // Declare and initialize variables
-        List<State> stateList = new ArrayList<>();
-        boolean skipFirstLine = true;
-        Scanner sc;
-
-        try {
-            // Initialize Scanner object
-            sc = new Scanner(new BufferedReader(new FileReader(fileName)));
-
-            String currentLine; // To hold currentLine while reading file
-            State currentState; // To hold State object from currentLine
-
-            while (sc.hasNextLine()) {
-                currentLine = sc.nextLine();
-                if (skipFirstLine)
-                    // Skip first line which is header row
-                    skipFirstLine = false;
-                else {
-                    // Unmarshall currentLine, create new State object
-                    currentState = unmarshallTaxes(currentLine);
-                    // Add new State object to stateList
-                    stateList.add(currentState);
-                }
-            }
-
-            // Close Scanner object
-            sc.close();
-
-            // Return list of State objects
-            return stateList;
-        } catch (FileNotFoundException e) {
-            // Throw exception if unable to find state/tax file
-            throw new PersistenceException("Tax file not found.", e);
-        }
+        return CsvRecords.readTaxFile(fileName);
     }
 
     /**
@@ -199,36 +212,14 @@ public class FileDaoImpl implements FileDao {
      */
     @Override
     public Order unmarshallOrder(String line) {
-        // Split line at DELIMITER, store tokens in array
-        String[] orderTokens = line.split(DELIMITER);
-
-        // First token (index 0) is Order number
-        String orderNumber = orderTokens[0];
-
-        // Create new Order object
-        Order orderFromFile = new Order(Integer.parseInt(orderNumber));
-
-        // Set remaining Order attributes based on remaining tokens
-        orderFromFile.setCustomerName(orderTokens[1]);
-        orderFromFile.setState(orderTokens[2]);
-        orderFromFile.setTaxRate(new BigDecimal(orderTokens[3]));
-        orderFromFile.setProductType(orderTokens[4]);
-        orderFromFile.setArea(new BigDecimal(orderTokens[5]));
-        orderFromFile.setCostPerSquareFoot(new BigDecimal(orderTokens[6]));
-        orderFromFile.setLaborCostPerSquareFoot(new BigDecimal(orderTokens[7]));
-        orderFromFile.setMaterialCost(new BigDecimal(orderTokens[8]));
-        orderFromFile.setLaborCost(new BigDecimal(orderTokens[9]));
-        orderFromFile.setTax(new BigDecimal(orderTokens[10]));
-        orderFromFile.setTotal(new BigDecimal(orderTokens[11]));
-
-        // Return new Order object
-        return orderFromFile;
+        return CsvRecords.unmarshallOrder(new CsvTokenizer().reset(line));
     }
 
     /**
      * Reads a file of Order information, creates Order objects
      * based on the information in each line, and creates a list of
-     * Order objects to return
+     * Order objects to return. The file is scanned for line breaks
+     * directly in its bytes by MappedLineReader.
      * @param date Date of orders
      * @return List of Orders objects
      * @throws PersistenceException if Order file not found
@@ -236,69 +227,48 @@ public class FileDaoImpl implements FileDao {
     @Override
     public List<Order> readOrderFile(LocalDate date) throws
             PersistenceException {
+        replayJournal();
+
         // Declare variables
         List<Order> orderList = new ArrayList<>();
-        boolean skipFirstLine = true;
-        Scanner sc;
-
-        // Ensure date is formatted properly, store as string
-        String formattedDate = date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
-        // Create new File instance
-        File file = new File(String.format(ORDER_DIRECTORY + "/Orders_%s.txt", formattedDate));
+        CsvTokenizer tokenizer = new CsvTokenizer(); // Reused for every line
 
+        // Wait for any change to the Order file to finish
+        Lock lock = getDateLock(date).readLock();
+        lock.lock();
         try {
-            // Initialize Scanner object
-            sc = new Scanner(new BufferedReader(new FileReader(file)));
-
-            String currentLine; // To hold currentLine while reading file
-            Order currentOrder; // To hold Order object from currentLine
-
-            while (sc.hasNextLine()) {
-                currentLine = sc.nextLine();
-                if (skipFirstLine) {
-                    // Skip first line which is header row
-                    skipFirstLine = false;
-                } else {
-                    // Unmarshall currentLine, create new Order object
-                    currentOrder = unmarshallOrder(currentLine);
-                    // Add new Order object to orderList
-                    orderList.add(currentOrder);
-                }
-            }
-
-            // Close Scanner object
-            sc.close();
+            // Skip first line which is header row, unmarshall the rest
+            MappedLineReader.forEachLine(getOrderFile(date).toPath(), MEMORY_MAPPED, 1,
+                    line -> orderList.add(CsvRecords.unmarshallOrder(tokenizer.reset(line))));
 
             // Return list of Order objects
             return orderList;
-        } catch (FileNotFoundException e) {
+        } catch (NoSuchFileException e) {
             // Throw exception if unable to find order file
             throw new PersistenceException("Order file for date not found.", e);
+        } catch (IOException e) {
+            throw new PersistenceException("Could not read Order file.", e);
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
      * Converts an order to the appropriate String with delimiters needed
-     * to store in Order file
+     * to store in Order file. The customer name is quoted if it contains
+     * a delimiter or quote
      * @param order order to store in file
      * @return Order as string, formatted for storing in an Order File
      */
     @Override
     public String marshallOrder(Order order) {
-        // Create and return a string of all order properties, with each property
-        // separated with delimiters
-        return order.getOrderNumber() + DELIMITER + order.getCustomerName()
-                + DELIMITER + order.getState() + DELIMITER + order.getTaxRate()
-                + DELIMITER + order.getProductType() + DELIMITER + order.getArea()
-                + DELIMITER + order.getCostPerSquareFoot() + DELIMITER
-                + order.getLaborCostPerSquareFoot() + DELIMITER + order.getMaterialCost()
-                + DELIMITER + order.getLaborCost() + DELIMITER + order.getTax()
-                + DELIMITER + order.getTotal();
+        return CsvRecords.marshallOrder(order);
     }
 
     /**
      * Writes order to appropriate file based on the Order date. If no
      * file exists for the date, a new file is created in the Orders directory.
+     * The append is recorded in the journal before the file is changed.
      * @param date date of Order
      * @param order Order to write to file
      * @throws PersistenceException if unable to write Order to file
@@ -306,41 +276,111 @@ public class FileDaoImpl implements FileDao {
     @Override
     public void writeNewOrder(LocalDate date, Order order)
             throws PersistenceException {
-        // Declare PrintWriter object
-        PrintWriter out;
+        writeNewOrders(date, List.of(order));
+    }
 
-        // Create string to ensure date is properly formatted
-        String formattedDate = date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
-        // Create new instance of File
-        File file = new File(String.format(ORDER_DIRECTORY + "/Orders_%s.txt",
-                formattedDate));
+    /**
+     * Appends a batch of new Orders to the Order file for their date as a
+     * single append, creating the file if there is none. The append is
+     * group committed with appends from other threads by the append writer,
+     * which holds the date's lock while it writes.
+     * @param date date of Orders
+     * @param orders Orders to write to file
+     * @throws PersistenceException if unable to write Orders to file
+     */
+    @Override
+    public void writeNewOrders(LocalDate date, List<Order> orders)
+            throws PersistenceException {
+        if (orders.isEmpty())
+            return;
 
-        try {
-            // Initialize PrintWriter object
-            out = new PrintWriter(new FileWriter((file), true));
-
-            // If File length is 0, there was no previous file for the date
-            // Add header row to file
-            if (file.length() == 0) {
-                out.println("OrderNumber,CustomerName,State,TaxRate,ProductType," +
-                        "Area,CostPerSquareFoot,LaborCostPerSquareFoot," +
-                        "MaterialCost,LaborCost,Tax,Total");
-            }
+        replayJournal();
+        ORDER_INDEX.beforeChange(date);
 
-            // Write Order to file (appended to end of file)
-            out.println(marshallOrder(order));
-            // Flush stream
-            out.flush();
-            // Close PrintWriter object
-            out.close();
+        // Get Order file for the date
+        File file = getOrderFile(date);
+
+        // Marshall every Order, remembering where each line ends
+        StringBuilder lines = new StringBuilder(orders.size() * 128);
+        int[] lineEnds = new int[orders.size()];
+        for (int i = 0; i < lineEnds.length; i++) {
+            CsvRecords.appendOrder(lines, orders.get(i)).append(System.lineSeparator());
+            lineEnds[i] = lines.length();
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Line lengths are in bytes, so they are only known from the
+        // characters when every character is a single byte
+        boolean singleByteLines = bytes.length == lines.length();
+        // Last modified time and length the append left the file with
+        long[] written = new long[2];
+
+        try {
+            // Write Orders to file (appended to end of file, after a
+            // header row if there was no previous file for the date)
+            APPEND_WRITER.append(date, bytes, (lengthBefore, modifiedBefore, modifiedAfter) -> {
+                recordAppendedLines(date, orders, singleByteLines ? lineEnds : null,
+                        lengthBefore, modifiedBefore, modifiedAfter);
+                // The header is written with the first append to a new file
+                long lengthAfter = lengthBefore + bytes.length
+                        + (lengthBefore == 0 ? ORDER_FILE_HEADER_BYTES.length : 0);
+                ORDER_ROLLUPS.ordersChanged(date, lengthBefore, modifiedBefore, lengthAfter,
+                        modifiedAfter, List.of(), orders);
+                written[0] = modifiedAfter;
+                written[1] = lengthAfter;
+                if (lengthBefore == 0)
+                    ORDER_FILES.fileWritten(date, file.toPath());
+            });
         } catch (IOException e) {
             // Throw exception if unable to write to Order file
             throw new PersistenceException("Could not write Order information.", e);
         }
+
+        // Update the rollup now the append writer has released the date's lock
+        ORDER_ROLLUPS.flush(date);
+        for (Order order : orders) {
+            orderNumberWritten(order.getOrderNumber());
+            ORDER_INDEX.orderWritten(date, order, written[0], written[1]);
+        }
+    }
+
+    /**
+     * Records lines appended to an Order file in its offset index, if the
+     * file has one. Called by the append writer while it holds the lock
+     * for the date.
+     * @param date date of Order file
+     * @param orders Orders appended, one line each
+     * @param lineEnds end of each Order's line in the appended bytes, or
+     * null if the line lengths in bytes are not known
+     * @param lengthBefore length of the Order file before the append
+     * @param modifiedBefore last modified time of the file before the append
+     * @param modifiedAfter last modified time of the file after the append
+     */
+    private void recordAppendedLines(LocalDate date, List<Order> orders, int[] lineEnds,
+                                     long lengthBefore, long modifiedBefore,
+                                     long modifiedAfter) {
+        OrderFileIndex index = OFFSET_INDEXES.get(date);
+        if (index == null)
+            return;
+
+        if (lineEnds == null || lengthBefore == 0
+                || !index.isCurrent(lengthBefore, modifiedBefore)) {
+            OFFSET_INDEXES.remove(date);
+            return;
+        }
+
+        int lineStart = 0;
+        for (int i = 0; i < lineEnds.length; i++) {
+            index.appended(orders.get(i).getOrderNumber(), lineEnds[i] - lineStart,
+                    modifiedAfter);
+            lineStart = lineEnds[i];
+        }
     }
 
     /**
      * Edits order information in the appropriate file based on Order date.
+     * The Order's line is located by order number and only that line is
+     * rewritten, or moved to the end of the file if it grows.
      * @param date date of Order
      * @param orderToEdit Order that was edited
      * @param editedOrder Edited version of Order
@@ -349,57 +389,29 @@ public class FileDaoImpl implements FileDao {
     @Override
     public void writeEditOrder(LocalDate date, Order orderToEdit, Order editedOrder)
             throws PersistenceException {
-        // Declare Scanner, PrintWriter, and StringBuilder objects
-        Scanner sc;
-        PrintWriter out;
-        StringBuilder builder;
-
-        // Ensure correct format of date, save as String, and create fileName String
-        String formattedDate = date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
-        String fileName = String.format(ORDER_DIRECTORY + "/Orders_%s.txt",
-                formattedDate);
+        // Line that replaces the original Order's line
+        byte[] newLine = (marshallOrder(editedOrder) + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8);
 
         try {
-            // Initialize PrintWriter object
-            sc = new Scanner(new File(fileName));
-
-            // Initialize new StringBuilder object
-            builder = new StringBuilder();
-
-            // Append all lines from Order file to StringBuilder
-            while (sc.hasNextLine())
-                builder.append(sc.nextLine()).append(System.lineSeparator());
-
-            // Convert StringBuilder to String
-            String fileContents = builder.toString();
-
-            // Close Scanner object
-            sc.close();
-
-            // Replace original order information with the edited information
-            // in the fileContents String
-            fileContents = fileContents.replaceAll(marshallOrder(orderToEdit),
-                    marshallOrder(editedOrder));
-
-            // Initialize PrintWriter object
-            out = new PrintWriter(new FileWriter(fileName));
-
-            // Write fileContents String to the File
-            // Will replace all contents of the file
-            out.print(fileContents);
-
-            // Flush stream
-            out.flush();
-            // Close PrintWriter object
-            out.close();
-        } catch (IOException e) {
+            replayJournal();
+            ORDER_INDEX.beforeChange(date);
+            long[] written = rewriteOrderLine(date, orderToEdit.getOrderNumber(), newLine,
+                    editedOrder);
+            if (written != null) {
+                ORDER_ROLLUPS.flush(date);
+                ORDER_INDEX.orderWritten(date, editedOrder, written[0], written[1]);
+                compactIfSparse(date, written);
+            }
+        } catch (IOException | ArithmeticException e) {
             // Throw exception if unable to edit Order in file
             throw new PersistenceException("Could not edit Order in file.", e);
         }
     }
 
     /**
-     * Removes an Order from the appropriate Order File based on Order Date
+     * Removes an Order from the appropriate Order File based on Order Date.
+     * The Order's line is located by order number and blanked.
      * @param date date of Order
      * @param orderToRemove Order object to remove from file
      * @throws PersistenceException if unable to remove Order
@@ -407,51 +419,340 @@ public class FileDaoImpl implements FileDao {
     @Override
     public void removeOrderFromFile(LocalDate date, Order orderToRemove)
             throws PersistenceException {
-        // Declare Scanner, PrintWriter, and StringBuilder objects
-        Scanner sc;
-        PrintWriter out;
-        StringBuilder stringBuilder;
+        try {
+            replayJournal();
+            ORDER_INDEX.beforeChange(date);
+            long[] written = rewriteOrderLine(date, orderToRemove.getOrderNumber(), null, null);
+            if (written != null) {
+                ORDER_ROLLUPS.flush(date);
+                ORDER_INDEX.orderRemoved(date, orderToRemove.getOrderNumber(), written[0],
+                        written[1]);
+                compactIfSparse(date, written);
+            }
+        } catch (IOException | ArithmeticException e) {
+            // Throw exception if unable to remove Order from file
+            throw new PersistenceException("Could not remove Order from file.", e);
+        }
+    }
+
+    /**
+     * Replaces the whole Order file for a date with the Orders passed,
+     * creating the file if it does not exist. The new file is written next
+     * to the old one and moved over it, so it is never seen half written.
+     * @param date date of Orders
+     * @param orders Orders to store in the file, in order
+     * @throws PersistenceException if unable to write the Order file
+     */
+    @Override
+    public void writeOrderFile(LocalDate date, List<Order> orders)
+            throws PersistenceException {
+        replayJournal();
+
+        StringBuilder builder = new StringBuilder((orders.size() + 1) * 128);
+        builder.append(ORDER_FILE_HEADER).append(System.lineSeparator());
+        for (Order order : orders)
+            builder.append(marshallOrder(order)).append(System.lineSeparator());
+
+        File file = getOrderFile(date);
+        // Last modified time and length the new file was written with
+        long lastModified;
+        long length;
+
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try (AtomicFileWriter writer = new AtomicFileWriter(file.toPath())) {
+            // The append writer must not keep writing to the replaced file
+            APPEND_WRITER.release(date);
+            writeFully(writer.getChannel(), ByteBuffer.wrap(builder.toString()
+                    .getBytes(StandardCharsets.UTF_8)), 0);
+            writer.commit();
+            lastModified = file.lastModified();
+            length = file.length();
+            ORDER_FILES.fileWritten(date, file.toPath());
+
+            // Line offsets of the old file no longer apply
+            OFFSET_INDEXES.remove(date);
+            ORDER_ROLLUPS.fileReplaced(date, orders);
+        } catch (IOException e) {
+            // Throw exception if unable to write Order file
+            throw new PersistenceException("Could not write Order information.", e);
+        } finally {
+            lock.unlock();
+        }
+
+        ORDER_ROLLUPS.flush(date);
+        ORDER_INDEX.fileReplaced(date, orders, lastModified, length);
 
-        // Ensure correct format of date, save as String, and create fileName String
-        String formattedDate = date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
-        String fileName = String.format(ORDER_DIRECTORY + "/Orders_%s.txt",
-                formattedDate);
+        // Keep highest order number current
+        for (Order order : orders)
+            orderNumberWritten(order.getOrderNumber());
+    }
 
+    /**
+     * Reads the Order file for a date and replaces it with the Orders an
+     * update returns, holding the date's write lock from the read until
+     * the file is replaced, so no Order added, edited, or removed in
+     * between is lost
+     * @param date date of Order file
+     * @param update function given the Orders in the file, returning the
+     * Orders to replace them with, or null to leave the file unchanged
+     * @return true if the file was replaced
+     * @throws PersistenceException if unable to read or write the Order file
+     */
+    @Override
+    public boolean updateOrderFile(LocalDate date, UnaryOperator<List<Order>> update)
+            throws PersistenceException {
+        // readOrderFile and writeOrderFile take the same lock again
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
         try {
-            // Initialize Scanner and StringBuilder objects
-            sc = new Scanner(new File(fileName));
-            stringBuilder = new StringBuilder();
+            List<Order> orders = update.apply(readOrderFile(date));
+            if (orders == null)
+                return false;
+            writeOrderFile(date, orders);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces or removes the line of one Order in an Order file without
+     * moving any other line, so the cost does not grow with the file. A
+     * new line no longer than the old one is written over it, followed by
+     * blank lines for the rest of the old line. A longer new line is
+     * appended to the end of the file and the old line blanked, as one
+     * journaled change. A removed line is blanked. Readers skip blank
+     * lines, and the file is compacted once they take up too much of it.
+     * Nothing is changed if the Order is not in the file. The line is
+     * checked to hold the Order before it is overwritten, and the offset
+     * index is rebuilt if it does not. The change from the Order read from
+     * the old line to the new Order is queued for the day's rollup.
+     * @param date date of Order
+     * @param orderNumber order number of the line to replace
+     * @param newLine bytes of the new line, or null to remove the line
+     * @param newOrder Order marshalled in the new line, or null to remove it
+     * @return last modified time, length, and bytes of blank lines of the
+     * Order file after the change, or null if the Order was not found
+     * @throws IOException if unable to read or write the Order file, or
+     * the Order's line cannot be read
+     */
+    private long[] rewriteOrderLine(LocalDate date, int orderNumber, byte[] newLine,
+                                     Order newOrder) throws IOException {
+        File file = getOrderFile(date);
+
+        Lock lock = getDateLock(date).writeLock();
+        lock.lock();
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long lengthBefore = channel.size();
+            long modifiedBefore = file.lastModified();
+
+            // Find the Order's line using the offset index for the file
+            OrderFileIndex index = getOffsetIndex(date, file, channel);
+            long[] row = index.find(orderNumber);
+            Order oldOrder = row == null ? null : readOrderLine(channel, row, orderNumber);
+            if (oldOrder == null) {
+                // The file may have changed within one tick of its last
+                // modified time, so the index is only trusted once rebuilt
+                index = OrderFileIndex.build(channel, modifiedBefore);
+                OFFSET_INDEXES.put(date, index);
+                row = index.find(orderNumber);
+                if (row == null)
+                    return null;
+                oldOrder = readOrderLine(channel, row, orderNumber);
+                if (oldOrder == null)
+                    throw new IOException("Line of order " + orderNumber + " in " + file
+                            + " cannot be read.");
+            }
 
-            // Append all lines of file to stringBuilder
-            while (sc.hasNextLine())
-                stringBuilder.append(sc.nextLine()).append(System.lineSeparator());
+            long rowStart = row[0];
+            int oldLength = Math.toIntExact(row[1] - row[0]);
+            long lengthAfter = lengthBefore;
+            if (newLine == null) {
+                writeJournaled(date, channel, new long[]{rowStart},
+                        new byte[][]{blankLines(oldLength)}, lengthAfter);
+            } else if (newLine.length <= oldLength) {
+                // Overwrite the old line, blanking whatever is left of it
+                byte[] region = blankLines(oldLength);
+                System.arraycopy(newLine, 0, region, 0, newLine.length);
+                writeJournaled(date, channel, new long[]{rowStart}, new byte[][]{region},
+                        lengthAfter);
+            } else {
+                // Append the new line and blank the old one together
+                lengthAfter += newLine.length;
+                writeJournaled(date, channel, new long[]{lengthBefore, rowStart},
+                        new byte[][]{newLine, blankLines(oldLength)}, lengthAfter);
+            }
+
+            long modifiedAfter = file.lastModified();
+            if (newLine == null)
+                index.removed(orderNumber, modifiedAfter);
+            else if (newLine.length <= oldLength)
+                index.replaced(orderNumber, newLine.length, modifiedAfter);
+            else
+                index.moved(orderNumber, newLine.length, modifiedAfter);
+
+            ORDER_ROLLUPS.ordersChanged(date, lengthBefore, modifiedBefore, lengthAfter,
+                    modifiedAfter, List.of(oldOrder),
+                    newOrder == null ? List.of() : List.of(newOrder));
+            return new long[]{modifiedAfter, lengthAfter, index.getBlankBytes()};
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the Order stored on a line of an Order file
+     * @param channel open channel for the Order file
+     * @param row {start offset, end offset} of the line
+     * @param orderNumber order number the line should hold
+     * @return Order read from the line, or null if the line is malformed
+     * or holds a different Order
+     * @throws IOException if unable to read the Order file
+     */
+    private Order readOrderLine(FileChannel channel, long[] row, int orderNumber)
+            throws IOException {
+        ByteBuffer line = ByteBuffer.allocate(Math.toIntExact(row[1] - row[0]));
+        while (line.hasRemaining()) {
+            if (channel.read(line, row[0] + line.position()) < 0)
+                return null;
+        }
 
-            // Create String from stringBuilder
-            String fileContents = stringBuilder.toString();
+        try {
+            Order order = unmarshallOrder(new String(line.array(),
+                    StandardCharsets.UTF_8).strip());
+            return order.getOrderNumber() == orderNumber ? order : null;
+        } catch (RuntimeException e) {
+            // Malformed line, or not the start of a line
+            return null;
+        }
+    }
 
-            // Scanner no longer used - close Scanner
-            sc.close();
+    /**
+     * Creates the bytes of blank lines filling a number of bytes
+     * @param length number of bytes
+     * @return line separators only
+     */
+    private static byte[] blankLines(int length) {
+        byte[] blank = new byte[length];
+        Arrays.fill(blank, (byte) '\n');
+        return blank;
+    }
 
-            // Remove order from fileContents String by replacing it with ""
-            fileContents = fileContents.replaceAll(marshallOrder(orderToRemove)
-                    .concat(System.lineSeparator()), "");
+    /**
+     * Rewrites an Order file without its blank lines once they take up
+     * more than half of it
+     * @param date date of Order file
+     * @param written last modified time, length, and bytes of blank lines
+     * of the Order file, as left by rewriteOrderLine
+     * @throws PersistenceException if unable to rewrite the Order file
+     */
+    private void compactIfSparse(LocalDate date, long[] written) throws PersistenceException {
+        if (written[2] * 2 > written[1])
+            updateOrderFile(date, UnaryOperator.identity());
+    }
 
-            // Initialize PrintWriter object
-            out = new PrintWriter(new FileWriter(fileName));
+    /**
+     * Writes parts of an Order file at their offsets and sets the new length
+     * of the file. The change is appended to the journal of the date's lock
+     * stripe first, as one group, and that journal is emptied again once the
+     * Order file has been forced to disk. The caller holds the date's write
+     * lock, so changes journaled in the same stripe never interleave.
+     * @param date date of Order file
+     * @param channel open channel for the Order file
+     * @param offsets offset to write each part at
+     * @param parts bytes to write at each offset
+     * @param newLength length of the Order file after the change
+     * @throws IOException if unable to write the journal or Order file
+     */
+    private void writeJournaled(LocalDate date, FileChannel channel, long[] offsets,
+                                byte[][] parts, long newLength) throws IOException {
+        OrderJournal journal = EDIT_JOURNALS[DateStripes.of(date, DATE_LOCK_STRIPES)];
+        journal.append(date, offsets, parts, newLength);
+        for (int i = 0; i < parts.length; i++)
+            writeFully(channel, ByteBuffer.wrap(parts[i]), offsets[i]);
+        channel.truncate(newLength);
+        channel.force(false);
+        journal.checkpoint();
+    }
 
-            // Use PrintWriter to write edited fileContents to file
-            out.print(fileContents);
+    /**
+     * Redoes any changes left in the journals by a previous run that stopped
+     * part way through writing an Order file, and undoes any appends it left
+     * unfinished. Only runs once per FileDaoImpl, even when Order files are
+     * read by several threads.
+     * @throws PersistenceException if unable to replay the journal
+     */
+    private synchronized void replayJournal() throws PersistenceException {
+        if (journalReplayed)
+            return;
 
-            // Flush stream
-            out.flush();
-            // Close PrintWriter object
-            out.close();
+        try {
+            LEGACY_JOURNAL.replay(this::getOrderFile);
+            APPEND_JOURNAL.replay(this::getOrderFile);
+            for (OrderJournal journal : EDIT_JOURNALS)
+                journal.replay(this::getOrderFile);
+            OFFSET_INDEXES.clear();
+            journalReplayed = true;
         } catch (IOException e) {
-            // Throw exception if unable to remove Order from file
-            throw new PersistenceException("Could not remove Order from file.", e);
+            throw new PersistenceException("Could not replay order journal.", e);
         }
     }
 
+    /**
+     * Gets the offset index for an Order file, scanning the file again if
+     * it was changed since the index was last updated
+     * @param date date of Order file
+     * @param file Order file
+     * @param channel open channel for the Order file
+     * @return OrderFileIndex for the file
+     * @throws IOException if unable to read the Order file
+     */
+    private OrderFileIndex getOffsetIndex(LocalDate date, File file, FileChannel channel)
+            throws IOException {
+        OrderFileIndex index = OFFSET_INDEXES.get(date);
+
+        if (index == null || !index.isCurrent(channel.size(), file.lastModified())) {
+            index = OrderFileIndex.build(channel, file.lastModified());
+            OFFSET_INDEXES.put(date, index);
+        }
+
+        return index;
+    }
+
+    /**
+     * Writes all remaining bytes of a buffer to a channel at a position
+     * @param channel channel to write to
+     * @param buffer bytes to write
+     * @param position position in the channel
+     * @throws IOException if unable to write
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * Gets the lock guarding the Order file for a date. Readers of the file
+     * share the read lock and changes hold the write lock.
+     * @param date date of Order file
+     * @return lock for the date's stripe
+     */
+    private ReadWriteLock getDateLock(LocalDate date) {
+        return DATE_LOCKS[DateStripes.of(date, DATE_LOCK_STRIPES)];
+    }
+
+    /**
+     * Gets the Order file for a date
+     * @param date date of Order file
+     * @return Order file (Orders_MMddyyyy.txt) in the Order directory
+     */
+    private File getOrderFile(LocalDate date) {
+        return new File(ORDER_DIRECTORY + "/Orders_" + date.format(FILE_DATE_FORMAT) + ".txt");
+    }
+
     /**
      * Converts an order to the appropriate String with delimiters, including
      * Order date, to store in Export file
@@ -461,118 +762,360 @@ public class FileDaoImpl implements FileDao {
      */
     @Override
     public String marshallOrderForExport(Order order, String date) {
-        return order.getOrderNumber() + DELIMITER + order.getCustomerName()
-                + DELIMITER + order.getState() + DELIMITER + order.getTaxRate()
-                + DELIMITER + order.getProductType() + DELIMITER + order.getArea()
-                + DELIMITER + order.getCostPerSquareFoot() + DELIMITER
-                + order.getLaborCostPerSquareFoot() + DELIMITER + order.getMaterialCost()
-                + DELIMITER + order.getLaborCost() + DELIMITER + order.getTax()
-                + DELIMITER + order.getTotal() + DELIMITER + date;
+        return CsvRecords.marshallOrderForExport(order, date);
     }
 
     /**
      * Reads all Order Files, writes all Order information with the Order date
-     * to the Export File
+     * to the Export File. Order files are read and marshalled in parallel by
+     * a bounded number of threads, and written in date order through a
+     * single buffered channel. The Export File is only replaced once the
+     * new export has been completely written.
+     * @return ExportSummary with the number of Orders and bytes exported
      * @throws PersistenceException if unable to Export all Order data
      */
     @Override
-    public void exportAllData()
+    public ExportSummary exportAllData()
             throws PersistenceException {
-        // Declare PrintWriter object
-        PrintWriter out;
-
-        // Declare and initialize DateTimeFormatter object
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("MMddyyyy");
+        // Only one export writes the Export File at a time
+        synchronized (EXPORT_LOCK) {
+            long startTime = System.nanoTime();
+            replayJournal();
+
+            // Dates of all Order files, oldest first
+            List<LocalDate> orderFileDates = listOrderFileDates();
+
+            // Read at most a few files ahead of the writer to bound memory use
+            int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors());
+            int maxFilesAhead = threadCount * 2;
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            Deque<Future<ExportSegment>> segments = new ArrayDeque<>();
+
+            long orderCount = 0;
+            long bytesWritten = 0;
+            int nextFile = 0;
+
+            try (AtomicFileWriter exportWriter = new AtomicFileWriter(Paths.get(EXPORT_FILE))) {
+                FileChannel channel = exportWriter.getChannel();
+                ByteBuffer buffer = ByteBuffer.allocateDirect(EXPORT_BUFFER_SIZE);
+
+                while (nextFile < orderFileDates.size() || !segments.isEmpty()) {
+                    // Keep the executor busy with the next files
+                    while (nextFile < orderFileDates.size() && segments.size() < maxFilesAhead) {
+                        LocalDate date = orderFileDates.get(nextFile++);
+                        segments.add(executor.submit(() -> marshallFileForExport(date)));
+                    }
+
+                    // Write the oldest file's segment once it is ready
+                    ExportSegment segment = segments.remove().get();
+                    orderCount += segment.orderCount;
+                    bytesWritten += segment.bytes.length;
+                    writeBuffered(channel, buffer, segment.bytes);
+                }
 
-        // Create File object for directory where Order files are located
-        File directoryPath = new File(ORDER_DIRECTORY);
+                // Write whatever is left in the buffer, then replace the export file
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                exportWriter.commit();
+            } catch (IOException e) {
+                // Throw exception if unable to export all orders
+                throw new PersistenceException("Could not export order data.", e);
+            } catch (ExecutionException e) {
+                // Throw exception if unable to read an order file
+                throw new PersistenceException("Could not export order data.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PersistenceException("Export was interrupted.", e);
+            } finally {
+                executor.shutdownNow();
+            }
 
-        // Declare and initialize list with names of all order files
-        List<String> orderFileNames =
-                List.of(Objects.requireNonNull(directoryPath.list()));
+            return new ExportSummary(orderFileDates.size(), orderCount, bytesWritten,
+                    System.nanoTime() - startTime);
+        }
+    }
 
-        // Declare list to store Orders
-        List<Order> orderList;
+    /**
+     * Writes all Order information with the Order date to the Export File,
+     * re-reading only the Order files that changed since the last
+     * incremental export. The exported lines of each Order file are kept
+     * as a segment next to an ExportManifest, and the Export File is
+     * assembled by copying the segments in date order.
+     * @return ExportSummary with the number of Orders and bytes exported
+     * @throws PersistenceException if unable to Export all Order data
+     */
+    @Override
+    public ExportSummary exportChangedData() throws PersistenceException {
+        // Only one export writes the Export File at a time
+        synchronized (EXPORT_LOCK) {
+            long startTime = System.nanoTime();
+            replayJournal();
+
+            // Dates of all Order files, oldest first
+            List<LocalDate> orderFileDates = listOrderFileDates();
+
+            long orderCount = 0;
+            long bytesWritten = 0;
+            int changedFileCount = 0;
+
+            try {
+                ExportManifest manifest = new ExportManifest(Paths.get(META_DIRECTORY, "export"));
+                manifest.retainAll(orderFileDates);
+
+                // Re-export only the Order files that changed since the last export
+                for (LocalDate date : orderFileDates) {
+                    File orderFile = getOrderFile(date);
+                    // The file must not change between reading it and
+                    // recording it as exported
+                    Lock lock = getDateLock(date).readLock();
+                    lock.lock();
+                    try {
+                        if (!manifest.isCurrent(date, orderFile)) {
+                            ExportSegment segment = marshallFileForExport(date);
+                            manifest.update(date, orderFile, segment.bytes,
+                                    segment.orderCount);
+                            changedFileCount++;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
 
-        try {
-            // Initialize PrintWriter object
-            out = new PrintWriter(new FileWriter(EXPORT_FILE));
-
-            // Declare variables
-            String orderAsText, dateString;
-
-            // Iterate through List of orderFileNames
-            for (String fileName : orderFileNames) {
-                // Set dateString to date of file
-                dateString = fileName.substring(7, 15);
-
-                // Declare and initialize LocalDate object from dateString and formatter
-                LocalDate localDate = LocalDate.parse(dateString, dateTimeFormatter);
-
-                // Read order file, store orders in list
-                orderList = readOrderFile(localDate);
-
-                // Iterate through individual order files
-                for (Order currentOrder : orderList) {
-                    // Marshall the current order file
-                    orderAsText = marshallOrderForExport(currentOrder, dateString);
-                    // Write current file to DataExport file
-                    out.println(orderAsText);
-                    // Flush stream
-                    out.flush();
+                // Copy every segment into the export file in date order
+                try (AtomicFileWriter exportWriter = new AtomicFileWriter(Paths.get(EXPORT_FILE))) {
+                    FileChannel channel = exportWriter.getChannel();
+
+                    for (LocalDate date : orderFileDates) {
+                        try (FileChannel segment = FileChannel.open(manifest.getSegmentFile(date),
+                                StandardOpenOption.READ)) {
+                            long size = segment.size();
+                            long position = 0;
+                            while (position < size)
+                                position += segment.transferTo(position, size - position, channel);
+                            bytesWritten += size;
+                        }
+                        orderCount += manifest.getOrderCount(date);
+                    }
+
+                    exportWriter.commit();
                 }
+
+                manifest.save();
+            } catch (IOException e) {
+                // Throw exception if unable to export all orders
+                throw new PersistenceException("Could not export order data.", e);
             }
-            // Close PrintWriter object
-            out.close();
-        }catch (IOException e) {
-            // Throw exception if unable to export all orders
-            throw new PersistenceException("Could not export order data.", e);
+
+            return new ExportSummary(orderFileDates.size(), changedFileCount, orderCount,
+                    bytesWritten, System.nanoTime() - startTime);
         }
     }
 
     /**
-     * Fetches the latest order number assigned, then calculates and
-     * returns a new order number to assign to a new order
+     * Reads the Export File, passing each exported Order and its date to
+     * an action in the order they were exported. The Export File is
+     * scanned by MappedLineReader like the Order files.
+     * @param action action to perform on each Order and its date
+     * @return number of Orders read
+     * @throws PersistenceException if unable to read the Export File
+     */
+    @Override
+    public long readExportFile(BiConsumer<LocalDate, Order> action)
+            throws PersistenceException {
+        return CsvRecords.readExportFile(Paths.get(EXPORT_FILE), MEMORY_MAPPED, action);
+    }
+
+    /**
+     * Reads one Order file and marshalls all of its Orders for export
+     * @param date date of Order file
+     * @return ExportSegment with the export lines for the file
+     * @throws PersistenceException if unable to read the Order file
+     */
+    private ExportSegment marshallFileForExport(LocalDate date)
+            throws PersistenceException {
+        String dateString = date.format(FILE_DATE_FORMAT);
+        List<Order> orderList = readOrderFile(date);
+        StringBuilder builder = new StringBuilder(orderList.size() * 128);
+
+        for (Order currentOrder : orderList)
+            builder.append(marshallOrderForExport(currentOrder, dateString))
+                    .append(System.lineSeparator());
+
+        return new ExportSegment(orderList.size(),
+                builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Copies bytes into a buffer, writing the buffer to the channel
+     * whenever it fills up
+     * @param channel channel to write to
+     * @param buffer buffer of bytes not yet written
+     * @param bytes bytes to add
+     * @throws IOException if unable to write to the channel
+     */
+    private static void writeBuffered(FileChannel channel, ByteBuffer buffer,
+                                      byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+
+            if (!buffer.hasRemaining()) {
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * The {@code ExportSegment} class holds the export lines of one
+     * Order file and the number of Orders they contain.
+     */
+    private static class ExportSegment {
+        private final int orderCount;
+        private final byte[] bytes;
+
+        private ExportSegment(int orderCount, byte[] bytes) {
+            this.orderCount = orderCount;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Adds up the Orders of every Order file between two dates from the
+     * daily rollups, grouped by State, Product, or month
+     * @param grouping what to group Orders by
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return SalesReport with the totals of each group
+     * @throws PersistenceException if unable to rebuild a rollup
+     */
+    @Override
+    public SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                                      LocalDate toDate) throws PersistenceException {
+        replayJournal();
+        return ORDER_ROLLUPS.report(grouping, fromDate, toDate);
+    }
+
+    /**
+     * Finds the Orders with a customer name, State, or Product type using
+     * the OrderIndex, without reading every Order file
+     * @param field Field to search
+     * @param value value to search for, ignoring case and extra whitespace
+     * @return order numbers by date, oldest date first
+     * @throws PersistenceException if unable to load the index
+     */
+    @Override
+    public NavigableMap<LocalDate, List<Integer>> findOrderNumbers(OrderIndex.Field field,
+                                                                   String value)
+            throws PersistenceException {
+        replayJournal();
+        return ORDER_INDEX.find(field, value);
+    }
+
+    /**
+     * Finds the date of an Order from its order number alone using the
+     * OrderIndex
+     * @param orderNumber order number
+     * @return date of the Order, or null if there is no such Order
+     * @throws PersistenceException if unable to load the index
+     */
+    @Override
+    public LocalDate findOrderDate(int orderNumber) throws PersistenceException {
+        replayJournal();
+        return ORDER_INDEX.findDate(orderNumber);
+    }
+
+    /**
+     * Hands out a new order number to assign to a new order. The number
+     * is reserved atomically, so no two callers ever get the same number,
+     * and a number whose Order is never written is skipped. The Order
+     * files are only scanned the first time a number is handed out.
      * @return int newOrderNum
      * @throws PersistenceException if error occurs reading files
      */
     @Override
     public int generateNewOrderNum() throws PersistenceException {
-        try {
-            // Declare and initialize DateTimeFormatter object
-            DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("MMddyyyy");
-
-            // Create File object for directory where Order files are located
-            File directoryPath = new File(ORDER_DIRECTORY);
+        return reserveOrderNumbers(1);
+    }
 
-            // Declare and initialize list with names of all order files
-            List<String> orderFileNames =
-                    List.of(Objects.requireNonNull(directoryPath.list()));
-            List<Order> orderList;
-            List<Integer> orderNumList = new ArrayList<>();
-            String dateString;
+    /**
+     * Reserves a block of consecutive order numbers for a batch of new
+     * Orders, so the Order files are scanned at most once for the batch.
+     * Numbers that end up unused are skipped, never handed out twice.
+     * @param count number of order numbers to reserve
+     * @return first order number of the block
+     * @throws PersistenceException if error occurs reading files
+     */
+    @Override
+    public int reserveOrderNumbers(int count) throws PersistenceException {
+        // Scan the Order files once to find the highest order number
+        if (!orderNumbersScanned) {
+            synchronized (ORDER_NUMBER_LOCK) {
+                if (!orderNumbersScanned) {
+                    orderNumberWritten(findHighestOrderNum());
+                    orderNumbersScanned = true;
+                }
+            }
+        }
 
-            for (String fileName : orderFileNames) {
-                // Set dateString to date of file
-                dateString = fileName.substring(7, 15);
+        return highestOrderNum.getAndAdd(count) + 1;
+    }
 
-                // Declare and initialize LocalDate object from dateString and formatter
-                LocalDate localDate = LocalDate.parse(dateString, dateTimeFormatter);
+    /**
+     * Raises the highest order number to one written to an Order file, so
+     * it is never handed out again
+     * @param orderNumber order number written
+     */
+    private void orderNumberWritten(int orderNumber) {
+        highestOrderNum.accumulateAndGet(orderNumber, Math::max);
+    }
 
-                orderList = readOrderFile(localDate);
+    /**
+     * Reads every Order file and returns the highest order number found
+     * @return highest order number, or 0 if there are no orders
+     * @throws PersistenceException if error occurs reading files
+     */
+    private int findHighestOrderNum() throws PersistenceException {
+        try {
+            int highest = 0;
 
-                for (Order order : orderList) {
-                    orderNumList.add(order.getOrderNumber());
-                }
+            for (LocalDate localDate : listOrderFileDates()) {
+                for (Order order : readOrderFile(localDate))
+                    highest = Math.max(highest, order.getOrderNumber());
             }
 
-            if (orderNumList.isEmpty())
-                return 1;
-            else
-                return orderNumList.get(orderNumList.size() - 1) + 1;
+            return highest;
         } catch (Exception e) {
             // Throw exception if unable to read order files/generate new order number
-            throw new PersistenceException("Unable to generate new order number.");
+            throw new PersistenceException("Unable to generate new order number.", e);
         }
     }
+
+    /**
+     * Lists the dates of all Order files in the Order directory, from the
+     * manifest of the directory. Files not named Orders_MMddyyyy.txt are
+     * ignored, and a missing directory has no Order files.
+     * @return sorted list of Order file dates
+     */
+    @Override
+    public List<LocalDate> listOrderFileDates() {
+        return new ArrayList<>(ORDER_FILES.getFiles().keySet());
+    }
+
+    /**
+     * Lists the dates of the Order files between two dates, from the
+     * manifest of the directory, without listing the directory
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return unmodifiable sorted set of Order file dates
+     */
+    @Override
+    public NavigableSet<LocalDate> listOrderFileDates(LocalDate fromDate, LocalDate toDate) {
+        return ORDER_FILES.getDates(fromDate, toDate);
+    }
 }
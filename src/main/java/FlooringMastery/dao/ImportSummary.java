@@ -0,0 +1,58 @@
+package FlooringMastery.dao;
+
+/**
+ * The {@code ImportSummary} class holds the results of importing a batch
+ * of new Orders: how many Orders were imported into how many Order files,
+ * the block of order numbers they were given, and how long it took.
+ */
+public class ImportSummary {
+    // Values for ImportSummary objects
+    private final long orderCount;
+    private final int fileCount;
+    private final int firstOrderNumber;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor takes 4 parameters and creates a new ImportSummary object
+     * @param orderCount number of Orders imported
+     * @param fileCount number of Order files appended to
+     * @param firstOrderNumber first order number of the reserved block
+     * @param elapsedNanos time taken by the import in nanoseconds
+     */
+    public ImportSummary(long orderCount, int fileCount, int firstOrderNumber,
+                         long elapsedNanos) {
+        this.orderCount = orderCount;
+        this.fileCount = fileCount;
+        this.firstOrderNumber = firstOrderNumber;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getFirstOrderNumber() {
+        return firstOrderNumber;
+    }
+
+    public int getLastOrderNumber() {
+        return (int) (firstOrderNumber + orderCount - 1);
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        if (orderCount == 0)
+            return "No orders to import";
+        return String.format("Imported %d orders into %d files, order numbers %d to %d "
+                        + "(%.3f s)", orderCount, fileCount, firstOrderNumber,
+                getLastOrderNumber(), elapsedNanos / 1_000_000_000.0);
+    }
+}
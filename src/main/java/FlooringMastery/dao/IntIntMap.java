@@ -0,0 +1,157 @@
+package FlooringMastery.dao;
+
+import java.util.Arrays;
+
+/**
+ * The {@code IntIntMap} class is a hash map from int keys to int values
+ * that stores both in plain int arrays using open addressing with linear
+ * probing, so no Integer objects or entry objects are created. It is used
+ * to find the date of an Order from its order number. Integer.MIN_VALUE
+ * cannot be used as a key. It is not thread-safe.
+ */
+public class IntIntMap {
+    // Marks an empty slot
+    private static final int EMPTY = Integer.MIN_VALUE;
+    // Initial number of slots, grown when more than three quarters are used
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructor creates an empty IntIntMap
+     */
+    public IntIntMap() {
+        keys = new int[MIN_CAPACITY];
+        values = new int[MIN_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Gets the value for a key
+     * @param key key to look up
+     * @param missingValue value to return if the key is not in the map
+     * @return value for the key, or missingValue
+     */
+    public int get(int key, int missingValue) {
+        int slot = find(key);
+        return keys[slot] == EMPTY ? missingValue : values[slot];
+    }
+
+    /**
+     * Sets the value for a key, replacing any previous value
+     * @param key key, not Integer.MIN_VALUE
+     * @param value value
+     * @throws IllegalArgumentException if the key is Integer.MIN_VALUE
+     */
+    public void put(int key, int value) {
+        if (key == EMPTY)
+            throw new IllegalArgumentException("Key cannot be Integer.MIN_VALUE.");
+
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+
+        if (size * 4 > keys.length * 3)
+            resize(keys.length * 2);
+    }
+
+    /**
+     * Removes a key. Later keys in the same run of slots are shifted back
+     * so lookups never stop early at the removed slot.
+     * @param key key to remove
+     * @return true if the key was in the map
+     */
+    public boolean remove(int key) {
+        int slot = find(key);
+        if (keys[slot] == EMPTY)
+            return false;
+
+        int mask = keys.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == EMPTY)
+                break;
+
+            // Move the key back if its home slot is not between slot and next
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+
+        keys[slot] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes every key, keeping the current capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of keys in the map
+     * @return number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot holding a key, or the empty slot where it would go
+     * @param key key to find
+     * @return slot index
+     */
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Moves every key into a table of a new capacity
+     * @param capacity new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY)
+                continue;
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Spreads the bits of a key so consecutive order numbers do not fill
+     * consecutive slots
+     * @param key key to hash
+     * @return hash of the key
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,159 @@
+package FlooringMastery.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * The {@code MappedLineReader} class is responsible for reading the lines
+ * of an Order or Export file without Scanner or an intermediate String per
+ * line. The file is memory-mapped with FileChannel.map, or read into a
+ * buffer when memory mapping is turned off, and line breaks are found by
+ * scanning the bytes directly. Each line is passed on as a CharSequence
+ * over those bytes; only the fields that are turned into Strings are
+ * decoded from UTF-8. Files larger than one window are mapped one window
+ * at a time.
+ */
+public final class MappedLineReader {
+    // Memory mapping is used by default except on Windows, where a mapped
+    // file cannot be truncated or replaced until the mapping is released
+    public static final boolean MAPPING_SUPPORTED =
+            !System.getProperty("os.name", "").startsWith("Windows");
+    // Largest part of a file that is mapped or read at once
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private MappedLineReader() {
+    }
+
+    /**
+     * Passes every non-empty line of a file to an action, in order. Line
+     * breaks may be \n or \r\n. The CharSequence passed to the action is
+     * reused for the next line, so it must not be kept.
+     * @param file file to read
+     * @param memoryMapped true to memory-map the file, false to read it
+     * into a buffer
+     * @param skipLines number of lines to skip at the start of the file
+     * @param action action to perform on each line
+     * @return number of lines passed to the action
+     * @throws IOException if unable to read the file, or a line is longer
+     * than one window
+     */
+    public static long forEachLine(Path file, boolean memoryMapped, int skipLines,
+                                   Consumer<CharSequence> action) throws IOException {
+        long lineCount = 0;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            Line line = new Line();
+
+            while (windowStart < size) {
+                int windowLength = (int) Math.min(WINDOW_SIZE, size - windowStart);
+                boolean lastWindow = windowStart + windowLength == size;
+                ByteBuffer window = memoryMapped
+                        ? channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength)
+                        : read(channel, windowStart, windowLength);
+                line.buffer = window;
+
+                int lineStart = 0;
+                for (int i = 0; i < windowLength; i++) {
+                    if (window.get(i) != '\n')
+                        continue;
+
+                    int lineEnd = i > lineStart && window.get(i - 1) == '\r' ? i - 1 : i;
+                    if (skipLines > 0)
+                        skipLines--;
+                    else if (lineEnd > lineStart) {
+                        action.accept(line.reset(lineStart, lineEnd - lineStart));
+                        lineCount++;
+                    }
+                    lineStart = i + 1;
+                }
+
+                if (lastWindow) {
+                    // Last line of the file has no line break
+                    int lineEnd = windowLength;
+                    if (lineEnd > lineStart && window.get(lineEnd - 1) == '\r')
+                        lineEnd--;
+                    if (lineEnd > lineStart && skipLines == 0) {
+                        action.accept(line.reset(lineStart, lineEnd - lineStart));
+                        lineCount++;
+                    }
+                } else if (lineStart == 0) {
+                    throw new IOException("Line in " + file + " is longer than "
+                            + WINDOW_SIZE + " bytes.");
+                }
+
+                // The next window starts at the first line not yet finished
+                windowStart += lastWindow ? windowLength : lineStart;
+            }
+        }
+
+        return lineCount;
+    }
+
+    /**
+     * Reads part of a file into a new heap buffer
+     * @param channel channel to read
+     * @param position position to start reading at
+     * @param length number of bytes to read
+     * @return buffer holding the bytes
+     * @throws IOException if unable to read the file
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                break;
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * The {@code Line} class is a CharSequence over the bytes of one line.
+     * Line breaks, delimiters, quotes, and digits are single bytes in
+     * UTF-8, and no byte of a multi-byte character equals one of them, so
+     * a tokenizer can scan the bytes as characters; toString decodes the
+     * bytes as UTF-8.
+     */
+    private static final class Line implements CharSequence {
+        private ByteBuffer buffer;
+        private int start;
+        private int length;
+
+        private Line reset(int start, int length) {
+            this.start = start;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            Line part = new Line();
+            part.buffer = buffer;
+            return part.reset(start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[length];
+            buffer.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package FlooringMastery.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * The {@code OrderAppendWriter} class is responsible for appending new
+ * Orders to the end of Order files with group commit. Callers queue the
+ * bytes to append and wait while a single writer thread appends everything
+ * queued so far through Order file channels that stay open between
+ * appends, then forces the batch to disk together. Before a batch is
+ * written, the length of each of its Order files is journaled with a
+ * single force, so a crash part way through the batch is undone by
+ * truncating the files back. Whether the Order files are forced to disk
+ * is set by the {@link Durability} of the writer.
+ * The writer thread stops, closing its channels, once it has been idle
+ * for a while, and is started again by the next append. Each date's
+ * appends are written while holding the date's lock, so callers must not
+ * hold it while they wait for an append.
+ */
+public class OrderAppendWriter {
+    /**
+     * How appended Orders are made durable before the append returns
+     */
+    public enum Durability {
+        // Appends already queued are journaled and forced together, without waiting
+        SYNC,
+        // Appends queued within a flush interval are journaled and forced together
+        BATCHED,
+        // Appends are written to the operating system and never forced
+        BUFFERED
+    }
+
+    /**
+     * Told where an append landed, while the date's lock is still held
+     */
+    public interface Listener {
+        /**
+         * Called once an append has been written to its Order file, and
+         * forced to disk unless the writer is BUFFERED. Not called for an
+         * append that fails, as its bytes are truncated again
+         * @param lengthBefore length of the Order file before the append
+         * @param modifiedBefore last modified time of the file before the append
+         * @param modifiedAfter last modified time of the file after the append
+         */
+        void appended(long lengthBefore, long modifiedBefore, long modifiedAfter);
+    }
+
+    // Number of Order file channels kept open at once
+    private static final int MAX_OPEN_CHANNELS = 16;
+    // Time the writer thread waits for more appends before it stops
+    private static final long IDLE_MILLIS = 1000;
+
+    private final OrderJournal JOURNAL;
+    private final Function<LocalDate, File> ORDER_FILES;
+    private final Function<LocalDate, Lock> DATE_LOCKS;
+    private final byte[] HEADER;
+    private final Durability DURABILITY;
+    private final long FLUSH_INTERVAL_NANOS;
+
+    // Appends waiting for the writer thread
+    private final LinkedBlockingQueue<Append> QUEUE = new LinkedBlockingQueue<>();
+    private boolean writerRunning;
+    // Open Order file channels by date, least recently used first
+    private final LinkedHashMap<LocalDate, FileChannel> CHANNELS =
+            new LinkedHashMap<>(MAX_OPEN_CHANNELS, 0.75f, true);
+
+    /**
+     * Constructor takes 6 parameters and creates a new OrderAppendWriter.
+     * No thread is started until the first append.
+     * @param journal journal that makes appends crash-safe, used by no
+     * other writer
+     * @param orderFiles function giving the Order file for a date
+     * @param dateLocks function giving the lock that guards changes to the
+     * Order file for a date
+     * @param header bytes written at the start of a new Order file
+     * @param durability how appends are made durable
+     * @param flushIntervalMillis time a BATCHED writer collects appends
+     * before forcing them to disk
+     */
+    public OrderAppendWriter(OrderJournal journal, Function<LocalDate, File> orderFiles,
+                             Function<LocalDate, Lock> dateLocks, byte[] header,
+                             Durability durability, long flushIntervalMillis) {
+        this.JOURNAL = journal;
+        this.ORDER_FILES = orderFiles;
+        this.DATE_LOCKS = dateLocks;
+        this.HEADER = header;
+        this.DURABILITY = durability;
+        this.FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    }
+
+    /**
+     * Appends bytes to the end of the Order file for a date, writing the
+     * header first if the file is new, and waits until they are written
+     * with the writer's durability
+     * @param date date of Order file
+     * @param bytes lines to append
+     * @param listener told where the append landed, or null
+     * @return length of the Order file before the append
+     * @throws IOException if unable to write the journal or Order file
+     */
+    public long append(LocalDate date, byte[] bytes, Listener listener) throws IOException {
+        Append append = new Append(date, bytes, listener);
+
+        synchronized (QUEUE) {
+            QUEUE.add(append);
+            if (!writerRunning)
+                startWriter();
+        }
+
+        try {
+            return append.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Could not append to Order file.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted appending to Order file.");
+        }
+    }
+
+    /**
+     * Closes the channel for an Order file, so the file can be replaced
+     * @param date date of Order file
+     * @throws IOException if unable to close the channel
+     */
+    public void release(LocalDate date) throws IOException {
+        synchronized (CHANNELS) {
+            FileChannel channel = CHANNELS.remove(date);
+            if (channel != null)
+                channel.close();
+        }
+    }
+
+    /**
+     * Starts the writer thread. Called while holding the QUEUE lock.
+     */
+    private void startWriter() {
+        Thread writer = new Thread(this::runWriter, "order-append-writer");
+        writer.setDaemon(true);
+        writer.start();
+        writerRunning = true;
+    }
+
+    /**
+     * Takes appends from the queue and writes them in batches until the
+     * queue has been empty for IDLE_MILLIS. A batch that fails with an
+     * unexpected exception or error fails its appends instead of stopping
+     * the thread, and if the thread stops anyway, appends still queued
+     * start a new one.
+     */
+    private void runWriter() {
+        List<Append> batch = new ArrayList<>();
+
+        try {
+            while (true) {
+                Append first = QUEUE.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    synchronized (QUEUE) {
+                        if (QUEUE.isEmpty()) {
+                            closeChannels();
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                batch.add(first);
+
+                // Collect the appends that arrive within the flush interval
+                if (DURABILITY == Durability.BATCHED) {
+                    long deadline = System.nanoTime() + FLUSH_INTERVAL_NANOS;
+                    long remaining;
+                    while ((remaining = deadline - System.nanoTime()) > 0) {
+                        Append next = QUEUE.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null)
+                            break;
+                        batch.add(next);
+                    }
+                }
+                QUEUE.drainTo(batch);
+
+                try {
+                    writeBatch(batch);
+                } catch (Throwable e) {
+                    // Whatever was not completed is failed, and the channels
+                    // are opened again for the next batch
+                    for (Append append : batch)
+                        append.result.completeExceptionally(e);
+                    closeChannels();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Fail the appends that can no longer be written
+            synchronized (QUEUE) {
+                QUEUE.drainTo(batch);
+            }
+            for (Append append : batch)
+                append.result.completeExceptionally(e);
+        } finally {
+            synchronized (QUEUE) {
+                writerRunning = false;
+                // An append queued while the thread was stopping still needs one
+                if (!QUEUE.isEmpty())
+                    startWriter();
+            }
+        }
+    }
+
+    /**
+     * Appends a batch to the Order files, grouped by date, holding the lock
+     * of every date in the batch while it is written
+     * @param batch appends in the order they were queued
+     */
+    private void writeBatch(List<Append> batch) {
+        // Appends for the same date stay in the order they were queued
+        Map<LocalDate, List<Append>> byDate = new LinkedHashMap<>();
+        for (Append append : batch)
+            byDate.computeIfAbsent(append.date, date -> new ArrayList<>()).add(append);
+
+        // Lock every date of the batch before the channels and journal, the
+        // same order other writers take them in
+        List<Lock> locks = new ArrayList<>(byDate.size());
+        for (LocalDate date : byDate.keySet()) {
+            Lock lock = DATE_LOCKS.apply(date);
+            lock.lock();
+            locks.add(lock);
+        }
+
+        try {
+            writeLocked(byDate);
+        } finally {
+            for (Lock lock : locks)
+                lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a batch grouped by date and forces it to disk. The length of
+     * every Order file is journaled with one force before any is written,
+     * each file is forced once, and the journal is emptied with one more
+     * force: two forces more than the number of dates in the batch. Only
+     * once the batch is on disk are the listeners told and the appends
+     * completed; appends that cannot be written are truncated away again.
+     * @param byDate appends of the batch by date
+     */
+    private void writeLocked(Map<LocalDate, List<Append>> byDate) {
+        boolean forced = DURABILITY != Durability.BUFFERED;
+        Map<LocalDate, FileChannel> channels = new LinkedHashMap<>();
+        Map<LocalDate, Long> lengthsBefore = new LinkedHashMap<>();
+        Map<LocalDate, List<Append>> written = new LinkedHashMap<>();
+
+        // The channels map is only locked while it is used, not while
+        // the files are written; no other thread writes through them
+        synchronized (CHANNELS) {
+            for (Map.Entry<LocalDate, List<Append>> entry : byDate.entrySet()) {
+                try {
+                    FileChannel channel = getChannel(entry.getKey());
+                    lengthsBefore.put(entry.getKey(), channel.size());
+                    channels.put(entry.getKey(), channel);
+                } catch (IOException e) {
+                    failDate(entry.getKey(), entry.getValue(), e);
+                }
+            }
+        }
+
+        // Only this thread uses the journal, and the date locks keep
+        // edits of the same files out until the batch is checkpointed
+        try {
+            if (forced && !channels.isEmpty())
+                JOURNAL.recordAppends(lengthsBefore);
+        } catch (IOException e) {
+            // Nothing was written yet
+            for (LocalDate date : channels.keySet())
+                failDate(date, byDate.get(date), e);
+            return;
+        }
+
+        for (Map.Entry<LocalDate, FileChannel> entry : channels.entrySet()) {
+            LocalDate date = entry.getKey();
+            try {
+                writeDate(date, entry.getValue(), lengthsBefore.get(date),
+                        byDate.get(date));
+                written.put(date, byDate.get(date));
+            } catch (IOException | RuntimeException e) {
+                truncate(entry.getValue(), lengthsBefore.get(date), e);
+                failDate(date, byDate.get(date), e);
+            }
+        }
+
+        try {
+            if (forced && !written.isEmpty()) {
+                for (LocalDate date : written.keySet())
+                    channels.get(date).force(false);
+                JOURNAL.checkpoint();
+            }
+        } catch (IOException e) {
+            // None of the batch is known to be on disk, so none of it is kept
+            for (Map.Entry<LocalDate, List<Append>> entry : written.entrySet()) {
+                truncate(channels.get(entry.getKey()),
+                        lengthsBefore.get(entry.getKey()), e);
+                for (Append append : entry.getValue())
+                    append.result.completeExceptionally(e);
+            }
+            closeChannels();
+            return;
+        }
+
+        synchronized (CHANNELS) {
+            trimChannels();
+        }
+
+        for (List<Append> appends : written.values()) {
+            for (Append append : appends) {
+                try {
+                    append.written();
+                    append.result.complete(append.lengthBefore);
+                } catch (RuntimeException e) {
+                    // The append is on disk, but its caller must learn the
+                    // listener failed; the rest of the batch is still completed
+                    append.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends every queued append for one date to its Order file with a
+     * single write, writing the header first if the file is new
+     * @param date date of Order file
+     * @param channel open channel for the Order file
+     * @param lengthBefore length of the Order file before the appends
+     * @param appends appends for the date
+     * @throws IOException if unable to write the Order file
+     */
+    private void writeDate(LocalDate date, FileChannel channel, long lengthBefore,
+                           List<Append> appends) throws IOException {
+        File file = ORDER_FILES.apply(date);
+        long length = lengthBefore;
+
+        // Join the appends into one write
+        long total = length == 0 ? HEADER.length : 0;
+        for (Append append : appends)
+            total += append.bytes.length;
+        if (total > Integer.MAX_VALUE)
+            throw new IOException("Appends for " + date + " are too large to write at once.");
+        ByteBuffer buffer = ByteBuffer.allocate((int) total);
+        if (length == 0) {
+            buffer.put(HEADER);
+            length += HEADER.length;
+        }
+        for (Append append : appends) {
+            buffer.put(append.bytes);
+            // The header counts as part of the first append
+            append.lengthBefore = append == appends.get(0) ? lengthBefore : length;
+            length += append.bytes.length;
+        }
+
+        long modifiedBefore = file.lastModified();
+        writeFully(channel, buffer.array(), lengthBefore);
+
+        // Every append after the first one follows it in the same write
+        long modifiedAfter = file.lastModified();
+        for (Append append : appends) {
+            append.modifiedBefore = modifiedBefore;
+            append.modifiedAfter = modifiedAfter;
+            modifiedBefore = modifiedAfter;
+        }
+    }
+
+    /**
+     * Truncates an Order file back to its length before a batch that
+     * could not be made durable
+     * @param channel open channel for the Order file
+     * @param length length of the file before the batch
+     * @param e exception that stopped the batch, which keeps any failure
+     * to truncate
+     */
+    private static void truncate(FileChannel channel, long length, Exception e) {
+        try {
+            channel.truncate(length);
+        } catch (IOException truncateFailure) {
+            // The journal still undoes the append when it is next replayed
+            e.addSuppressed(truncateFailure);
+        }
+    }
+
+    /**
+     * Fails the appends for a date and closes its channel, so the next
+     * append opens the Order file again
+     * @param date date of Order file
+     * @param appends appends that could not be written
+     * @param e exception that stopped the write
+     */
+    private void failDate(LocalDate date, List<Append> appends, Exception e) {
+        for (Append append : appends)
+            append.result.completeExceptionally(e);
+        try {
+            release(date);
+        } catch (IOException closeFailure) {
+            e.addSuppressed(closeFailure);
+        }
+    }
+
+    /**
+     * Gets the open channel for an Order file, opening it if needed. No
+     * channel is closed here, as every channel of a batch stays in use
+     * until the batch is forced; trimChannels closes the extra ones after.
+     * @param date date of Order file
+     * @return open channel for the Order file
+     * @throws IOException if unable to open the Order file
+     */
+    private FileChannel getChannel(LocalDate date) throws IOException {
+        FileChannel channel = CHANNELS.get(date);
+        if (channel != null)
+            return channel;
+
+        channel = FileChannel.open(ORDER_FILES.apply(date).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        CHANNELS.put(date, channel);
+        return channel;
+    }
+
+    /**
+     * Closes the least recently used channels until no more than
+     * MAX_OPEN_CHANNELS are open
+     */
+    private void trimChannels() {
+        Iterator<FileChannel> eldest = CHANNELS.values().iterator();
+        while (CHANNELS.size() > MAX_OPEN_CHANNELS) {
+            try {
+                eldest.next().close();
+            } catch (IOException e) {
+                // Everything written through the channel was already forced
+            }
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Closes every open channel, ignoring channels that fail to close
+     */
+    private void closeChannels() {
+        synchronized (CHANNELS) {
+            for (FileChannel channel : CHANNELS.values()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Nothing is left to write through the channel
+                }
+            }
+            CHANNELS.clear();
+        }
+    }
+
+    /**
+     * Writes all bytes to a channel at a position
+     * @param channel channel to write to
+     * @param bytes bytes to write
+     * @param position position in the channel
+     * @throws IOException if unable to write
+     */
+    private static void writeFully(FileChannel channel, byte[] bytes, long position)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * The {@code Append} class holds one queued append and the result
+     * its caller waits for.
+     */
+    private static final class Append {
+        private final LocalDate date;
+        private final byte[] bytes;
+        private final Listener listener;
+        private final CompletableFuture<Long> result = new CompletableFuture<>();
+        // Where the append landed, set by the writer thread
+        private long lengthBefore;
+        private long modifiedBefore;
+        private long modifiedAfter;
+
+        private Append(LocalDate date, byte[] bytes, Listener listener) {
+            this.date = date;
+            this.bytes = bytes;
+            this.listener = listener;
+        }
+
+        private void written() {
+            if (listener != null)
+                listener.appended(lengthBefore, modifiedBefore, modifiedAfter);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Order;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The {@code OrderCache} class is responsible for keeping recently
+ * used Order files in memory. Each Order file (one date) is stored as a
+ * map of order number to Order object. When the total number of cached
+ * Orders exceeds the budget, the least recently used dates are evicted.
+ * Invalidations are counted, so Orders read while their file was being
+ * written by another thread are not cached.
+ */
+public class OrderCache {
+    // Default number of Orders to keep in memory
+    private static final int DEFAULT_MAX_CACHED_ORDERS = 100_000;
+
+    // Maximum number of Orders (across all dates) kept in memory
+    private final int MAX_CACHED_ORDERS;
+    // Number of Orders currently cached
+    private int cachedOrders;
+    // Cached dates in access order, least recently used first
+    private final LinkedHashMap<LocalDate, Map<Integer, Order>> partitions =
+            new LinkedHashMap<>(16, 0.75f, true);
+    // Invalidations counted by stripe of dates
+    private static final int VERSION_STRIPES = 64;
+    private final long[] versions = new long[VERSION_STRIPES];
+
+    /**
+     * No-args constructor for OrderCache uses the default budget
+     */
+    public OrderCache() {
+        this(DEFAULT_MAX_CACHED_ORDERS);
+    }
+
+    /**
+     * Constructor accepts the memory budget, expressed as the maximum
+     * number of Orders to keep in memory across all dates
+     * @param maxCachedOrders maximum number of cached Orders
+     */
+    public OrderCache(int maxCachedOrders) {
+        this.MAX_CACHED_ORDERS = maxCachedOrders;
+    }
+
+    /**
+     * Gets the cached Orders for a date
+     * @param date date of Orders
+     * @return unmodifiable map of order number to Order, or null if the
+     * date is not cached
+     */
+    public synchronized Map<Integer, Order> get(LocalDate date) {
+        return partitions.get(date);
+    }
+
+    /**
+     * Caches the Orders read from the Order file for a date, evicting
+     * least recently used dates if the budget is exceeded. A date with
+     * more Orders than the whole budget is not cached.
+     * @param date date of Orders
+     * @param orderList Orders read from the Order file
+     * @return unmodifiable map of order number to Order, in file order
+     */
+    public synchronized Map<Integer, Order> put(LocalDate date, List<Order> orderList) {
+        return put(date, orderList, versions[stripe(date)]);
+    }
+
+    /**
+     * Caches the Orders read from the Order file for a date, unless the
+     * date was invalidated since the version was taken, as the Orders may
+     * have been read before the file was written
+     * @param date date of Orders
+     * @param orderList Orders read from the Order file
+     * @param version version of the date taken before the file was read
+     * @return unmodifiable map of order number to Order, in file order
+     */
+    public synchronized Map<Integer, Order> put(LocalDate date, List<Order> orderList,
+                                                long version) {
+        Map<Integer, Order> orders = new LinkedHashMap<>();
+        for (Order order : orderList)
+            orders.put(order.getOrderNumber(), order);
+        orders = Collections.unmodifiableMap(orders);
+
+        remove(date);
+        if (orders.size() > MAX_CACHED_ORDERS || version != versions[stripe(date)])
+            return orders;
+
+        partitions.put(date, orders);
+        cachedOrders += orders.size();
+
+        // Evict least recently used dates until back within budget
+        Iterator<Map<Integer, Order>> eldest = partitions.values().iterator();
+        while (cachedOrders > MAX_CACHED_ORDERS) {
+            cachedOrders -= eldest.next().size();
+            eldest.remove();
+        }
+
+        return orders;
+    }
+
+    /**
+     * Gets the version of a date, to be taken before its Order file is read
+     * @param date date of Orders
+     * @return number of invalidations of the date's stripe
+     */
+    public synchronized long getVersion(LocalDate date) {
+        return versions[stripe(date)];
+    }
+
+    /**
+     * Removes a date from the cache, used when its Order file is written
+     * @param date date of Orders
+     */
+    public synchronized void invalidate(LocalDate date) {
+        versions[stripe(date)]++;
+        remove(date);
+    }
+
+    /**
+     * Removes a date from the cache without counting an invalidation
+     * @param date date of Orders
+     */
+    private void remove(LocalDate date) {
+        Map<Integer, Order> removed = partitions.remove(date);
+        if (removed != null)
+            cachedOrders -= removed.size();
+    }
+
+    /**
+     * Gets the stripe of a date in versions
+     * @param date date of Orders
+     * @return index into versions
+     */
+    private static int stripe(LocalDate date) {
+        return DateStripes.of(date, VERSION_STRIPES);
+    }
+}
@@ -1,18 +1,27 @@
 package FlooringMastery.dao;
 
 import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public interface OrderDao {
     Order getOrder(int orderNumber, LocalDate orderDate)
             throws PersistenceException;
 
+    Order getOrder(int orderNumber) throws PersistenceException;
+
     List<Order> getAllOrders(LocalDate dateEntered)
             throws PersistenceException;
 
+    Stream<Order> getOrders(LocalDate fromDate, LocalDate toDate, Predicate<Order> filter)
+            throws PersistenceException;
+
     Order createNewOrder(String newCustomerName, String newOrderState,
                          String productType, BigDecimal newOrderArea)
             throws PersistenceException;
@@ -20,6 +29,9 @@ public interface OrderDao {
     void addNewOrderToFile(LocalDate newOrderDate, Order newOrder)
             throws PersistenceException;
 
+    ImportSummary importOrders(List<OrderRequest> requests)
+            throws PersistenceException;
+
     Order createEditedOrder(Order order, String newName,
                             String newState, String newProductType,
                             BigDecimal newArea) throws PersistenceException;
@@ -30,5 +42,19 @@ public interface OrderDao {
     void removeOrder(LocalDate orderDate, Order orderToRemove)
             throws PersistenceException;
 
-    void exportAllData() throws PersistenceException;
+    ExportSummary exportAllData() throws PersistenceException;
+
+    ExportSummary exportChangedData() throws PersistenceException;
+
+    SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                               LocalDate toDate) throws PersistenceException;
+
+    Map<LocalDate, List<Order>> getOrdersByCustomer(String customerName)
+            throws PersistenceException;
+
+    Map<LocalDate, List<Order>> getOrdersByState(String stateAbbr)
+            throws PersistenceException;
+
+    Map<LocalDate, List<Order>> getOrdersByProduct(String productType)
+            throws PersistenceException;
 }
@@ -1,28 +1,67 @@
 package FlooringMastery.dao;
 
+import FlooringMastery.model.Money;
 import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
 import FlooringMastery.model.Product;
 import FlooringMastery.model.State;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.file.NoSuchFileException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * The {@code OrderDaoImpl} class is responsible for interacting
- * with Order objects in the Flooring Order App
+ * with Order objects in the Flooring Order App. It can be used by many
+ * threads at once when its FileDao can.
  */
 public class OrderDaoImpl implements OrderDao {
-    // Declare variable for FileDao object
+    // Declare variables for FileDao, CatalogCache, and OrderCache objects
     private final FileDao FILE_DAO;
+    private final CatalogCache CATALOG;
+    private final OrderCache ORDER_CACHE;
 
     /**
      * No-args constructor for OrderDaoImpl creates a new instance
-     * of the FileDaoImpl.
+     * of the FileDaoImpl and CatalogCache.
      */
     public OrderDaoImpl() {
-        FILE_DAO = new FileDaoImpl();
+        this(new CatalogCache());
+    }
+
+    /**
+     * Constructor accepts a CatalogCache shared with the other DAOs and
+     * creates a new instance of the FileDaoImpl.
+     * @param catalogCache CatalogCache object
+     */
+    public OrderDaoImpl(CatalogCache catalogCache) {
+        this(catalogCache, new OrderCache());
+    }
+
+    /**
+     * Constructor accepts a CatalogCache shared with the other DAOs and
+     * an OrderCache, creates a new instance of the FileDaoImpl.
+     * @param catalogCache CatalogCache object
+     * @param orderCache OrderCache object
+     */
+    public OrderDaoImpl(CatalogCache catalogCache, OrderCache orderCache) {
+        this(new FileDaoImpl(), catalogCache, orderCache);
+    }
+
+    /**
+     * Constructor accepts the FileDao used to read and write Order files,
+     * a CatalogCache, and an OrderCache.
+     * @param fileDao FileDao object
+     * @param catalogCache CatalogCache object
+     * @param orderCache OrderCache object
+     */
+    public OrderDaoImpl(FileDao fileDao, CatalogCache catalogCache, OrderCache orderCache) {
+        this.FILE_DAO = fileDao;
+        this.CATALOG = catalogCache;
+        this.ORDER_CACHE = orderCache;
     }
 
     /**
@@ -32,7 +71,8 @@ public class OrderDaoImpl implements OrderDao {
      * @param exportFile export file name
      */
     public OrderDaoImpl(String orderDirectory, String exportFile) {
-        this.FILE_DAO = new FileDaoImpl(orderDirectory, exportFile);
+        this(new FileDaoImpl(orderDirectory, exportFile), new CatalogCache(),
+                new OrderCache());
     }
 
     /**
@@ -48,24 +88,30 @@ public class OrderDaoImpl implements OrderDao {
     public Order getOrder(int orderNumber, LocalDate orderDate)
             throws PersistenceException {
         try {
-            // Read order file for date entered and stored data in List
-            List<Order> orderList = FILE_DAO.readOrderFile(orderDate);
-
-            // Declare and initialize HashMap to map Orders from file
-            Map<Integer, Order> orderMap = new HashMap<>();
-
-            // Iterate through orderList putting each order into the map
-            // with key = orderNumber and value = Order object
-            for (Order order : orderList)
-                orderMap.put(order.getOrderNumber(), order);
-
-            // Get and return Order object from map based on order number
-            return orderMap.get(orderNumber);
+            // Get and return Order object from the date's orders based on
+            // order number
+            return getOrdersForDate(orderDate).get(orderNumber);
         } catch (PersistenceException e) {
-            throw new PersistenceException("Order not found");
+            throw new PersistenceException("Order not found", e);
         }
     }
 
+    /**
+     * Retrieves an Order from its order number alone. The date is looked
+     * up in the order index, so only that date's Order file is read.
+     * @param orderNumber number of Order to retrieve
+     * @return Order object with data from file, or null if there is no
+     * Order with that number
+     * @throws PersistenceException if unable to read the index or Order file
+     */
+    @Override
+    public Order getOrder(int orderNumber) throws PersistenceException {
+        LocalDate orderDate = FILE_DAO.findOrderDate(orderNumber);
+        if (orderDate == null)
+            return null;
+        return getOrder(orderNumber, orderDate);
+    }
+
     /**
      * Get all orders for the date passed to this method.
      * @param dateEntered date to retrieve orders for
@@ -76,8 +122,72 @@ public class OrderDaoImpl implements OrderDao {
     @Override
     public List<Order> getAllOrders(LocalDate dateEntered)
             throws PersistenceException {
-        // Get list of orders for dateEntered from FILE_DAO and return it
-        return FILE_DAO.readOrderFile(dateEntered);
+        // Get orders for dateEntered and return them as a new list
+        return new ArrayList<>(getOrdersForDate(dateEntered).values());
+    }
+
+    /**
+     * Gets the Orders of every date between two dates that match a filter.
+     * Only the dates inside the range are taken from the manifest of Order
+     * files; each of those files is read when the Stream reaches its date.
+     * Dates in the OrderCache are served from it, but dates read for the
+     * Stream are not cached, so a long range does not evict the dates in
+     * use. A file that fails to read ends the Stream with an
+     * UncheckedPersistenceException.
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @param filter Orders to keep
+     * @return Orders oldest date first, then in file order
+     * @throws PersistenceException if unable to list the Order files
+     */
+    @Override
+    public Stream<Order> getOrders(LocalDate fromDate, LocalDate toDate,
+                                   Predicate<Order> filter) throws PersistenceException {
+        return FILE_DAO.listOrderFileDates(fromDate, toDate).stream()
+                .flatMap(date -> readOrdersForStream(date).stream())
+                .filter(filter);
+    }
+
+    /**
+     * Reads the Orders of one date for getOrders, from the OrderCache if
+     * the date is cached
+     * @param orderDate date of Orders
+     * @return Orders in file order, empty if the file was removed after
+     * the Order files were listed
+     * @throws UncheckedPersistenceException if unable to read the Order file
+     */
+    private Collection<Order> readOrdersForStream(LocalDate orderDate) {
+        Map<Integer, Order> cached = ORDER_CACHE.get(orderDate);
+        if (cached != null)
+            return cached.values();
+
+        try {
+            return FILE_DAO.readOrderFile(orderDate);
+        } catch (PersistenceException e) {
+            if (e.getCause() instanceof NoSuchFileException)
+                return List.of();
+            throw new UncheckedPersistenceException(e);
+        }
+    }
+
+    /**
+     * Gets the orders for a date from the OrderCache, reading the Order
+     * file through FILE_DAO only if the date is not cached.
+     * @param orderDate date of Orders
+     * @return map of order number to Order object
+     * @throws PersistenceException if unable to read the Order file
+     */
+    private Map<Integer, Order> getOrdersForDate(LocalDate orderDate)
+            throws PersistenceException {
+        Map<Integer, Order> orders = ORDER_CACHE.get(orderDate);
+
+        if (orders == null) {
+            // Orders read while another thread writes the file are not cached
+            long version = ORDER_CACHE.getVersion(orderDate);
+            orders = ORDER_CACHE.put(orderDate, FILE_DAO.readOrderFile(orderDate), version);
+        }
+
+        return orders;
     }
 
     /**
@@ -94,18 +204,10 @@ public class OrderDaoImpl implements OrderDao {
     public Order createNewOrder(String newCustomerName, String newOrderState,
                                 String productType, BigDecimal newOrderArea)
             throws PersistenceException {
-        // Declare and initialize new State object based on state abbr
-        State state = getStateInfo(newOrderState);
-        // Declare and initialize new Product object based on productType
-        Product product = getProductInfo(productType);
-
-        // Calculate necessary values
-        BigDecimal materialCost =
-                calculateMaterialCost(product.getCostPerSquareFoot(),newOrderArea);
-        BigDecimal laborCost =
-                calculateLaborCost(product.getLaborCostPerSquareFoot(), newOrderArea);
-        BigDecimal tax = calculateTax(state.getTaxRate(), materialCost, laborCost);
-        BigDecimal total = calculateTotal(tax, materialCost, laborCost);
+        // Look up State and Product from the same catalog snapshot
+        CatalogCache.Snapshot catalog = CATALOG.getSnapshot();
+        State state = catalog.getState(newOrderState);
+        Product product = catalog.getProduct(productType);
 
         // Create newOrder object
         Order newOrder = new Order(newCustomerName, newOrderState,
@@ -113,13 +215,7 @@ public class OrderDaoImpl implements OrderDao {
 
         // Set remain Order values
         newOrder.setOrderNumber(FILE_DAO.generateNewOrderNum());
-        newOrder.setTaxRate(state.getTaxRate().setScale(3, RoundingMode.HALF_UP));
-        newOrder.setCostPerSquareFoot(product.getCostPerSquareFoot());
-        newOrder.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
-        newOrder.setMaterialCost(materialCost);
-        newOrder.setLaborCost(laborCost);
-        newOrder.setTax(tax);
-        newOrder.setTotal(total);
+        priceOrder(newOrder, state, product);
 
         // Return newOrder object
         return newOrder;
@@ -136,6 +232,60 @@ public class OrderDaoImpl implements OrderDao {
             throws PersistenceException {
         // Pass Order date and object to FILE_DAO to store in file
         FILE_DAO.writeNewOrder(newOrderDate, newOrder);
+        // Cached orders for the date are now out of date
+        ORDER_CACHE.invalidate(newOrderDate);
+    }
+
+    /**
+     * Prices a batch of new Orders and appends them to their Order files.
+     * A block of order numbers is reserved once for the whole batch, the
+     * Orders are grouped by date, and each date's Orders are appended with
+     * a single write.
+     * @param requests values entered for each new Order, already validated
+     * @return ImportSummary with the number of Orders and files written
+     * @throws PersistenceException if a State or Product is unknown or
+     * unable to write an Order file
+     */
+    @Override
+    public ImportSummary importOrders(List<OrderRequest> requests)
+            throws PersistenceException {
+        long startTime = System.nanoTime();
+        CatalogCache.Snapshot catalog = CATALOG.getSnapshot();
+
+        // Price every Order before anything is written
+        Map<LocalDate, List<Order>> ordersByDate = new TreeMap<>();
+        for (OrderRequest request : requests) {
+            State state = catalog.getState(request.getState());
+            Product product = catalog.getProduct(request.getProductType());
+            if (state == null || product == null)
+                throw new PersistenceException("Unknown State or Product in " + request);
+
+            Order order = new Order(request.getCustomerName(), request.getState(),
+                    request.getProductType(), request.getArea());
+            priceOrder(order, state, product);
+            ordersByDate.computeIfAbsent(request.getOrderDate(), date -> new ArrayList<>())
+                    .add(order);
+        }
+
+        if (requests.isEmpty())
+            return new ImportSummary(0, 0, 0, System.nanoTime() - startTime);
+
+        // Number the Orders in date order from one reserved block
+        int firstOrderNumber = FILE_DAO.reserveOrderNumbers(requests.size());
+        int orderNumber = firstOrderNumber;
+        for (List<Order> orders : ordersByDate.values()) {
+            for (Order order : orders)
+                order.setOrderNumber(orderNumber++);
+        }
+
+        for (Map.Entry<LocalDate, List<Order>> entry : ordersByDate.entrySet()) {
+            FILE_DAO.writeNewOrders(entry.getKey(), entry.getValue());
+            // Cached orders for the date are now out of date
+            ORDER_CACHE.invalidate(entry.getKey());
+        }
+
+        return new ImportSummary(requests.size(), ordersByDate.size(), firstOrderNumber,
+                System.nanoTime() - startTime);
     }
 
     /**
@@ -154,16 +304,10 @@ public class OrderDaoImpl implements OrderDao {
     public Order createEditedOrder(Order order, String newName,
                                    String newStateAbbr, String newProductType,
                                    BigDecimal newArea) throws PersistenceException {
-        // Declare and initialize new State object based on state abbr
-        State state = getStateInfo(newStateAbbr);
-        // Declare and initialize new Product object based on productType
-        Product product = getProductInfo(newProductType);
-
-        // Calculate necessary values
-        BigDecimal materialCost = calculateMaterialCost(product.getCostPerSquareFoot(), newArea);
-        BigDecimal laborCost = calculateLaborCost(product.getLaborCostPerSquareFoot(), newArea);
-        BigDecimal tax = calculateTax(state.getTaxRate(), materialCost, laborCost);
-        BigDecimal total = calculateTotal(tax, materialCost, laborCost);
+        // Look up State and Product from the same catalog snapshot
+        CatalogCache.Snapshot catalog = CATALOG.getSnapshot();
+        State state = catalog.getState(newStateAbbr);
+        Product product = catalog.getProduct(newProductType);
 
         // Create editedOrder object
         Order editedOrder = new Order(newName, newStateAbbr,
@@ -171,13 +315,7 @@ public class OrderDaoImpl implements OrderDao {
 
         // Set remain Order values
         editedOrder.setOrderNumber(order.getOrderNumber());
-        editedOrder.setTaxRate(state.getTaxRate().setScale(3, RoundingMode.HALF_UP));
-        editedOrder.setCostPerSquareFoot(product.getCostPerSquareFoot());
-        editedOrder.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
-        editedOrder.setMaterialCost(materialCost);
-        editedOrder.setLaborCost(laborCost);
-        editedOrder.setTax(tax);
-        editedOrder.setTotal(total);
+        priceOrder(editedOrder, state, product);
 
         // Return editedOrder object
         return editedOrder;
@@ -197,6 +335,8 @@ public class OrderDaoImpl implements OrderDao {
         // Pass Order date, original Order object, and edited Order object to
         // FILE_DAO to store in file
         FILE_DAO.writeEditOrder(orderDate, orderToEdit, editedOrder);
+        // Cached orders for the date are now out of date
+        ORDER_CACHE.invalidate(orderDate);
     }
 
     /**
@@ -211,96 +351,194 @@ public class OrderDaoImpl implements OrderDao {
         // Pass the Order date and object to the FILE_DAO to remove
         // it from the Order File
         FILE_DAO.removeOrderFromFile(orderDate, orderToRemove);
+        // Cached orders for the date are now out of date
+        ORDER_CACHE.invalidate(orderDate);
     }
 
     /**
      * Exports data from all Order Files into a separate DataExport file
      * for backing up information
+     * @return ExportSummary with the number of Orders and bytes exported
      * @throws PersistenceException if unable to export data
      */
     @Override
-    public void exportAllData() throws PersistenceException {
-        FILE_DAO.exportAllData();
+    public ExportSummary exportAllData() throws PersistenceException {
+        return FILE_DAO.exportAllData();
     }
 
     /**
-     * Fetches and returns a State object based on the stateAbbr passed
+     * Exports data from all Order Files into a separate DataExport file,
+     * only re-reading the Order Files that changed since the last
+     * incremental export
+     * @return ExportSummary with the number of Orders and bytes exported
+     * @throws PersistenceException if unable to export data
+     */
+    @Override
+    public ExportSummary exportChangedData() throws PersistenceException {
+        return FILE_DAO.exportChangedData();
+    }
+
+    /**
+     * Adds up the Orders of every Order file between two dates, grouped
+     * by State, Product, or month, from the daily rollups kept by the
+     * FileDao. The OrderCache is not used, so a report over the whole
+     * history does not evict the dates in use.
+     * @param grouping what to group Orders by
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return SalesReport with the totals of each group
+     * @throws PersistenceException if unable to read the Order files
+     */
+    @Override
+    public SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                                      LocalDate toDate) throws PersistenceException {
+        return FILE_DAO.getSalesReport(grouping, fromDate, toDate);
+    }
+
+    /**
+     * Gets every Order for a customer, using the order index instead of
+     * reading every Order file
+     * @param customerName customer name, ignoring case and extra whitespace
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read the index or Orders
+     */
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByCustomer(String customerName)
+            throws PersistenceException {
+        return getIndexedOrders(OrderIndex.Field.CUSTOMER, customerName);
+    }
+
+    /**
+     * Gets every Order for a State, using the order index instead of
+     * reading every Order file
      * @param stateAbbr State abbreviation
-     * @return State object
-     * @throws PersistenceException if unable to retrieve State data
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read the index or Orders
      */
-    private State getStateInfo(String stateAbbr) throws PersistenceException {
-        // List of all State objects
-        List<State> stateList = FILE_DAO.readTaxFile("Data/Taxes.txt");
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByState(String stateAbbr)
+            throws PersistenceException {
+        return getIndexedOrders(OrderIndex.Field.STATE, stateAbbr);
+    }
 
-        // Return State object that corresponds to the state abbreviation passed
-        return stateList.stream().filter(s -> s.getStateAbbr().equals(stateAbbr))
-                .findFirst().orElse(null);
+    /**
+     * Gets every Order for a Product type, using the order index instead of
+     * reading every Order file
+     * @param productType Product type
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read the index or Orders
+     */
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByProduct(String productType)
+            throws PersistenceException {
+        return getIndexedOrders(OrderIndex.Field.PRODUCT, productType);
     }
 
     /**
-     * Fetches and returns a Product object based on the productType passed
-     * @param productType Product type (name of product)
-     * @return Product object
-     * @throws PersistenceException if unable to retrieve Product data
+     * Looks up the order numbers for a value in the order index, then
+     * reads only the Order files of the dates found
+     * @param field indexed Field
+     * @param value value to search for
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read the index or Orders
      */
-    private Product getProductInfo(String productType) throws PersistenceException {
-        // List of all Product objects
-        List<Product> productList = FILE_DAO.readProductFile("Data/Products.txt");
+    private Map<LocalDate, List<Order>> getIndexedOrders(OrderIndex.Field field, String value)
+            throws PersistenceException {
+        Map<LocalDate, List<Order>> ordersByDate = new TreeMap<>();
+
+        for (Map.Entry<LocalDate, List<Integer>> entry
+                : FILE_DAO.findOrderNumbers(field, value).entrySet()) {
+            Map<Integer, Order> orders = getOrdersForDate(entry.getKey());
+            List<Order> matches = new ArrayList<>();
+            for (int orderNumber : entry.getValue()) {
+                Order order = orders.get(orderNumber);
+                if (order != null)
+                    matches.add(order);
+            }
+            if (!matches.isEmpty())
+                ordersByDate.put(entry.getKey(), matches);
+        }
+
+        return ordersByDate;
+    }
 
-        // Return Product object that corresponds to the product type passed
-        return productList.stream().filter(p -> p.getProductType().equals(productType))
-                .findFirst().orElse(null);
+    /**
+     * Sets the tax rate, costs per square foot, material cost, labor cost,
+     * tax, and total of an Order from its area and the current State and
+     * Product information. Used for new, edited, and repriced Orders.
+     * @param order Order with an area to price
+     * @param state State of the Order
+     * @param product Product of the Order
+     * @throws ArithmeticException if a value is too large to hold in cents
+     */
+    public static void priceOrder(Order order, State state, Product product) {
+        // Calculate necessary values, in cents
+        long materialCost = calculateMaterialCost(product.getCostPerSquareFootCents(),
+                order.getAreaUnscaled(), order.getAreaScale());
+        long laborCost = calculateLaborCost(product.getLaborCostPerSquareFootCents(),
+                order.getAreaUnscaled(), order.getAreaScale());
+        long tax = calculateTax(state.getTaxRateThousandths(), materialCost, laborCost);
+        long total = calculateTotal(tax, materialCost, laborCost);
+
+        order.setTaxRateThousandths(state.getTaxRateThousandths());
+        order.setCostPerSquareFootCents(product.getCostPerSquareFootCents());
+        order.setLaborCostPerSquareFootCents(product.getLaborCostPerSquareFootCents());
+        order.setMaterialCostCents(materialCost);
+        order.setLaborCostCents(laborCost);
+        order.setTaxCents(tax);
+        order.setTotalCents(total);
     }
 
     /**
-     * Calculates material cost based on cost per square foot and area
-     * @param costPerSqFt cost per square foot for product type
-     * @param area area of product needed (sq ft)
-     * @return total material cost
+     * Calculates material cost based on cost per square foot and area,
+     * rounded HALF_UP to cents
+     * @param costPerSqFt cost per square foot for product type, in cents
+     * @param area unscaled area of product needed (sq ft)
+     * @param areaScale scale of area
+     * @return total material cost, in cents
      */
-    private BigDecimal calculateMaterialCost(BigDecimal costPerSqFt, BigDecimal area) {
+    static long calculateMaterialCost(long costPerSqFt, long area, int areaScale) {
         // materialCost = costPerSqFt * area
-        return costPerSqFt.multiply(area).setScale(2, RoundingMode.HALF_UP);
+        return Money.multiply(costPerSqFt, Money.CENTS, area, areaScale, Money.CENTS);
     }
 
     /**
-     * Calculates labor cost based on labor cost per square foot and area
-     * @param laborCostPerSqFt labor cost per square foot for product type
-     * @param area area of product needed (sq ft)
-     * @return total labor cost
+     * Calculates labor cost based on labor cost per square foot and area,
+     * rounded HALF_UP to cents
+     * @param laborCostPerSqFt labor cost per square foot for product type, in cents
+     * @param area unscaled area of product needed (sq ft)
+     * @param areaScale scale of area
+     * @return total labor cost, in cents
      */
-    private BigDecimal calculateLaborCost(BigDecimal laborCostPerSqFt, BigDecimal area) {
+    static long calculateLaborCost(long laborCostPerSqFt, long area, int areaScale) {
         // laborCost = laborCostPerSqFt * area
-        return laborCostPerSqFt.multiply(area).setScale(2, RoundingMode.HALF_UP);
+        return Money.multiply(laborCostPerSqFt, Money.CENTS, area, areaScale, Money.CENTS);
     }
 
     /**
      * Calculates tax based on State taxRate, materialCost, and laborCost. Assumes that
      * both material and labor are taxed.
-     * @param taxRate tax rate for State of Order
-     * @param materialCost total material cost
-     * @param laborCost total labor cost
-     * @return total tax amount
+     * @param taxRate tax rate for State of Order, in thousandths
+     * @param materialCost total material cost, in cents
+     * @param laborCost total labor cost, in cents
+     * @return total tax amount, in cents
      */
-    private BigDecimal calculateTax(BigDecimal taxRate, BigDecimal materialCost,
-                                    BigDecimal laborCost) {
-        // tax = (taxRate * 0.01) * (materialCost + laborCost)
-        return taxRate.multiply(BigDecimal.valueOf(0.01))
-                .multiply(materialCost.add(laborCost))
-                .setScale(2, RoundingMode.HALF_UP);
+    static long calculateTax(long taxRate, long materialCost, long laborCost) {
+        // tax = (taxRate * 0.01) * (materialCost + laborCost); multiplying the
+        // rate by 0.01 only moves its decimal point two places
+        return Money.multiply(taxRate, Money.THOUSANDTHS + 2,
+                Math.addExact(materialCost, laborCost), Money.CENTS, Money.CENTS);
     }
 
     /**
      * Calculates overall total of order
-     * @param tax total tax amount
-     * @param materialCost total material cost
-     * @param laborCost total labor cost
-     * @return Order total
+     * @param tax total tax amount, in cents
+     * @param materialCost total material cost, in cents
+     * @param laborCost total labor cost, in cents
+     * @return Order total, in cents
      */
-    private BigDecimal calculateTotal(BigDecimal tax, BigDecimal materialCost,
-                                      BigDecimal laborCost) {
+    static long calculateTotal(long tax, long materialCost, long laborCost) {
         // total = tax + materialCost + laborCost
-        return tax.add(materialCost).add(laborCost);
+        return Math.addExact(Math.addExact(tax, materialCost), laborCost);
     }
 }
@@ -0,0 +1,164 @@
+package FlooringMastery.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code OrderFileIndex} class is responsible for remembering where
+ * each Order is stored in one Order file, as the byte offsets of its line.
+ * This lets a single Order be edited or removed by rewriting only its own
+ * line, leaving blank lines where an old line was longer than the new one
+ * or was removed, and counting them so the file can be compacted once
+ * they take up too much of it. The index is only valid for the file length
+ * and last modified time it was built or last updated with.
+ */
+public class OrderFileIndex {
+    // Size of the buffer used when scanning an Order file
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    // Order number mapped to {start offset, end offset} of its line,
+    // the end offset includes the line separator
+    private final Map<Integer, long[]> rows = new HashMap<>();
+    // File length and last modified time the offsets are valid for
+    private long fileLength;
+    private long lastModified;
+    // Bytes of blank lines left by edited and removed Orders
+    private long blankBytes;
+
+    /**
+     * Scans an Order file and records the offsets of every Order line
+     * @param channel open channel for the Order file
+     * @param lastModified last modified time of the Order file
+     * @return new OrderFileIndex
+     * @throws IOException if unable to read the Order file
+     */
+    public static OrderFileIndex build(FileChannel channel, long lastModified)
+            throws IOException {
+        OrderFileIndex index = new OrderFileIndex();
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+
+        long position = 0; // Offset of the byte being scanned
+        long lineStart = 0; // Offset of the current line
+        int orderNumber = 0; // Order number parsed from the current line
+        boolean inOrderNumber = true; // Still reading the first field
+        boolean headerLine = true; // First line is the header row
+
+        channel.position(0);
+        while (channel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+
+                if (b == '\n') {
+                    if (position - lineStart == 1)
+                        // Blank line
+                        index.blankBytes++;
+                    else if (!headerLine)
+                        index.rows.put(orderNumber, new long[]{lineStart, position});
+                    headerLine = false;
+                    lineStart = position;
+                    orderNumber = 0;
+                    inOrderNumber = true;
+                } else if (inOrderNumber) {
+                    if (b >= '0' && b <= '9')
+                        orderNumber = orderNumber * 10 + (b - '0');
+                    else
+                        inOrderNumber = false;
+                }
+            }
+            buffer.clear();
+        }
+
+        // Last line may not end with a line separator
+        if (!headerLine && lineStart < position)
+            index.rows.put(orderNumber, new long[]{lineStart, position});
+
+        index.fileLength = position;
+        index.lastModified = lastModified;
+        return index;
+    }
+
+    /**
+     * Checks whether the offsets are still valid for the file
+     * @param fileLength current length of the Order file
+     * @param lastModified current last modified time of the Order file
+     * @return true if the file has not changed since the index was updated
+     */
+    public boolean isCurrent(long fileLength, long lastModified) {
+        return this.fileLength == fileLength && this.lastModified == lastModified;
+    }
+
+    /**
+     * Finds the line of an Order
+     * @param orderNumber order number
+     * @return {start offset, end offset} of the line, or null if not found
+     */
+    public long[] find(int orderNumber) {
+        return rows.get(orderNumber);
+    }
+
+    /**
+     * Records that an Order line was appended to the end of the file
+     * @param orderNumber order number
+     * @param lineLength length of the appended line in bytes
+     * @param lastModified last modified time after the append
+     */
+    public void appended(int orderNumber, long lineLength, long lastModified) {
+        rows.put(orderNumber, new long[]{fileLength, fileLength + lineLength});
+        fileLength += lineLength;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Records that an Order line was overwritten in place by a line no
+     * longer than it, followed by blank lines for the rest of the old line
+     * @param orderNumber order number
+     * @param newLineLength length of the new line in bytes
+     * @param lastModified last modified time after the edit
+     */
+    public void replaced(int orderNumber, long newLineLength, long lastModified) {
+        long[] row = rows.get(orderNumber);
+        blankBytes += row[1] - row[0] - newLineLength;
+        row[1] = row[0] + newLineLength;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Records that an Order line was blanked and its new line appended to
+     * the end of the file
+     * @param orderNumber order number
+     * @param newLineLength length of the new line in bytes
+     * @param lastModified last modified time after the edit
+     */
+    public void moved(int orderNumber, long newLineLength, long lastModified) {
+        long[] row = rows.get(orderNumber);
+        blankBytes += row[1] - row[0];
+        row[0] = fileLength;
+        row[1] = fileLength + newLineLength;
+        fileLength += newLineLength;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Records that an Order line was removed by overwriting it with blank lines
+     * @param orderNumber order number
+     * @param lastModified last modified time after the removal
+     */
+    public void removed(int orderNumber, long lastModified) {
+        long[] row = rows.remove(orderNumber);
+        blankBytes += row[1] - row[0];
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Gets the number of bytes of blank lines in the file
+     * @return bytes of blank lines
+     */
+    public long getBlankBytes() {
+        return blankBytes;
+    }
+}
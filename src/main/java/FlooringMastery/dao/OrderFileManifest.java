@@ -0,0 +1,212 @@
+package FlooringMastery.dao;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The {@code OrderFileManifest} class keeps the sorted set of Order files
+ * in the Order directory, by date, so the directory is not listed and
+ * every file name parsed each time the DAO needs the dates. It is loaded
+ * from the directory once, then kept current by the DAO, which reports
+ * each Order file it creates, and by the DirectoryWatcher, which reports
+ * files created or deleted by anything else. Files not named like an
+ * Order file are ignored. One manifest is shared by every DAO of a
+ * directory, and if the directory cannot be watched, it is listed again
+ * on every use.
+ * It can be used by many threads at once.
+ */
+class OrderFileManifest {
+    // Formatter for the date portion of Order file names
+    private static final DateTimeFormatter FILE_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMddyyyy");
+    private static final String PREFIX = "Orders_";
+    // Manifest of each directory and Order file extension
+    private static final Map<List<Object>, OrderFileManifest> MANIFESTS =
+            new ConcurrentHashMap<>();
+
+    private final Path DIRECTORY;
+    private final String SUFFIX;
+    private final NavigableMap<LocalDate, Path> FILES = new ConcurrentSkipListMap<>();
+    private final NavigableMap<LocalDate, Path> FILES_VIEW =
+            Collections.unmodifiableNavigableMap(FILES);
+    // Whether FILES must be loaded from the directory before it is used
+    private volatile boolean stale = true;
+    private WatchKey watchKey;
+    // Held here, as the DirectoryWatcher only holds it weakly
+    private final DirectoryWatcher.Listener WATCH_LISTENER = this::applyEvents;
+
+    /**
+     * Constructor accepts the Order directory and the extension of its
+     * Order files. Nothing is read until the manifest is first used.
+     * @param directory Order directory
+     * @param suffix extension of Order files, such as ".txt"
+     */
+    private OrderFileManifest(Path directory, String suffix) {
+        this.DIRECTORY = directory;
+        this.SUFFIX = suffix;
+    }
+
+    /**
+     * Gets the manifest shared by every DAO of an Order directory
+     * @param directory Order directory
+     * @param suffix extension of Order files, such as ".txt"
+     * @return manifest of the directory
+     */
+    static OrderFileManifest forDirectory(Path directory, String suffix) {
+        Path absolute = directory.toAbsolutePath().normalize();
+        return MANIFESTS.computeIfAbsent(List.of(absolute, suffix),
+                key -> new OrderFileManifest(absolute, suffix));
+    }
+
+    /**
+     * Gets the Order files in the directory
+     * @return unmodifiable map of date to Order file, oldest date first.
+     * It follows later changes, and may be iterated while they are made.
+     */
+    NavigableMap<LocalDate, Path> getFiles() {
+        if (stale)
+            load();
+        return FILES_VIEW;
+    }
+
+    /**
+     * Gets the dates of the Order files between two dates
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return unmodifiable sorted set of dates, following later changes
+     */
+    NavigableSet<LocalDate> getDates(LocalDate fromDate, LocalDate toDate) {
+        NavigableMap<LocalDate, Path> files = getFiles();
+        if (fromDate != null)
+            files = files.tailMap(fromDate, true);
+        if (toDate != null)
+            files = files.headMap(toDate, true);
+        return files.navigableKeySet();
+    }
+
+    /**
+     * Records an Order file written by the DAO, so it is listed without
+     * waiting for the WatchService
+     * @param date date of the Order file
+     * @param file Order file
+     */
+    synchronized void fileWritten(LocalDate date, Path file) {
+        FILES.put(date, file);
+    }
+
+    /**
+     * Gets the date of an Order file from its name
+     * @param fileName name of the file, such as Orders_01312024.txt
+     * @return date of the file, or null if it is not an Order file
+     */
+    private LocalDate parseDate(String fileName) {
+        if (fileName.length() != PREFIX.length() + 8 + SUFFIX.length()
+                || !fileName.startsWith(PREFIX) || !fileName.endsWith(SUFFIX))
+            return null;
+        try {
+            return LocalDate.parse(fileName.substring(PREFIX.length(), PREFIX.length() + 8),
+                    FILE_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            // Not an Order file
+            return null;
+        }
+    }
+
+    /**
+     * Lists the directory into FILES, first starting to watch it if it
+     * is not watched yet, so no file created while it is listed is missed.
+     * If the directory is missing or cannot be listed, the manifest is
+     * left stale, so it is listed again on next use.
+     */
+    private synchronized void load() {
+        if (!stale)
+            return;
+
+        if (!Files.isDirectory(DIRECTORY)) {
+            // Listed again once the DAO creates the directory
+            FILES.clear();
+            return;
+        }
+
+        boolean watched = watch();
+        NavigableMap<LocalDate, Path> listed = new ConcurrentSkipListMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIRECTORY,
+                PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                LocalDate date = parseDate(file.getFileName().toString());
+                if (date != null)
+                    listed.put(date, file);
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            return;
+        }
+
+        // Readers iterating FILES never see it emptied in between
+        FILES.keySet().retainAll(listed.keySet());
+        FILES.putAll(listed);
+        stale = !watched;
+    }
+
+    /**
+     * Starts watching the directory, if it is not watched already
+     * @return true if the directory is watched
+     */
+    private boolean watch() {
+        if (watchKey != null && watchKey.isValid())
+            return true;
+
+        try {
+            watchKey = DirectoryWatcher.watch(DIRECTORY, WATCH_LISTENER);
+            return true;
+        } catch (IOException e) {
+            // Not watchable, such as on some network file systems
+            return false;
+        }
+    }
+
+    /**
+     * Applies the events of the directory to FILES. A created or deleted
+     * file is looked up again, so an event that arrives after the DAO has
+     * written the file again does not remove it.
+     * @param events events of the directory
+     * @param valid false if the directory is no longer watched
+     */
+    private synchronized void applyEvents(List<WatchEvent<?>> events, boolean valid) {
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost
+                stale = true;
+                continue;
+            }
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY)
+                // Appends do not change the set of files
+                continue;
+
+            Path name = (Path) event.context();
+            LocalDate date = parseDate(name.toString());
+            if (date == null)
+                continue;
+
+            Path file = DIRECTORY.resolve(name);
+            if (Files.exists(file))
+                FILES.put(date, file);
+            else
+                FILES.remove(date);
+        }
+
+        if (!valid)
+            // The directory was deleted or moved
+            stale = true;
+    }
+}
@@ -0,0 +1,623 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Order;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The {@code OrderIndex} class is responsible for finding Orders by
+ * customer name, State, or Product type across every Order file without
+ * reading them all. For each value it keeps postings of (date, order
+ * number). The index is kept in memory and persisted as an append-only
+ * log that is replayed when the index is first used. The log also records
+ * the last modified time and size of every Order file it indexed, so any
+ * Order file that was changed outside the DAO is re-indexed on load.
+ * Values are normalized by trimming, collapsing whitespace, and ignoring
+ * case. The same postings also give the date of every order number, kept
+ * in an IntIntMap from order number to epoch day.
+ * <p>
+ * Order files are always read outside the index's monitor, which only
+ * guards the in-memory postings and the log, so loading the index or
+ * re-indexing a file never holds up changes to other dates. Changes
+ * recorded while the index loads are queued and applied when the loaded
+ * index is published.
+ */
+public class OrderIndex {
+    /**
+     * The {@code Field} enum lists the Order values that are indexed.
+     */
+    public enum Field {
+        CUSTOMER, STATE, PRODUCT
+    }
+
+    // Declare delimiter, record types, and the log file name
+    private static final String DELIMITER = ",";
+    private static final String ADD = "A";
+    private static final String REMOVE = "R";
+    private static final String CLEAR = "C";
+    private static final String STAMP = "S";
+    private static final String LOG_FILE = "postings.log";
+    // Log is rewritten once it holds this many more records than needed
+    private static final long COMPACT_SLACK = 10_000;
+
+    // Declare log file, DAO used to re-index, and Order file lookup
+    private final Path LOG;
+    private final FileDao FILE_DAO;
+    private final Function<LocalDate, File> ORDER_FILES;
+
+    // Postings of each Field, by normalized value
+    private final Map<Field, Map<String, NavigableSet<Long>>> postings =
+            new EnumMap<>(Field.class);
+    // Indexed values of each Order, by date
+    private final Map<LocalDate, Day> days = new HashMap<>();
+    // Epoch day of each order number
+    private final IntIntMap orderDates = new IntIntMap();
+    // Number of changes recorded for each date, so a re-index can tell
+    // whether a change was recorded while it read the Order file
+    private final Map<LocalDate, Long> versions = new HashMap<>();
+    // Held while the index loads; find and findDate wait for it, changes do not
+    private final Object LOAD_LOCK = new Object();
+    private volatile boolean loaded;
+    // Changes recorded while the index loads, null when it is not loading
+    private List<Change> pending;
+    private long logRecords;
+    private Writer log;
+
+    /**
+     * Constructor accepts the directory of the index, the FileDao used to
+     * re-index Order files, and a function giving the Order file for a date.
+     * Nothing is read until the index is first used.
+     * @param directory directory of the index log
+     * @param fileDao FileDao that reads the Order files
+     * @param orderFiles function giving the Order file for a date
+     */
+    public OrderIndex(Path directory, FileDao fileDao, Function<LocalDate, File> orderFiles) {
+        this.LOG = directory.resolve(LOG_FILE);
+        this.FILE_DAO = fileDao;
+        this.ORDER_FILES = orderFiles;
+        for (Field field : Field.values())
+            postings.put(field, new HashMap<>());
+    }
+
+    /**
+     * Finds the Orders with a value
+     * @param field Field to search
+     * @param value customer name, State abbreviation, or Product type
+     * @return order numbers by date, oldest date first
+     * @throws PersistenceException if unable to load the index
+     */
+    public NavigableMap<LocalDate, List<Integer>> find(Field field, String value)
+            throws PersistenceException {
+        load();
+
+        NavigableMap<LocalDate, List<Integer>> orderNumbers = new TreeMap<>();
+        synchronized (this) {
+            NavigableSet<Long> matches = postings.get(field).get(normalize(value));
+            if (matches != null) {
+                for (long posting : matches)
+                    orderNumbers.computeIfAbsent(LocalDate.ofEpochDay(posting >> 32),
+                            date -> new ArrayList<>()).add((int) posting);
+            }
+        }
+        return orderNumbers;
+    }
+
+    /**
+     * Finds the date of an Order from its order number
+     * @param orderNumber order number
+     * @return date of the Order, or null if there is no such Order
+     * @throws PersistenceException if unable to load the index
+     */
+    public LocalDate findDate(int orderNumber) throws PersistenceException {
+        load();
+
+        int epochDay;
+        synchronized (this) {
+            epochDay = orderDates.get(orderNumber, Integer.MIN_VALUE);
+        }
+        return epochDay == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Must be called before an Order file is changed through the DAO. If
+     * the Order file was changed since it was indexed, it is re-indexed
+     * first so the change that follows can be applied to current postings.
+     * Does nothing until the index has been loaded.
+     * @param date date of the Order file about to change
+     * @throws PersistenceException if unable to re-index the Order file
+     */
+    public void beforeChange(LocalDate date) throws PersistenceException {
+        if (!loaded)
+            return;
+
+        File orderFile = ORDER_FILES.apply(date);
+        boolean exists = orderFile.exists();
+        long lastModified = orderFile.lastModified();
+        long length = orderFile.length();
+
+        boolean current;
+        synchronized (this) {
+            Day day = days.get(date);
+            current = exists ? day != null && day.matches(lastModified, length)
+                    : day == null;
+        }
+        if (!current)
+            reindex(date);
+    }
+
+    /**
+     * Records that an Order was added to or replaced in an Order file. The
+     * file is stamped with the last modified time and length its write
+     * left, not the file's current ones, which may already include a
+     * later write that has not been recorded yet.
+     * @param date date of Order
+     * @param order Order as it is now stored
+     * @param lastModified last modified time of the file after the write
+     * @param length length of the file after the write
+     * @throws PersistenceException if unable to write the index log
+     */
+    public void orderWritten(LocalDate date, Order order, long lastModified, long length)
+            throws PersistenceException {
+        record(date, () -> {
+            index(date, order);
+            stamp(date, lastModified, length);
+        });
+    }
+
+    /**
+     * Records that an Order was removed from an Order file
+     * @param date date of Order
+     * @param orderNumber order number of the removed Order
+     * @param lastModified last modified time of the file after the write
+     * @param length length of the file after the write
+     * @throws PersistenceException if unable to write the index log
+     */
+    public void orderRemoved(LocalDate date, int orderNumber, long lastModified,
+                             long length) throws PersistenceException {
+        record(date, () -> {
+            remove(date, orderNumber);
+            appendLog(REMOVE, date.toEpochDay(), orderNumber);
+            stamp(date, lastModified, length);
+        });
+    }
+
+    /**
+     * Records that a whole Order file was replaced
+     * @param date date of Order file
+     * @param orders Orders now in the file
+     * @param lastModified last modified time of the file after the write
+     * @param length length of the file after the write
+     * @throws PersistenceException if unable to write the index log
+     */
+    public void fileReplaced(LocalDate date, List<Order> orders, long lastModified,
+                             long length) throws PersistenceException {
+        record(date, () -> {
+            clear(date);
+            appendLog(CLEAR, date.toEpochDay());
+            for (Order order : orders)
+                index(date, order);
+            stamp(date, lastModified, length);
+        });
+    }
+
+    /**
+     * Applies a change to an Order file to the postings and log. While the
+     * index loads, the change is queued instead and applied when the
+     * loaded index is published; before that, it is dropped, as loading
+     * reads every changed Order file anyway.
+     * @param date date of Order file
+     * @param change change to apply
+     * @throws PersistenceException if unable to write the index log
+     */
+    private synchronized void record(LocalDate date, Change change)
+            throws PersistenceException {
+        if (!loaded) {
+            if (pending != null)
+                pending.add(change);
+            return;
+        }
+
+        change.apply();
+        versions.merge(date, 1L, Long::sum);
+        flush();
+    }
+
+    /**
+     * Loads the index, unless it is loaded already. Only one thread loads
+     * it; find and findDate wait for it, while changes are queued.
+     * @throws PersistenceException if unable to read the log or an Order file
+     */
+    private void load() throws PersistenceException {
+        if (loaded)
+            return;
+
+        synchronized (LOAD_LOCK) {
+            if (loaded)
+                return;
+
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            try {
+                build();
+
+                // Publish the index with the changes recorded while it loaded
+                synchronized (this) {
+                    for (Change change : pending)
+                        change.apply();
+                    flush();
+                    loaded = true;
+                }
+            } finally {
+                synchronized (this) {
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the index log, then re-indexes every Order file that changed
+     * since it was indexed and drops the dates that no longer have a file.
+     * Changes are only queued until the index is published, so nothing
+     * else touches the postings or the log meanwhile.
+     * @throws PersistenceException if unable to read the log or an Order file
+     */
+    private void build() throws PersistenceException {
+        // Start over from the log if an earlier load failed part way
+        clearPostings();
+        try {
+            if (Files.exists(LOG))
+                replayLog();
+        } catch (IOException | RuntimeException e) {
+            // A damaged log is discarded and rebuilt from the Order files
+            clearPostings();
+            closeLog();
+            try {
+                Files.deleteIfExists(LOG);
+            } catch (IOException deleteFailed) {
+                throw new PersistenceException("Could not rebuild order index.", deleteFailed);
+            }
+        }
+
+        Set<LocalDate> orderFileDates = new HashSet<>(FILE_DAO.listOrderFileDates());
+        for (LocalDate date : orderFileDates) {
+            Day day = days.get(date);
+            File orderFile = ORDER_FILES.apply(date);
+            if (day == null || !day.matches(orderFile.lastModified(), orderFile.length()))
+                reindex(date);
+        }
+        for (LocalDate date : new ArrayList<>(days.keySet())) {
+            if (!orderFileDates.contains(date)) {
+                clear(date);
+                appendLog(CLEAR, date.toEpochDay());
+            }
+        }
+
+        long orderCount = 0;
+        for (Day day : days.values())
+            orderCount += day.orders.size();
+        if (logRecords > 2 * (orderCount + days.size()) + COMPACT_SLACK)
+            compact();
+        flush();
+    }
+
+    /**
+     * Empties the in-memory postings, without changing the log
+     */
+    private void clearPostings() {
+        days.clear();
+        for (Map<String, NavigableSet<Long>> values : postings.values())
+            values.clear();
+        orderDates.clear();
+        logRecords = 0;
+    }
+
+    /**
+     * Applies every record of the index log to the in-memory postings
+     * @throws IOException if unable to read the log
+     */
+    private void replayLog() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer();
+
+        try (BufferedReader in = Files.newBufferedReader(LOG, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                tokenizer.reset(line);
+                String type = tokenizer.nextString();
+                LocalDate date = LocalDate.ofEpochDay(Long.parseLong(tokenizer.nextString()));
+
+                switch (type) {
+                    case ADD -> add(date, tokenizer.nextInt(), new String[]{
+                            tokenizer.nextString(), tokenizer.nextString(),
+                            tokenizer.nextString()});
+                    case REMOVE -> remove(date, tokenizer.nextInt());
+                    case CLEAR -> clear(date);
+                    case STAMP -> getDay(date).setStamp(
+                            Long.parseLong(tokenizer.nextString()),
+                            Long.parseLong(tokenizer.nextString()));
+                    default -> throw new IOException("Unknown index record " + type);
+                }
+                logRecords++;
+            }
+        }
+    }
+
+    /**
+     * Reads an Order file and replaces its postings. The file is read
+     * outside the monitor and the postings replaced under it; if a change
+     * to the date was recorded in between, the file is read again. The
+     * file is stamped as it was before it was read, so a write made while
+     * it is read leaves the stamp behind the file and the file is indexed
+     * again.
+     * @param date date of Order file
+     * @throws PersistenceException if unable to read the Order file
+     */
+    private void reindex(LocalDate date) throws PersistenceException {
+        File orderFile = ORDER_FILES.apply(date);
+
+        while (true) {
+            long version;
+            synchronized (this) {
+                version = versions.getOrDefault(date, 0L);
+            }
+
+            long lastModified = orderFile.lastModified();
+            long length = orderFile.length();
+            List<Order> orders = orderFile.exists() ? FILE_DAO.readOrderFile(date) : null;
+
+            synchronized (this) {
+                if (versions.getOrDefault(date, 0L) != version)
+                    continue;
+
+                clear(date);
+                appendLog(CLEAR, date.toEpochDay());
+                if (orders != null) {
+                    for (Order order : orders)
+                        index(date, order);
+                    stamp(date, lastModified, length);
+                }
+                flush();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds an Order's postings and log record without flushing the log
+     * @param date date of Order
+     * @param order Order to index
+     * @throws PersistenceException if unable to write the index log
+     */
+    private void index(LocalDate date, Order order)
+            throws PersistenceException {
+        String[] values = {normalize(order.getCustomerName()),
+                normalize(order.getState()), normalize(order.getProductType())};
+        add(date, order.getOrderNumber(), values);
+        appendLog(ADD, date.toEpochDay(), order.getOrderNumber(), values[0], values[1],
+                values[2]);
+    }
+
+    /**
+     * Records the last modified time and size of an Order file
+     * @param date date of Order file
+     * @param lastModified last modified time of the file
+     * @param length length of the file
+     * @throws PersistenceException if unable to write the index log
+     */
+    private void stamp(LocalDate date, long lastModified, long length)
+            throws PersistenceException {
+        getDay(date).setStamp(lastModified, length);
+        appendLog(STAMP, date.toEpochDay(), lastModified, length);
+    }
+
+    /**
+     * Adds or replaces the postings of one Order
+     * @param date date of Order
+     * @param orderNumber order number
+     * @param values normalized customer name, State, and Product type
+     */
+    private void add(LocalDate date, int orderNumber, String[] values) {
+        remove(date, orderNumber);
+        getDay(date).orders.put(orderNumber, values);
+
+        orderDates.put(orderNumber, (int) date.toEpochDay());
+
+        long posting = posting(date, orderNumber);
+        Field[] fields = Field.values();
+        for (int i = 0; i < fields.length; i++)
+            postings.get(fields[i]).computeIfAbsent(values[i], value -> new TreeSet<>())
+                    .add(posting);
+    }
+
+    /**
+     * Removes the postings of one Order, if it is indexed
+     * @param date date of Order
+     * @param orderNumber order number
+     */
+    private void remove(LocalDate date, int orderNumber) {
+        Day day = days.get(date);
+        String[] values = day == null ? null : day.orders.remove(orderNumber);
+        if (values == null)
+            return;
+
+        // Only forget the date if the order number was not reused on another date
+        if (orderDates.get(orderNumber, Integer.MIN_VALUE) == date.toEpochDay())
+            orderDates.remove(orderNumber);
+
+        long posting = posting(date, orderNumber);
+        Field[] fields = Field.values();
+        for (int i = 0; i < fields.length; i++) {
+            Map<String, NavigableSet<Long>> fieldPostings = postings.get(fields[i]);
+            NavigableSet<Long> matches = fieldPostings.get(values[i]);
+            matches.remove(posting);
+            if (matches.isEmpty())
+                fieldPostings.remove(values[i]);
+        }
+    }
+
+    /**
+     * Removes the postings of every Order of a date
+     * @param date date of Order file
+     */
+    private void clear(LocalDate date) {
+        Day day = days.get(date);
+        if (day == null)
+            return;
+
+        for (Integer orderNumber : new ArrayList<>(day.orders.keySet()))
+            remove(date, orderNumber);
+        days.remove(date);
+    }
+
+    /**
+     * Gets the indexed values of a date, adding an empty entry if needed
+     * @param date date of Order file
+     * @return Day entry for the date
+     */
+    private Day getDay(LocalDate date) {
+        return days.computeIfAbsent(date, d -> new Day());
+    }
+
+    /**
+     * Rewrites the log so it only holds the records needed for the
+     * current postings
+     * @throws PersistenceException if unable to write the log
+     */
+    private void compact() throws PersistenceException {
+        closeLog();
+        logRecords = 0;
+
+        try (AtomicFileWriter writer = new AtomicFileWriter(LOG)) {
+            log = new BufferedWriter(Channels.newWriter(writer.getChannel(),
+                    StandardCharsets.UTF_8));
+            for (Map.Entry<LocalDate, Day> entry : days.entrySet()) {
+                long epochDay = entry.getKey().toEpochDay();
+                for (Map.Entry<Integer, String[]> order : entry.getValue().orders.entrySet()) {
+                    String[] values = order.getValue();
+                    appendLog(ADD, epochDay, order.getKey(), values[0], values[1], values[2]);
+                }
+                appendLog(STAMP, epochDay, entry.getValue().lastModified,
+                        entry.getValue().size);
+            }
+            log.flush();
+            writer.commit();
+        } catch (IOException e) {
+            throw new PersistenceException("Could not write order index.", e);
+        } finally {
+            log = null;
+        }
+    }
+
+    /**
+     * Appends one record to the log, opening it if needed
+     * @param type record type
+     * @param fields fields of the record
+     * @throws PersistenceException if unable to write the log
+     */
+    private void appendLog(String type, Object... fields) throws PersistenceException {
+        try {
+            if (log == null) {
+                Files.createDirectories(LOG.toAbsolutePath().getParent());
+                log = Files.newBufferedWriter(LOG, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            log.write(type);
+            for (Object field : fields) {
+                log.write(DELIMITER);
+                log.write(field instanceof String ? CsvTokenizer.quote((String) field)
+                        : String.valueOf(field));
+            }
+            log.write(System.lineSeparator());
+            logRecords++;
+        } catch (IOException e) {
+            throw new PersistenceException("Could not write order index.", e);
+        }
+    }
+
+    /**
+     * Flushes appended records to the log file. The log is not forced to
+     * disk; after a crash any Order file whose stamp did not reach the log
+     * is simply re-indexed.
+     * @throws PersistenceException if unable to write the log
+     */
+    private void flush() throws PersistenceException {
+        try {
+            if (log != null)
+                log.flush();
+        } catch (IOException e) {
+            throw new PersistenceException("Could not write order index.", e);
+        }
+    }
+
+    /**
+     * Closes the log file if it is open
+     * @throws PersistenceException if unable to close the log
+     */
+    private void closeLog() throws PersistenceException {
+        try {
+            if (log != null)
+                log.close();
+            log = null;
+        } catch (IOException e) {
+            throw new PersistenceException("Could not write order index.", e);
+        }
+    }
+
+    /**
+     * Normalizes a value for indexing and searching
+     * @param value customer name, State abbreviation, or Product type
+     * @return value trimmed, with single spaces, in lower case
+     */
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Encodes a date and order number as one posting, ordered by date
+     * and then by order number
+     * @param date date of Order
+     * @param orderNumber order number
+     * @return posting
+     */
+    private static long posting(LocalDate date, int orderNumber) {
+        return (date.toEpochDay() << 32) | (orderNumber & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The {@code Day} class holds the indexed values of each Order in one
+     * Order file and the file's last modified time and size when indexed.
+     */
+    private static final class Day {
+        private final Map<Integer, String[]> orders = new HashMap<>();
+        private long lastModified = -1;
+        private long size = -1;
+
+        private void setStamp(long lastModified, long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        private boolean matches(long lastModified, long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+    }
+
+    /**
+     * The {@code Change} interface is a change to the postings of an Order
+     * file and the records it adds to the log.
+     */
+    private interface Change {
+        void apply() throws PersistenceException;
+    }
+}
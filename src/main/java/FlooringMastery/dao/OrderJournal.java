@@ -0,0 +1,287 @@
+package FlooringMastery.dao;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code OrderJournal} class is responsible for making changes to
+ * Order files crash-safe. Before an Order file is changed, the change is
+ * appended to the journal and forced to disk. Each change is recorded as
+ * the bytes written at an offset together with the new length of the file,
+ * so replaying the journal after a crash always produces the intended file.
+ * A change that writes several parts of a file is recorded as a group of
+ * records, and replay redoes either the whole group or none of it.
+ * Appends are recorded by the length of each file before them instead, as
+ * writing no bytes at that offset and truncating the file back to it, so
+ * replay undoes an append that may be torn. Once the Order file itself has
+ * been forced to disk the journal is emptied again.
+ */
+public class OrderJournal {
+    // Declare journal file and channel (opened on first change)
+    private final Path JOURNAL_FILE;
+    private FileChannel channel;
+
+    /**
+     * Constructor accepts the path of the journal file
+     * @param journalFile journal file
+     */
+    public OrderJournal(Path journalFile) {
+        this.JOURNAL_FILE = journalFile;
+    }
+
+    /**
+     * Appends a change to the journal and forces it to disk
+     * @param date date of the Order file being changed
+     * @param offset offset in the Order file the bytes are written at
+     * @param bytes bytes written at the offset
+     * @param newLength length of the Order file after the change
+     * @throws IOException if unable to write the journal
+     */
+    public synchronized void append(LocalDate date, long offset, byte[] bytes,
+                                    long newLength) throws IOException {
+        append(date, new long[]{offset}, new byte[][]{bytes}, newLength);
+    }
+
+    /**
+     * Appends a change that writes several parts of one Order file to the
+     * journal and forces it to disk once. Every record but the last stores
+     * the new length as -newLength - 1, so replay knows more follow.
+     * @param date date of the Order file being changed
+     * @param offsets offset in the Order file each part is written at
+     * @param parts bytes written at each offset
+     * @param newLength length of the Order file after the change
+     * @throws IOException if unable to write the journal
+     */
+    public synchronized void append(LocalDate date, long[] offsets, byte[][] parts,
+                                    long newLength) throws IOException {
+        List<byte[]> records = new ArrayList<>(parts.length);
+        for (int i = 0; i < parts.length; i++)
+            records.add(encode(date.toEpochDay(), offsets[i],
+                    i < parts.length - 1 ? -newLength - 1 : newLength, parts[i]));
+        write(records);
+    }
+
+    /**
+     * Records the length of several Order files before appends to them,
+     * forcing the records to disk together. Replay truncates each file
+     * back to that length, and deletes a file that did not exist before.
+     * @param lengthsBefore length of each Order file before its append, by date
+     * @throws IOException if unable to write the journal
+     */
+    public synchronized void recordAppends(Map<LocalDate, Long> lengthsBefore)
+            throws IOException {
+        List<byte[]> records = new ArrayList<>(lengthsBefore.size());
+        for (Map.Entry<LocalDate, Long> entry : lengthsBefore.entrySet())
+            records.add(encode(entry.getKey().toEpochDay(), entry.getValue(),
+                    entry.getValue(), new byte[0]));
+        write(records);
+    }
+
+    /**
+     * Appends records to the journal, each followed by its checksum, and
+     * forces them to disk once
+     * @param records encoded records
+     * @throws IOException if unable to write the journal
+     */
+    private void write(List<byte[]> records) throws IOException {
+        int length = 0;
+        for (byte[] record : records)
+            length += record.length + Long.BYTES;
+
+        // Checksum lets replay ignore a record that was only partly written
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] record : records)
+            buffer.put(record).putLong(checksum(record));
+        buffer.flip();
+
+        FileChannel journal = getChannel();
+        while (buffer.hasRemaining())
+            journal.write(buffer);
+        journal.force(true);
+    }
+
+    /**
+     * Empties the journal once every change in it is safely on disk
+     * @throws IOException if unable to truncate the journal
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (channel != null) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Redoes every complete change in the journal, in order, then empties
+     * the journal. A change whose Order file is missing or shorter than one
+     * of its offsets no longer matches the file and is skipped, and a file
+     * left empty is deleted. A group of records cut short by a crash was
+     * never applied, so it is skipped too.
+     * @param orderFiles function giving the Order file for a date
+     * @return number of changes redone
+     * @throws IOException if unable to read the journal or write a file
+     */
+    public synchronized int replay(Function<LocalDate, File> orderFiles)
+            throws IOException {
+        if (!Files.exists(JOURNAL_FILE) || Files.size(JOURNAL_FILE) == 0)
+            return 0;
+
+        int replayed = 0;
+        long journalLength = Files.size(JOURNAL_FILE);
+        // Offsets and bytes of the records read so far of the current change
+        List<Long> offsets = new ArrayList<>();
+        List<byte[]> parts = new ArrayList<>();
+        long groupDay = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(JOURNAL_FILE)))) {
+            while (true) {
+                long epochDay;
+                long offset;
+                long newLength;
+                byte[] bytes;
+                long checksum;
+
+                try {
+                    epochDay = in.readLong();
+                    offset = in.readLong();
+                    newLength = in.readLong();
+                    int length = in.readInt();
+                    if (length < 0 || length > journalLength)
+                        break;
+                    bytes = new byte[length];
+                    in.readFully(bytes);
+                    checksum = in.readLong();
+                } catch (EOFException e) {
+                    // Last record was only partly written, so it was never applied
+                    break;
+                }
+
+                if (checksum(encode(epochDay, offset, newLength, bytes)) != checksum)
+                    break;
+                if (!offsets.isEmpty() && epochDay != groupDay)
+                    break;
+
+                groupDay = epochDay;
+                offsets.add(offset);
+                parts.add(bytes);
+                if (newLength < 0)
+                    // More records of the same change follow
+                    continue;
+
+                if (redo(orderFiles.apply(LocalDate.ofEpochDay(epochDay)), offsets, parts,
+                        newLength))
+                    replayed++;
+                offsets.clear();
+                parts.clear();
+            }
+        }
+
+        checkpoint();
+        Files.deleteIfExists(JOURNAL_FILE);
+        closeChannel();
+        return replayed;
+    }
+
+    /**
+     * Redoes one change to an Order file, writing every part of it and
+     * then setting the length of the file
+     * @param orderFile Order file
+     * @param offsets offset each part is written at
+     * @param parts bytes written at each offset
+     * @param newLength length of the Order file after the change
+     * @return true if the change was redone, false if it no longer matches
+     * the file
+     * @throws IOException if unable to write the Order file
+     */
+    private static boolean redo(File orderFile, List<Long> offsets, List<byte[]> parts,
+                                long newLength) throws IOException {
+        if (!orderFile.exists())
+            return false;
+
+        try (FileChannel file = FileChannel.open(orderFile.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = file.size();
+            for (long offset : offsets) {
+                if (size < offset)
+                    return false;
+            }
+
+            for (int i = 0; i < parts.size(); i++) {
+                ByteBuffer buffer = ByteBuffer.wrap(parts.get(i));
+                long position = offsets.get(i);
+                while (buffer.hasRemaining())
+                    position += file.write(buffer, position);
+            }
+            file.truncate(newLength);
+            file.force(true);
+        }
+
+        // Undone append to a file that did not exist before it
+        if (newLength == 0)
+            Files.deleteIfExists(orderFile.toPath());
+        return true;
+    }
+
+    /**
+     * Encodes the fields of a journal record
+     * @param epochDay date of the Order file as an epoch day
+     * @param offset offset in the Order file
+     * @param newLength length of the Order file after the change, or
+     * -newLength - 1 if more records of the change follow
+     * @param bytes bytes written at the offset
+     * @return encoded record without its checksum
+     */
+    private static byte[] encode(long epochDay, long offset, long newLength,
+                                 byte[] bytes) {
+        return ByteBuffer.allocate(3 * Long.BYTES + Integer.BYTES + bytes.length)
+                .putLong(epochDay).putLong(offset).putLong(newLength)
+                .putInt(bytes.length).put(bytes).array();
+    }
+
+    /**
+     * Calculates the checksum of an encoded record
+     * @param record encoded record
+     * @return CRC32 checksum
+     */
+    private static long checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        return crc.getValue();
+    }
+
+    /**
+     * Opens the journal channel, creating the journal file if needed
+     * @return open journal channel
+     * @throws IOException if unable to open the journal
+     */
+    private FileChannel getChannel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(JOURNAL_FILE.toAbsolutePath().getParent());
+            channel = FileChannel.open(JOURNAL_FILE, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * Closes the journal channel if it is open
+     * @throws IOException if unable to close the channel
+     */
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
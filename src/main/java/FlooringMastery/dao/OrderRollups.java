@@ -0,0 +1,466 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Order;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * The {@code OrderRollups} class is responsible for keeping a small
+ * rollup file per Order file with the totals of its Orders by State and
+ * by Product, so sales reports read one rollup per day instead of every
+ * Order. The difference each write makes is queued while the Order
+ * file's lock is still held, without any I/O, and applied by flush once
+ * the writer has released its locks; changes queued together for a day
+ * are applied with one read and one write of its rollup. Like the
+ * OrderIndex, each rollup records the last modified time and size of the
+ * Order file it matches; a rollup that no longer matches, because its
+ * Order file was changed outside the DAO or an update was lost in a
+ * crash, is rebuilt from the Order file the next time it is read.
+ * Rollups are not forced to disk, as they can always be rebuilt.
+ */
+public class OrderRollups {
+    // Declare delimiter and record types of a rollup file
+    private static final String DELIMITER = ",";
+    private static final String STAMP = "S";
+    private static final String STATE = "T";
+    private static final String PRODUCT = "P";
+    private static final String END = "E";
+    // Rollups of the same stripe of dates are read and written one at a time
+    private static final int LOCK_STRIPES = 64;
+
+    // Declare rollup directory, DAO used to rebuild, and Order file lookup
+    private final Path DIRECTORY;
+    private final FileDao FILE_DAO;
+    private final Function<LocalDate, File> ORDER_FILES;
+    private final Object[] LOCKS = new Object[LOCK_STRIPES];
+    // Changes queued for each day's rollup, in the order they were made
+    private final Map<LocalDate, List<Change>> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor accepts the directory of the rollup files, the FileDao
+     * used to rebuild rollups, and a function giving the Order file for a
+     * date. Nothing is read until a rollup is first used.
+     * @param directory directory of the rollup files
+     * @param fileDao FileDao that reads the Order files
+     * @param orderFiles function giving the Order file for a date
+     */
+    public OrderRollups(Path directory, FileDao fileDao, Function<LocalDate, File> orderFiles) {
+        this.DIRECTORY = directory;
+        this.FILE_DAO = fileDao;
+        this.ORDER_FILES = orderFiles;
+        for (int i = 0; i < LOCK_STRIPES; i++)
+            LOCKS[i] = new Object();
+    }
+
+    /**
+     * Adds up the Orders between two dates from the rollup of each day,
+     * rebuilding in parallel the rollups that are missing or out of date
+     * @param grouping what to group Orders by
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return SalesReport with the totals of each group
+     * @throws PersistenceException if unable to read an Order file
+     */
+    public SalesReport report(SalesReport.Grouping grouping, LocalDate fromDate,
+                              LocalDate toDate) throws PersistenceException {
+        long startTime = System.nanoTime();
+
+        List<LocalDate> dates = new ArrayList<>(FILE_DAO.listOrderFileDates(fromDate, toDate));
+
+        try {
+            Map<String, SalesReport.Totals> groups =
+                    ForkJoinPool.commonPool().invoke(new SalesScan(this, grouping, dates));
+            return new SalesReport(grouping, groups, dates.size(),
+                    System.nanoTime() - startTime);
+        } catch (CompletionException e) {
+            // join() may wrap the exception again when it crosses threads
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof PersistenceException)
+                    throw new PersistenceException("Could not build sales report.", cause);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the totals of one day, grouped for a report
+     * @param date date of Order file
+     * @param grouping what to group Orders by
+     * @return map of group name to Totals
+     * @throws PersistenceException if the rollup had to be rebuilt and
+     * the Order file could not be read
+     */
+    Map<String, SalesReport.Totals> getTotals(LocalDate date, SalesReport.Grouping grouping)
+            throws PersistenceException {
+        Day day = getDay(date);
+        return switch (grouping) {
+            case STATE -> day.states;
+            case PRODUCT -> day.products;
+            case MONTH -> {
+                // Every Order is in exactly one State
+                SalesReport.Totals month = new SalesReport.Totals();
+                for (SalesReport.Totals totals : day.states.values())
+                    month.add(totals);
+                yield Map.of(date.toString().substring(0, 7), month); // yyyy-MM
+            }
+        };
+    }
+
+    /**
+     * Queues a change to the Orders of an Order file for its rollup. Must
+     * be called right after the change, while the Order file's lock is
+     * still held, so changes to a day are queued in the order they were
+     * made; the rollup is only updated by flush. If the rollup did not
+     * match the Order file before the change it is left to be rebuilt
+     * instead. Never fails; a rollup that cannot be updated is rebuilt
+     * when next read.
+     * @param date date of Order file
+     * @param lengthBefore length of the Order file before the change
+     * @param modifiedBefore last modified time of the file before the change
+     * @param lengthAfter length of the Order file after the change
+     * @param modifiedAfter last modified time of the file after the change
+     * @param removed Orders taken out of the file, as they were stored
+     * @param added Orders put into the file
+     */
+    public void ordersChanged(LocalDate date, long lengthBefore, long modifiedBefore,
+                              long lengthAfter, long modifiedAfter,
+                              List<Order> removed, List<Order> added) {
+        queue(date, new Change(lengthBefore, modifiedBefore, lengthAfter, modifiedAfter,
+                removed, added, null));
+    }
+
+    /**
+     * Queues the replacement of the rollup of an Order file whose contents
+     * were replaced. Must be called while the Order file's lock is still
+     * held, so the rollup is stamped with the file that was written.
+     * Never fails.
+     * @param date date of Order file
+     * @param orders Orders now in the file
+     */
+    public void fileReplaced(LocalDate date, List<Order> orders) {
+        File orderFile = ORDER_FILES.apply(date);
+        Day day = new Day();
+        try {
+            for (Order order : orders)
+                day.add(order);
+        } catch (RuntimeException e) {
+            // An Order without a State or Product, rebuilt when next read
+            day = null;
+        }
+        if (day != null) {
+            day.lastModified = orderFile.lastModified();
+            day.size = orderFile.length();
+        }
+        queue(date, new Change(-1, -1, -1, -1, null, null, day));
+    }
+
+    /**
+     * Queues dropping the rollup of an Order file so it is rebuilt when
+     * next read
+     * @param date date of Order file
+     */
+    public void invalidate(LocalDate date) {
+        queue(date, new Change(-1, -1, -1, -1, null, null, null));
+    }
+
+    /**
+     * Applies the changes queued for a day to its rollup, reading and
+     * writing the rollup file at most once however many changes were
+     * queued. Writers call it once they have released the Order file's
+     * lock; a change left queued is applied by the next flush or read of
+     * the day. Never fails.
+     * @param date date of Order file
+     */
+    public void flush(LocalDate date) {
+        if (!PENDING.containsKey(date))
+            return;
+
+        synchronized (getLock(date)) {
+            List<Change> changes = PENDING.remove(date);
+            if (changes == null)
+                return;
+
+            Day day = null;
+            boolean read = false;
+            boolean changed = false;
+            for (Change change : changes) {
+                if (change.removed == null) {
+                    // Replaced, or dropped if replacement is null
+                    day = change.replacement;
+                    read = true;
+                    changed = true;
+                    continue;
+                }
+
+                if (!read) {
+                    day = readDay(date);
+                    read = true;
+                }
+                // Appends written together share the last modified time after
+                // the write, which the previous one in the write was stamped with
+                if (day == null || day.size != change.lengthBefore
+                        || (day.lastModified != change.modifiedBefore
+                        && day.lastModified != change.modifiedAfter))
+                    continue; // Rebuilt when next read
+
+                try {
+                    for (Order order : change.removed) {
+                        if (!day.remove(order))
+                            throw new IllegalStateException("Order not in rollup.");
+                    }
+                    for (Order order : change.added)
+                        day.add(order);
+                    day.lastModified = change.modifiedAfter;
+                    day.size = change.lengthAfter;
+                } catch (RuntimeException e) {
+                    // An Order without a State or Product, rebuilt when next read
+                    day = null;
+                }
+                changed = true;
+            }
+
+            if (!changed)
+                return;
+            if (day == null)
+                deleteDay(date);
+            else
+                writeDay(date, day);
+        }
+    }
+
+    /**
+     * Queues a change for a day's rollup
+     * @param date date of Order file
+     * @param change change to apply when the day is flushed
+     */
+    private void queue(LocalDate date, Change change) {
+        PENDING.computeIfAbsent(date, d -> Collections.synchronizedList(new ArrayList<>()))
+                .add(change);
+    }
+
+    /**
+     * Gets the current rollup of a day, rebuilding it from the Order file
+     * if it is missing or out of date. The Order file is read without
+     * holding the rollup lock, and the rebuilt rollup is only stored if
+     * the Order file did not change while it was read.
+     * @param date date of Order file
+     * @return rollup of the day
+     * @throws PersistenceException if unable to read the Order file
+     */
+    private Day getDay(LocalDate date) throws PersistenceException {
+        flush(date);
+        File orderFile = ORDER_FILES.apply(date);
+        synchronized (getLock(date)) {
+            Day day = readDay(date);
+            if (day != null && day.matches(orderFile))
+                return day;
+        }
+
+        long lastModified = orderFile.lastModified();
+        long size = orderFile.length();
+        Day day = new Day();
+        for (Order order : FILE_DAO.readOrderFile(date))
+            day.add(order);
+        day.lastModified = lastModified;
+        day.size = size;
+
+        synchronized (getLock(date)) {
+            if (day.matches(orderFile))
+                writeDay(date, day);
+        }
+        return day;
+    }
+
+    /**
+     * Reads the rollup file of a day
+     * @param date date of Order file
+     * @return rollup, or null if there is none or it is incomplete
+     */
+    private Day readDay(LocalDate date) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(getRollupFile(date), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // Missing or unreadable, rebuilt from the Order file
+            return null;
+        }
+
+        try {
+            CsvTokenizer tokenizer = new CsvTokenizer();
+            Day day = new Day();
+            for (String line : lines) {
+                tokenizer.reset(line);
+                String type = tokenizer.nextString();
+                switch (type) {
+                    case STAMP -> {
+                        day.lastModified = Long.parseLong(tokenizer.nextString());
+                        day.size = Long.parseLong(tokenizer.nextString());
+                    }
+                    case STATE, PRODUCT -> (type.equals(STATE) ? day.states : day.products)
+                            .put(tokenizer.nextString(), new SalesReport.Totals(
+                                    Long.parseLong(tokenizer.nextString()),
+                                    Long.parseLong(tokenizer.nextString()),
+                                    Long.parseLong(tokenizer.nextString()),
+                                    Long.parseLong(tokenizer.nextString()),
+                                    Long.parseLong(tokenizer.nextString())));
+                    case END -> {
+                        // Only a rollup written to the end is complete
+                        return day;
+                    }
+                    default -> {
+                        return null;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // A damaged rollup is rebuilt from the Order file
+        }
+        return null;
+    }
+
+    /**
+     * Writes the rollup file of a day, deleting it if it cannot be written
+     * @param date date of Order file
+     * @param day rollup to write
+     */
+    private void writeDay(LocalDate date, Day day) {
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append(STAMP).append(DELIMITER).append(day.lastModified)
+                .append(DELIMITER).append(day.size).append(System.lineSeparator());
+        appendTotals(builder, STATE, day.states);
+        appendTotals(builder, PRODUCT, day.products);
+        builder.append(END).append(System.lineSeparator());
+
+        try {
+            Files.createDirectories(DIRECTORY);
+            Files.writeString(getRollupFile(date), builder, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            deleteDay(date);
+        }
+    }
+
+    /**
+     * Deletes the rollup file of a day so it is rebuilt when next read
+     * @param date date of Order file
+     */
+    private void deleteDay(LocalDate date) {
+        try {
+            Files.deleteIfExists(getRollupFile(date));
+        } catch (IOException e) {
+            // Its stamp no longer matches the Order file either way
+        }
+    }
+
+    /**
+     * Appends one line per group of a rollup
+     * @param builder builder to append to
+     * @param type record type of the groups
+     * @param groups Totals by group name
+     */
+    private static void appendTotals(StringBuilder builder, String type,
+                                     Map<String, SalesReport.Totals> groups) {
+        for (Map.Entry<String, SalesReport.Totals> group : groups.entrySet()) {
+            SalesReport.Totals totals = group.getValue();
+            builder.append(type).append(DELIMITER).append(CsvTokenizer.quote(group.getKey()))
+                    .append(DELIMITER).append(totals.getOrderCount())
+                    .append(DELIMITER).append(totals.getMaterialCostCents())
+                    .append(DELIMITER).append(totals.getLaborCostCents())
+                    .append(DELIMITER).append(totals.getTaxCents())
+                    .append(DELIMITER).append(totals.getTotalCents())
+                    .append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Gets the rollup file of a date, named by its epoch day
+     * @param date date of Order file
+     * @return path of the rollup file
+     */
+    private Path getRollupFile(LocalDate date) {
+        return DIRECTORY.resolve("Rollup_" + date.toEpochDay() + ".txt");
+    }
+
+    /**
+     * Gets the lock guarding the rollup of a date
+     * @param date date of Order file
+     * @return lock object of the date's stripe
+     */
+    private Object getLock(LocalDate date) {
+        return LOCKS[DateStripes.of(date, LOCK_STRIPES)];
+    }
+
+    /**
+     * The {@code Change} class holds one queued change to a day's rollup:
+     * the Orders removed and added by a write with the Order file's length
+     * and last modified time around it, or, when removed is null, a
+     * rollup that replaces the day's, which is null to drop the rollup.
+     */
+    private static final class Change {
+        private final long lengthBefore;
+        private final long modifiedBefore;
+        private final long lengthAfter;
+        private final long modifiedAfter;
+        private final List<Order> removed;
+        private final List<Order> added;
+        private final Day replacement;
+
+        private Change(long lengthBefore, long modifiedBefore, long lengthAfter,
+                       long modifiedAfter, List<Order> removed, List<Order> added,
+                       Day replacement) {
+            this.lengthBefore = lengthBefore;
+            this.modifiedBefore = modifiedBefore;
+            this.lengthAfter = lengthAfter;
+            this.modifiedAfter = modifiedAfter;
+            this.removed = removed;
+            this.added = added;
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * The {@code Day} class holds the totals of one Order file by State
+     * and by Product, and the file's last modified time and size.
+     */
+    private static final class Day {
+        private final Map<String, SalesReport.Totals> states = new TreeMap<>();
+        private final Map<String, SalesReport.Totals> products = new TreeMap<>();
+        private long lastModified = -1;
+        private long size = -1;
+
+        private void add(Order order) {
+            states.computeIfAbsent(order.getState(), s -> new SalesReport.Totals()).add(order);
+            products.computeIfAbsent(order.getProductType(), p -> new SalesReport.Totals())
+                    .add(order);
+        }
+
+        private boolean remove(Order order) {
+            return remove(states, order.getState(), order)
+                    & remove(products, order.getProductType(), order);
+        }
+
+        private static boolean remove(Map<String, SalesReport.Totals> groups, String group,
+                                      Order order) {
+            SalesReport.Totals totals = groups.get(group);
+            if (totals == null)
+                return false;
+            totals.remove(order);
+            if (totals.getOrderCount() <= 0)
+                groups.remove(group);
+            return true;
+        }
+
+        private boolean matches(File orderFile) {
+            return orderFile.lastModified() == lastModified && orderFile.length() == size;
+        }
+    }
+}
@@ -2,7 +2,6 @@ package FlooringMastery.dao;
 
 import FlooringMastery.model.Product;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,15 +9,23 @@ import java.util.List;
  * with Product objects in the Flooring Order App
  */
 public class ProductDaoImpl implements ProductDao {
-    // Declare variable for FileDao object
-    private final FileDao FILE_DAO;
+    // Declare variable for CatalogCache object
+    private final CatalogCache CATALOG;
 
     /**
      * No-args construct for ProductDaoImpl creates a new instance
-     * of the FileDaoImpl.
+     * of the CatalogCache.
      */
     public ProductDaoImpl() {
-        this.FILE_DAO = new FileDaoImpl();
+        this.CATALOG = new CatalogCache();
+    }
+
+    /**
+     * Constructor accepts a CatalogCache shared with the other DAOs
+     * @param catalogCache CatalogCache object
+     */
+    public ProductDaoImpl(CatalogCache catalogCache) {
+        this.CATALOG = catalogCache;
     }
 
     /**
@@ -28,8 +35,8 @@ public class ProductDaoImpl implements ProductDao {
      */
     @Override
     public List<Product> getAllProducts() throws PersistenceException {
-        // Passes name of product file to method in the FILE_DAO
-        return FILE_DAO.readProductFile("Data/Products.txt");
+        // Products are read from the product file only when it changes
+        return CATALOG.getSnapshot().getProductList();
     }
 
     /**
@@ -39,18 +46,6 @@ public class ProductDaoImpl implements ProductDao {
      */
     @Override
     public List<String> getProductTypeList() throws PersistenceException {
-        // Call getAllProducts() to get list of all Products
-        List<Product> productList = getAllProducts();
-
-        // Declare and initialize a new ArrayList to store product types
-        List<String> productTypeList = new ArrayList<>();
-
-        // Iterate over productList, add productType of each Product to
-        // productTypeList
-        for (Product p : productList)
-            productTypeList.add(p.getProductType());
-
-        // Return productTypeList
-        return productTypeList;
+        return CATALOG.getSnapshot().getProductTypeList();
     }
 }
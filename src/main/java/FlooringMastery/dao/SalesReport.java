@@ -0,0 +1,236 @@
+package FlooringMastery.dao;
+
+import FlooringMastery.model.Money;
+import FlooringMastery.model.Order;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code SalesReport} class holds the results of aggregating Orders:
+ * the count and the material, labor, tax, and total sums of the Orders
+ * in each group, such as each State. Sums are kept in cents, so they are
+ * exact however many Orders are added up.
+ */
+public class SalesReport {
+    /**
+     * The {@code Grouping} enum lists what Orders can be grouped by.
+     */
+    public enum Grouping {
+        STATE, PRODUCT, MONTH
+    }
+
+    // Values for SalesReport objects
+    private final Grouping grouping;
+    private final Map<String, Totals> groups;
+    private final Totals overall;
+    private final int fileCount;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor takes 4 parameters and creates a new SalesReport object
+     * @param grouping what the Orders were grouped by
+     * @param groups Totals of each group
+     * @param fileCount number of Order files read
+     * @param elapsedNanos time taken to build the report in nanoseconds
+     */
+    public SalesReport(Grouping grouping, Map<String, Totals> groups, int fileCount,
+                       long elapsedNanos) {
+        this.grouping = grouping;
+        this.groups = Collections.unmodifiableMap(new TreeMap<>(groups));
+        this.fileCount = fileCount;
+        this.elapsedNanos = elapsedNanos;
+
+        overall = new Totals();
+        for (Totals totals : groups.values())
+            overall.add(totals);
+    }
+
+    public Grouping getGrouping() {
+        return grouping;
+    }
+
+    /**
+     * Gets the Totals of each group
+     * @return unmodifiable map of group name to Totals, sorted by name
+     */
+    public Map<String, Totals> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Gets the Totals of every Order in the report
+     * @return Totals across all groups
+     */
+    public Totals getOverall() {
+        return overall;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        String format = "%-12s %10s %16s %16s %14s %16s %12s%n";
+        report.append(String.format(format, grouping, "Orders", "Material",
+                "Labor", "Tax", "Total", "Avg Total"));
+        for (Map.Entry<String, Totals> group : groups.entrySet())
+            group.getValue().appendRow(report, format, group.getKey());
+        overall.appendRow(report, format, "ALL");
+        report.append(String.format("%d orders from %d files in %.3f s",
+                overall.getOrderCount(), fileCount, elapsedNanos / 1_000_000_000.0));
+        return report.toString();
+    }
+
+    /**
+     * The {@code Totals} class adds up the Orders of one group. It is
+     * not thread safe; each thread adds to its own Totals, which are
+     * then combined.
+     */
+    public static class Totals {
+        private long orderCount;
+        private long materialCostCents;
+        private long laborCostCents;
+        private long taxCents;
+        private long totalCents;
+
+        /**
+         * No-args constructor for Totals of no Orders
+         */
+        public Totals() {
+        }
+
+        /**
+         * Constructor takes 5 parameters and creates Totals read back from
+         * a daily rollup
+         * @param orderCount number of Orders
+         * @param materialCostCents sum of material costs in cents
+         * @param laborCostCents sum of labor costs in cents
+         * @param taxCents sum of taxes in cents
+         * @param totalCents sum of totals in cents
+         */
+        Totals(long orderCount, long materialCostCents, long laborCostCents, long taxCents,
+               long totalCents) {
+            this.orderCount = orderCount;
+            this.materialCostCents = materialCostCents;
+            this.laborCostCents = laborCostCents;
+            this.taxCents = taxCents;
+            this.totalCents = totalCents;
+        }
+
+        /**
+         * Adds an Order to the Totals
+         * @param order Order to add
+         */
+        void add(Order order) {
+            orderCount++;
+            materialCostCents += cents(order.getMaterialCostCents());
+            laborCostCents += cents(order.getLaborCostCents());
+            taxCents += cents(order.getTaxCents());
+            totalCents += cents(order.getTotalCents());
+        }
+
+        /**
+         * Takes an Order that was removed or replaced out of the Totals
+         * @param order Order as it was added
+         */
+        void remove(Order order) {
+            orderCount--;
+            materialCostCents -= cents(order.getMaterialCostCents());
+            laborCostCents -= cents(order.getLaborCostCents());
+            taxCents -= cents(order.getTaxCents());
+            totalCents -= cents(order.getTotalCents());
+        }
+
+        /**
+         * Adds the Orders of other Totals to these Totals
+         * @param other Totals to add
+         */
+        void add(Totals other) {
+            orderCount += other.orderCount;
+            materialCostCents += other.materialCostCents;
+            laborCostCents += other.laborCostCents;
+            taxCents += other.taxCents;
+            totalCents += other.totalCents;
+        }
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        public long getMaterialCostCents() {
+            return materialCostCents;
+        }
+
+        public long getLaborCostCents() {
+            return laborCostCents;
+        }
+
+        public long getTaxCents() {
+            return taxCents;
+        }
+
+        public long getTotalCents() {
+            return totalCents;
+        }
+
+        public long getAverageMaterialCostCents() {
+            return average(materialCostCents);
+        }
+
+        public long getAverageLaborCostCents() {
+            return average(laborCostCents);
+        }
+
+        public long getAverageTaxCents() {
+            return average(taxCents);
+        }
+
+        public long getAverageTotalCents() {
+            return average(totalCents);
+        }
+
+        /**
+         * Calculates the average amount of an Order, rounded half up
+         * @param sumCents sum of the amount over the Orders, in cents
+         * @return average in cents, 0 if there are no Orders
+         */
+        private long average(long sumCents) {
+            if (orderCount == 0)
+                return 0;
+            return Math.floorDiv(2 * sumCents + orderCount, 2 * orderCount);
+        }
+
+        /**
+         * Appends a row of the report table
+         * @param report builder to append to
+         * @param format format of a row
+         * @param group name of the group
+         */
+        private void appendRow(StringBuilder report, String format, String group) {
+            report.append(String.format(format, group, orderCount,
+                    Money.toString(materialCostCents, Money.CENTS),
+                    Money.toString(laborCostCents, Money.CENTS),
+                    Money.toString(taxCents, Money.CENTS),
+                    Money.toString(totalCents, Money.CENTS),
+                    Money.toString(getAverageTotalCents(), Money.CENTS)));
+        }
+
+        /**
+         * Gets an amount to add, treating an amount missing from the
+         * Order file as zero
+         * @param cents amount in cents, or Money.UNSET
+         * @return amount in cents
+         */
+        private static long cents(long cents) {
+            return cents == Money.UNSET ? 0 : cents;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package FlooringMastery.dao;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code SalesScan} class is responsible for adding up the daily
+ * rollups of many Order files in parallel. The dates are split in halves
+ * until few enough are left for one thread to read; each half is added
+ * up into its own Totals, and the halves are merged as they finish. Most
+ * days only read a small rollup; a day whose rollup has to be rebuilt
+ * reads its whole Order file, one file per thread at a time.
+ */
+class SalesScan extends RecursiveTask<Map<String, SalesReport.Totals>> {
+    private static final long serialVersionUID = 1L;
+    // Number of days small enough to read without splitting
+    private static final int DAYS_PER_TASK = 16;
+
+    // Tasks are never serialized; transient keeps -Xlint:serial quiet
+    private final transient OrderRollups ROLLUPS;
+    private final SalesReport.Grouping GROUPING;
+    private final transient List<LocalDate> DATES;
+
+    /**
+     * Constructor accepts the rollups to read, what to group Orders by,
+     * and the dates of the Order files to add up
+     * @param rollups OrderRollups object
+     * @param grouping what to group Orders by
+     * @param dates dates of the Order files to add up
+     */
+    SalesScan(OrderRollups rollups, SalesReport.Grouping grouping, List<LocalDate> dates) {
+        this.ROLLUPS = rollups;
+        this.GROUPING = grouping;
+        this.DATES = dates;
+    }
+
+    /**
+     * Adds up the Orders of this task's dates, splitting them between
+     * two subtasks if there are too many for one thread
+     * @return map of group name to Totals
+     * @throws CompletionException wrapping a PersistenceException if
+     * unable to rebuild a rollup
+     */
+    @Override
+    protected Map<String, SalesReport.Totals> compute() {
+        if (DATES.size() > DAYS_PER_TASK) {
+            int middle = DATES.size() / 2;
+            SalesScan first = new SalesScan(ROLLUPS, GROUPING, DATES.subList(0, middle));
+            SalesScan second = new SalesScan(ROLLUPS, GROUPING,
+                    DATES.subList(middle, DATES.size()));
+            first.fork();
+            return merge(second.compute(), first.join());
+        }
+
+        Map<String, SalesReport.Totals> groups = new HashMap<>();
+        try {
+            for (LocalDate date : DATES)
+                merge(groups, ROLLUPS.getTotals(date, GROUPING));
+        } catch (PersistenceException e) {
+            // Passed up through join() and unwrapped by OrderRollups
+            throw new CompletionException(e);
+        }
+        return groups;
+    }
+
+    /**
+     * Adds the Totals of one map of groups into another
+     * @param into map to add to, returned
+     * @param from map to add
+     * @return into
+     */
+    private static Map<String, SalesReport.Totals> merge(Map<String, SalesReport.Totals> into,
+                                                         Map<String, SalesReport.Totals> from) {
+        for (Map.Entry<String, SalesReport.Totals> group : from.entrySet()) {
+            SalesReport.Totals totals = into.putIfAbsent(group.getKey(), group.getValue());
+            if (totals != null)
+                totals.add(group.getValue());
+        }
+        return into;
+    }
+}
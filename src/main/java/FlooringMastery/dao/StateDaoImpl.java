@@ -2,7 +2,6 @@ package FlooringMastery.dao;
 
 import FlooringMastery.model.State;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -11,15 +10,23 @@ import java.util.List;
  * Flooring Order App
  */
 public class StateDaoImpl implements StateDao {
-    // Declare variable for FileDao object
-    private final FileDao FILE_DAO;
+    // Declare variable for CatalogCache object
+    private final CatalogCache CATALOG;
 
     /**
      * No-args construct for StateDaoImpl creates a new instance
-     * of the FileDaoImpl.
+     * of the CatalogCache.
      */
     public StateDaoImpl() {
-        this.FILE_DAO = new FileDaoImpl();
+        this.CATALOG = new CatalogCache();
+    }
+
+    /**
+     * Constructor accepts a CatalogCache shared with the other DAOs
+     * @param catalogCache CatalogCache object
+     */
+    public StateDaoImpl(CatalogCache catalogCache) {
+        this.CATALOG = catalogCache;
     }
 
     /**
@@ -29,8 +36,8 @@ public class StateDaoImpl implements StateDao {
      */
     @Override
     public List<State> getStateInfoList() throws PersistenceException {
-        // Passes name of state file to method in the FILE_DAO
-        return FILE_DAO.readTaxFile("Data/Taxes.txt");
+        // States are read from the tax file only when it changes
+        return CATALOG.getSnapshot().getStateList();
     }
 
     /**
@@ -40,18 +47,6 @@ public class StateDaoImpl implements StateDao {
      */
     @Override
     public List<String> getStateAbbrList() throws PersistenceException {
-        // Call getStateInfoList() to get list of all States
-        List<State> stateInfoList = getStateInfoList();
-
-        // Declare and initialize a new ArrayList to store state abbreviations
-        List<String> stateAbbrList = new ArrayList<>();
-
-        // Iterate over stateInfoList, add stateAbbr of each State to
-        // stateAbbrList
-        for (State state : stateInfoList)
-            stateAbbrList.add(state.getStateAbbr());
-
-        // Return stateNameList
-        return stateAbbrList;
+        return CATALOG.getSnapshot().getStateAbbrList();
     }
 }
@@ -0,0 +1,19 @@
+package FlooringMastery.dao;
+
+/**
+ * The {@code UncheckedPersistenceException} class wraps a
+ * PersistenceException thrown while a lazy Stream of Orders reads an
+ * Order file, since Stream operations cannot throw checked exceptions.
+ */
+public class UncheckedPersistenceException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedPersistenceException(PersistenceException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public PersistenceException getCause() {
+        return (PersistenceException) super.getCause();
+    }
+}
@@ -0,0 +1,156 @@
+package FlooringMastery.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * The {@code Money} class is responsible for fixed-point arithmetic on
+ * decimal values held as an unscaled long and a scale, so Order pricing,
+ * parsing, and formatting do not create BigDecimal objects. Money amounts
+ * are held in cents and tax rates in thousandths. Every operation rounds
+ * HALF_UP exactly like BigDecimal.setScale, and falls back to BigDecimal
+ * only when an intermediate value does not fit in a long.
+ */
+public final class Money {
+    // Scale of money amounts (cents)
+    public static final int CENTS = 2;
+    // Scale of tax rates (thousandths of a percent)
+    public static final int THOUSANDTHS = 3;
+    // Marks a value that has not been set
+    public static final long UNSET = Long.MIN_VALUE;
+    // Largest scale that can be held
+    public static final int MAX_SCALE = 18;
+
+    // Powers of ten that fit in a long
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private Money() {
+    }
+
+    /**
+     * Multiplies two fixed-point values and rounds the exact product HALF_UP
+     * to a scale
+     * @param a unscaled first value
+     * @param aScale scale of first value
+     * @param b unscaled second value
+     * @param bScale scale of second value
+     * @param scale scale of the result
+     * @return unscaled product
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long multiply(long a, int aScale, long b, int bScale, int scale) {
+        int dropDigits = aScale + bScale - scale;
+        long product = a * b;
+
+        // The product fits in a long if its high half is only sign bits
+        if (Math.multiplyHigh(a, b) == product >> 63 && dropDigits >= 0
+                && dropDigits <= MAX_SCALE)
+            return divideHalfUp(product, POWERS_OF_TEN[dropDigits]);
+
+        return BigDecimal.valueOf(a, aScale).multiply(BigDecimal.valueOf(b, bScale))
+                .setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Changes the scale of a fixed-point value, rounding HALF_UP if digits
+     * are dropped
+     * @param unscaled unscaled value
+     * @param fromScale current scale
+     * @param toScale new scale
+     * @return unscaled value at the new scale
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long rescale(long unscaled, int fromScale, int toScale) {
+        if (fromScale == toScale)
+            return unscaled;
+        if (toScale > fromScale && toScale - fromScale <= MAX_SCALE)
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[toScale - fromScale]);
+        if (fromScale > toScale && fromScale - toScale <= MAX_SCALE)
+            return divideHalfUp(unscaled, POWERS_OF_TEN[fromScale - toScale]);
+
+        return BigDecimal.valueOf(unscaled, fromScale)
+                .setScale(toScale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a BigDecimal to a fixed-point value, rounding HALF_UP
+     * @param value value to convert, or null
+     * @param scale scale of the result
+     * @return unscaled value, or UNSET if value is null
+     * @throws ArithmeticException if the result does not fit in a long
+     */
+    public static long fromBigDecimal(BigDecimal value, int scale) {
+        if (value == null)
+            return UNSET;
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a fixed-point value to a BigDecimal
+     * @param unscaled unscaled value, or UNSET
+     * @param scale scale of the value
+     * @return value as a BigDecimal, or null if unscaled is UNSET
+     */
+    public static BigDecimal toBigDecimal(long unscaled, int scale) {
+        return unscaled == UNSET ? null : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Appends a fixed-point value in the same plain form as
+     * BigDecimal.toString, without creating a String
+     * @param builder StringBuilder to append to
+     * @param unscaled unscaled value, or UNSET to append "null"
+     * @param scale scale of the value, from 0 to MAX_SCALE
+     * @return builder
+     */
+    public static StringBuilder append(StringBuilder builder, long unscaled, int scale) {
+        if (unscaled == UNSET)
+            return builder.append("null");
+
+        if (unscaled < 0)
+            builder.append('-');
+        long power = POWERS_OF_TEN[scale];
+        // Remainders of a negative value are negative, so digits use abs
+        builder.append(Math.abs(unscaled / power));
+        if (scale > 0) {
+            builder.append('.');
+            long fraction = Math.abs(unscaled % power);
+            for (power /= 10; power > 0; power /= 10) {
+                builder.append((char) ('0' + fraction / power));
+                fraction %= power;
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Formats a fixed-point value in the same plain form as BigDecimal.toString
+     * @param unscaled unscaled value, or UNSET
+     * @param scale scale of the value, from 0 to MAX_SCALE
+     * @return value as a String, or "null" if unscaled is UNSET
+     */
+    public static String toString(long unscaled, int scale) {
+        return append(new StringBuilder(24), unscaled, scale).toString();
+    }
+
+    /**
+     * Divides by a power of ten, rounding HALF_UP (halves away from zero)
+     * @param dividend value to divide
+     * @param divisor positive power of ten
+     * @return rounded quotient
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        // Same as remainder * 2 >= divisor, without overflow
+        if (remainder >= divisor - remainder)
+            quotient += dividend < 0 ? -1 : 1;
+        return quotient;
+    }
+}
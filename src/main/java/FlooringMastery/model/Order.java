@@ -7,22 +7,27 @@ import java.util.Objects;
  * The {@code Order} class is responsible for creating new Order objects
  * based on the values passed to the constructor. It includes getter and
  * setter methods for all Order object values. It overrides the toString,
- * equals, and hashcode methods.
+ * equals, and hashcode methods. Money amounts are held as long cents and
+ * the tax rate as long thousandths (see {@link Money}); the area keeps the
+ * scale it was entered with. The BigDecimal getters and setters convert
+ * to and from these values, and the primitive ones are used by pricing,
+ * parsing, and formatting so they do not create BigDecimal objects.
  */
 public class Order {
     // Values for Order objects
     private int orderNumber;
     private String customerName;
     private String state;
-    private BigDecimal taxRate;
+    private long taxRate = Money.UNSET;
     private String productType;
-    private BigDecimal area;
-    private BigDecimal costPerSquareFoot;
-    private BigDecimal laborCostPerSquareFoot;
-    private BigDecimal materialCost;
-    private BigDecimal laborCost;
-    private BigDecimal tax;
-    private BigDecimal total;
+    private long area = Money.UNSET;
+    private int areaScale;
+    private long costPerSquareFoot = Money.UNSET;
+    private long laborCostPerSquareFoot = Money.UNSET;
+    private long materialCost = Money.UNSET;
+    private long laborCost = Money.UNSET;
+    private long tax = Money.UNSET;
+    private long total = Money.UNSET;
 
     /**
      * Constructor takes one parameter (orderNumber) and
@@ -45,7 +50,7 @@ public class Order {
         this.customerName = customerName;
         this.state = orderState;
         this.productType = productType;
-        this.area = orderArea;
+        setArea(orderArea);
     }
 
     /**
@@ -62,7 +67,7 @@ public class Order {
         this.customerName = customerName;
         this.state = stateAbbr;
         this.productType = productType;
-        this.area = area;
+        setArea(area);
     }
 
     /**
@@ -88,15 +93,15 @@ public class Order {
         this.orderNumber = orderNumber;
         this.customerName = customerName;
         this.state = state;
-        this.taxRate = taxRate;
+        setTaxRate(taxRate);
         this.productType = productType;
-        this.area = area;
-        this.costPerSquareFoot = costPerSquareFoot;
-        this.laborCostPerSquareFoot = laborCostPerSquareFoot;
-        this.materialCost = materialCost;
-        this.laborCost = laborCost;
-        this.tax = tax;
-        this.total = total;
+        setArea(area);
+        setCostPerSquareFoot(costPerSquareFoot);
+        setLaborCostPerSquareFoot(laborCostPerSquareFoot);
+        setMaterialCost(materialCost);
+        setLaborCost(laborCost);
+        setTax(tax);
+        setTotal(total);
     }
 
     public Integer getOrderNumber() {
@@ -124,10 +129,18 @@ public class Order {
     }
 
     public BigDecimal getTaxRate() {
-        return taxRate;
+        return Money.toBigDecimal(taxRate, Money.THOUSANDTHS);
     }
 
     public void setTaxRate(BigDecimal taxRate) {
+        this.taxRate = Money.fromBigDecimal(taxRate, Money.THOUSANDTHS);
+    }
+
+    public long getTaxRateThousandths() {
+        return taxRate;
+    }
+
+    public void setTaxRateThousandths(long taxRate) {
         this.taxRate = taxRate;
     }
 
@@ -140,70 +153,139 @@ public class Order {
     }
 
     public BigDecimal getArea() {
-        return area;
+        return Money.toBigDecimal(area, areaScale);
     }
 
     public void setArea(BigDecimal area) {
-        this.area = area;
+        if (area == null) {
+            setArea(Money.UNSET, 0);
+            return;
+        }
+        // Negative scales, such as 1E+3, are held as whole numbers
+        BigDecimal value = area.scale() < 0 ? area.setScale(0) : area;
+        setArea(value.unscaledValue().longValueExact(), value.scale());
+    }
+
+    public long getAreaUnscaled() {
+        return area;
+    }
+
+    public int getAreaScale() {
+        return areaScale;
+    }
+
+    public void setArea(long unscaled, int scale) {
+        if (scale < 0 || scale > Money.MAX_SCALE)
+            throw new ArithmeticException("Area has too many decimal places.");
+        this.area = unscaled;
+        this.areaScale = scale;
     }
 
     public BigDecimal getCostPerSquareFoot() {
-        return costPerSquareFoot;
+        return Money.toBigDecimal(costPerSquareFoot, Money.CENTS);
     }
 
     public void setCostPerSquareFoot(BigDecimal costPerSquareFoot) {
+        this.costPerSquareFoot = Money.fromBigDecimal(costPerSquareFoot, Money.CENTS);
+    }
+
+    public long getCostPerSquareFootCents() {
+        return costPerSquareFoot;
+    }
+
+    public void setCostPerSquareFootCents(long costPerSquareFoot) {
         this.costPerSquareFoot = costPerSquareFoot;
     }
 
     public BigDecimal getLaborCostPerSquareFoot() {
-        return laborCostPerSquareFoot;
+        return Money.toBigDecimal(laborCostPerSquareFoot, Money.CENTS);
     }
 
     public void setLaborCostPerSquareFoot(BigDecimal laborCostPerSquareFoot) {
+        this.laborCostPerSquareFoot = Money.fromBigDecimal(laborCostPerSquareFoot, Money.CENTS);
+    }
+
+    public long getLaborCostPerSquareFootCents() {
+        return laborCostPerSquareFoot;
+    }
+
+    public void setLaborCostPerSquareFootCents(long laborCostPerSquareFoot) {
         this.laborCostPerSquareFoot = laborCostPerSquareFoot;
     }
 
     public BigDecimal getMaterialCost() {
-        return materialCost;
+        return Money.toBigDecimal(materialCost, Money.CENTS);
     }
 
     public void setMaterialCost(BigDecimal materialCost) {
+        this.materialCost = Money.fromBigDecimal(materialCost, Money.CENTS);
+    }
+
+    public long getMaterialCostCents() {
+        return materialCost;
+    }
+
+    public void setMaterialCostCents(long materialCost) {
         this.materialCost = materialCost;
     }
 
     public BigDecimal getLaborCost() {
-        return laborCost;
+        return Money.toBigDecimal(laborCost, Money.CENTS);
     }
 
     public void setLaborCost(BigDecimal laborCost) {
+        this.laborCost = Money.fromBigDecimal(laborCost, Money.CENTS);
+    }
+
+    public long getLaborCostCents() {
+        return laborCost;
+    }
+
+    public void setLaborCostCents(long laborCost) {
         this.laborCost = laborCost;
     }
 
     public BigDecimal getTax() {
-        return tax;
+        return Money.toBigDecimal(tax, Money.CENTS);
     }
 
     public void setTax(BigDecimal tax) {
+        this.tax = Money.fromBigDecimal(tax, Money.CENTS);
+    }
+
+    public long getTaxCents() {
+        return tax;
+    }
+
+    public void setTaxCents(long tax) {
         this.tax = tax;
     }
 
     public BigDecimal getTotal() {
-        return total;
+        return Money.toBigDecimal(total, Money.CENTS);
     }
 
     public void setTotal(BigDecimal total) {
+        this.total = Money.fromBigDecimal(total, Money.CENTS);
+    }
+
+    public long getTotalCents() {
+        return total;
+    }
+
+    public void setTotalCents(long total) {
         this.total = total;
     }
 
     @Override
     public String toString() {
         return "Order #: " + orderNumber + ", CustomerName: " + customerName +
-                ", State: " + state + ", TaxRate: " + taxRate +
-                ", ProductType: " + productType + ", Area: " + area +
-                ", CostPerSqFt: " + costPerSquareFoot +
-                ", LaborCostPerSqFt: " + laborCostPerSquareFoot +
-                ", MaterialCost: " + materialCost + ", LaborCost: " + laborCost +
-                ", Tax: " + tax + ", Total: " + total;
+                ", State: " + state + ", TaxRate: " + getTaxRate() +
+                ", ProductType: " + productType + ", Area: " + getArea() +
+                ", CostPerSqFt: " + getCostPerSquareFoot() +
+                ", LaborCostPerSqFt: " + getLaborCostPerSquareFoot() +
+                ", MaterialCost: " + getMaterialCost() + ", LaborCost: " + getLaborCost() +
+                ", Tax: " + getTax() + ", Total: " + getTotal();
     }
 
     @Override
@@ -211,24 +293,26 @@ public class Order {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Order order = (Order) o;
-        return Objects.equals(orderNumber, order.orderNumber)
+        // Area compares its scale too, like BigDecimal.equals
+        return orderNumber == order.orderNumber
                 && Objects.equals(customerName, order.customerName)
                 && Objects.equals(state, order.state)
-                && Objects.equals(taxRate, order.taxRate)
+                && taxRate == order.taxRate
                 && Objects.equals(productType, order.productType)
-                && Objects.equals(area, order.area)
-                && Objects.equals(costPerSquareFoot, order.costPerSquareFoot)
-                && Objects.equals(laborCostPerSquareFoot, order.laborCostPerSquareFoot)
-                && Objects.equals(materialCost, order.materialCost)
-                && Objects.equals(laborCost, order.laborCost)
-                && Objects.equals(tax, order.tax)
-                && Objects.equals(total, order.total);
+                && area == order.area
+                && areaScale == order.areaScale
+                && costPerSquareFoot == order.costPerSquareFoot
+                && laborCostPerSquareFoot == order.laborCostPerSquareFoot
+                && materialCost == order.materialCost
+                && laborCost == order.laborCost
+                && tax == order.tax
+                && total == order.total;
     }
 
     @Override
     public int hashCode() {
         return Objects.hash(orderNumber, customerName, state, taxRate,
-                productType, area, costPerSquareFoot, laborCostPerSquareFoot,
+                productType, area, areaScale, costPerSquareFoot, laborCostPerSquareFoot,
                 materialCost, laborCost, tax, total);
     }
 }
@@ -0,0 +1,81 @@
+package FlooringMastery.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The {@code OrderRequest} class holds the values entered for one new
+ * Order before it is priced and given an order number, such as one line
+ * of an imported order feed. It includes getter methods for all values
+ * and overrides the toString, equals, and hashcode methods.
+ */
+public class OrderRequest {
+    // Values for OrderRequest objects
+    private final LocalDate orderDate;
+    private final String customerName;
+    private final String state;
+    private final String productType;
+    private final BigDecimal area;
+
+    /**
+     * Constructor takes 5 parameters and creates a new OrderRequest object
+     * @param orderDate date of new Order
+     * @param customerName customer name
+     * @param state state abbreviation
+     * @param productType product type
+     * @param area order area (sq ft)
+     */
+    public OrderRequest(LocalDate orderDate, String customerName, String state,
+                        String productType, BigDecimal area) {
+        this.orderDate = orderDate;
+        this.customerName = customerName;
+        this.state = state;
+        this.productType = productType;
+        this.area = area;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getProductType() {
+        return productType;
+    }
+
+    public BigDecimal getArea() {
+        return area;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRequest{" + "orderDate=" + orderDate + ", customerName=" + customerName
+                + ", state=" + state + ", productType=" + productType
+                + ", area=" + area + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderRequest request = (OrderRequest) o;
+        return Objects.equals(orderDate, request.orderDate)
+                && Objects.equals(customerName, request.customerName)
+                && Objects.equals(state, request.state)
+                && Objects.equals(productType, request.productType)
+                && Objects.equals(area, request.area);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderDate, customerName, state, productType, area);
+    }
+}
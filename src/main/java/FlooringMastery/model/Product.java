@@ -7,13 +7,13 @@ import java.util.Objects;
  * The {@code Product} class is responsible for creating new Product objects
  * based on the values passed to the constructor. It includes getter and
  * setter methods for all Product object values. It overrides the toString,
- * equals, and hashcode methods.
+ * equals, and hashcode methods. Costs are held as long cents.
  */
 public class Product {
     // Values for Order objects
     private String productType;
-    private BigDecimal costPerSquareFoot;
-    private BigDecimal laborCostPerSquareFoot;
+    private long costPerSquareFoot = Money.UNSET;
+    private long laborCostPerSquareFoot = Money.UNSET;
 
 
     /**
@@ -34,8 +34,8 @@ public class Product {
     public Product(String productType, BigDecimal costPerSquareFoot,
                    BigDecimal laborCostPerSquareFoot) {
         this.productType = productType;
-        this.costPerSquareFoot = costPerSquareFoot;
-        this.laborCostPerSquareFoot = laborCostPerSquareFoot;
+        setCostPerSquareFoot(costPerSquareFoot);
+        setLaborCostPerSquareFoot(laborCostPerSquareFoot);
     }
 
     public String getProductType() {
@@ -47,26 +47,34 @@ public class Product {
     }
 
     public BigDecimal getCostPerSquareFoot() {
-        return costPerSquareFoot;
+        return Money.toBigDecimal(costPerSquareFoot, Money.CENTS);
     }
 
     public void setCostPerSquareFoot(BigDecimal costPerSquareFoot) {
-        this.costPerSquareFoot = costPerSquareFoot;
+        this.costPerSquareFoot = Money.fromBigDecimal(costPerSquareFoot, Money.CENTS);
+    }
+
+    public long getCostPerSquareFootCents() {
+        return costPerSquareFoot;
     }
 
     public BigDecimal getLaborCostPerSquareFoot() {
-        return laborCostPerSquareFoot;
+        return Money.toBigDecimal(laborCostPerSquareFoot, Money.CENTS);
     }
 
     public void setLaborCostPerSquareFoot(BigDecimal laborCostPerSquareFoot) {
-        this.laborCostPerSquareFoot = laborCostPerSquareFoot;
+        this.laborCostPerSquareFoot = Money.fromBigDecimal(laborCostPerSquareFoot, Money.CENTS);
+    }
+
+    public long getLaborCostPerSquareFootCents() {
+        return laborCostPerSquareFoot;
     }
 
     @Override
     public String toString() {
         return "Product{" + "productType='" + productType +
-                ", costPerSquareFoot=" + costPerSquareFoot +
-                ", laborCostPerSquareFoot=" + laborCostPerSquareFoot + '}';
+                ", costPerSquareFoot=" + getCostPerSquareFoot() +
+                ", laborCostPerSquareFoot=" + getLaborCostPerSquareFoot() + '}';
     }
 
     @Override
@@ -75,8 +83,8 @@ public class Product {
         if (o == null || getClass() != o.getClass()) return false;
         Product product = (Product) o;
         return Objects.equals(productType, product.productType)
-                && Objects.equals(costPerSquareFoot, product.costPerSquareFoot)
-                && Objects.equals(laborCostPerSquareFoot, product.laborCostPerSquareFoot);
+                && costPerSquareFoot == product.costPerSquareFoot
+                && laborCostPerSquareFoot == product.laborCostPerSquareFoot;
     }
 
     @Override
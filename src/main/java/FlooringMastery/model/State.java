@@ -7,13 +7,13 @@ import java.util.Objects;
  * The {@code State} class is responsible for creating new State objects
  * based on the values passed to the constructor. It includes getter and
  * setter methods for all State object values. It overrides the toString,
- * equals, and hashcode methods.
+ * equals, and hashcode methods. The tax rate is held as long thousandths.
  */
 public class State {
     // Values for Order objects
     private String stateAbbr;
     private String stateName;
-    private BigDecimal taxRate;
+    private long taxRate = Money.UNSET;
 
     /**
      * Constructor takes one parameter (stateAbbr) and
@@ -33,7 +33,7 @@ public class State {
     public State(String stateAbbr, String stateName, BigDecimal taxRate) {
         this.stateAbbr = stateAbbr;
         this.stateName = stateName;
-        this.taxRate = taxRate;
+        setTaxRate(taxRate);
     }
 
     public String getStateAbbr() {
@@ -53,17 +53,21 @@ public class State {
     }
 
     public BigDecimal getTaxRate() {
-        return taxRate;
+        return Money.toBigDecimal(taxRate, Money.THOUSANDTHS);
     }
 
     public void setTaxRate(BigDecimal taxRate) {
-        this.taxRate = taxRate;
+        this.taxRate = Money.fromBigDecimal(taxRate, Money.THOUSANDTHS);
+    }
+
+    public long getTaxRateThousandths() {
+        return taxRate;
     }
 
     @Override
     public String toString() {
         return "States{" + "stateAbbr=" + stateAbbr + ", stateName="
-                + stateName + ", taxRate=" + taxRate + '}';
+                + stateName + ", taxRate=" + getTaxRate() + '}';
     }
 
     @Override
@@ -73,7 +77,7 @@ public class State {
         State state = (State) o;
         return Objects.equals(stateAbbr, state.stateAbbr)
                 && Objects.equals(stateName, state.stateName)
-                && Objects.equals(taxRate, state.taxRate);
+                && taxRate == state.taxRate;
     }
 
     @Override
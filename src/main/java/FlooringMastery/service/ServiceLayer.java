@@ -1,20 +1,33 @@
 package FlooringMastery.service;
 
+import FlooringMastery.dao.ExportSummary;
+import FlooringMastery.dao.ImportSummary;
 import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.dao.SalesReport;
 import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
 import FlooringMastery.model.Product;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public interface ServiceLayer {
     Order getOrder(int orderNumber, LocalDate orderDate)
             throws OrderNotFoundException, PersistenceException;
 
+    Order getOrder(int orderNumber)
+            throws OrderNotFoundException, PersistenceException;
+
     List<Order> getAllOrders(LocalDate dateEntered)
             throws PersistenceException;
 
+    Stream<Order> getOrders(LocalDate fromDate, LocalDate toDate, Predicate<Order> filter)
+            throws PersistenceException;
+
     Order createNewOrder(String newCustomerName, String newOrderState,
                          String productType, BigDecimal newOrderArea)
             throws OrderBuildException;
@@ -22,6 +35,15 @@ public interface ServiceLayer {
     void addNewOrder(LocalDate newOrderDate, Order newOrder)
             throws PersistenceException;
 
+    ImportSummary importOrders(Stream<OrderRequest> requests)
+            throws OrderBuildException, PersistenceException;
+
+    void validateNewOrder(OrderRequest request)
+            throws OrderBuildException, PersistenceException;
+
+    void validateOrder(OrderRequest request)
+            throws OrderBuildException, PersistenceException;
+
     Order createEditedOrder(Order orderToEdit, String newName,
                             String newState, String newProductType,
                             BigDecimal newArea) throws OrderBuildException;
@@ -32,7 +54,21 @@ public interface ServiceLayer {
     void removeOrder(LocalDate orderDate, Order orderToRemove)
             throws PersistenceException;
 
-    void exportAllOrders() throws PersistenceException;
+    ExportSummary exportAllOrders() throws PersistenceException;
+
+    ExportSummary exportChangedOrders() throws PersistenceException;
+
+    SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                               LocalDate toDate) throws PersistenceException;
+
+    Map<LocalDate, List<Order>> getOrdersByCustomer(String customerName)
+            throws PersistenceException;
+
+    Map<LocalDate, List<Order>> getOrdersByState(String stateAbbr)
+            throws PersistenceException;
+
+    Map<LocalDate, List<Order>> getOrdersByProduct(String productType)
+            throws PersistenceException;
 
     List<String> getStateAbbrList() throws PersistenceException;
 
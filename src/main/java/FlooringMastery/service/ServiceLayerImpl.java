@@ -2,11 +2,18 @@ package FlooringMastery.service;
 
 import FlooringMastery.dao.*;
 import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
 import FlooringMastery.model.Product;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The {@code ServiceLayerImpl} class is responsible for
@@ -18,6 +25,8 @@ public class ServiceLayerImpl implements ServiceLayer {
     private final OrderDao ORDER_DAO;
     private final ProductDao PRODUCT_DAO;
     private final StateDao STATE_DAO;
+    // Smallest area (sq ft) an Order can have
+    private static final BigDecimal MIN_AREA = BigDecimal.valueOf(100);
 
     /**
      * Constructor takes in 3 parameters (different Dao objects) and
@@ -52,6 +61,23 @@ public class ServiceLayerImpl implements ServiceLayer {
         return order;
     }
 
+    /**
+     * Gets an Order object from its order number alone, without the date.
+     * @param orderNumber Order number
+     * @return Order object with the order number
+     * @throws OrderNotFoundException if no order has the order number
+     */
+    @Override
+    public Order getOrder(int orderNumber)
+            throws OrderNotFoundException, PersistenceException {
+        Order order = ORDER_DAO.getOrder(orderNumber);
+        if (order == null) {
+            throw new OrderNotFoundException("No order found matching the "
+                    + "order number entered.");
+        }
+        return order;
+    }
+
     /**
      * Gets a list of Order objects from the order file that corresponds
      * to the date passed to this method.
@@ -65,6 +91,21 @@ public class ServiceLayerImpl implements ServiceLayer {
         return ORDER_DAO.getAllOrders(dateEntered);
     }
 
+    /**
+     * Gets the Orders of every date between two dates that match a filter.
+     * Order files are only read as the Stream reaches their date.
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @param filter Orders to keep
+     * @return Orders oldest date first, then in file order
+     * @throws PersistenceException if unable to list the Order files
+     */
+    @Override
+    public Stream<Order> getOrders(LocalDate fromDate, LocalDate toDate,
+                                   Predicate<Order> filter) throws PersistenceException {
+        return ORDER_DAO.getOrders(fromDate, toDate, filter);
+    }
+
     /**
      * Creates a new Order object passed on the parameters passed.
      * @param newCustomerName Customer name for new Order
@@ -81,7 +122,7 @@ public class ServiceLayerImpl implements ServiceLayer {
         try {
             return ORDER_DAO.createNewOrder(newCustomerName,
                     newOrderState, productType, newOrderArea);
-        } catch (PersistenceException e) {
+        } catch (PersistenceException | ArithmeticException e) {
             throw new OrderBuildException("Could not create new Order", e);
         }
     }
@@ -98,6 +139,99 @@ public class ServiceLayerImpl implements ServiceLayer {
         ORDER_DAO.addNewOrderToFile(newOrderDate, newOrder);
     }
 
+    /**
+     * Imports a batch of new Orders, such as a partner order feed. Every
+     * request is checked the same way the console checks a new Order
+     * before any Order is written, so a bad request leaves the Order
+     * files unchanged. Unlike the console, any order date is accepted:
+     * a feed also carries Orders that were already placed, so imported
+     * Orders may be dated today or earlier.
+     * @param requests values for each new Order
+     * @return ImportSummary with the number of Orders imported
+     * @throws OrderBuildException if a request is not a valid Order
+     * @throws PersistenceException if unable to write the Orders
+     */
+    @Override
+    public ImportSummary importOrders(Stream<OrderRequest> requests)
+            throws OrderBuildException, PersistenceException {
+        List<OrderRequest> requestList = requests.collect(Collectors.toList());
+        Set<String> stateAbbrs = new HashSet<>(getStateAbbrList());
+        Set<String> productTypes = new HashSet<>(getProductTypeList());
+
+        for (int i = 0; i < requestList.size(); i++) {
+            String problem = findProblem(requestList.get(i), stateAbbrs, productTypes);
+            if (problem != null)
+                throw new OrderBuildException("Order " + (i + 1) + " could not be "
+                        + "imported: " + problem);
+        }
+
+        try {
+            return ORDER_DAO.importOrders(requestList);
+        } catch (ArithmeticException e) {
+            throw new OrderBuildException("Could not import orders", e);
+        }
+    }
+
+    /**
+     * Checks that the values entered for a new Order are valid the same
+     * way the console checks a new Order, including that its date is
+     * after today
+     * @param request values entered for the Order
+     * @throws OrderBuildException if the values are not a valid new Order
+     * @throws PersistenceException if unable to read Product or State data
+     */
+    @Override
+    public void validateNewOrder(OrderRequest request)
+            throws OrderBuildException, PersistenceException {
+        validateOrder(request);
+        if (!request.getOrderDate().isAfter(LocalDate.now()))
+            throw new OrderBuildException("Invalid order: order date must be in the future");
+    }
+
+    /**
+     * Checks that the values entered for an Order are valid the same way
+     * the console checks an edited Order. The date is not checked, as an
+     * edited Order keeps the date it was placed for.
+     * @param request values entered for the Order
+     * @throws OrderBuildException if the values are not a valid Order
+     * @throws PersistenceException if unable to read Product or State data
+     */
+    @Override
+    public void validateOrder(OrderRequest request)
+            throws OrderBuildException, PersistenceException {
+        String problem = findProblem(request, new HashSet<>(getStateAbbrList()),
+                new HashSet<>(getProductTypeList()));
+        if (problem != null)
+            throw new OrderBuildException("Invalid order: " + problem);
+    }
+
+    /**
+     * Finds the first problem with the values entered for an Order. The
+     * order date is only checked to be present; whether it has to be in
+     * the future is up to the caller.
+     * @param request values entered for the Order
+     * @param stateAbbrs abbreviations of the States orders can be placed in
+     * @param productTypes Product types that can be ordered
+     * @return description of the problem, or null if the values are valid
+     */
+    private static String findProblem(OrderRequest request, Set<String> stateAbbrs,
+                                      Set<String> productTypes) {
+        if (request.getOrderDate() == null)
+            return "missing order date";
+        if (request.getCustomerName() == null || request.getCustomerName().isBlank())
+            return "missing customer name";
+        if (request.getCustomerName().chars().anyMatch(Character::isISOControl))
+            // A line break would split the Order's line in its Order file
+            return "customer name cannot contain line breaks or control characters";
+        if (!stateAbbrs.contains(request.getState()))
+            return "unknown State " + request.getState();
+        if (!productTypes.contains(request.getProductType()))
+            return "unknown Product type " + request.getProductType();
+        if (request.getArea() == null || request.getArea().compareTo(MIN_AREA) < 0)
+            return "area must be at least " + MIN_AREA + " sq ft";
+        return null;
+    }
+
     /**
      * Creates a new Order object passed on the parameters passed. This new
      * Order object is based on an original Order object with appropriately
@@ -117,7 +251,7 @@ public class ServiceLayerImpl implements ServiceLayer {
         try {
             return ORDER_DAO.createEditedOrder(orderToEdit, newName, newState,
                     newProductType, newArea);
-        } catch (PersistenceException e) {
+        } catch (PersistenceException | ArithmeticException e) {
             throw new OrderBuildException("Could not create edited order", e);
         }
     }
@@ -150,11 +284,75 @@ public class ServiceLayerImpl implements ServiceLayer {
     /**
      * Exports data for all Orders from all Order files to a single
      * BackUp (DataExport) file.
+     * @return ExportSummary with the number of Orders and bytes exported
      * @throws PersistenceException if unable to export Order data to file
      */
     @Override
-    public void exportAllOrders() throws PersistenceException {
-        ORDER_DAO.exportAllData();
+    public ExportSummary exportAllOrders() throws PersistenceException {
+        return ORDER_DAO.exportAllData();
+    }
+
+    /**
+     * Exports data for all Orders to the BackUp (DataExport) file, only
+     * re-reading the Order files that changed since the last incremental
+     * export.
+     * @return ExportSummary with the number of Orders and bytes exported
+     * @throws PersistenceException if unable to export Order data to file
+     */
+    @Override
+    public ExportSummary exportChangedOrders() throws PersistenceException {
+        return ORDER_DAO.exportChangedData();
+    }
+
+    /**
+     * Adds up the material cost, labor cost, tax, and total of the
+     * Orders placed between two dates, grouped by State, Product, or month
+     * @param grouping what to group Orders by
+     * @param fromDate first date to include, or null for no limit
+     * @param toDate last date to include, or null for no limit
+     * @return SalesReport with the totals of each group
+     * @throws PersistenceException if unable to read Order data from file
+     */
+    @Override
+    public SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                                      LocalDate toDate) throws PersistenceException {
+        return ORDER_DAO.getSalesReport(grouping, fromDate, toDate);
+    }
+
+    /**
+     * Gets every Order placed by a customer, across all dates
+     * @param customerName customer name, ignoring case and extra whitespace
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read Order data
+     */
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByCustomer(String customerName)
+            throws PersistenceException {
+        return ORDER_DAO.getOrdersByCustomer(customerName);
+    }
+
+    /**
+     * Gets every Order for a State, across all dates
+     * @param stateAbbr State abbreviation
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read Order data
+     */
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByState(String stateAbbr)
+            throws PersistenceException {
+        return ORDER_DAO.getOrdersByState(stateAbbr);
+    }
+
+    /**
+     * Gets every Order for a Product type, across all dates
+     * @param productType Product type
+     * @return Orders by date, oldest date first
+     * @throws PersistenceException if unable to read Order data
+     */
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByProduct(String productType)
+            throws PersistenceException {
+        return ORDER_DAO.getOrdersByProduct(productType);
     }
 
     /**
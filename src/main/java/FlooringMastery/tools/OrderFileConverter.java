@@ -0,0 +1,68 @@
+package FlooringMastery.tools;
+
+import FlooringMastery.dao.BinaryFileDaoImpl;
+import FlooringMastery.dao.FileDao;
+import FlooringMastery.dao.FileDaoImpl;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.model.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The {@code OrderFileConverter} class is responsible for copying every
+ * Order file from one FileDao to another, such as from the CSV Order
+ * files of FileDaoImpl to the binary Order files of BinaryFileDaoImpl
+ * and back. Each Order file is replaced atomically in the target.
+ */
+public class OrderFileConverter {
+
+    private OrderFileConverter() {
+    }
+
+    /**
+     * Copies every Order file from one FileDao to another
+     * @param source FileDao to read Order files from
+     * @param target FileDao to write Order files to
+     * @return number of Orders copied
+     * @throws PersistenceException if unable to read or write an Order file
+     */
+    public static long convert(FileDao source, FileDao target) throws PersistenceException {
+        long orderCount = 0;
+
+        for (LocalDate date : source.listOrderFileDates()) {
+            List<Order> orders = source.readOrderFile(date);
+            target.writeOrderFile(date, orders);
+            orderCount += orders.size();
+        }
+
+        return orderCount;
+    }
+
+    /**
+     * Converts Order files from the command line.
+     * Usage: OrderFileConverter toBinary|toCsv sourceDirectory targetDirectory
+     * @param args command line arguments
+     * @throws PersistenceException if unable to convert the Order files
+     */
+    public static void main(String[] args) throws PersistenceException {
+        if (args.length != 3 || !(args[0].equals("toBinary") || args[0].equals("toCsv"))) {
+            System.err.println("Usage: OrderFileConverter toBinary|toCsv "
+                    + "sourceDirectory targetDirectory");
+            System.exit(1);
+        }
+
+        // The export file is never written while converting
+        String exportFile = "Backup/DataExport.txt";
+        boolean toBinary = args[0].equals("toBinary");
+        FileDao source = toBinary ? new FileDaoImpl(args[1], exportFile)
+                : new BinaryFileDaoImpl(args[1], exportFile);
+        FileDao target = toBinary ? new BinaryFileDaoImpl(args[2], exportFile)
+                : new FileDaoImpl(args[2], exportFile);
+
+        long startTime = System.nanoTime();
+        long orderCount = convert(source, target);
+        System.out.printf("Converted %d orders from %s to %s in %.1f s%n", orderCount,
+                args[1], args[2], (System.nanoTime() - startTime) / 1_000_000_000.0);
+    }
+}
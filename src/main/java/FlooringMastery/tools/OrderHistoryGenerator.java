@@ -0,0 +1,203 @@
+package FlooringMastery.tools;
+
+import FlooringMastery.dao.*;
+import FlooringMastery.model.Order;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * The {@code OrderHistoryGenerator} class is responsible for writing
+ * synthetic Order files for load and scale testing. Orders are priced by
+ * OrderDaoImpl from the real Product and Tax files and written in the
+ * same Orders_MMddyyyy.txt format as the application's Order files. The
+ * choice of customer, State, and Product follows a Zipf distribution, so
+ * a skew of 0 picks them uniformly and larger skews make a few of them
+ * much more common. The same seed always produces the same files.
+ */
+public class OrderHistoryGenerator {
+    // Formatter for the date portion of Order file names
+    private static final DateTimeFormatter FILE_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("MMddyyyy");
+    // Number of distinct customers orders are spread over
+    private static final int CUSTOMER_COUNT = 10_000;
+    // Smallest area allowed for an Order, and range of generated areas
+    private static final int MIN_AREA = 100;
+    private static final int AREA_RANGE = 2_000;
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "John",
+            "Patricia", "Robert", "Jennifer", "Michael", "Linda", "William",
+            "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph",
+            "Jessica", "Thomas", "Sarah", "Charles", "Karen"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams",
+            "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez",
+            "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson",
+            "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "O'Brien",
+            "Thompson", "White", "Harris"};
+
+    // Declare Order directory, DAOs, and source of random values
+    private final Path ORDER_DIRECTORY;
+    private final FileDao FILE_DAO;
+    private final OrderDao ORDER_DAO;
+    private final CatalogCache CATALOG;
+    private final Random RANDOM;
+
+    /**
+     * Constructor accepts the Order directory to write to, the
+     * CatalogCache to price Orders with, and a seed for random values.
+     * @param orderDirectory Order file directory
+     * @param catalogCache CatalogCache object
+     * @param seed seed for random values
+     */
+    public OrderHistoryGenerator(String orderDirectory, CatalogCache catalogCache,
+                                 long seed) {
+        this.ORDER_DIRECTORY = Paths.get(orderDirectory);
+        this.FILE_DAO = new FileDaoImpl(orderDirectory,
+                orderDirectory + "Meta/DataExport.txt");
+        this.ORDER_DAO = new OrderDaoImpl(FILE_DAO, catalogCache, new OrderCache());
+        this.CATALOG = catalogCache;
+        this.RANDOM = new Random(seed);
+    }
+
+    /**
+     * Writes an Order file for each day from startDate onward. Order
+     * numbers continue from the highest order number already in the
+     * directory. Days that already have an Order file are left unchanged.
+     * @param startDate date of the first Order file
+     * @param days number of days to write
+     * @param ordersPerDay number of Orders in each Order file
+     * @param skew Zipf exponent for choosing customers, States, and Products
+     * @return number of Orders written
+     * @throws PersistenceException if unable to write an Order file
+     */
+    public long generate(LocalDate startDate, int days, int ordersPerDay, double skew)
+            throws PersistenceException {
+        // Shuffle the choices so the most common ones are not alphabetical
+        CatalogCache.Snapshot catalog = CATALOG.getSnapshot();
+        List<String> states = new ArrayList<>(catalog.getStateAbbrList());
+        List<String> productTypes = new ArrayList<>(catalog.getProductTypeList());
+        Collections.shuffle(states, RANDOM);
+        Collections.shuffle(productTypes, RANDOM);
+
+        ZipfSampler customerSampler = new ZipfSampler(CUSTOMER_COUNT, skew);
+        ZipfSampler stateSampler = new ZipfSampler(states.size(), skew);
+        ZipfSampler productSampler = new ZipfSampler(productTypes.size(), skew);
+
+        long ordersWritten = 0;
+
+        try {
+            Files.createDirectories(ORDER_DIRECTORY);
+            int nextOrderNumber = FILE_DAO.generateNewOrderNum();
+
+            for (int day = 0; day < days; day++) {
+                LocalDate date = startDate.plusDays(day);
+                Path orderFile = ORDER_DIRECTORY.resolve("Orders_"
+                        + date.format(FILE_DATE_FORMAT) + ".txt");
+                if (Files.exists(orderFile))
+                    continue;
+
+                List<Order> orders = new ArrayList<>(ordersPerDay);
+                for (int i = 0; i < ordersPerDay; i++) {
+                    // Price the Order the same way the application does
+                    Order order = ORDER_DAO.createNewOrder(
+                            customerName(customerSampler.next(RANDOM)),
+                            states.get(stateSampler.next(RANDOM)),
+                            productTypes.get(productSampler.next(RANDOM)),
+                            BigDecimal.valueOf(MIN_AREA * 100L
+                                    + RANDOM.nextInt(AREA_RANGE * 100), 2));
+                    order.setOrderNumber(nextOrderNumber++);
+                    orders.add(order);
+                }
+                // Written through the DAO, so the shared manifest of the
+                // directory lists the file without waiting for the watcher
+                FILE_DAO.writeOrderFile(date, orders);
+                ordersWritten += ordersPerDay;
+            }
+        } catch (IOException e) {
+            throw new PersistenceException("Could not write generated Order files.", e);
+        }
+
+        return ordersWritten;
+    }
+
+    /**
+     * Gets the name of a customer. Some customers are companies whose
+     * names contain a comma, so quoting in the Order files is exercised.
+     * @param customer customer number
+     * @return customer name
+     */
+    private static String customerName(int customer) {
+        String firstName = FIRST_NAMES[customer % FIRST_NAMES.length];
+        String lastName = LAST_NAMES[(customer / FIRST_NAMES.length) % LAST_NAMES.length];
+        int generation = customer / (FIRST_NAMES.length * LAST_NAMES.length);
+        String suffix = generation == 0 ? "" : " " + (generation + 1);
+
+        if (customer % 97 == 0)
+            return lastName + " & Sons, Inc." + suffix;
+        return firstName + " " + lastName + suffix;
+    }
+
+    /**
+     * Writes synthetic Order history from the command line.
+     * Usage: OrderHistoryGenerator orderDirectory years ordersPerDay [skew] [seed]
+     * The history ends yesterday and is priced from Data/Products.txt and
+     * Data/Taxes.txt.
+     * @param args command line arguments
+     * @throws PersistenceException if unable to write the Order files
+     */
+    public static void main(String[] args) throws PersistenceException {
+        if (args.length < 3) {
+            System.err.println("Usage: OrderHistoryGenerator orderDirectory years "
+                    + "ordersPerDay [skew] [seed]");
+            System.exit(1);
+        }
+
+        String orderDirectory = args[0];
+        int years = Integer.parseInt(args[1]);
+        int ordersPerDay = Integer.parseInt(args[2]);
+        double skew = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42;
+
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusYears(years);
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay());
+
+        long startTime = System.nanoTime();
+        long ordersWritten = new OrderHistoryGenerator(orderDirectory,
+                new CatalogCache(), seed).generate(startDate, days, ordersPerDay, skew);
+        System.out.printf("Wrote %d orders to %s in %.1f s%n", ordersWritten,
+                orderDirectory, (System.nanoTime() - startTime) / 1_000_000_000.0);
+    }
+
+    /**
+     * The {@code ZipfSampler} class picks ranks from 0 to n - 1, where rank
+     * k is chosen with probability proportional to 1 / (k + 1)^skew.
+     */
+    private static final class ZipfSampler {
+        // Cumulative probability of each rank
+        private final double[] cumulative;
+
+        private ZipfSampler(int n, double skew) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1.0 / Math.pow(k + 1, skew);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < n; k++)
+                cumulative[k] /= sum;
+        }
+
+        private int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            // binarySearch returns -(insertion point) - 1 when not found
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
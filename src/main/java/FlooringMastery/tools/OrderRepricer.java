@@ -0,0 +1,328 @@
+package FlooringMastery.tools;
+
+import FlooringMastery.dao.CatalogCache;
+import FlooringMastery.dao.CsvTokenizer;
+import FlooringMastery.dao.FileDao;
+import FlooringMastery.dao.FileDaoImpl;
+import FlooringMastery.dao.OrderCache;
+import FlooringMastery.dao.OrderDaoImpl;
+import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.model.Money;
+import FlooringMastery.model.Order;
+import FlooringMastery.model.Product;
+import FlooringMastery.model.State;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * The {@code OrderRepricer} class is responsible for repricing every Order
+ * in the order history after Data/Products.txt or Data/Taxes.txt changes.
+ * Each Order is priced again with the OrderDaoImpl pricing rules from one
+ * snapshot of the catalog. Order files are read and repriced in parallel
+ * by a bounded number of threads, only a few files ahead of the one being
+ * written, so memory use does not grow with the size of the history. Each
+ * changed Order file is replaced atomically through FileDao.updateOrderFile,
+ * which holds the date's lock from the read to the write, so Orders added,
+ * edited, or removed while the history is repriced are not lost. Every
+ * changed value can be written to a diff report, with or without writing
+ * the Order files (dry run).
+ */
+public class OrderRepricer {
+    // Header of the diff report
+    private static final String REPORT_HEADER =
+            "Date,OrderNumber,CustomerName,Field,OldValue,NewValue";
+    private static final String DELIMITER = ",";
+
+    private final FileDao FILE_DAO;
+    private final CatalogCache CATALOG;
+    // Cache of an OrderDaoImpl sharing FILE_DAO, or null if there is none
+    private final OrderCache ORDER_CACHE;
+
+    /**
+     * Constructor takes 2 parameters and creates a new OrderRepricer
+     * @param fileDao FileDao holding the Order files to reprice
+     * @param catalog CatalogCache with the current Product and State information
+     */
+    public OrderRepricer(FileDao fileDao, CatalogCache catalog) {
+        this(fileDao, catalog, null);
+    }
+
+    /**
+     * Constructor takes 3 parameters and creates a new OrderRepricer that
+     * invalidates the Orders of each repriced date in an OrderCache
+     * @param fileDao FileDao holding the Order files to reprice
+     * @param catalog CatalogCache with the current Product and State information
+     * @param orderCache OrderCache of an OrderDaoImpl using the same FileDao,
+     * or null
+     */
+    public OrderRepricer(FileDao fileDao, CatalogCache catalog, OrderCache orderCache) {
+        this.FILE_DAO = fileDao;
+        this.CATALOG = catalog;
+        this.ORDER_CACHE = orderCache;
+    }
+
+    /**
+     * Reprices every Order dated on or after a date. Orders whose State or
+     * Product is no longer in the catalog are left unchanged and counted
+     * as skipped.
+     * @param fromDate first date to reprice, or null for every date
+     * @param dryRun true to only report the changes without writing them
+     * @param report Writer for the diff report, or null for no report
+     * @return RepriceSummary with the number of files and Orders changed
+     * @throws PersistenceException if unable to read or write an Order
+     * file or the report
+     */
+    public RepriceSummary reprice(LocalDate fromDate, boolean dryRun, Writer report)
+            throws PersistenceException {
+        long startTime = System.nanoTime();
+        CatalogCache.Snapshot catalog = CATALOG.getSnapshot();
+
+        List<LocalDate> orderFileDates = new ArrayList<>(FILE_DAO.listOrderFileDates());
+        if (fromDate != null)
+            orderFileDates.removeIf(date -> date.isBefore(fromDate));
+
+        // Reprice at most a few files ahead of the writer to bound memory use
+        int threadCount = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int maxFilesAhead = threadCount * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        Deque<Future<RepricedFile>> results = new ArrayDeque<>();
+
+        int changedFileCount = 0;
+        long orderCount = 0;
+        long changedOrderCount = 0;
+        long skippedOrderCount = 0;
+        int nextFile = 0;
+
+        try {
+            if (report != null)
+                report.write(REPORT_HEADER + System.lineSeparator());
+
+            while (nextFile < orderFileDates.size() || !results.isEmpty()) {
+                // Keep the executor busy with the next files
+                while (nextFile < orderFileDates.size() && results.size() < maxFilesAhead) {
+                    LocalDate date = orderFileDates.get(nextFile++);
+                    results.add(executor.submit(() ->
+                            repriceFile(date, catalog, report != null, dryRun)));
+                }
+
+                // Report the oldest file's changes once it is repriced, so
+                // the report is in date order
+                RepricedFile result = results.remove().get();
+                orderCount += result.orders.size();
+                changedOrderCount += result.changedOrderCount;
+                skippedOrderCount += result.skippedOrderCount;
+                if (result.changedOrderCount == 0)
+                    continue;
+
+                changedFileCount++;
+                if (report != null)
+                    report.write(result.diff.toString());
+                if (!dryRun && ORDER_CACHE != null)
+                    ORDER_CACHE.invalidate(result.date);
+            }
+
+            if (report != null)
+                report.flush();
+        } catch (IOException e) {
+            throw new PersistenceException("Could not write reprice report.", e);
+        } catch (ExecutionException e) {
+            // Throw exception if unable to read an order file
+            throw new PersistenceException("Could not reprice order data.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenceException("Repricing was interrupted.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new RepriceSummary(orderFileDates.size(), changedFileCount, orderCount,
+                changedOrderCount, skippedOrderCount, dryRun, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Reads one Order file and reprices its Orders, replacing the file if
+     * any Order changed, unless this is a dry run
+     * @param date date of Order file
+     * @param catalog catalog snapshot to price with
+     * @param withDiff true to describe every changed value in the result
+     * @param dryRun true to only reprice the Orders without writing them
+     * @return RepricedFile with the repriced Orders
+     * @throws PersistenceException if unable to read or write the Order file
+     */
+    private RepricedFile repriceFile(LocalDate date, CatalogCache.Snapshot catalog,
+                                     boolean withDiff, boolean dryRun)
+            throws PersistenceException {
+        if (dryRun)
+            return repriceOrders(date, FILE_DAO.readOrderFile(date), catalog, withDiff);
+
+        // Repriced while the FileDao holds the date's lock
+        RepricedFile[] result = new RepricedFile[1];
+        FILE_DAO.updateOrderFile(date, orders -> {
+            result[0] = repriceOrders(date, orders, catalog, withDiff);
+            return result[0].changedOrderCount == 0 ? null : orders;
+        });
+        return result[0];
+    }
+
+    /**
+     * Reprices the Orders of one Order file in place
+     * @param date date of Order file
+     * @param orders Orders read from the file
+     * @param catalog catalog snapshot to price with
+     * @param withDiff true to describe every changed value in the result
+     * @return RepricedFile with the repriced Orders
+     */
+    private static RepricedFile repriceOrders(LocalDate date, List<Order> orders,
+                                              CatalogCache.Snapshot catalog,
+                                              boolean withDiff) {
+        RepricedFile result = new RepricedFile(date, orders);
+        String dateString = date.toString();
+
+        for (Order order : result.orders) {
+            State state = catalog.getState(order.getState());
+            Product product = catalog.getProduct(order.getProductType());
+            if (state == null || product == null) {
+                result.skippedOrderCount++;
+                continue;
+            }
+
+            // Keep the old values to compare with the new ones
+            long taxRate = order.getTaxRateThousandths();
+            long costPerSquareFoot = order.getCostPerSquareFootCents();
+            long laborCostPerSquareFoot = order.getLaborCostPerSquareFootCents();
+            long materialCost = order.getMaterialCostCents();
+            long laborCost = order.getLaborCostCents();
+            long tax = order.getTaxCents();
+            long total = order.getTotalCents();
+
+            OrderDaoImpl.priceOrder(order, state, product);
+
+            if (taxRate == order.getTaxRateThousandths()
+                    && costPerSquareFoot == order.getCostPerSquareFootCents()
+                    && laborCostPerSquareFoot == order.getLaborCostPerSquareFootCents()
+                    && materialCost == order.getMaterialCostCents()
+                    && laborCost == order.getLaborCostCents()
+                    && tax == order.getTaxCents()
+                    && total == order.getTotalCents())
+                continue;
+
+            result.changedOrderCount++;
+            if (!withDiff)
+                continue;
+
+            String prefix = dateString + DELIMITER + order.getOrderNumber() + DELIMITER
+                    + CsvTokenizer.quote(order.getCustomerName()) + DELIMITER;
+            appendChange(result.diff, prefix, "TaxRate", taxRate,
+                    order.getTaxRateThousandths(), Money.THOUSANDTHS);
+            appendChange(result.diff, prefix, "CostPerSquareFoot", costPerSquareFoot,
+                    order.getCostPerSquareFootCents(), Money.CENTS);
+            appendChange(result.diff, prefix, "LaborCostPerSquareFoot", laborCostPerSquareFoot,
+                    order.getLaborCostPerSquareFootCents(), Money.CENTS);
+            appendChange(result.diff, prefix, "MaterialCost", materialCost,
+                    order.getMaterialCostCents(), Money.CENTS);
+            appendChange(result.diff, prefix, "LaborCost", laborCost,
+                    order.getLaborCostCents(), Money.CENTS);
+            appendChange(result.diff, prefix, "Tax", tax, order.getTaxCents(), Money.CENTS);
+            appendChange(result.diff, prefix, "Total", total, order.getTotalCents(),
+                    Money.CENTS);
+        }
+
+        return result;
+    }
+
+    /**
+     * Appends a line to the diff report if a value changed
+     * @param diff report lines of the Order file
+     * @param prefix date, order number, and customer name of the Order
+     * @param field name of the changed field
+     * @param oldValue unscaled old value
+     * @param newValue unscaled new value
+     * @param scale scale of both values
+     */
+    private static void appendChange(StringBuilder diff, String prefix, String field,
+                                     long oldValue, long newValue, int scale) {
+        if (oldValue == newValue)
+            return;
+
+        diff.append(prefix).append(field).append(DELIMITER);
+        Money.append(diff, oldValue, scale).append(DELIMITER);
+        Money.append(diff, newValue, scale).append(System.lineSeparator());
+    }
+
+    /**
+     * Reprices Order files from the command line.
+     * Usage: OrderRepricer [--dry-run] [--from yyyy-MM-dd] [--report file] orderDirectory
+     * @param args command line arguments
+     * @throws PersistenceException if unable to reprice the Order files
+     */
+    public static void main(String[] args) throws PersistenceException {
+        boolean dryRun = false;
+        LocalDate fromDate = null;
+        String reportFile = null;
+        String orderDirectory = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--dry-run"))
+                    dryRun = true;
+                else if (args[i].equals("--from"))
+                    fromDate = LocalDate.parse(args[++i]);
+                else if (args[i].equals("--report"))
+                    reportFile = args[++i];
+                else if (orderDirectory == null)
+                    orderDirectory = args[i];
+                else
+                    throw new IllegalArgumentException(args[i]);
+            }
+        } catch (RuntimeException e) {
+            orderDirectory = null;
+        }
+
+        if (orderDirectory == null) {
+            System.err.println("Usage: OrderRepricer [--dry-run] [--from yyyy-MM-dd] "
+                    + "[--report file] orderDirectory");
+            System.exit(1);
+        }
+
+        // The export file is never written while repricing
+        FileDao fileDao = new FileDaoImpl(orderDirectory, "Backup/DataExport.txt");
+        OrderRepricer repricer = new OrderRepricer(fileDao, new CatalogCache());
+
+        RepriceSummary summary;
+        if (reportFile == null) {
+            summary = repricer.reprice(fromDate, dryRun, null);
+        } else {
+            try (Writer report = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(reportFile), StandardCharsets.UTF_8))) {
+                summary = repricer.reprice(fromDate, dryRun, report);
+            } catch (IOException e) {
+                throw new PersistenceException("Could not write reprice report.", e);
+            }
+        }
+        System.out.println(summary);
+    }
+
+    /**
+     * The {@code RepricedFile} class holds the repriced Orders of one
+     * Order file and the diff report lines for them.
+     */
+    private static final class RepricedFile {
+        private final LocalDate date;
+        private final List<Order> orders;
+        private final StringBuilder diff = new StringBuilder();
+        private int changedOrderCount;
+        private int skippedOrderCount;
+
+        private RepricedFile(LocalDate date, List<Order> orders) {
+            this.date = date;
+            this.orders = orders;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package FlooringMastery.tools;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code OrderServerLoadTest} class is responsible for measuring a
+ * running OrderServer. A number of simulated terminals each send the same
+ * request back to back, and the throughput and latency percentiles of
+ * all requests are printed. Run it against a server started with
+ * App --serve, for example over a history written by
+ * OrderHistoryGenerator.
+ */
+public class OrderServerLoadTest {
+    private final HttpClient CLIENT = HttpClient.newHttpClient();
+    private final URI TARGET;
+
+    /**
+     * Constructor accepts the URL to request
+     * @param target URL of the request every terminal sends
+     */
+    public OrderServerLoadTest(URI target) {
+        this.TARGET = target;
+    }
+
+    /**
+     * Sends requests from several terminals at once
+     * @param terminals number of terminals sending requests concurrently
+     * @param requestsPerTerminal number of requests each terminal sends
+     * @return latency of every successful request in nanoseconds, sorted
+     * @throws InterruptedException if interrupted waiting for the terminals
+     */
+    public long[] run(int terminals, int requestsPerTerminal) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(terminals);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<long[]>> results = new ArrayList<>();
+
+        for (int t = 0; t < terminals; t++) {
+            results.add(pool.submit(() -> {
+                HttpRequest request = HttpRequest.newBuilder(TARGET).GET().build();
+                long[] latencies = new long[requestsPerTerminal];
+                int succeeded = 0;
+                for (int i = 0; i < requestsPerTerminal; i++) {
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = CLIENT.send(request,
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() == 200) {
+                            latencies[succeeded++] = System.nanoTime() - start;
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        // Counted as a failure below
+                    }
+                    failures.incrementAndGet();
+                }
+                return Arrays.copyOf(latencies, succeeded);
+            }));
+        }
+        pool.shutdown();
+
+        // Gather the latencies of every terminal
+        long[] all = new long[0];
+        for (Future<long[]> result : results) {
+            try {
+                long[] latencies = result.get();
+                int length = all.length;
+                all = Arrays.copyOf(all, length + latencies.length);
+                System.arraycopy(latencies, 0, all, length, latencies.length);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        if (failures.get() > 0)
+            System.err.println(failures.get() + " requests failed");
+        Arrays.sort(all);
+        return all;
+    }
+
+    /**
+     * Load tests a running OrderServer from the command line.
+     * Usage: OrderServerLoadTest url [terminals] [requestsPerTerminal]
+     * for example http://localhost:8080/orders?date=2022-06-01
+     * @param args command line arguments
+     * @throws InterruptedException if interrupted waiting for the terminals
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: OrderServerLoadTest url [terminals] "
+                    + "[requestsPerTerminal]");
+            System.exit(1);
+        }
+
+        URI target = URI.create(args[0]);
+        int terminals = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int requestsPerTerminal = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        long startTime = System.nanoTime();
+        long[] latencies = new OrderServerLoadTest(target).run(terminals, requestsPerTerminal);
+        double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+        if (latencies.length == 0) {
+            System.out.println("No requests succeeded");
+            return;
+        }
+        System.out.printf("%d requests in %.1f s, %.0f requests/s%n", latencies.length,
+                seconds, latencies.length / seconds);
+        System.out.printf("Latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies[latencies.length - 1] / 1_000_000.0);
+    }
+
+    /**
+     * Gets a percentile of sorted latencies
+     * @param latencies sorted latencies in nanoseconds
+     * @param fraction percentile as a fraction, such as 0.99
+     * @return latency in milliseconds
+     */
+    private static double percentile(long[] latencies, double fraction) {
+        int index = (int) Math.ceil(fraction * latencies.length) - 1;
+        return latencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
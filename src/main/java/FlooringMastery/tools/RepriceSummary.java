@@ -0,0 +1,76 @@
+package FlooringMastery.tools;
+
+/**
+ * The {@code RepriceSummary} class holds the results of repricing Order
+ * files: how many Order files and Orders were read, how many of them
+ * changed, how many Orders could not be repriced, and how long it took.
+ */
+public class RepriceSummary {
+    // Values for RepriceSummary objects
+    private final int fileCount;
+    private final int changedFileCount;
+    private final long orderCount;
+    private final long changedOrderCount;
+    private final long skippedOrderCount;
+    private final boolean dryRun;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor takes 7 parameters and creates a new RepriceSummary object
+     * @param fileCount number of Order files read
+     * @param changedFileCount number of Order files with a changed Order
+     * @param orderCount number of Orders read
+     * @param changedOrderCount number of Orders whose prices changed
+     * @param skippedOrderCount number of Orders whose State or Product is
+     * no longer in the catalog
+     * @param dryRun true if the changes were only reported, not written
+     * @param elapsedNanos time taken in nanoseconds
+     */
+    public RepriceSummary(int fileCount, int changedFileCount, long orderCount,
+                          long changedOrderCount, long skippedOrderCount, boolean dryRun,
+                          long elapsedNanos) {
+        this.fileCount = fileCount;
+        this.changedFileCount = changedFileCount;
+        this.orderCount = orderCount;
+        this.changedOrderCount = changedOrderCount;
+        this.skippedOrderCount = skippedOrderCount;
+        this.dryRun = dryRun;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    public int getChangedFileCount() {
+        return changedFileCount;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getChangedOrderCount() {
+        return changedOrderCount;
+    }
+
+    public long getSkippedOrderCount() {
+        return skippedOrderCount;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d of %d orders in %d of %d files, %d skipped (%.3f s)",
+                dryRun ? "Would reprice" : "Repriced", changedOrderCount, orderCount,
+                changedFileCount, fileCount, skippedOrderCount,
+                elapsedNanos / 1_000_000_000.0);
+    }
+}
@@ -1,5 +1,7 @@
 package FlooringMastery.ui;
 
+import FlooringMastery.dao.ExportSummary;
+import FlooringMastery.dao.SalesReport;
 import FlooringMastery.model.Order;
 import FlooringMastery.model.Product;
 
@@ -44,10 +46,11 @@ public class View {
         io.print("* 3. Edit an Order");
         io.print("* 4. Remove an Order");
         io.print("* 5. Export All Data");
-        io.print("* 6. Quit");
+        io.print("* 6. Sales Report");
+        io.print("* 7. Quit");
         io.print("*******************************");
 
-        return io.readInt("Please selection an option.", 1, 6);
+        return io.readInt("Please selection an option.", 1, 7);
     }
 
     /**
@@ -414,10 +417,22 @@ public class View {
     }
 
     /**
-     * Displays a message to confirm that all order data was exported
+     * Prompts user to choose between an incremental and a full export
+     * @return 1 for incremental export, 2 for full export
      */
-    public void displayExportSuccessMsg() {
+    public int getExportMode() {
+        return io.readInt("Enter 1 to export only changed order files " +
+                "(incremental) or 2 to re-export all order files (full).", 1, 2);
+    }
+
+    /**
+     * Displays a message to confirm that all order data was exported,
+     * followed by the export totals and throughput
+     * @param exportSummary results of the export
+     */
+    public void displayExportSuccessMsg(ExportSummary exportSummary) {
         io.print("All order data exported successfully!");
+        io.print(exportSummary.toString());
         continueMessage();
     }
 
@@ -430,6 +445,58 @@ public class View {
         continueMessage();
     }
 
+    /**
+     * Prompts the user for what to group the sales report by
+     * @return Grouping selected by the user
+     */
+    public SalesReport.Grouping getSalesReportGrouping() {
+        io.print("\n----- Sales Report -----");
+        int selection = io.readInt("Enter 1 to report by State, 2 by Product, " +
+                "or 3 by month.", 1, 3);
+        return SalesReport.Grouping.values()[selection - 1];
+    }
+
+    /**
+     * Prompts the user to report on every order or on a range of dates
+     * @return true if the user wants to enter a range of dates
+     */
+    public boolean getSalesReportUsesDateRange() {
+        return io.readInt("Enter 1 to report on all orders or 2 to enter a " +
+                "range of dates.", 1, 2) == 2;
+    }
+
+    /**
+     * Prompts the user for the first date of the sales report
+     * @return date entered by user
+     */
+    public LocalDate getSalesReportFromDate() {
+        return io.readDate("Enter the first date to report on. (MMDDYYYY)");
+    }
+
+    /**
+     * Prompts the user for the last date of the sales report, which may
+     * not be before the first date
+     * @param fromDate first date of the report
+     * @return date entered by user
+     */
+    public LocalDate getSalesReportToDate(LocalDate fromDate) {
+        while (true) {
+            LocalDate toDate = io.readDate("Enter the last date to report on. (MMDDYYYY)");
+            if (!toDate.isBefore(fromDate))
+                return toDate;
+            io.print("The last date cannot be before " + fromDate + ".");
+        }
+    }
+
+    /**
+     * Displays the totals of each group of the sales report
+     * @param salesReport sales report to display
+     */
+    public void displaySalesReport(SalesReport salesReport) {
+        io.print(salesReport.toString());
+        continueMessage();
+    }
+
     /**
      * Displays message that the application is exiting
      */
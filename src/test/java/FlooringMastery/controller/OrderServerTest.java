@@ -0,0 +1,87 @@
+package FlooringMastery.controller;
+
+import FlooringMastery.dao.ProductDaoImpl;
+import FlooringMastery.dao.StateDaoImpl;
+import FlooringMastery.service.DaoStubImpl;
+import FlooringMastery.service.ServiceLayerImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The {@code OrderServerTest} class is responsible for
+ * testing the OrderServer class.
+ */
+class OrderServerTest {
+    private OrderServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new OrderServer(new ServiceLayerImpl(new DaoStubImpl(),
+                new ProductDaoImpl(), new StateDaoImpl()), 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Tests getting an Order, a missing Order, and requests the server
+     * should reject.
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted waiting for a response
+     */
+    @Test
+    void testRequests() throws IOException, InterruptedException {
+        HttpResponse<String> found = send("GET", "/orders/1?date=2050-01-01", null);
+        assertEquals(200, found.statusCode(), found.body());
+        assertTrue(found.body().contains("\"customerName\":\"Johnny B. Goode\""),
+                found.body());
+        assertTrue(found.body().contains("\"total\":5296.50"), found.body());
+
+        assertEquals(404, send("GET", "/orders/2", null).statusCode(),
+                "Missing Order should not be found.");
+        assertEquals(400, send("GET", "/orders?date=01012050", null).statusCode(),
+                "Date not in yyyy-MM-dd should be rejected.");
+        assertEquals(400, send("POST", "/orders", "{\"date\":\"2050-01-01\","
+                        + "\"customerName\":\"Jane\",\"state\":\"ZZ\","
+                        + "\"productType\":\"Wood\",\"area\":150}").statusCode(),
+                "Order in an unknown State should be rejected.");
+        assertEquals(400, send("POST", "/orders", "{\"date\":\"2050-01-01\","
+                        + "\"customerName\":\"Jane\\nDoe\",\"state\":\"TX\","
+                        + "\"productType\":\"Wood\",\"area\":150}").statusCode(),
+                "Customer name with a line break should be rejected.");
+        assertEquals(400, send("POST", "/orders", "{\"date\":\"2020-01-01\","
+                        + "\"customerName\":\"Jane\",\"state\":\"TX\","
+                        + "\"productType\":\"Wood\",\"area\":150}").statusCode(),
+                "Order dated in the past should be rejected.");
+        assertEquals(400, send("POST", "/orders", "{\"area\":" + "[".repeat(40000))
+                        .statusCode(),
+                "Deeply nested JSON should be rejected.");
+        assertEquals(400, send("POST", "/orders", "{\"customerName\":\""
+                        + "x".repeat(OrderServer.MAX_BODY_BYTES) + "\"}").statusCode(),
+                "Body larger than the limit should be rejected.");
+        assertEquals(405, send("DELETE", "/export", null).statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -1,20 +1,53 @@
 package FlooringMastery.dao;
 
+import FlooringMastery.model.Money;
 import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
 import FlooringMastery.model.Product;
 import FlooringMastery.model.State;
+import FlooringMastery.tools.OrderFileConverter;
+import FlooringMastery.tools.OrderHistoryGenerator;
+import FlooringMastery.tools.OrderRepricer;
+import FlooringMastery.tools.RepriceSummary;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -165,17 +198,61 @@ class DaoImplTest {
         assertEquals(0, numOfRemainingOrders, "There should be no orders left");
     }
 
+    /**
+     * Tests that generateNewOrderNum continues from the highest order number
+     * of every Order file, even when it is not in the latest file, and that
+     * consecutive calls hand out consecutive numbers.
+     * @param tempDir temporary directory for the Order files
+     */
+    @Test
+    void testGenerateNewOrderNum(@TempDir Path tempDir) throws PersistenceException,
+            IOException {
+        String header = "OrderNumber,CustomerName,State,TaxRate,ProductType,Area," +
+                "CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total\n";
+        Path orderDirectory = Files.createDirectories(tempDir.resolve("Orders"));
+        Files.writeString(orderDirectory.resolve("Orders_01012040.txt"), header +
+                "50,John Doe,TX,4.450,Tile,100,3.50,4.15,350.00,415.00,34.04,799.04\n");
+        Files.writeString(orderDirectory.resolve("Orders_01022040.txt"), header +
+                "3,Jane Doe,TX,4.450,Tile,100,3.50,4.15,350.00,415.00,34.04,799.04\n");
+
+        FileDao fileDao = new FileDaoImpl(orderDirectory.toString(),
+                tempDir.resolve("DataExport.txt").toString());
+
+        assertEquals(51, fileDao.generateNewOrderNum(),
+                "Highest order number of the earlier file should be continued.");
+        assertEquals(52, fileDao.generateNewOrderNum(),
+                "Next call should return the next order number.");
+    }
+
     /**
      * Tests exportAllData from the OrderDaoImpl class.
      * @throws PersistenceException if unable to write export
      */
     @Test
-    void testExportOrders() throws PersistenceException {
-        testOrderDao.exportAllData();
+    void testExportOrders() throws PersistenceException, IOException {
+        ExportSummary exportSummary = testOrderDao.exportAllData();
 
         File exportFile = new File("TestExportFile/DataExportText.txt");
 
         assertNotNull(exportFile, "Export file should not be null.");
+        assertEquals(1, exportSummary.getOrderCount(), "One order should be exported.");
+        assertEquals(List.of("1,John Doe,DC,6.000,Wood,750,5.15,4.75,3862.50," +
+                        "3562.50,445.50,7870.50,01012050"),
+                Files.readAllLines(Path.of("TestExportFile/DataExportTest.txt")),
+                "Export file should contain the order with its date.");
+
+        FileDao fileDao = new FileDaoImpl("TestOrderFiles",
+                "TestExportFile/DataExportTest.txt");
+        List<LocalDate> exportedDates = new ArrayList<>();
+        List<Order> exportedOrders = new ArrayList<>();
+        fileDao.readExportFile((date, order) -> {
+            exportedDates.add(date);
+            exportedOrders.add(order);
+        });
+        assertEquals(List.of(LocalDate.of(2050, 1, 1)), exportedDates,
+                "Exported order should be read back with its date.");
+        assertEquals(fileDao.readOrderFile(LocalDate.of(2050, 1, 1)), exportedOrders,
+                "Exported order should equal the order in the order file.");
     }
 
     /**
@@ -211,4 +288,1123 @@ class DaoImplTest {
         assertEquals("TX", stateAbbrs.get(43), "The 44th state abbr " +
                 "(43rd index) should be TX.");
     }
+
+    /**
+     * Tests that CatalogCache only reads the catalog files once while
+     * they are unchanged, and that lookups are keyed correctly.
+     */
+    @Test
+    void testCatalogCache() throws PersistenceException {
+        CatalogCache catalogCache = new CatalogCache();
+        CatalogCache.Snapshot first = catalogCache.getSnapshot();
+        CatalogCache.Snapshot second = catalogCache.getSnapshot();
+
+        assertSame(first, second, "Unchanged files should not be reloaded.");
+        assertEquals(BigDecimal.valueOf(6.250).setScale(3, RoundingMode.HALF_UP),
+                first.getState("TX").getTaxRate(), "TX tax rate should be 6.250%.");
+        assertEquals(BigDecimal.valueOf(3.50).setScale(2, RoundingMode.HALF_UP),
+                first.getProduct("Tile").getCostPerSquareFoot(),
+                "Tile cost per square foot should be 3.50.");
+        assertNull(first.getProduct("Marble"), "Unknown product should be null.");
+    }
+
+    /**
+     * Tests that OrderCache evicts the least recently used date once the
+     * budget is exceeded.
+     */
+    @Test
+    void testOrderCacheEviction() {
+        OrderCache orderCache = new OrderCache(2);
+        LocalDate firstDate = LocalDate.of(2050, 1, 1);
+        LocalDate secondDate = LocalDate.of(2050, 1, 2);
+        LocalDate thirdDate = LocalDate.of(2050, 1, 3);
+
+        orderCache.put(firstDate, List.of(new Order(1)));
+        orderCache.put(secondDate, List.of(new Order(2)));
+        // Use the first date so the second date is least recently used
+        orderCache.get(firstDate);
+        orderCache.put(thirdDate, List.of(new Order(3)));
+
+        assertNotNull(orderCache.get(firstDate), "First date should still be cached.");
+        assertNull(orderCache.get(secondDate), "Second date should be evicted.");
+        assertNotNull(orderCache.get(thirdDate), "Third date should be cached.");
+    }
+
+    /**
+     * Tests that editing and removing locate the Order by order number, so
+     * customer names containing regex characters are handled correctly.
+     * @throws PersistenceException if unable to write order to file
+     */
+    @Test
+    void testEditAndRemoveOrderWithRegexCharacters() throws PersistenceException {
+        LocalDate testOrderDate = LocalDate.of(2050, 1, 1);
+        Order order = testOrderDao.createNewOrder("Smith (Jr.) $1 [A+B]*",
+                "TX", "Tile", BigDecimal.valueOf(100));
+        testOrderDao.addNewOrderToFile(testOrderDate, order);
+
+        Order editedOrder = testOrderDao.createEditedOrder(order, "Smith (Jr.) $1 [A+B]*",
+                "TX", "Wood", BigDecimal.valueOf(200));
+        testOrderDao.writeEditOrder(testOrderDate, order, editedOrder);
+        assertEquals(editedOrder, testOrderDao.getOrder(2, testOrderDate),
+                "Order 2 should be the edited order.");
+
+        testOrderDao.removeOrder(testOrderDate, testOrderDao.getOrder(1, testOrderDate));
+        List<Order> remainingOrders = testOrderDao.getAllOrders(testOrderDate);
+        assertEquals(List.of(editedOrder), remainingOrders,
+                "Only the edited order should remain.");
+    }
+
+    /**
+     * Tests that editing and removing an Order leave the other lines where
+     * they are, that an offset index gone stale without the file's length
+     * or last modified time changing never overwrites another Order, and
+     * that the blank lines left behind are compacted away.
+     * @param tempDir temporary directory for the Order files
+     */
+    @Test
+    void testEditAndRemoveInPlace(@TempDir Path tempDir) throws PersistenceException,
+            IOException {
+        CatalogCache.Snapshot catalog = new CatalogCache().getSnapshot();
+        LocalDate date = LocalDate.of(2040, 1, 1);
+        Path orderFile = tempDir.resolve("Orders/Orders_01012040.txt");
+        FileDao fileDao = new FileDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        BiFunction<Integer, String, Order> newOrder = (orderNumber, customerName) -> {
+            Order order = new Order(customerName, "TX", "Tile", BigDecimal.valueOf(100));
+            OrderDaoImpl.priceOrder(order, catalog.getState("TX"), catalog.getProduct("Tile"));
+            order.setOrderNumber(orderNumber);
+            return order;
+        };
+        Map<Integer, Order> orders = new TreeMap<>();
+        for (int n = 1; n <= 4; n++)
+            orders.put(n, newOrder.apply(n, "Customer " + n));
+        fileDao.writeOrderFile(date, new ArrayList<>(orders.values()));
+
+        // A longer line moves to the end, leaving the others in place
+        String before = Files.readString(orderFile);
+        Order longer = newOrder.apply(2, "Customer Two With A Longer Name");
+        fileDao.writeEditOrder(date, orders.get(2), longer);
+        assertEquals(List.of(1, 3, 4, 2), fileDao.readOrderFile(date).stream()
+                .map(Order::getOrderNumber).toList(), "Edited order should move to the end.");
+        String after = Files.readString(orderFile);
+        assertTrue(after.startsWith(before.substring(0, before.indexOf("\n2,"))),
+                "Lines before the edited order should not move.");
+        assertTrue(after.contains("\n\n"), "Old line should be left blank.");
+
+        // Swap orders 1 and 4, which have lines of the same length, behind
+        // the DAO's back without changing the last modified time
+        FileTime modified = Files.getLastModifiedTime(orderFile);
+        String line1 = fileDao.marshallOrder(orders.get(1));
+        String line4 = fileDao.marshallOrder(orders.get(4));
+        Files.writeString(orderFile, after.replace(line1, "#").replace(line4, line1)
+                .replace("#", line4));
+        Files.setLastModifiedTime(orderFile, modified);
+        Order renamed = newOrder.apply(1, "Customer X");
+        fileDao.writeEditOrder(date, orders.get(1), renamed);
+        assertEquals(List.of(orders.get(4), orders.get(3), renamed, longer),
+                fileDao.readOrderFile(date), "Only order 1 should be edited.");
+
+        // Once most of the file is blank, it is compacted
+        fileDao.removeOrderFromFile(date, orders.get(3));
+        fileDao.removeOrderFromFile(date, orders.get(4));
+        fileDao.removeOrderFromFile(date, renamed);
+        assertEquals(List.of(longer), fileDao.readOrderFile(date),
+                "Only the edited order should remain.");
+        assertFalse(Files.readString(orderFile).contains("\n\n"),
+                "Blank lines should be compacted away.");
+    }
+
+    /**
+     * Tests that a change left in the journal by an interrupted write is
+     * redone when the journal is replayed.
+     * @param tempDir temporary directory for the journal and Order file
+     */
+    @Test
+    void testJournalReplay(@TempDir Path tempDir) throws IOException {
+        Path orderFile = tempDir.resolve("Orders_01012050.txt");
+        Files.writeString(orderFile, "Header\n1,Old\n");
+
+        // Journal an edit of line 1 without applying it to the file
+        OrderJournal journal = new OrderJournal(tempDir.resolve("orders.journal"));
+        journal.append(LocalDate.of(2050, 1, 1), 7, "1,New,Name\n"
+                .getBytes(StandardCharsets.UTF_8), 18);
+
+        int replayed = new OrderJournal(tempDir.resolve("orders.journal"))
+                .replay(date -> orderFile.toFile());
+
+        assertEquals(1, replayed, "One change should be replayed.");
+        assertEquals("Header\n1,New,Name\n", Files.readString(orderFile),
+                "Order file should contain the journaled change.");
+        assertFalse(Files.exists(tempDir.resolve("orders.journal")),
+                "Journal should be removed after replay.");
+    }
+
+    /**
+     * Tests that a change journaled as a group of records is redone whole,
+     * and not at all if the journal was cut short inside the group.
+     * @param tempDir temporary directory for the journal and Order file
+     */
+    @Test
+    void testJournalReplaysWholeGroups(@TempDir Path tempDir) throws IOException {
+        Path orderFile = tempDir.resolve("Orders_01012050.txt");
+        Path journalFile = tempDir.resolve("orders.journal");
+        LocalDate date = LocalDate.of(2050, 1, 1);
+        // Line 1 moved to the end of the file, its old line blanked
+        long[] offsets = {13, 7};
+        byte[][] parts = {"1,Longer\n".getBytes(StandardCharsets.UTF_8),
+                "\n\n\n\n\n\n".getBytes(StandardCharsets.UTF_8)};
+
+        Files.writeString(orderFile, "Header\n1,Old\n");
+        new OrderJournal(journalFile).append(date, offsets, parts, 22);
+        assertEquals(1, new OrderJournal(journalFile).replay(day -> orderFile.toFile()),
+                "The group should be replayed as one change.");
+        assertEquals("Header\n\n\n\n\n\n\n1,Longer\n", Files.readString(orderFile),
+                "Every part of the change should be redone.");
+
+        Files.writeString(orderFile, "Header\n1,Old\n");
+        new OrderJournal(journalFile).append(date, offsets, parts, 22);
+        try (FileChannel journal = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            journal.truncate(journal.size() - 3);
+        }
+        assertEquals(0, new OrderJournal(journalFile).replay(day -> orderFile.toFile()),
+                "A group cut short should not be replayed.");
+        assertEquals("Header\n1,Old\n", Files.readString(orderFile),
+                "No part of a group cut short should be redone.");
+    }
+
+    /**
+     * Tests that appends recorded in the journal but never checkpointed
+     * are undone when the journal is replayed, deleting a file that did
+     * not exist before its append.
+     * @param tempDir temporary directory for the journal and Order files
+     */
+    @Test
+    void testJournalUndoesAppends(@TempDir Path tempDir) throws IOException {
+        LocalDate oldDate = LocalDate.of(2050, 1, 1);
+        LocalDate newDate = LocalDate.of(2050, 1, 2);
+        Path oldFile = tempDir.resolve("Orders_01012050.txt");
+        Path newFile = tempDir.resolve("Orders_01022050.txt");
+        Files.writeString(oldFile, "Header\n1,Old\n");
+
+        // Journal both appends, then write them without a checkpoint
+        Map<LocalDate, Long> lengthsBefore = new TreeMap<>();
+        lengthsBefore.put(oldDate, 13L);
+        lengthsBefore.put(newDate, 0L);
+        new OrderJournal(tempDir.resolve("orders.journal")).recordAppends(lengthsBefore);
+        Files.writeString(oldFile, "2,Torn", StandardOpenOption.APPEND);
+        Files.writeString(newFile, "Header\n3,New\n");
+
+        int replayed = new OrderJournal(tempDir.resolve("orders.journal"))
+                .replay(date -> tempDir.resolve(date.equals(oldDate)
+                        ? "Orders_01012050.txt" : "Orders_01022050.txt").toFile());
+
+        assertEquals(2, replayed, "Both appends should be undone.");
+        assertEquals("Header\n1,Old\n", Files.readString(oldFile),
+                "Order file should be truncated back to its length before the append.");
+        assertFalse(Files.exists(newFile), "Order file created by the append should be deleted.");
+    }
+
+    /**
+     * Tests exportChangedData from the OrderDaoImpl class: unchanged order
+     * files are not re-read, and the result matches a full export.
+     * @throws PersistenceException if unable to write export
+     */
+    @Test
+    void testExportChangedOrders() throws PersistenceException, IOException {
+        Path exportFile = Path.of("TestExportFile/DataExportTest.txt");
+        testOrderDao.exportChangedData();
+
+        ExportSummary unchanged = testOrderDao.exportChangedData();
+        assertEquals(0, unchanged.getChangedFileCount(),
+                "No order files should be re-read when nothing changed.");
+
+        Order newOrder = testOrderDao.createNewOrder("John Smith",
+                "FL", "Tile", BigDecimal.valueOf(1000));
+        testOrderDao.addNewOrderToFile(LocalDate.of(2050, 1, 1), newOrder);
+
+        ExportSummary changed = testOrderDao.exportChangedData();
+        List<String> incrementalExport = Files.readAllLines(exportFile);
+        testOrderDao.exportAllData();
+
+        assertEquals(1, changed.getChangedFileCount(), "One order file should be re-read.");
+        assertEquals(2, changed.getOrderCount(), "Two orders should be exported.");
+        assertEquals(Files.readAllLines(exportFile), incrementalExport,
+                "Incremental export should match a full export.");
+
+        // Restore the export file to the single test order
+        testOrderDao.removeOrder(LocalDate.of(2050, 1, 1), newOrder);
+        testOrderDao.exportAllData();
+    }
+
+    /**
+     * Tests that customer names containing delimiters and quotes are quoted
+     * when marshalled and read back unchanged, and that decimals keep the
+     * scale written in the file.
+     */
+    @Test
+    void testMarshallAndUnmarshallQuotedCustomerName() {
+        FileDao fileDao = new FileDaoImpl("TestOrderFiles",
+                "TestExportFile/DataExportTest.txt");
+        Order order = fileDao.unmarshallOrder("1,John Doe,DC,6.000,Wood,750," +
+                "5.15,4.75,3862.50,3562.50,445.50,7870.50");
+        order.setCustomerName("Doe, John \"JD\"");
+
+        String line = fileDao.marshallOrder(order);
+
+        assertEquals("1,\"Doe, John \"\"JD\"\"\",DC,6.000,Wood,750,5.15,4.75," +
+                "3862.50,3562.50,445.50,7870.50", line, "Customer name should be quoted.");
+        assertEquals(order, fileDao.unmarshallOrder(line),
+                "Unmarshalled order should equal the original order.");
+        assertEquals(new BigDecimal("3862.50"), order.getMaterialCost(),
+                "Material cost should keep a scale of 2.");
+    }
+
+    /**
+     * Tests that OrderHistoryGenerator writes Order files that read back
+     * with unique order numbers and the same prices OrderDaoImpl
+     * calculates, and that the same seed writes the same files.
+     * @param tempDir temporary directory for the generated Order files
+     */
+    @Test
+    void testGenerateOrderHistory(@TempDir Path tempDir) throws PersistenceException,
+            IOException {
+        LocalDate startDate = LocalDate.of(2040, 1, 1);
+        long ordersWritten = new OrderHistoryGenerator(tempDir.resolve("Orders").toString(),
+                new CatalogCache(), 7).generate(startDate, 3, 50, 1.2);
+        new OrderHistoryGenerator(tempDir.resolve("Copy").toString(),
+                new CatalogCache(), 7).generate(startDate, 3, 50, 1.2);
+
+        OrderDao orderDao = new OrderDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        List<Integer> orderNumbers = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (Order order : orderDao.getAllOrders(startDate.plusDays(day))) {
+                orderNumbers.add(order.getOrderNumber());
+                assertEquals(orderDao.createEditedOrder(order, order.getCustomerName(),
+                                order.getState(), order.getProductType(), order.getArea()),
+                        order, "Generated order should be priced like a new order.");
+            }
+        }
+
+        assertEquals(150, ordersWritten, "150 orders should be written.");
+        assertEquals(150, orderNumbers.stream().distinct().count(),
+                "Order numbers should be unique.");
+        assertEquals(151, orderDao.createNewOrder("John Doe", "DC", "Wood",
+                BigDecimal.valueOf(750)).getOrderNumber(), "Next order number should be 151.");
+        assertEquals(Files.readString(tempDir.resolve("Orders/Orders_01022040.txt")),
+                Files.readString(tempDir.resolve("Copy/Orders_01022040.txt")),
+                "Same seed should write the same Order file.");
+    }
+
+    /**
+     * Tests that a CatalogCache swaps in a new Snapshot when its Tax or
+     * Product file is replaced, without being asked to reload, and that
+     * a Snapshot already taken keeps its values.
+     * @param tempDir temporary directory for the catalog files
+     */
+    @Test
+    void testCatalogHotReload(@TempDir Path tempDir)
+            throws PersistenceException, IOException, InterruptedException {
+        Path productFile = tempDir.resolve("Products.txt");
+        Path taxFile = tempDir.resolve("Taxes.txt");
+        Files.copy(Path.of("Data/Products.txt"), productFile);
+        Files.copy(Path.of("Data/Taxes.txt"), taxFile);
+        CatalogCache catalogCache = new CatalogCache(new FileDaoImpl(),
+                productFile.toString(), taxFile.toString());
+        CatalogCache.Snapshot before = catalogCache.getSnapshot();
+        assertNull(before.getProduct("Cork"));
+
+        // Edited the way editors save, by writing a new file and moving it over
+        Path newTaxFile = tempDir.resolve("Taxes.txt.new");
+        Files.writeString(newTaxFile, Files.readString(taxFile)
+                .replace("TX,Texas,6.250", "TX,Texas,7.125"));
+        Files.move(newTaxFile, taxFile, StandardCopyOption.REPLACE_EXISTING);
+        Path newProductFile = tempDir.resolve("Products.txt.new");
+        Files.writeString(newProductFile, Files.readString(productFile).strip()
+                + System.lineSeparator() + "Cork,4.00,3.25" + System.lineSeparator());
+        Files.move(newProductFile, productFile, StandardCopyOption.REPLACE_EXISTING);
+
+        CatalogCache.Snapshot after = catalogCache.getSnapshot();
+        for (int i = 0; i < 100 && (after.getProduct("Cork") == null
+                || after.getState("TX").getTaxRateThousandths() != 7125); i++) {
+            Thread.sleep(50);
+            after = catalogCache.getSnapshot();
+        }
+        assertEquals(7125, after.getState("TX").getTaxRateThousandths(),
+                "The new tax rate should be picked up.");
+        assertNotNull(after.getProduct("Cork"), "The new Product should be picked up.");
+        assertNotEquals(7125, before.getState("TX").getTaxRateThousandths(),
+                "A Snapshot already taken should not change.");
+
+        // A file that cannot be read leaves the last good Snapshot in use
+        Files.writeString(newTaxFile, "State,StateName,TaxRate\nTX,Texas,");
+        Files.move(newTaxFile, taxFile, StandardCopyOption.REPLACE_EXISTING);
+        Thread.sleep(200);
+        assertEquals(7125, catalogCache.getSnapshot().getState("TX").getTaxRateThousandths(),
+                "The last good Snapshot should be kept when a file cannot be read.");
+    }
+
+    /**
+     * Tests that the Order file manifest starts empty for a missing
+     * directory, ignores files that are not Order files, lists files the
+     * DAO writes at once, and picks up files created by anything else.
+     * @param tempDir temporary directory for the Order files
+     */
+    @Test
+    void testOrderFileManifest(@TempDir Path tempDir)
+            throws PersistenceException, IOException, InterruptedException {
+        Path orderDirectory = tempDir.resolve("Orders");
+        FileDao fileDao = new FileDaoImpl(orderDirectory.toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        assertEquals(List.of(), fileDao.listOrderFileDates(),
+                "A missing directory should have no Order files.");
+
+        Files.createDirectories(orderDirectory);
+        Files.writeString(orderDirectory.resolve("notes.txt"), "not an order file");
+        Files.writeString(orderDirectory.resolve("Orders_13452040.txt"), "bad date");
+        Files.writeString(orderDirectory.resolve("Orders_01012040.txt.bak"), "backup");
+        OrderDao orderDao = new OrderDaoImpl(fileDao, new CatalogCache(), new OrderCache());
+        orderDao.addNewOrderToFile(LocalDate.of(2040, 1, 2), orderDao.createNewOrder(
+                "Manifest Test", "TX", "Tile", BigDecimal.valueOf(100)));
+        assertEquals(List.of(LocalDate.of(2040, 1, 2)), fileDao.listOrderFileDates(),
+                "Only the Order file written should be listed.");
+
+        // A file copied in by hand is reported by the WatchService
+        Files.copy(orderDirectory.resolve("Orders_01022040.txt"),
+                orderDirectory.resolve("Orders_01012040.txt"));
+        LocalDate copiedDate = LocalDate.of(2040, 1, 1);
+        for (int i = 0; i < 100 && !fileDao.listOrderFileDates().contains(copiedDate); i++)
+            Thread.sleep(50);
+        assertEquals(List.of(copiedDate, LocalDate.of(2040, 1, 2)),
+                fileDao.listOrderFileDates(), "The copied file should be listed.");
+        assertEquals(List.of(copiedDate), List.copyOf(
+                fileDao.listOrderFileDates(null, copiedDate)));
+    }
+
+    /**
+     * Tests that getOrders returns the matching Orders of only the dates
+     * in the range, oldest date first, and reads each Order file only
+     * when the Stream reaches it.
+     * @param tempDir temporary directory for the generated Order files
+     */
+    @Test
+    void testGetOrdersForDateRange(@TempDir Path tempDir)
+            throws PersistenceException, IOException {
+        LocalDate startDate = LocalDate.of(2040, 1, 30);
+        new OrderHistoryGenerator(tempDir.resolve("Orders").toString(),
+                new CatalogCache(), 23).generate(startDate, 40, 10, 1.0);
+        OrderDao orderDao = new OrderDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+
+        LocalDate fromDate = LocalDate.of(2040, 2, 1);
+        LocalDate toDate = LocalDate.of(2040, 2, 29);
+        List<Integer> expected = new ArrayList<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            for (Order order : orderDao.getAllOrders(date)) {
+                if (order.getState().equals("TX"))
+                    expected.add(order.getOrderNumber());
+            }
+        }
+
+        List<Integer> found = orderDao.getOrders(fromDate, toDate,
+                        order -> order.getState().equals("TX"))
+                .map(Order::getOrderNumber).toList();
+        assertFalse(found.isEmpty(), "Some Orders should be in TX.");
+        assertEquals(expected, found, "Only Orders of February in TX should be found.");
+        assertEquals(400, orderDao.getOrders(null, null, order -> true).count(),
+                "Open ends should include every date.");
+
+        // A file removed after the Stream is created is skipped when reached
+        OrderDao freshDao = new OrderDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        Stream<Order> february = freshDao.getOrders(fromDate, toDate, order -> true);
+        Files.delete(tempDir.resolve("Orders/Orders_02292040.txt"));
+        assertEquals(280, february.count(), "28 days should be read.");
+    }
+
+    /**
+     * Tests that the sales report adds up the same totals as reading every
+     * Order one by one, for each grouping and for a range of dates, and
+     * that the daily rollups behind it follow new, edited, and removed
+     * Orders as well as Order files changed outside the DAO.
+     * @param tempDir temporary directory for the generated Order files
+     */
+    @Test
+    void testSalesReport(@TempDir Path tempDir) throws PersistenceException, IOException {
+        LocalDate startDate = LocalDate.of(2040, 1, 30);
+        new OrderHistoryGenerator(tempDir.resolve("Orders").toString(),
+                new CatalogCache(), 21).generate(startDate, 40, 25, 1.0);
+        OrderDao orderDao = new OrderDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+
+        LocalDate fromDate = startDate.plusDays(5);
+        LocalDate toDate = startDate.plusDays(20);
+        SalesReport byState = orderDao.getSalesReport(SalesReport.Grouping.STATE,
+                fromDate, toDate);
+        assertEquals(16, byState.getFileCount(), "16 days should be read.");
+        assertReportByState(orderDao, byState, fromDate, toDate);
+
+        // Every grouping of the whole history should add up to the same total
+        SalesReport byMonth = orderDao.getSalesReport(SalesReport.Grouping.MONTH, null, null);
+        SalesReport byProduct = orderDao.getSalesReport(SalesReport.Grouping.PRODUCT,
+                null, null);
+        assertEquals(1000, byMonth.getOverall().getOrderCount(), "1000 orders should be read.");
+        assertEquals(List.of("2040-01", "2040-02", "2040-03"),
+                List.copyOf(byMonth.getGroups().keySet()));
+        assertEquals(byMonth.getOverall().getTotalCents(),
+                byProduct.getOverall().getTotalCents(),
+                "Groupings should add up to the same total.");
+
+        // Writes update the day's rollup in place of a rebuild
+        LocalDate day = fromDate.plusDays(1);
+        orderDao.addNewOrderToFile(day, orderDao.createNewOrder("Rollup Test", "TX",
+                "Tile", BigDecimal.valueOf(300)));
+        Order orderToEdit = orderDao.getAllOrders(day).get(0);
+        orderDao.writeEditOrder(day, orderToEdit, orderDao.createEditedOrder(orderToEdit,
+                orderToEdit.getCustomerName(), "WA", "Carpet", BigDecimal.valueOf(999)));
+        orderDao.removeOrder(day, orderDao.getAllOrders(day).get(1));
+
+        File orderFile = tempDir.resolve("Orders/Orders_"
+                + day.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt").toFile();
+        Path rollupFile = tempDir.resolve("OrdersMeta/rollups/Rollup_" + day.toEpochDay()
+                + ".txt");
+        assertEquals("S," + orderFile.lastModified() + "," + orderFile.length(),
+                Files.readAllLines(rollupFile).get(0),
+                "Rollup should be stamped with the Order file as it is after the writes.");
+        assertReportByState(orderDao, orderDao.getSalesReport(SalesReport.Grouping.STATE,
+                fromDate, toDate), fromDate, toDate);
+
+        // An Order file emptied outside the DAO is rebuilt from the file
+        Files.writeString(tempDir.resolve("Orders/Orders_"
+                + toDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt"),
+                "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,"
+                        + "LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total"
+                        + System.lineSeparator());
+        OrderDao freshDao = new OrderDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        assertReportByState(freshDao, freshDao.getSalesReport(SalesReport.Grouping.STATE,
+                fromDate, toDate), fromDate, toDate);
+    }
+
+    /**
+     * Checks a sales report by State against the totals of reading every
+     * Order of the dates one by one
+     * @param orderDao OrderDao to read the Orders with
+     * @param report report to check
+     * @param fromDate first date of the report
+     * @param toDate last date of the report
+     */
+    private static void assertReportByState(OrderDao orderDao, SalesReport report,
+                                            LocalDate fromDate, LocalDate toDate)
+            throws PersistenceException {
+        Map<String, long[]> expected = new TreeMap<>();
+        for (LocalDate date = fromDate; !date.isAfter(toDate); date = date.plusDays(1)) {
+            for (Order order : orderDao.getAllOrders(date)) {
+                long[] sums = expected.computeIfAbsent(order.getState(), s -> new long[4]);
+                sums[0]++;
+                sums[1] += order.getMaterialCostCents();
+                sums[2] += order.getTaxCents();
+                sums[3] += order.getTotalCents();
+            }
+        }
+
+        assertEquals(expected.keySet(), report.getGroups().keySet());
+        for (Map.Entry<String, long[]> state : expected.entrySet()) {
+            SalesReport.Totals totals = report.getGroups().get(state.getKey());
+            assertEquals(state.getValue()[0], totals.getOrderCount(), state.getKey());
+            assertEquals(state.getValue()[1], totals.getMaterialCostCents(), state.getKey());
+            assertEquals(state.getValue()[2], totals.getTaxCents(), state.getKey());
+            assertEquals(state.getValue()[3], totals.getTotalCents(), state.getKey());
+        }
+    }
+
+    /**
+     * Tests that OrderRepricer reports price changes on a dry run without
+     * writing them, then reprices every affected Order like an edited Order,
+     * invalidating the Orders an OrderDaoImpl has cached.
+     * @param tempDir temporary directory for the Order and catalog files
+     */
+    @Test
+    void testRepriceOrders(@TempDir Path tempDir) throws PersistenceException, IOException {
+        String orderDirectory = tempDir.resolve("Orders").toString();
+        LocalDate startDate = LocalDate.of(2040, 1, 1);
+        new OrderHistoryGenerator(orderDirectory, new CatalogCache(), 3)
+                .generate(startDate, 4, 40, 1.0);
+        Path orderFile = tempDir.resolve("Orders/Orders_01012040.txt");
+        String originalFile = Files.readString(orderFile);
+
+        // Wood costs more and Texas tax is higher in the new catalog
+        Path products = tempDir.resolve("Products.txt");
+        Path taxes = tempDir.resolve("Taxes.txt");
+        Files.writeString(products, Files.readString(Path.of("Data/Products.txt"))
+                .replace("Wood,5.15,4.75", "Wood,6.05,4.75"));
+        Files.writeString(taxes, Files.readString(Path.of("Data/Taxes.txt"))
+                .replace("TX,Texas,6.250", "TX,Texas,7.000"));
+        FileDao fileDao = new FileDaoImpl(orderDirectory, tempDir.resolve("Export.txt").toString());
+        CatalogCache catalog = new CatalogCache(fileDao, products.toString(), taxes.toString());
+        OrderCache orderCache = new OrderCache();
+        OrderDao orderDao = new OrderDaoImpl(fileDao, catalog, orderCache);
+        OrderRepricer repricer = new OrderRepricer(fileDao, catalog, orderCache);
+
+        StringWriter report = new StringWriter();
+        RepriceSummary dryRun = repricer.reprice(null, true, report);
+        assertEquals(160, dryRun.getOrderCount(), "Every order should be read.");
+        assertTrue(dryRun.getChangedOrderCount() > 0, "Some orders should change.");
+        assertEquals(originalFile, Files.readString(orderFile),
+                "Dry run should not change Order files.");
+        assertTrue(report.toString().contains(",CostPerSquareFoot,5.15,6.05"),
+                "Report should list changed costs.");
+
+        // Cache the orders before they are repriced
+        orderDao.getAllOrders(startDate.plusDays(2));
+        RepriceSummary summary = repricer.reprice(startDate.plusDays(1), false, null);
+        assertEquals(120, summary.getOrderCount(), "Only orders from the date should be read.");
+        assertEquals(originalFile, Files.readString(orderFile),
+                "Orders before the date should not change.");
+        for (Order order : orderDao.getAllOrders(startDate.plusDays(2)))
+            assertEquals(orderDao.createEditedOrder(order, order.getCustomerName(),
+                            order.getState(), order.getProductType(), order.getArea()),
+                    order, "Repriced order should be priced like an edited order.");
+
+        assertEquals(dryRun.getChangedOrderCount() - summary.getChangedOrderCount(),
+                repricer.reprice(null, false, null).getChangedOrderCount(),
+                "Only the first day should be left to reprice.");
+        assertEquals(0, repricer.reprice(null, true, null).getChangedOrderCount(),
+                "Repriced orders should not change again.");
+    }
+
+    /**
+     * Tests that Order files converted to the binary format read back
+     * unchanged, can be added to, edited, and removed from through
+     * BinaryFileDaoImpl, and convert back to the same CSV Order file.
+     * @param tempDir temporary directory for the converted Order files
+     */
+    @Test
+    void testBinaryOrderStorage(@TempDir Path tempDir) throws PersistenceException,
+            IOException {
+        LocalDate date = LocalDate.of(2050, 1, 1);
+        FileDao csvDao = new FileDaoImpl("TestOrderFiles",
+                "TestExportFile/DataExportTest.txt");
+        FileDao binaryDao = new BinaryFileDaoImpl(tempDir.resolve("Binary").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+
+        assertEquals(1, OrderFileConverter.convert(csvDao, binaryDao),
+                "One order should be converted.");
+        assertEquals(csvDao.readOrderFile(date), binaryDao.readOrderFile(date),
+                "Binary order file should read back the same orders.");
+
+        OrderDao orderDao = new OrderDaoImpl(binaryDao, new CatalogCache(), new OrderCache());
+        Order newOrder = orderDao.createNewOrder("Doe, Jane", "TX", "Tile",
+                new BigDecimal("101.5"));
+        assertEquals(2, newOrder.getOrderNumber(), "Next order number should be 2.");
+        orderDao.addNewOrderToFile(date, newOrder);
+
+        Order editedOrder = orderDao.createEditedOrder(newOrder, "Doe, Jane",
+                "TX", "Wood", new BigDecimal("101.5"));
+        orderDao.writeEditOrder(date, newOrder, editedOrder);
+        assertEquals(editedOrder, orderDao.getOrder(2, date),
+                "Edited order should be read back from the binary file.");
+
+        orderDao.removeOrder(date, editedOrder);
+        assertEquals(1, orderDao.getAllOrders(date).size(), "One order should remain.");
+
+        FileDao csvCopyDao = new FileDaoImpl(tempDir.resolve("Csv").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        OrderFileConverter.convert(binaryDao, csvCopyDao);
+        assertEquals(Files.readString(Path.of("TestOrderFiles/Orders_01012050.txt")),
+                Files.readString(tempDir.resolve("Csv/Orders_01012050.txt")),
+                "Converting back should write the same CSV order file.");
+    }
+
+    /**
+     * Tests that new Orders are appended to a binary Order file as
+     * segments, that a segment cut short by an interrupted append is
+     * ignored and then overwritten, and that the segments are merged once
+     * there are too many.
+     * @param tempDir temporary directory for the binary Order files
+     */
+    @Test
+    void testBinaryOrderAppends(@TempDir Path tempDir) throws PersistenceException,
+            IOException {
+        LocalDate date = LocalDate.of(2050, 1, 1);
+        Path orderDirectory = tempDir.resolve("Binary");
+        Path orderFile = orderDirectory.resolve("Orders_01012050.bin");
+        String exportFile = tempDir.resolve("DataExport.txt").toString();
+        FileDao binaryDao = new BinaryFileDaoImpl(orderDirectory.toString(), exportFile);
+        List<Order> expected = new ArrayList<>(new FileDaoImpl("TestOrderFiles",
+                "TestExportFile/DataExportTest.txt").readOrderFile(date));
+
+        binaryDao.writeOrderFile(date, expected);
+        long length = Files.size(orderFile);
+        Order order = expected.get(0);
+        for (int number = 2; number <= 4; number++) {
+            Order newOrder = new Order(number, "Customer " + number, order.getState(),
+                    order.getTaxRate(), order.getProductType(), order.getArea(),
+                    order.getCostPerSquareFoot(), order.getLaborCostPerSquareFoot(),
+                    order.getMaterialCost(), order.getLaborCost(), order.getTax(),
+                    order.getTotal());
+            binaryDao.writeNewOrder(date, newOrder);
+            expected.add(newOrder);
+        }
+        try (FileChannel channel = FileChannel.open(orderFile, StandardOpenOption.READ)) {
+            assertEquals(length, BinaryOrderFile.readSegments(channel).get(1).position,
+                    "Appends should not rewrite the earlier orders.");
+            assertEquals(4, BinaryOrderFile.readSegments(channel).size(),
+                    "Each append should add one segment.");
+        }
+        assertEquals(expected, binaryDao.readOrderFile(date),
+                "Appended orders should read back in order.");
+
+        // Half of another segment, as an interrupted append leaves it
+        byte[] segment = BinaryOrderFile.encode(List.of(order)).array();
+        Files.write(orderFile, Arrays.copyOf(segment, segment.length / 2),
+                StandardOpenOption.APPEND);
+        FileDao reopenedDao = new BinaryFileDaoImpl(orderDirectory.toString(), exportFile);
+        assertEquals(expected, reopenedDao.readOrderFile(date),
+                "A cut short segment should be ignored.");
+        assertEquals(expected.size() + 1, reopenedDao.generateNewOrderNum(),
+                "Order numbers should be read from every segment.");
+
+        for (int i = 0; i < 40; i++) {
+            Order newOrder = reopenedDao.readOrderFile(date).get(1);
+            reopenedDao.writeNewOrder(date, newOrder);
+            expected.add(newOrder);
+        }
+        try (FileChannel channel = FileChannel.open(orderFile, StandardOpenOption.READ)) {
+            assertTrue(BinaryOrderFile.readSegments(channel).size() < 40,
+                    "Segments should be merged once there are too many.");
+        }
+        assertEquals(expected, reopenedDao.readOrderFile(date),
+                "Merged and appended orders should read back in order.");
+    }
+
+    /**
+     * Tests that an Order file with \r\n line breaks, a blank line, no line
+     * break at the end, and a quoted UTF-8 customer name reads the same
+     * whether it is memory-mapped or read into a buffer.
+     * @param tempDir temporary directory for the Order file
+     */
+    @Test
+    void testReadOrderFileMappedAndBuffered(@TempDir Path tempDir)
+            throws PersistenceException, IOException {
+        Files.createDirectories(tempDir.resolve("Orders"));
+        Files.writeString(tempDir.resolve("Orders/Orders_01012050.txt"),
+                "OrderNumber,CustomerName,State,TaxRate,ProductType,Area," +
+                "CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax," +
+                "Total\r\n1,\"Zoë \"\"Z\"\", Ltd\",DC,6.000,Wood,750,5.15,4.75,3862.50," +
+                "3562.50,445.50,7870.50\r\n\r\n2,John Doe,TX,4.450,Tile,100.5,3.50," +
+                "4.15,351.75,417.08,34.21,803.04", StandardCharsets.UTF_8);
+
+        LocalDate date = LocalDate.of(2050, 1, 1);
+        String exportFile = tempDir.resolve("DataExport.txt").toString();
+        List<Order> mapped = new FileDaoImpl(tempDir.resolve("Orders").toString(),
+                exportFile, true).readOrderFile(date);
+        List<Order> buffered = new FileDaoImpl(tempDir.resolve("Orders").toString(),
+                exportFile, false).readOrderFile(date);
+
+        assertEquals(2, mapped.size(), "Two orders should be read.");
+        assertEquals("Zoë \"Z\", Ltd", mapped.get(0).getCustomerName(),
+                "Customer name should be unquoted and decoded.");
+        assertEquals(new BigDecimal("100.5"), mapped.get(1).getArea(),
+                "Last line should be read without a line break.");
+        assertEquals(mapped, buffered, "Both read modes should read the same orders.");
+    }
+
+    /**
+     * Tests that orders can be found by customer, State, and Product type,
+     * that the index follows edits and removals, and that a new OrderDaoImpl
+     * loads the same results from the persisted index.
+     */
+    @Test
+    void testFindOrdersByCustomerStateAndProduct() throws PersistenceException {
+        LocalDate date = LocalDate.of(2050, 1, 1);
+        Order johnDoe = testOrderDao.getOrder(1, date);
+        assertEquals(Map.of(date, List.of(johnDoe)),
+                testOrderDao.getOrdersByCustomer("  john   DOE "),
+                "Customer search should ignore case and extra whitespace.");
+
+        Order newOrder = testOrderDao.createNewOrder("Jane Roe", "TX", "Tile",
+                BigDecimal.valueOf(200));
+        testOrderDao.addNewOrderToFile(date, newOrder);
+        assertEquals(Map.of(date, List.of(newOrder)), testOrderDao.getOrdersByState("TX"),
+                "New order should be found by State.");
+
+        Order editedOrder = testOrderDao.createEditedOrder(newOrder, "Jane Roe",
+                "DC", "Wood", BigDecimal.valueOf(200));
+        testOrderDao.writeEditOrder(date, newOrder, editedOrder);
+        assertEquals(Map.of(), testOrderDao.getOrdersByState("TX"),
+                "Edited order should no longer be found by its old State.");
+        assertEquals(Map.of(date, List.of(johnDoe, editedOrder)),
+                testOrderDao.getOrdersByProduct("wood"),
+                "Both orders should be found by Product type.");
+
+        OrderDao reloadedOrderDao = new OrderDaoImpl("TestOrderFiles",
+                "TestExportFile/DataExportTest.txt");
+        assertEquals(Map.of(date, List.of(editedOrder)),
+                reloadedOrderDao.getOrdersByCustomer("Jane Roe"),
+                "Persisted index should find the edited order.");
+
+        testOrderDao.removeOrder(date, editedOrder);
+        assertEquals(Map.of(), testOrderDao.getOrdersByCustomer("Jane Roe"),
+                "Removed order should not be found.");
+    }
+
+    /**
+     * Tests getOrder by order number alone and the IntIntMap behind it.
+     * @throws PersistenceException if unable to read or write test files
+     */
+    @Test
+    void testGetOrderByNumber() throws PersistenceException {
+        LocalDate date = LocalDate.of(2050, 1, 1);
+        assertEquals(testOrderDao.getOrder(1, date), testOrderDao.getOrder(1),
+                "Order should be found without its date.");
+        assertNull(testOrderDao.getOrder(99), "Unknown order number should not be found.");
+
+        Order newOrder = testOrderDao.createNewOrder("Jane Roe", "TX", "Tile",
+                BigDecimal.valueOf(200));
+        testOrderDao.addNewOrderToFile(date, newOrder);
+        assertEquals(newOrder, testOrderDao.getOrder(newOrder.getOrderNumber()),
+                "New order should be found by number.");
+        testOrderDao.removeOrder(date, newOrder);
+        assertNull(testOrderDao.getOrder(newOrder.getOrderNumber()),
+                "Removed order should not be found by number.");
+
+        // Removing keys must not hide keys that probed past them
+        IntIntMap map = new IntIntMap();
+        for (int key = 1; key <= 1000; key++)
+            map.put(key, key * 2);
+        for (int key = 1; key <= 1000; key += 2)
+            assertTrue(map.remove(key), "Key should be removed.");
+        assertEquals(500, map.size(), "Half of the keys should remain.");
+        for (int key = 1; key <= 1000; key++)
+            assertEquals(key % 2 == 0 ? key * 2 : -1, map.get(key, -1),
+                    "Remaining keys should keep their values.");
+    }
+
+    /**
+     * Tests that importOrders numbers a batch of Orders from one block in
+     * date order, appends each date's Orders to its Order file, and prices
+     * them like new Orders.
+     * @param tempDir temporary directory for the Order files
+     */
+    @Test
+    void testImportOrders(@TempDir Path tempDir) throws PersistenceException, IOException {
+        LocalDate firstDate = LocalDate.of(2040, 1, 1);
+        LocalDate secondDate = firstDate.plusDays(1);
+        OrderDao orderDao = new OrderDaoImpl(tempDir.resolve("Orders").toString(),
+                tempDir.resolve("DataExport.txt").toString());
+        Files.createDirectories(tempDir.resolve("Orders"));
+        Order existingOrder = orderDao.createNewOrder("John Doe", "DC", "Wood",
+                BigDecimal.valueOf(750));
+        orderDao.addNewOrderToFile(firstDate, existingOrder);
+
+        List<OrderRequest> requests = List.of(
+                new OrderRequest(secondDate, "Jane Roe", "TX", "Tile", new BigDecimal("120.5")),
+                new OrderRequest(firstDate, "Doe, Jane", "CA", "Carpet", BigDecimal.valueOf(300)),
+                new OrderRequest(secondDate, "Acme Inc.", "WA", "Laminate",
+                        BigDecimal.valueOf(1000)));
+        ImportSummary summary = orderDao.importOrders(requests);
+        assertEquals(3, summary.getOrderCount(), "Every order should be imported.");
+        assertEquals(2, summary.getFileCount(), "Two order files should be written.");
+        assertEquals(2, summary.getFirstOrderNumber(), "Numbers should follow order 1.");
+        assertEquals(4, summary.getLastOrderNumber(), "Three numbers should be reserved.");
+
+        List<Order> firstDay = orderDao.getAllOrders(firstDate);
+        assertEquals(List.of(1, 2), firstDay.stream().map(Order::getOrderNumber).toList(),
+                "Imported order should be appended after the existing order.");
+        List<Order> secondDay = orderDao.getAllOrders(secondDate);
+        assertEquals(List.of(3, 4), secondDay.stream().map(Order::getOrderNumber).toList(),
+                "Orders should be numbered in date order.");
+        for (Order order : secondDay)
+            assertEquals(orderDao.createEditedOrder(order, order.getCustomerName(),
+                            order.getState(), order.getProductType(), order.getArea()),
+                    order, "Imported order should be priced like a new order.");
+        assertEquals("Doe, Jane", orderDao.getOrder(2).getCustomerName(),
+                "Imported order should be found by number.");
+
+        assertThrows(PersistenceException.class, () -> orderDao.importOrders(List.of(
+                new OrderRequest(firstDate, "Jane Roe", "ZZ", "Tile", BigDecimal.TEN))),
+                "Unknown state should not be imported.");
+        assertEquals(5, orderDao.createNewOrder("John Doe", "DC", "Wood",
+                BigDecimal.valueOf(750)).getOrderNumber(), "Next order number should be 5.");
+    }
+
+    /**
+     * Tests that new Orders written by several threads at once are all
+     * appended whole, after a single header row, with every durability of
+     * the append writer.
+     * @param tempDir temporary directory for the Order files
+     */
+    @Test
+    void testConcurrentAppendsWithEachDurability(@TempDir Path tempDir)
+            throws PersistenceException, IOException, InterruptedException {
+        CatalogCache.Snapshot catalog = new CatalogCache().getSnapshot();
+        State state = catalog.getState("TX");
+        Product product = catalog.getProduct("Tile");
+        LocalDate date = LocalDate.of(2040, 1, 1);
+        int threadCount = 4;
+        int ordersPerThread = 50;
+
+        for (OrderAppendWriter.Durability durability : OrderAppendWriter.Durability.values()) {
+            Path orderDirectory = Files.createDirectories(tempDir.resolve(durability.name()));
+            FileDao fileDao = new FileDaoImpl(orderDirectory.toString(),
+                    tempDir.resolve("DataExport.txt").toString(), durability);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+            List<Future<Void>> results = new ArrayList<>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                int firstOrderNumber = thread * ordersPerThread + 1;
+                results.add(executor.submit(() -> {
+                    for (int n = firstOrderNumber; n < firstOrderNumber + ordersPerThread; n++) {
+                        Order order = new Order("Customer " + n, "TX", "Tile",
+                                BigDecimal.valueOf(100 + n));
+                        OrderDaoImpl.priceOrder(order, state, product);
+                        order.setOrderNumber(n);
+                        fileDao.writeNewOrder(date, order);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    fail("Append should not fail with " + durability + ": " + e.getCause());
+                }
+            }
+            executor.shutdown();
+
+            List<Order> orders = fileDao.readOrderFile(date);
+            assertEquals(threadCount * ordersPerThread, orders.size(),
+                    "Every order should be appended with " + durability + ".");
+            assertEquals(threadCount * ordersPerThread,
+                    orders.stream().mapToInt(Order::getOrderNumber).distinct().count(),
+                    "Every order should be appended once with " + durability + ".");
+            String contents = Files.readString(orderDirectory.resolve("Orders_01012040.txt"));
+            assertEquals(contents.indexOf("OrderNumber,"), contents.lastIndexOf("OrderNumber,"),
+                    "Header should be written once with " + durability + ".");
+        }
+    }
+
+    /**
+     * Tests that an append whose listener throws fails on its own, and the
+     * append writer keeps writing the appends queued after it.
+     * @param tempDir temporary directory for the journal and Order file
+     */
+    @Test
+    void testAppendWriterSurvivesFailingListener(@TempDir Path tempDir) throws IOException {
+        Path orderFile = tempDir.resolve("Orders_01012040.txt");
+        Lock lock = new ReentrantLock();
+        OrderAppendWriter writer = new OrderAppendWriter(
+                new OrderJournal(tempDir.resolve("appends.journal")), date -> orderFile.toFile(),
+                date -> lock, "Header\n".getBytes(StandardCharsets.UTF_8),
+                OrderAppendWriter.Durability.SYNC, 2);
+        LocalDate date = LocalDate.of(2040, 1, 1);
+
+        IOException failure = assertThrows(IOException.class, () -> writer.append(date,
+                "1,First\n".getBytes(StandardCharsets.UTF_8),
+                (lengthBefore, modifiedBefore, modifiedAfter) -> {
+                    throw new IllegalStateException("Listener failed");
+                }));
+        assertInstanceOf(IllegalStateException.class, failure.getCause(),
+                "Append should fail with the listener's exception.");
+
+        assertEquals(15, writer.append(date, "2,Second\n".getBytes(StandardCharsets.UTF_8),
+                null), "Later append should still be written after the first.");
+        assertEquals("Header\n1,First\n2,Second\n", Files.readString(orderFile),
+                "Both appends should be in the Order file.");
+    }
+
+    /**
+     * Stress tests OrderDaoImpl and FileDaoImpl with many threads adding,
+     * editing, and removing Orders on the same and different dates at once,
+     * checking that no order number is handed out twice, no change is lost,
+     * and the OrderCache never keeps Orders older than the Order files.
+     * @param tempDir temporary directory for the Order files
+     */
+    @Test
+    void testConcurrentOrderChanges(@TempDir Path tempDir) throws PersistenceException,
+            IOException, InterruptedException {
+        String orderDirectory = Files.createDirectories(tempDir.resolve("Orders")).toString();
+        String exportFile = tempDir.resolve("DataExport.txt").toString();
+        OrderDao orderDao = new OrderDaoImpl(new FileDaoImpl(orderDirectory, exportFile,
+                OrderAppendWriter.Durability.BATCHED), new CatalogCache(), new OrderCache());
+        LocalDate startDate = LocalDate.of(2040, 1, 1);
+        int threadCount = 8;
+        int ordersPerThread = 60;
+        int dayCount = 3;
+
+        // Order number to the customer name the Order should end with
+        Map<Integer, String> expected = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Void>> results = new ArrayList<>();
+        for (int thread = 0; thread < threadCount; thread++) {
+            int threadNumber = thread;
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < ordersPerThread; i++) {
+                    LocalDate date = startDate.plusDays(i % dayCount);
+                    Order order = orderDao.createNewOrder("Thread " + threadNumber, "TX",
+                            "Tile", BigDecimal.valueOf(100 + i));
+                    assertNull(expected.put(order.getOrderNumber(), order.getCustomerName()),
+                            "Order number should not be handed out twice.");
+                    orderDao.addNewOrderToFile(date, order);
+
+                    if (i % 5 == 1) {
+                        Order edited = orderDao.createEditedOrder(order, "Edited "
+                                + threadNumber, "WA", "Wood", BigDecimal.valueOf(200 + i));
+                        orderDao.writeEditOrder(date, order, edited);
+                        expected.put(order.getOrderNumber(), edited.getCustomerName());
+                    } else if (i % 5 == 3) {
+                        orderDao.removeOrder(date, order);
+                        expected.remove(order.getOrderNumber());
+                    }
+                    // Read the date back, caching it between other threads' changes
+                    Order readBack = orderDao.getOrder(order.getOrderNumber(), date);
+                    assertEquals(expected.get(order.getOrderNumber()),
+                            readBack == null ? null : readBack.getCustomerName(),
+                            "Order should read back as it was last written.");
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                throw new AssertionError("Concurrent change failed.", e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        OrderDao reloadedOrderDao = new OrderDaoImpl(orderDirectory, exportFile);
+        Map<Integer, String> cached = new HashMap<>();
+        Map<Integer, String> stored = new HashMap<>();
+        for (int day = 0; day < dayCount; day++) {
+            for (Order order : orderDao.getAllOrders(startDate.plusDays(day)))
+                assertNull(cached.put(order.getOrderNumber(), order.getCustomerName()),
+                        "Order should be stored once.");
+            for (Order order : reloadedOrderDao.getAllOrders(startDate.plusDays(day)))
+                stored.put(order.getOrderNumber(), order.getCustomerName());
+        }
+        assertEquals(expected, stored, "No change should be lost.");
+        assertEquals(stored, cached, "Cached orders should match the Order files.");
+    }
+
+    /**
+     * Tests that changes recorded while the OrderIndex loads do not wait
+     * for it to read the Order files, and are in the index it publishes.
+     * @param tempDir temporary directory for the Order files and index
+     */
+    @Test
+    void testOrderIndexLoadDoesNotBlockChanges(@TempDir Path tempDir) throws IOException,
+            InterruptedException, ExecutionException {
+        Path orderDirectory = Files.createDirectories(tempDir.resolve("Orders"));
+        Files.copy(Path.of("TestOrderFiles/Orders_01012050.txt"),
+                orderDirectory.resolve("Orders_01012050.txt"));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FileDao fileDao = new FileDaoImpl(orderDirectory.toString(),
+                tempDir.resolve("DataExport.txt").toString()) {
+            @Override
+            public List<Order> readOrderFile(LocalDate date) throws PersistenceException {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new PersistenceException("Interrupted reading Order file.", e);
+                }
+                return super.readOrderFile(date);
+            }
+        };
+        OrderIndex index = new OrderIndex(tempDir.resolve("Index"), fileDao,
+                date -> orderDirectory.resolve("Orders_"
+                        + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt")
+                        .toFile());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<NavigableMap<LocalDate, List<Integer>>> found = executor.submit(() ->
+                index.find(OrderIndex.Field.CUSTOMER, "Jane Roe"));
+        reading.await();
+
+        // The index is reading an Order file; a change to another date goes through
+        LocalDate otherDate = LocalDate.of(2050, 1, 2);
+        Order order = new Order(2);
+        order.setCustomerName("Jane Roe");
+        order.setState("TX");
+        order.setProductType("Tile");
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            index.beforeChange(otherDate);
+            index.orderWritten(otherDate, order, 1, 1);
+        }, "Changes should not wait for the index to load.");
+
+        release.countDown();
+        assertEquals(Map.of(otherDate, List.of(2)), found.get(),
+                "A change recorded while loading should be in the loaded index.");
+        executor.shutdown();
+    }
+
+    /**
+     * Tests that fixed-point pricing, parsing, and formatting give the same
+     * results as the BigDecimal calculations they replaced, for random
+     * costs, tax rates, and areas, including values too large for a long.
+     */
+    @Test
+    void testFixedPointMatchesBigDecimal() {
+        Random random = new Random(15);
+        CsvTokenizer tokenizer = new CsvTokenizer();
+
+        for (int i = 0; i < 100_000; i++) {
+            long costCents = random.nextInt(1_000_000);
+            long laborCents = random.nextInt(1_000_000);
+            long taxRate = random.nextInt(100_000);
+            int areaScale = random.nextInt(6);
+            long area = i % 1000 == 0 ? Long.MAX_VALUE / (1 + random.nextInt(100))
+                    : random.nextInt(1_000_000_000);
+            BigDecimal cost = BigDecimal.valueOf(costCents, 2);
+            BigDecimal labor = BigDecimal.valueOf(laborCents, 2);
+            BigDecimal rate = BigDecimal.valueOf(taxRate, 3);
+            BigDecimal areaValue = BigDecimal.valueOf(area, areaScale);
+
+            // Calculations as they were done with BigDecimal
+            BigDecimal materialCost = cost.multiply(areaValue).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal laborCost = labor.multiply(areaValue).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal tax = rate.multiply(BigDecimal.valueOf(0.01))
+                    .multiply(materialCost.add(laborCost))
+                    .setScale(2, RoundingMode.HALF_UP);
+            BigDecimal total = tax.add(materialCost).add(laborCost);
+            String inputs = cost + " and " + labor + " * " + areaValue + " at " + rate;
+
+            // Results too large for a long must fail rather than overflow
+            long materialCents;
+            long laborCostCents;
+            long taxCents;
+            long totalCents;
+            try {
+                materialCents = OrderDaoImpl.calculateMaterialCost(costCents, area, areaScale);
+                laborCostCents = OrderDaoImpl.calculateLaborCost(laborCents, area, areaScale);
+                taxCents = OrderDaoImpl.calculateTax(taxRate, materialCents, laborCostCents);
+                totalCents = OrderDaoImpl.calculateTotal(taxCents, materialCents, laborCostCents);
+            } catch (ArithmeticException e) {
+                assertTrue(total.unscaledValue().bitLength() > 62,
+                        "Only results too large for a long may fail: " + inputs);
+                continue;
+            }
+            assertEquals(materialCost, BigDecimal.valueOf(materialCents, 2),
+                    "Material cost should match: " + inputs);
+            assertEquals(laborCost, BigDecimal.valueOf(laborCostCents, 2),
+                    "Labor cost should match: " + inputs);
+            assertEquals(tax, BigDecimal.valueOf(taxCents, 2), "Tax should match: " + inputs);
+            assertEquals(total, BigDecimal.valueOf(totalCents, 2),
+                    "Total should match: " + inputs);
+
+            // Formatting and parsing, including negative values and rounding
+            long unscaled = random.nextBoolean() ? area : -area;
+            BigDecimal value = BigDecimal.valueOf(unscaled, areaScale);
+            assertEquals(value.toPlainString(), Money.toString(unscaled, areaScale),
+                    "Formatting should match BigDecimal.");
+            assertEquals(value.setScale(2, RoundingMode.HALF_UP),
+                    BigDecimal.valueOf(tokenizer.reset(value.toPlainString()).nextFixed(2), 2),
+                    "Parsing should round like BigDecimal: " + value);
+        }
+    }
 }
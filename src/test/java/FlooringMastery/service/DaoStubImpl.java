@@ -1,8 +1,12 @@
 package FlooringMastery.service;
 
+import FlooringMastery.dao.ExportSummary;
+import FlooringMastery.dao.ImportSummary;
 import FlooringMastery.dao.OrderDao;
 import FlooringMastery.dao.PersistenceException;
+import FlooringMastery.dao.SalesReport;
 import FlooringMastery.model.Order;
+import FlooringMastery.model.OrderRequest;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -10,6 +14,9 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class DaoStubImpl implements OrderDao {
     public Order onlyOrder;
@@ -47,6 +54,14 @@ public class DaoStubImpl implements OrderDao {
             return null;
     }
 
+    @Override
+    public Order getOrder(int orderNumber) throws PersistenceException {
+        if (orderNumber == onlyOrder.getOrderNumber())
+            return onlyOrder;
+        else
+            return null;
+    }
+
     @Override
     public List<Order> getAllOrders(LocalDate dateEntered)
             throws PersistenceException {
@@ -55,6 +70,15 @@ public class DaoStubImpl implements OrderDao {
         return orderList;
     }
 
+    @Override
+    public Stream<Order> getOrders(LocalDate fromDate, LocalDate toDate,
+                                   Predicate<Order> filter) throws PersistenceException {
+        if ((fromDate != null && fromDate.isAfter(testOrderDate))
+                || (toDate != null && toDate.isBefore(testOrderDate)))
+            return Stream.empty();
+        return Stream.of(onlyOrder).filter(filter);
+    }
+
     @Override
     public Order createNewOrder(String newCustomerName, String newOrderState,
                                 String productType, BigDecimal newOrderArea)
@@ -73,6 +97,12 @@ public class DaoStubImpl implements OrderDao {
             throws PersistenceException {
     }
 
+    @Override
+    public ImportSummary importOrders(List<OrderRequest> requests)
+            throws PersistenceException {
+        return new ImportSummary(requests.size(), 1, onlyOrder.getOrderNumber() + 1, 0);
+    }
+
     @Override
     public Order createEditedOrder(Order order, String newName, String newState,
                                    String newProductType, BigDecimal newArea)
@@ -111,6 +141,39 @@ public class DaoStubImpl implements OrderDao {
     }
 
     @Override
-    public void exportAllData() throws PersistenceException {
+    public ExportSummary exportAllData() throws PersistenceException {
+        return new ExportSummary(1, 1, 0, 0);
+    }
+
+    @Override
+    public ExportSummary exportChangedData() throws PersistenceException {
+        return new ExportSummary(1, 0, 1, 0, 0);
+    }
+
+    @Override
+    public SalesReport getSalesReport(SalesReport.Grouping grouping, LocalDate fromDate,
+                                      LocalDate toDate) throws PersistenceException {
+        return new SalesReport(grouping, Map.of(), 1, 0);
+    }
+
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByCustomer(String customerName)
+            throws PersistenceException {
+        return customerName.equalsIgnoreCase(onlyOrder.getCustomerName())
+                ? Map.of(testOrderDate, List.of(onlyOrder)) : Map.of();
+    }
+
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByState(String stateAbbr)
+            throws PersistenceException {
+        return stateAbbr.equalsIgnoreCase(onlyOrder.getState())
+                ? Map.of(testOrderDate, List.of(onlyOrder)) : Map.of();
+    }
+
+    @Override
+    public Map<LocalDate, List<Order>> getOrdersByProduct(String productType)
+            throws PersistenceException {
+        return productType.equalsIgnoreCase(onlyOrder.getProductType())
+                ? Map.of(testOrderDate, List.of(onlyOrder)) : Map.of();
     }
 }